@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.Facebook;
+import com.restfb.types.Album;
+import com.restfb.types.Comment;
+import com.restfb.types.Event;
+import com.restfb.types.Photo;
+import com.restfb.types.Post;
+import com.restfb.types.User;
+import com.restfb.util.ReflectionUtils;
+
+/**
+ * Measures {@link ReflectionUtils#findFieldsWithAnnotation(Class, Class)}
+ * under contention, compared with the {@code Collections.synchronizedMap}
+ * cache it used to be backed by.
+ * <p>
+ * Runs on 8 threads by default; pass e.g. {@code -t 32} for more.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class AnnotationCacheBenchmark {
+  /**
+   * Types to look up, round-robin.
+   */
+  private static final Class<?>[] TYPES = { Post.class, User.class, Comment.class, Photo.class, Album.class,
+      Event.class };
+
+  /**
+   * The previous cache: one global, synchronized map keyed by class and
+   * annotation type.
+   */
+  private static final Map<List<Class<?>>, List<?>> SYNCHRONIZED_CACHE =
+      synchronizedMap(new HashMap<List<Class<?>>, List<?>>());
+
+  /**
+   * This thread's position in {@link #TYPES}.
+   */
+  private int next;
+
+  /**
+   * Looks up the next type through {@link ReflectionUtils}' cache.
+   * 
+   * @return The type's {@code @Facebook}-annotated fields.
+   */
+  @Benchmark
+  public List<?> reflectionUtils() {
+    return ReflectionUtils.findFieldsWithAnnotation(nextType(), Facebook.class);
+  }
+
+  /**
+   * Looks up the next type through the synchronized baseline.
+   * 
+   * @return The type's {@code @Facebook}-annotated fields.
+   */
+  @Benchmark
+  public List<?> synchronizedCache() {
+    Class<?> type = nextType();
+    List<Class<?>> cacheKey = new ArrayList<Class<?>>(2);
+    cacheKey.add(type);
+    cacheKey.add(Facebook.class);
+
+    List<?> cachedResults = SYNCHRONIZED_CACHE.get(cacheKey);
+
+    if (cachedResults == null) {
+      cachedResults = ReflectionUtils.findFieldsWithAnnotation(type, Facebook.class);
+      SYNCHRONIZED_CACHE.put(cacheKey, cachedResults);
+    }
+
+    return cachedResults;
+  }
+
+  /**
+   * Moves on to the next type.
+   * 
+   * @return The type to look up.
+   */
+  private Class<?> nextType() {
+    next = next == TYPES.length - 1 ? 0 : next + 1;
+    return TYPES[next];
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.util.DateUtils;
+
+/**
+ * Parses Facebook date strings with {@link DateUtils}, both a stream of
+ * distinct timestamps and the same timestamp over and over (as when every post
+ * on a page has the same {@code updated_time}).
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParsingBenchmark {
+  /**
+   * Number of distinct timestamps cycled through; a power of two.
+   */
+  private static final int DISTINCT_DATES = 4096;
+
+  /**
+   * Distinct long-format timestamps, a minute and a second apart.
+   */
+  private final String[] longDates = new String[DISTINCT_DATES];
+
+  /**
+   * Position in {@link #longDates}.
+   */
+  private int next;
+
+  /**
+   * Builds the timestamps.
+   */
+  public DateParsingBenchmark() {
+    for (int i = 0; i < DISTINCT_DATES; i++)
+      longDates[i] =
+          String.format("2011-%02d-%02dT%02d:%02d:%02d+0000", 1 + i % 12, 1 + i % 28, i % 24, i % 60, (i / 60) % 60);
+  }
+
+  /**
+   * Parses a different long-format timestamp each time.
+   * 
+   * @return The parsed date.
+   */
+  @Benchmark
+  public Date longFormatDistinct() {
+    return DateUtils.toDateFromLongFormat(longDates[next++ & (DISTINCT_DATES - 1)]);
+  }
+
+  /**
+   * Parses the same long-format timestamp each time.
+   * 
+   * @return The parsed date.
+   */
+  @Benchmark
+  public Date longFormatRepeated() {
+    return DateUtils.toDateFromLongFormat("2010-09-14T22:41:25+0000");
+  }
+
+  /**
+   * Parses a short-format date.
+   * 
+   * @return The parsed date.
+   */
+  @Benchmark
+  public Date shortFormat() {
+    return DateUtils.toDateFromShortFormat("09/14/2010");
+  }
+
+  /**
+   * Parses a month-and-year date.
+   * 
+   * @return The parsed date.
+   */
+  @Benchmark
+  public Date monthYearFormat() {
+    return DateUtils.toDateFromMonthYearFormat("2010-09");
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static com.restfb.util.StringUtils.fromInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the RestFB library's JSON test fixtures and scales them up to
+ * realistic response sizes.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class Fixtures {
+  /**
+   * Prevents instantiation.
+   */
+  private Fixtures() {}
+
+  /**
+   * Loads a fixture.
+   * 
+   * @param name
+   *          The fixture's file name, e.g. {@code basic-user.json}.
+   * @return The fixture's JSON.
+   * @throws IllegalStateException
+   *           If the fixture can't be read.
+   */
+  static String load(String name) {
+    InputStream inputStream = Fixtures.class.getResourceAsStream("/json/" + name);
+
+    if (inputStream == null)
+      throw new IllegalStateException("No fixture named '" + name + "'");
+
+    try {
+      return fromInputStream(inputStream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read fixture '" + name + "'", e);
+    }
+  }
+
+  /**
+   * Builds a JSON array holding {@code size} copies of a fixture.
+   * 
+   * @param name
+   *          The fixture's file name.
+   * @param size
+   *          Number of elements in the array.
+   * @return The array's JSON.
+   */
+  static String array(String name, int size) {
+    String element = load(name).trim();
+    StringBuilder json = new StringBuilder(element.length() * size + 2).append('[');
+
+    for (int i = 0; i < size; i++) {
+      if (i > 0)
+        json.append(',');
+      json.append(element);
+    }
+
+    return json.append(']').toString();
+  }
+
+  /**
+   * Builds a connection page, shaped like a Graph API {@code me/home}
+   * response, whose {@code data} array holds {@code size} copies of a fixture.
+   * 
+   * @param name
+   *          The fixture's file name.
+   * @param size
+   *          Number of elements on the page.
+   * @return The page's JSON.
+   */
+  static String page(String name, int size) {
+    return new StringBuilder("{\"data\":").append(array(name, size)).append(",\"paging\":{\"previous\":\"https://graph.facebook.com/me/home?since=1\",")
+      .append("\"next\":\"https://graph.facebook.com/me/home?until=1\"}}").toString();
+  }
+}
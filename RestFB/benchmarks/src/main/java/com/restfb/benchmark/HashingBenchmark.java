@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.DefaultJsonMapper;
+import com.restfb.types.Post;
+import com.restfb.util.ReflectionUtils;
+
+/**
+ * Hashes and compares mapped {@link Post}s with {@link ReflectionUtils}, and
+ * with {@link Post}'s own {@code hashCode}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+  /**
+   * A post mapped from the fixture.
+   */
+  private final Post post;
+
+  /**
+   * An equal post, mapped separately.
+   */
+  private final Post equalPost;
+
+  /**
+   * Maps the posts.
+   */
+  public HashingBenchmark() {
+    DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+    String json = Fixtures.load("post-with-normal-comments.json");
+    post = jsonMapper.toJavaObject(json, Post.class);
+    equalPost = jsonMapper.toJavaObject(json, Post.class);
+  }
+
+  /**
+   * Hashes every accessor's value reflectively.
+   * 
+   * @return The hash code.
+   */
+  @Benchmark
+  public int reflectionHashCode() {
+    return ReflectionUtils.hashCode(post);
+  }
+
+  /**
+   * Compares every accessor's value reflectively.
+   * 
+   * @return Whether the posts are equal.
+   */
+  @Benchmark
+  public boolean reflectionEquals() {
+    return ReflectionUtils.equals(post, equalPost);
+  }
+
+  /**
+   * Hashes with {@link Post#hashCode()}.
+   * 
+   * @return The hash code.
+   */
+  @Benchmark
+  public int postHashCode() {
+    return post.hashCode();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.DefaultJsonMapper;
+import com.restfb.JsonMapper;
+import com.restfb.types.Post;
+import com.restfb.types.User;
+
+/**
+ * Maps the {@link Post} and {@link User} test fixtures, and pages of them, to
+ * Java with {@link DefaultJsonMapper}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMappingBenchmark {
+  /**
+   * The mapper under test.
+   */
+  private final JsonMapper jsonMapper = new DefaultJsonMapper();
+
+  /**
+   * A post with comments, likes and a recipient.
+   */
+  private final String post = Fixtures.load("post-with-normal-comments.json");
+
+  /**
+   * A user with a hometown.
+   */
+  private final String user = Fixtures.load("user-with-hometown-v1.json");
+
+  /**
+   * Pages of fixtures, for the list benchmarks.
+   */
+  @State(Scope.Benchmark)
+  public static class Pages {
+    /**
+     * Elements per page.
+     */
+    @Param({ "25", "100" })
+    public int pageSize;
+
+    /**
+     * A page of posts, as a Graph API connection object.
+     */
+    String posts;
+
+    /**
+     * A page of users, as a bare array.
+     */
+    String users;
+
+    /**
+     * Builds the pages.
+     */
+    @Setup
+    public void setUp() {
+      posts = Fixtures.page("post-with-normal-comments.json", pageSize);
+      users = Fixtures.array("user-with-hometown-v1.json", pageSize);
+    }
+  }
+
+  /**
+   * Maps a post.
+   * 
+   * @return The post.
+   */
+  @Benchmark
+  public Post toJavaObjectPost() {
+    return jsonMapper.toJavaObject(post, Post.class);
+  }
+
+  /**
+   * Maps a user.
+   * 
+   * @return The user.
+   */
+  @Benchmark
+  public User toJavaObjectUser() {
+    return jsonMapper.toJavaObject(user, User.class);
+  }
+
+  /**
+   * Maps a page of posts.
+   * 
+   * @param pages
+   *          The pages.
+   * @return The posts.
+   */
+  @Benchmark
+  public List<Post> toJavaListPosts(Pages pages) {
+    return jsonMapper.toJavaList(pages.posts, Post.class);
+  }
+
+  /**
+   * Maps an array of users.
+   * 
+   * @param pages
+   *          The pages.
+   * @return The users.
+   */
+  @Benchmark
+  public List<User> toJavaListUsers(Pages pages) {
+    return jsonMapper.toJavaList(pages.users, User.class);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonIndex;
+import com.restfb.json.JsonObject;
+
+/**
+ * Parses connection pages built from the test fixtures into a
+ * {@link JsonObject} tree, a {@link JsonArray} tree and a {@link JsonIndex}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParsingBenchmark {
+  /**
+   * Fixture each page element is a copy of.
+   */
+  @Param({ "post-with-normal-comments.json", "user-with-photos.json" })
+  public String fixture;
+
+  /**
+   * Elements per page.
+   */
+  @Param({ "25", "100" })
+  public int pageSize;
+
+  /**
+   * The page as a Graph API connection object.
+   */
+  private String page;
+
+  /**
+   * The page's elements as a bare array.
+   */
+  private String array;
+
+  /**
+   * Builds the page.
+   */
+  @Setup
+  public void setUp() {
+    page = Fixtures.page(fixture, pageSize);
+    array = Fixtures.array(fixture, pageSize);
+  }
+
+  /**
+   * Parses the page into a {@link JsonObject} tree.
+   * 
+   * @return The parsed page.
+   */
+  @Benchmark
+  public JsonObject jsonObject() {
+    return new JsonObject(page);
+  }
+
+  /**
+   * Parses the elements into a {@link JsonArray} tree.
+   * 
+   * @return The parsed elements.
+   */
+  @Benchmark
+  public JsonArray jsonArray() {
+    return new JsonArray(array);
+  }
+
+  /**
+   * Indexes the page.
+   * 
+   * @return The index.
+   */
+  @Benchmark
+  public JsonIndex jsonIndex() {
+    return JsonIndex.parse(page);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.DefaultJsonMapper;
+import com.restfb.Parameter;
+import com.restfb.batch.BatchHeader;
+import com.restfb.batch.BatchRequest;
+import com.restfb.batch.BatchRequest.BatchRequestBuilder;
+
+/**
+ * Serializes lists of {@link BatchRequest}s the way
+ * {@code DefaultFacebookClient.executeBatch} does.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+  /**
+   * Requests per batch. Facebook allows up to 50.
+   */
+  @Param({ "10", "50" })
+  public int batchSize;
+
+  /**
+   * The mapper under test.
+   */
+  private final DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+
+  /**
+   * The batch to serialize.
+   */
+  private List<BatchRequest> batchRequests;
+
+  /**
+   * Buffer reused by {@link #toJsonAppendable()}.
+   */
+  private final StringBuilder buffer = new StringBuilder();
+
+  /**
+   * Builds the batch: a mix of reads with parameters and headers, and
+   * publishes with a body.
+   */
+  @Setup
+  public void setUp() {
+    batchRequests = new ArrayList<BatchRequest>(batchSize);
+
+    for (int i = 0; i < batchSize; i++)
+      if (i % 3 == 2)
+        batchRequests.add(new BatchRequestBuilder("me/feed").method("POST")
+          .body(Parameter.with("message", "Batched post " + i), Parameter.with("link", "http://restfb.com")).build());
+      else
+        batchRequests.add(new BatchRequestBuilder(i + "/feed")
+          .parameters(Parameter.with("fields", "id,message,from,created_time"), Parameter.with("limit", 25))
+          .headers(new BatchHeader("If-None-Match", "\"etag-" + i + "\"")).omitResponseOnSuccess(false).build());
+  }
+
+  /**
+   * Serializes the batch.
+   * 
+   * @return The batch's JSON.
+   */
+  @Benchmark
+  public String toJson() {
+    return jsonMapper.toJson(batchRequests, true);
+  }
+
+  /**
+   * Serializes the batch into a reused buffer.
+   * 
+   * @return The buffer.
+   * @throws IOException
+   *           Never, since the buffer is a {@code StringBuilder}.
+   */
+  @Benchmark
+  public StringBuilder toJsonAppendable() throws IOException {
+    buffer.setLength(0);
+    jsonMapper.toJson(batchRequests, true, buffer);
+    return buffer;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.DefaultFacebookClient;
+import com.restfb.Parameter;
+
+/**
+ * Builds a typical Graph API query string - a handful of parameters plus the
+ * client's access token - with {@code DefaultFacebookClient.toParameterString}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterStringBenchmark {
+  /**
+   * The client under test.
+   */
+  private final ExposedFacebookClient facebookClient = new ExposedFacebookClient(
+    "120637447957312|2.AQBNvh4EELqrvXnV.3600.1318896000.1-100001234567890|Jv2gN4mhu2pyhVzJ0d7Ksl9Y4a0");
+
+  /**
+   * Parameters for a typical search.
+   */
+  private final Parameter[] parameters = { Parameter.with("fields", "id,name,message,created_time,from"),
+      Parameter.with("limit", 25), Parameter.with("since", "2011-10-18T00:00:00+0000"),
+      Parameter.with("q", "coffee shops") };
+
+  /**
+   * Builds the query string.
+   * 
+   * @return The query string.
+   */
+  @Benchmark
+  public String toParameterString() {
+    return facebookClient.toParameterString(parameters);
+  }
+
+  /**
+   * Makes the client's query string building visible to the benchmark.
+   */
+  static class ExposedFacebookClient extends DefaultFacebookClient {
+    /**
+     * Creates a client with the given access token.
+     * 
+     * @param accessToken
+     *          The access token.
+     */
+    ExposedFacebookClient(String accessToken) {
+      super(accessToken);
+    }
+
+    /**
+     * @see com.restfb.DefaultFacebookClient#toParameterString(com.restfb.Parameter[])
+     */
+    @Override
+    protected String toParameterString(Parameter... parameters) {
+      return super.toParameterString(parameters);
+    }
+  }
+}
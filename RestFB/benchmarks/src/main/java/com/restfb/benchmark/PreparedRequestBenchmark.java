@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.logging.Level.WARNING;
+
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.restfb.BinaryAttachment;
+import com.restfb.DefaultFacebookClient;
+import com.restfb.DefaultJsonMapper;
+import com.restfb.Parameter;
+import com.restfb.PreparedRequest;
+import com.restfb.WebRequestor;
+import com.restfb.types.NamedFacebookType;
+
+/**
+ * Measures the client-side cost of a {@code fetchObject} call made ad hoc and
+ * through a {@link PreparedRequest}, against a {@link WebRequestor} that
+ * answers instantly.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreparedRequestBenchmark {
+  static {
+    // Otherwise we'd mostly be measuring response logging
+    Logger.getLogger("com.restfb").setLevel(WARNING);
+  }
+
+  /**
+   * The client under test.
+   */
+  private final DefaultFacebookClient facebookClient = new DefaultFacebookClient("123|abc",
+    new InstantWebRequestor("{\"id\":\"1\",\"name\":\"Fred\"}"), new DefaultJsonMapper());
+
+  /**
+   * The same call as {@link #adHoc()}, prepared once.
+   */
+  private final PreparedRequest<NamedFacebookType> preparedRequest = facebookClient.prepareFetchObject("{id}",
+    NamedFacebookType.class, null, Parameter.with("since", "{since}"), Parameter.with("limit", 25));
+
+  /**
+   * Builds, validates and encodes the call from scratch.
+   * 
+   * @return The mapped response.
+   */
+  @Benchmark
+  public NamedFacebookType adHoc() {
+    return facebookClient.fetchObject("12345", NamedFacebookType.class, Parameter.with("since", "1318896000"),
+      Parameter.with("limit", 25));
+  }
+
+  /**
+   * Fills in the prepared call's placeholders.
+   * 
+   * @return The mapped response.
+   */
+  @Benchmark
+  public NamedFacebookType prepared() {
+    return preparedRequest.execute("12345", "1318896000");
+  }
+
+  /**
+   * A {@link WebRequestor} that answers every request with the same body,
+   * without touching the network.
+   */
+  static class InstantWebRequestor implements WebRequestor {
+    /**
+     * The canned response.
+     */
+    private final Response response;
+
+    /**
+     * Creates a requestor that always answers with {@code body}.
+     * 
+     * @param body
+     *          The response body.
+     */
+    InstantWebRequestor(String body) {
+      response = new Response(200, body);
+    }
+
+    /**
+     * @see com.restfb.WebRequestor#executeGet(java.lang.String)
+     */
+    @Override
+    public Response executeGet(String url) {
+      return response;
+    }
+
+    /**
+     * @see com.restfb.WebRequestor#executePost(java.lang.String, java.lang.String)
+     */
+    @Override
+    public Response executePost(String url, String parameters) {
+      return response;
+    }
+
+    /**
+     * @see com.restfb.WebRequestor#executePost(java.lang.String, java.lang.String,
+     *      com.restfb.BinaryAttachment[])
+     */
+    @Override
+    public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments) {
+      return response;
+    }
+  }
+}
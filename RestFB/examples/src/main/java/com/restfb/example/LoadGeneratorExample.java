@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.example;
+
+import static java.lang.String.format;
+import static java.lang.System.out;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.restfb.Connection;
+import com.restfb.DefaultFacebookClient;
+import com.restfb.DefaultJsonMapper;
+import com.restfb.FacebookClient;
+import com.restfb.Parameter;
+import com.restfb.batch.BatchRequest.BatchRequestBuilder;
+import com.restfb.batch.BatchResponse;
+import com.restfb.exception.FacebookGraphException;
+import com.restfb.simulator.GraphSimulator;
+import com.restfb.simulator.LatencyDistribution;
+import com.restfb.types.FacebookType;
+import com.restfb.types.Page;
+import com.restfb.types.Post;
+import com.restfb.types.User;
+import com.restfb.util.LatencyHistogram;
+
+/**
+ * A load generator that drives a {@link FacebookClient} with concurrent workers
+ * against a local {@link GraphSimulator} and reports throughput, latency
+ * percentiles and allocation per operation. Useful for capacity planning
+ * before rolling out a new version.
+ * <p>
+ * Workers run a weighted mix of operations: fetching an object, paging
+ * through a connection, executing a batch and publishing. Everything is
+ * configured with system properties:
+ * <ul>
+ * <li>{@code workers} - number of concurrent workers (default {@code 8})</li>
+ * <li>{@code warmup} - seconds to run before measuring (default {@code 5})</li>
+ * <li>{@code duration} - seconds to measure (default {@code 30})</li>
+ * <li>{@code mix} - operation weights (default
+ * {@code fetchObject:50,fetchConnection:20,batch:15,publish:15})</li>
+ * <li>{@code latency} - simulated server latency: {@code none},
+ * {@code fixed:<ms>}, {@code uniform:<min ms>:<max ms>} or
+ * {@code logNormal:<median ms>:<p99 ms>} (default {@code none})</li>
+ * <li>{@code errorRate} - chance of a request starting a burst of 5 server
+ * errors (default {@code 0})</li>
+ * <li>{@code seed} - random seed for the mix and the simulator (default
+ * {@code 1})</li>
+ * </ul>
+ * Allocation is measured on the worker threads, so it covers the client (JSON
+ * mapping and the web requestor) but not the simulator.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class LoadGeneratorExample {
+  /**
+   * Number of posts in the connection that workers page through.
+   */
+  private static final int CONNECTION_SIZE = 100;
+
+  /**
+   * Page size used when paging through the connection.
+   */
+  private static final int PAGE_SIZE = 25;
+
+  /**
+   * Operations the workers run.
+   */
+  enum Operation {
+    FETCH_OBJECT("fetchObject") {
+      @Override
+      void run(FacebookClient facebookClient) {
+        facebookClient.fetchObject("cocacola", Page.class);
+      }
+    },
+
+    FETCH_CONNECTION("fetchConnection") {
+      @Override
+      void run(FacebookClient facebookClient) {
+        Connection<Post> posts =
+            facebookClient.fetchConnection("cocacola/posts", Post.class, Parameter.with("limit", PAGE_SIZE));
+        for (List<Post> page : posts)
+          if (page.isEmpty())
+            break;
+      }
+    },
+
+    BATCH("batch") {
+      @Override
+      void run(FacebookClient facebookClient) {
+        List<BatchResponse> responses =
+            facebookClient.executeBatch(new BatchRequestBuilder("me").build(), new BatchRequestBuilder("cocacola")
+              .build(), new BatchRequestBuilder("cocacola/posts?limit=" + PAGE_SIZE).build());
+        for (BatchResponse response : responses)
+          if (response.getCode() != 200)
+            throw new FacebookGraphException("BatchException", response.getBody());
+      }
+    },
+
+    PUBLISH("publish") {
+      @Override
+      void run(FacebookClient facebookClient) {
+        FacebookType post =
+            facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Load test"));
+        facebookClient.deleteObject(post.getId());
+      }
+    };
+
+    /**
+     * Name used in the {@code mix} property and the report.
+     */
+    final String displayName;
+
+    /**
+     * Creates an operation.
+     * 
+     * @param displayName
+     *          Name used in the {@code mix} property and the report.
+     */
+    Operation(String displayName) {
+      this.displayName = displayName;
+    }
+
+    /**
+     * Runs the operation once.
+     * 
+     * @param facebookClient
+     *          The client under test.
+     */
+    abstract void run(FacebookClient facebookClient);
+
+    /**
+     * Looks up an operation by its display name.
+     * 
+     * @param displayName
+     *          Name used in the {@code mix} property.
+     * @return The operation.
+     * @throws IllegalArgumentException
+     *           If there's no such operation.
+     */
+    static Operation forDisplayName(String displayName) {
+      for (Operation operation : values())
+        if (operation.displayName.equals(displayName))
+          return operation;
+      throw new IllegalArgumentException("Unknown operation '" + displayName + "' in mix.");
+    }
+  }
+
+  /**
+   * Measurements for one operation, shared by all workers.
+   */
+  static class OperationStats {
+    /**
+     * Latencies in nanoseconds.
+     */
+    final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Number of failed operations.
+     */
+    final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Bytes allocated by the workers while running the operation.
+     */
+    final AtomicLong allocatedBytes = new AtomicLong();
+  }
+
+  /**
+   * RestFB's loggers. Held so their level sticks; loggers are only weakly
+   * referenced by the {@code LogManager}.
+   */
+  private static final Logger restfbLogger = Logger.getLogger("com.restfb");
+
+  /**
+   * The simulated Graph API.
+   */
+  private final GraphSimulator simulator;
+
+  /**
+   * The client under test.
+   */
+  private final FacebookClient facebookClient;
+
+  /**
+   * Operations to run, one entry per unit of weight.
+   */
+  private final Operation[] mix;
+
+  /**
+   * Number of concurrent workers.
+   */
+  private final int workers;
+
+  /**
+   * Random seed.
+   */
+  private final long seed;
+
+  /**
+   * Measures allocation on worker threads, or {@code null} if the JVM can't.
+   */
+  private final com.sun.management.ThreadMXBean allocationMXBean;
+
+  /**
+   * Entry point. See the class documentation for the system properties that
+   * configure the run.
+   * 
+   * @param args
+   *          Command-line arguments (ignored).
+   * @throws Exception
+   *           If the simulator can't be started or the run is interrupted.
+   */
+  public static void main(String[] args) throws Exception {
+    // Logging every request would measure the console, not the client
+    if (System.getProperty("java.util.logging.config.file") == null)
+      restfbLogger.setLevel(Level.WARNING);
+
+    long seed = Long.getLong("seed", 1);
+    GraphSimulator simulator = new GraphSimulator(seed);
+    simulator.setLatency(parseLatency(System.getProperty("latency", "none")));
+
+    double errorRate = Double.parseDouble(System.getProperty("errorRate", "0"));
+    if (errorRate > 0)
+      simulator.setServerErrors(errorRate, 5);
+
+    LoadGeneratorExample loadGenerator =
+        new LoadGeneratorExample(simulator, Integer.getInteger("workers", 8), parseMix(System.getProperty("mix",
+          "fetchObject:50,fetchConnection:20,batch:15,publish:15")), seed);
+
+    simulator.start();
+
+    try {
+      loadGenerator.run(Integer.getInteger("warmup", 5), Integer.getInteger("duration", 30));
+    } finally {
+      simulator.stop();
+    }
+  }
+
+  LoadGeneratorExample(GraphSimulator simulator, int workers, Operation[] mix, long seed) {
+    if (workers < 1)
+      throw new IllegalArgumentException("There must be at least one worker.");
+
+    this.simulator = simulator;
+    this.workers = workers;
+    this.mix = mix;
+    this.seed = seed;
+    this.facebookClient =
+        new DefaultFacebookClient("load-test-token", simulator.createWebRequestor(), new DefaultJsonMapper());
+
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+      allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+    } else
+      allocationMXBean = null;
+
+    simulator.putObject("me", "{\"id\":\"1\",\"name\":\"Load Tester\"}");
+    simulator.putObject("cocacola", "{\"id\":\"40796308305\",\"name\":\"Coca-Cola\",\"category\":\"Food/beverages\","
+        + "\"likes\":35000000}");
+
+    List<String> posts = new ArrayList<String>(CONNECTION_SIZE);
+    for (int i = 0; i < CONNECTION_SIZE; i++)
+      posts.add(format("{\"id\":\"40796308305_%d\",\"from\":{\"id\":\"40796308305\",\"name\":\"Coca-Cola\"},"
+          + "\"message\":\"Post number %d\",\"type\":\"status\",\"created_time\":\"2011-03-0%dT12:00:00+0000\"}", i,
+        i, 1 + i % 9));
+    simulator.putConnection("cocacola", "posts", posts);
+  }
+
+  /**
+   * Warms up, then measures and prints a report.
+   * 
+   * @param warmupSeconds
+   *          How long to warm up.
+   * @param durationSeconds
+   *          How long to measure.
+   * @throws InterruptedException
+   *           If interrupted while waiting for the workers.
+   */
+  void run(int warmupSeconds, int durationSeconds) throws InterruptedException {
+    out.println(format("* Warming up %d workers for %d seconds *", workers, warmupSeconds));
+    runPhase(warmupSeconds);
+
+    out.println(format("* Measuring for %d seconds *", durationSeconds));
+    long requestsBefore = simulator.getRequestCount();
+    Map<Operation, OperationStats> stats = runPhase(durationSeconds);
+    report(stats, durationSeconds, simulator.getRequestCount() - requestsBefore);
+  }
+
+  /**
+   * Runs the workers for a while.
+   * 
+   * @param seconds
+   *          How long to run.
+   * @return Measurements per operation.
+   * @throws InterruptedException
+   *           If interrupted while waiting for the workers.
+   */
+  Map<Operation, OperationStats> runPhase(int seconds) throws InterruptedException {
+    final Map<Operation, OperationStats> stats = new EnumMap<Operation, OperationStats>(Operation.class);
+    for (Operation operation : Operation.values())
+      stats.put(operation, new OperationStats());
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+    for (int i = 0; i < workers; i++) {
+      final Random random = new Random(seed + i);
+
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          while (System.nanoTime() < deadline)
+            runOperation(mix[random.nextInt(mix.length)], stats);
+        }
+      });
+    }
+
+    executor.shutdown();
+    executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+    return stats;
+  }
+
+  /**
+   * Runs one operation and records its latency, allocation and outcome.
+   * 
+   * @param operation
+   *          The operation.
+   * @param stats
+   *          Where to record measurements.
+   */
+  void runOperation(Operation operation, Map<Operation, OperationStats> stats) {
+    OperationStats operationStats = stats.get(operation);
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = allocationMXBean == null ? 0 : allocationMXBean.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+
+    try {
+      operation.run(facebookClient);
+    } catch (RuntimeException e) {
+      // Graph API errors and anything unexpected, e.g. a mapping bug, alike
+      operationStats.errors.incrementAndGet();
+    }
+
+    operationStats.latencies.record(System.nanoTime() - start);
+    if (allocationMXBean != null)
+      operationStats.allocatedBytes.addAndGet(allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore);
+  }
+
+  /**
+   * Prints throughput, latency percentiles and allocation per operation.
+   * 
+   * @param stats
+   *          Measurements per operation.
+   * @param durationSeconds
+   *          How long the measurements took.
+   * @param httpRequests
+   *          Number of HTTP requests the simulator received meanwhile.
+   */
+  void report(Map<Operation, OperationStats> stats, int durationSeconds, long httpRequests) {
+    out.println(format("%-16s %10s %10s %8s %9s %9s %9s %9s %12s", "operation", "ops", "ops/s", "errors",
+      "p50 ms", "p99 ms", "p99.9 ms", "max ms", "bytes/op"));
+
+    long totalOperations = 0;
+
+    for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+      LatencyHistogram latencies = entry.getValue().latencies;
+      long count = latencies.getCount();
+      if (count == 0)
+        continue;
+
+      totalOperations += count;
+      out.println(format("%-16s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %12s", entry.getKey().displayName, count,
+        (double) count / durationSeconds, entry.getValue().errors.get(), millis(latencies.getValueAtPercentile(50)),
+        millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+        millis(latencies.getMax()), allocationMXBean == null ? "n/a" : String.valueOf(entry.getValue().allocatedBytes
+          .get() / count)));
+    }
+
+    out.println(format("Total: %d operations (%.1f/s), %d HTTP requests (%.1f/s)", totalOperations,
+      (double) totalOperations / durationSeconds, httpRequests, (double) httpRequests / durationSeconds));
+  }
+
+  /**
+   * Parses the {@code latency} property.
+   * 
+   * @param latency
+   *          The property's value.
+   * @return The latency distribution.
+   * @throws IllegalArgumentException
+   *           If the value can't be parsed.
+   */
+  static LatencyDistribution parseLatency(String latency) {
+    String[] parts = latency.split(":");
+
+    if ("none".equals(parts[0]) && parts.length == 1)
+      return LatencyDistribution.NONE;
+    if ("fixed".equals(parts[0]) && parts.length == 2)
+      return LatencyDistribution.fixed(Long.parseLong(parts[1]));
+    if ("uniform".equals(parts[0]) && parts.length == 3)
+      return LatencyDistribution.uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    if ("logNormal".equals(parts[0]) && parts.length == 3)
+      return LatencyDistribution.logNormal(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+
+    throw new IllegalArgumentException("Can't parse latency '" + latency + "'. See LoadGeneratorExample's javadoc.");
+  }
+
+  /**
+   * Parses the {@code mix} property.
+   * 
+   * @param mix
+   *          The property's value, e.g. {@code fetchObject:3,publish:1}.
+   * @return The operations, one entry per unit of weight.
+   * @throws IllegalArgumentException
+   *           If the value can't be parsed.
+   */
+  static Operation[] parseMix(String mix) {
+    List<Operation> operations = new ArrayList<Operation>();
+
+    for (String entry : mix.split(",")) {
+      String[] parts = entry.trim().split(":");
+      Operation operation = Operation.forDisplayName(parts[0]);
+      int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+
+      for (int i = 0; i < weight; i++)
+        operations.add(operation);
+    }
+
+    if (operations.isEmpty())
+      throw new IllegalArgumentException("The mix must include at least one operation.");
+
+    return operations.toArray(new Operation[operations.size()]);
+  }
+
+  /**
+   * Converts nanoseconds to milliseconds.
+   * 
+   * @param nanos
+   *          Nanoseconds.
+   * @return Milliseconds.
+   */
+  static double millis(long nanos) {
+    return nanos / 1000000.0;
+  }
+}
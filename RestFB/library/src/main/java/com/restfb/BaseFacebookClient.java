@@ -26,6 +26,8 @@ import static com.restfb.util.StringUtils.isBlank;
 import static com.restfb.util.StringUtils.trimToEmpty;
 import static com.restfb.util.StringUtils.urlEncode;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
 
 import java.util.HashSet;
 import java.util.Map;
@@ -39,6 +41,7 @@ import com.restfb.exception.FacebookJsonMappingException;
 import com.restfb.exception.FacebookOAuthException;
 import com.restfb.exception.FacebookResponseStatusException;
 import com.restfb.json.JsonException;
+import com.restfb.json.JsonIndex;
 import com.restfb.json.JsonObject;
 
 /**
@@ -67,14 +70,45 @@ abstract class BaseFacebookClient {
   /**
    * Set of parameter names that user must not specify themselves, since we use
    * these parameters internally.
+   * <p>
+   * Starts out sharing a static set and copies it the first time it's
+   * modified.
    */
-  protected final Set<String> illegalParamNames = new HashSet<String>();
+  protected final Set<String> illegalParamNames;
 
   /**
    * Set of API calls that can use the read-only endpoint for a performance
    * boost.
+   * <p>
+   * Starts out sharing {@link #READ_ONLY_API_CALLS} and copies it the first
+   * time it's modified.
+   */
+  protected final Set<String> readOnlyApiCalls;
+
+  /**
+   * API calls that support the read-only endpoint.
+   * <p>
+   * This list was cribbed from the <a
+   * href="https://github.com/facebook/php-sdk/blob/master/src/facebook.php"
+   * target="_blank">Official PHP Facebook API client</a>.
+   * 
+   * @since 1.6.8
    */
-  protected final Set<String> readOnlyApiCalls = new HashSet<String>();
+  protected static final Set<String> READ_ONLY_API_CALLS = unmodifiableSet(new HashSet<String>(asList(new String[] {
+      "admin.getallocation", "admin.getappproperties", "admin.getbannedusers", "admin.getlivestreamvialink",
+      "admin.getmetrics", "admin.getrestrictioninfo", "application.getpublicinfo", "auth.getapppublickey",
+      "auth.getsession", "auth.getsignedpublicsessiondata", "comments.get", "connect.getunconnectedfriendscount",
+      "dashboard.getactivity", "dashboard.getcount", "dashboard.getglobalnews", "dashboard.getnews",
+      "dashboard.multigetcount", "dashboard.multigetnews", "data.getcookies", "events.get", "events.getmembers",
+      "fbml.getcustomtags", "feed.getappfriendstories", "feed.getregisteredtemplatebundlebyid",
+      "feed.getregisteredtemplatebundles", "fql.multiquery", "fql.query", "friends.arefriends", "friends.get",
+      "friends.getappusers", "friends.getlists", "friends.getmutualfriends", "gifts.get", "groups.get",
+      "groups.getmembers", "intl.gettranslations", "links.get", "notes.get", "notifications.get", "pages.getinfo",
+      "pages.isadmin", "pages.isappadded", "pages.isfan", "permissions.checkavailableapiaccess",
+      "permissions.checkgrantedapiaccess", "photos.get", "photos.getalbums", "photos.gettags", "profile.getinfo",
+      "profile.getinfooptions", "stream.get", "stream.getcomments", "stream.getfilters", "users.getinfo",
+      "users.getloggedinuser", "users.getstandardinfo", "users.hasapppermission", "users.isappuser",
+      "users.isverified", "video.getuploadlimits" })));
 
   /**
    * Legacy API error response 'error_code' attribute name.
@@ -100,10 +134,29 @@ abstract class BaseFacebookClient {
    * Initializes this Facebook client.
    */
   public BaseFacebookClient() {
+    Set<String> none = emptySet();
+    illegalParamNames = new SharedSet<String>(none);
+    readOnlyApiCalls = new SharedSet<String>(none);
     initializeReadOnlyApiCalls();
     legacyFacebookExceptionMapper = createLegacyFacebookExceptionMapper();
   }
 
+  /**
+   * Initializes this Facebook client with the transport, mapper and
+   * configuration of {@code parent}, which are shared rather than copied.
+   * 
+   * @param parent
+   *          The client to share with.
+   * @since 1.6.8
+   */
+  protected BaseFacebookClient(BaseFacebookClient parent) {
+    webRequestor = parent.webRequestor;
+    jsonMapper = parent.jsonMapper;
+    legacyFacebookExceptionMapper = parent.legacyFacebookExceptionMapper;
+    illegalParamNames = parent.illegalParamNames;
+    readOnlyApiCalls = parent.readOnlyApiCalls;
+  }
+
   /**
    * Specifies how we map Old REST API exception types/messages to real Java
    * exceptions.
@@ -151,27 +204,26 @@ abstract class BaseFacebookClient {
   /**
    * Stores off the set of API calls that support the read-only endpoint.
    * <p>
-   * This list was cribbed from the <a
-   * href="https://github.com/facebook/php-sdk/blob/master/src/facebook.php"
-   * target="_blank">Official PHP Facebook API client</a>.
+   * Uses the shared {@link #READ_ONLY_API_CALLS} by default.
    * 
    * @since 1.6.3
    */
   protected void initializeReadOnlyApiCalls() {
-    readOnlyApiCalls.addAll(asList(new String[] { "admin.getallocation", "admin.getappproperties",
-        "admin.getbannedusers", "admin.getlivestreamvialink", "admin.getmetrics", "admin.getrestrictioninfo",
-        "application.getpublicinfo", "auth.getapppublickey", "auth.getsession", "auth.getsignedpublicsessiondata",
-        "comments.get", "connect.getunconnectedfriendscount", "dashboard.getactivity", "dashboard.getcount",
-        "dashboard.getglobalnews", "dashboard.getnews", "dashboard.multigetcount", "dashboard.multigetnews",
-        "data.getcookies", "events.get", "events.getmembers", "fbml.getcustomtags", "feed.getappfriendstories",
-        "feed.getregisteredtemplatebundlebyid", "feed.getregisteredtemplatebundles", "fql.multiquery", "fql.query",
-        "friends.arefriends", "friends.get", "friends.getappusers", "friends.getlists", "friends.getmutualfriends",
-        "gifts.get", "groups.get", "groups.getmembers", "intl.gettranslations", "links.get", "notes.get",
-        "notifications.get", "pages.getinfo", "pages.isadmin", "pages.isappadded", "pages.isfan",
-        "permissions.checkavailableapiaccess", "permissions.checkgrantedapiaccess", "photos.get", "photos.getalbums",
-        "photos.gettags", "profile.getinfo", "profile.getinfooptions", "stream.get", "stream.getcomments",
-        "stream.getfilters", "users.getinfo", "users.getloggedinuser", "users.getstandardinfo",
-        "users.hasapppermission", "users.isappuser", "users.isverified", "video.getuploadlimits" }));
+    share(readOnlyApiCalls, READ_ONLY_API_CALLS);
+  }
+
+  /**
+   * Points {@code set} - {@link #illegalParamNames} or
+   * {@link #readOnlyApiCalls} - at {@code shared} without copying it.
+   * 
+   * @param set
+   *          One of this client's configuration sets.
+   * @param shared
+   *          The read-only set to share.
+   * @since 1.6.8
+   */
+  static void share(Set<String> set, Set<String> shared) {
+    ((SharedSet<String>) set).share(shared);
   }
 
   /**
@@ -192,19 +244,22 @@ abstract class BaseFacebookClient {
       if (!json.startsWith("{"))
         return;
 
-      JsonObject errorObject = null;
+      JsonIndex errorIndex = null;
 
       // We need to swallow exceptions here because it's possible to get a legit
       // Facebook response that contains illegal JSON (e.g.
       // users.getLoggedInUser returning 1240077) - we're only interested in
       // whether or not there's an error_code field present.
       try {
-        errorObject = new JsonObject(json);
+        errorIndex = JsonIndex.parseLenient(json, 1);
       } catch (JsonException e) {}
 
-      if (errorObject == null || !errorObject.has(LEGACY_ERROR_CODE_ATTRIBUTE_NAME))
+      if (errorIndex == null || !errorIndex.isObject(errorIndex.root())
+          || errorIndex.get(errorIndex.root(), LEGACY_ERROR_CODE_ATTRIBUTE_NAME) == -1)
         return;
 
+      JsonObject errorObject = (JsonObject) errorIndex.getValue(errorIndex.root());
+
       throw legacyFacebookExceptionMapper.exceptionForTypeAndMessage(
         errorObject.getInt(LEGACY_ERROR_CODE_ATTRIBUTE_NAME), null,
         errorObject.getString(LEGACY_ERROR_MSG_ATTRIBUTE_NAME));
@@ -288,6 +343,29 @@ abstract class BaseFacebookClient {
     return ACCESS_TOKEN_PARAM_NAME.equals(name) && value.contains("%7C") ? value : urlEncode(value);
   }
 
+  /**
+   * Appends the URL-encoded {@code name=value} pair for a parameter to
+   * {@code builder}.
+   * <p>
+   * Applies the same access token handling as
+   * {@link #urlEncodedValueForParameterName(String, String)}, but encodes
+   * straight into {@code builder} rather than creating intermediate strings.
+   * 
+   * @param builder
+   *          The builder to append to.
+   * @param name
+   *          The parameter name.
+   * @param value
+   *          The parameter value.
+   * @return {@code builder}, for chaining.
+   * @since 1.6.8
+   */
+  protected StringBuilder appendUrlEncodedParameter(StringBuilder builder, String name, String value) {
+    urlEncode(name, builder).append('=');
+    return ACCESS_TOKEN_PARAM_NAME.equals(name) && value.contains("%7C") ? builder.append(value) : urlEncode(value,
+      builder);
+  }
+
   /**
    * Given an api call (e.g. "me" or "fql.query"), returns the correct FB API
    * endpoint to use.
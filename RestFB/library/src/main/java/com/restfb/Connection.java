@@ -31,9 +31,10 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 import com.restfb.exception.FacebookJsonMappingException;
-import com.restfb.json.JsonArray;
 import com.restfb.json.JsonException;
+import com.restfb.json.JsonIndex;
 import com.restfb.json.JsonObject;
+import com.restfb.util.FlightEvents;
 import com.restfb.util.ReflectionUtils;
 
 /**
@@ -48,6 +49,7 @@ public class Connection<T> implements Iterable<List<T>> {
   private List<T> data;
   private String previousPageUrl;
   private String nextPageUrl;
+  private FieldMask fieldMask;
 
   /**
    * @see java.lang.Iterable#iterator()
@@ -127,32 +129,79 @@ public class Connection<T> implements Iterable<List<T>> {
    *           If the provided {@code json} is invalid.
    * @since 1.6.7
    */
-  @SuppressWarnings("unchecked")
   public Connection(FacebookClient facebookClient, String json, Class<T> connectionType) {
+    this(facebookClient, json, connectionType, null);
+  }
+
+  /**
+   * Creates a connection with the given {@code jsonObject}, mapping only the
+   * fields of each element included in {@code fieldMask}.
+   * <p>
+   * Pages fetched through this connection are mapped with the same mask. Masks
+   * only take effect with a {@link DefaultFacebookClient} and
+   * {@link DefaultJsonMapper}; otherwise everything is mapped.
+   * 
+   * @param facebookClient
+   *          The {@code FacebookClient} used to fetch additional pages and map
+   *          data to JSON objects.
+   * @param json
+   *          Raw JSON which must include a {@code data} field that holds a JSON
+   *          array and optionally a {@code paging} field that holds a JSON
+   *          object with next/previous page URLs.
+   * @param connectionType
+   *          Connection type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @throws FacebookJsonMappingException
+   *           If the provided {@code json} is invalid.
+   * @since 1.6.8
+   */
+  @SuppressWarnings("unchecked")
+  public Connection(FacebookClient facebookClient, String json, Class<T> connectionType, FieldMask fieldMask) {
     List<T> data = new ArrayList<T>();
 
     if (json == null)
       throw new FacebookJsonMappingException("You must supply non-null connection JSON.");
 
-    JsonObject jsonObject = null;
+    // Index the page without decoding it - each element is decoded exactly
+    // once, by the mapper, straight from its slice of the original JSON
+    JsonIndex index = null;
 
     try {
-      jsonObject = new JsonObject(json);
+      Object jsonParse = FlightEvents.beginJsonParse();
+      index = JsonIndex.parseLenient(json, 2);
+      FlightEvents.endJsonParse(jsonParse, "JsonIndex", json.length());
+
+      if (!index.isObject(index.root()))
+        throw new JsonException("A JsonObject text must begin with '{'");
+
+      RequestEvent event = RequestEvent.current();
+      if (event != null)
+        event.jsonParsed();
     } catch (JsonException e) {
-      throw new FacebookJsonMappingException("The connection JSON you provided was invalid: " + json, e);
+      throw new FacebookJsonMappingException("The connection JSON you provided was invalid.", json, e.getOffset(), e,
+        true);
     }
 
     // Pull out data
-    JsonArray jsonData = jsonObject.getJsonArray("data");
-    for (int i = 0; i < jsonData.length(); i++)
-      data.add(connectionType.equals(JsonObject.class) ? (T) jsonData.get(i) : facebookClient.getJsonMapper()
-        .toJavaObject(jsonData.get(i).toString(), connectionType));
+    int jsonData = index.get(index.root(), "data");
+    if (jsonData == -1 || !index.isArray(jsonData))
+      throw new JsonException("JsonObject[\"data\"] is not a JsonArray.");
+
+    for (int element = index.firstElement(jsonData); element != -1; element = index.nextElement(element))
+      data.add(connectionType.equals(JsonObject.class) ? (T) index.getValue(element) : FieldMask.toJavaObject(
+        facebookClient.getJsonMapper(), index.getString(element), connectionType, fieldMask));
 
     // Pull out paging info, if present
-    if (jsonObject.has("paging")) {
-      JsonObject jsonPaging = jsonObject.getJsonObject("paging");
-      previousPageUrl = jsonPaging.has("previous") ? jsonPaging.getString("previous") : null;
-      nextPageUrl = jsonPaging.has("next") ? jsonPaging.getString("next") : null;
+    int jsonPaging = index.get(index.root(), "paging");
+    if (jsonPaging != -1) {
+      if (!index.isObject(jsonPaging))
+        throw new JsonException("JsonObject[\"paging\"] is not a JsonObject.");
+
+      int previous = index.get(jsonPaging, "previous");
+      int next = index.get(jsonPaging, "next");
+      previousPageUrl = previous == -1 ? null : index.getString(previous);
+      nextPageUrl = next == -1 ? null : index.getString(next);
     } else {
       previousPageUrl = null;
       nextPageUrl = null;
@@ -161,6 +210,7 @@ public class Connection<T> implements Iterable<List<T>> {
     this.data = unmodifiableList(data);
     this.facebookClient = facebookClient;
     this.connectionType = connectionType;
+    this.fieldMask = fieldMask;
   }
 
   /**
@@ -171,6 +221,11 @@ public class Connection<T> implements Iterable<List<T>> {
    * @since 1.6.7
    */
   protected Connection<T> fetchNextPage() {
+    // Only DefaultFacebookClient knows about masks; other clients keep working
+    // as they did before masks were introduced
+    if (fieldMask != null && facebookClient instanceof DefaultFacebookClient)
+      return ((DefaultFacebookClient) facebookClient).fetchConnectionPage(getNextPageUrl(), connectionType, fieldMask);
+
     return facebookClient.fetchConnectionPage(getNextPageUrl(), connectionType);
   }
 
@@ -26,7 +26,8 @@ import static com.restfb.util.StringUtils.isBlank;
 import static com.restfb.util.StringUtils.join;
 import static com.restfb.util.StringUtils.trimToEmpty;
 import static com.restfb.util.StringUtils.trimToNull;
-import static com.restfb.util.StringUtils.urlEncode;
+import static com.restfb.util.TrafficLogger.RESPONSES;
+import static com.restfb.util.TrafficLogger.redactSecrets;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
@@ -35,14 +36,16 @@ import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.logging.Level.INFO;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.restfb.WebRequestor.Response;
 import com.restfb.batch.BatchRequest;
@@ -57,11 +60,16 @@ import com.restfb.exception.FacebookQueryParseException;
 import com.restfb.exception.FacebookResponseStatusException;
 import com.restfb.json.JsonArray;
 import com.restfb.json.JsonException;
+import com.restfb.json.JsonIndex;
 import com.restfb.json.JsonObject;
 
 /**
  * Default implementation of a <a
  * href="http://developers.facebook.com/docs/api">Facebook Graph API</a> client.
+ * <p>
+ * Once configured, instances are safe to share between threads. To act on
+ * behalf of many users with one client, leave its access token {@code null}
+ * and pass {@link Parameter#withAccessToken(String)} with each call instead.
  * 
  * @author <a href="http://restfb.com">Mark Allen</a>
  */
@@ -71,11 +79,33 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
    */
   protected String accessToken;
 
+  /**
+   * The last access token this client encoded and its URL-encoded form, as a
+   * two-element array so both are published together.
+   */
+  private volatile String[] cachedAccessToken;
+
   /**
    * Knows how to map Graph API exceptions to formal Java exception types.
    */
   protected FacebookExceptionMapper graphFacebookExceptionMapper;
 
+  /**
+   * Should we ask Facebook to return only the fields our target types map?
+   */
+  protected boolean fieldsProjectionEnabled;
+
+  /**
+   * Hears about each stage of our API calls, or {@code null} if nobody's
+   * listening.
+   */
+  protected RequestListener requestListener;
+
+  /**
+   * Decides which failed calls are retried, and when.
+   */
+  protected RetryPolicy retryPolicy = RetryPolicy.NONE;
+
   /**
    * API endpoint URL.
    */
@@ -118,6 +148,12 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
    */
   protected static final String FORMAT_PARAM_NAME = "format";
 
+  /**
+   * Parameter names reserved for use by this client.
+   */
+  private static final Set<String> ILLEGAL_PARAM_NAMES = unmodifiableSet(new HashSet<String>(asList(new String[] {
+      METHOD_PARAM_NAME, FORMAT_PARAM_NAME })));
+
   /**
    * API error response 'error' attribute name.
    */
@@ -188,17 +224,77 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     this.webRequestor = webRequestor;
     this.jsonMapper = jsonMapper;
     graphFacebookExceptionMapper = createGraphFacebookExceptionMapper();
+    share(illegalParamNames, ILLEGAL_PARAM_NAMES);
+  }
+
+  /**
+   * Creates a Facebook Graph API client that uses the given
+   * {@code accessToken} but otherwise shares everything - transport, mapper,
+   * exception mappers and settings - with {@code parent}.
+   * 
+   * @param parent
+   *          The client to share with.
+   * @param accessToken
+   *          A Facebook OAuth access token.
+   * @see #withAccessToken(String)
+   * @since 1.6.8
+   */
+  protected DefaultFacebookClient(DefaultFacebookClient parent, String accessToken) {
+    super(parent);
+
+    this.accessToken = trimToNull(accessToken);
+    graphFacebookExceptionMapper = parent.graphFacebookExceptionMapper;
+    fieldsProjectionEnabled = parent.fieldsProjectionEnabled;
+    requestListener = parent.requestListener;
+    retryPolicy = parent.retryPolicy;
+  }
 
-    illegalParamNames.addAll(Arrays
-      .asList(new String[] { ACCESS_TOKEN_PARAM_NAME, METHOD_PARAM_NAME, FORMAT_PARAM_NAME }));
+  /**
+   * Creates a lightweight view of this client that makes calls with a
+   * different {@code accessToken}.
+   * <p>
+   * The view shares this client's {@link WebRequestor}, {@link JsonMapper} and
+   * configuration, so it costs a single small allocation. This is the cheapest
+   * way to make calls on behalf of many users: build one client up front and
+   * take a view of it per access token.
+   * <p>
+   * Subclasses that add state should override this method so their views keep
+   * it.
+   * 
+   * @param accessToken
+   *          A Facebook OAuth access token.
+   * @return A client that uses {@code accessToken}.
+   * @since 1.6.8
+   */
+  public DefaultFacebookClient withAccessToken(String accessToken) {
+    return new DefaultFacebookClient(this, accessToken);
   }
 
   /**
    * @see com.restfb.FacebookClient#deleteObject(java.lang.String)
    */
   public boolean deleteObject(String object) {
+    return deleteObject(object, new Parameter[0]);
+  }
+
+  /**
+   * Performs a <a href="http://developers.facebook.com/docs/api#deleting">Graph
+   * API delete</a> operation on the given {@code object}.
+   * 
+   * @param object
+   *          The ID of the object to delete.
+   * @param parameters
+   *          URL parameters to include in the API call, e.g.
+   *          {@link Parameter#withAccessToken(String)}.
+   * @return {@code true} if Facebook indicated that the object was successfully
+   *         deleted, {@code false} otherwise.
+   * @throws FacebookException
+   *           If an error occurred while attempting to delete the object.
+   * @since 1.6.8
+   */
+  public boolean deleteObject(String object, Parameter... parameters) {
     verifyParameterPresence("object", object);
-    return "true".equals(makeRequest(object, true, true, null));
+    return responseMapped("true".equals(makeRequest(object, true, true, null, parameters)));
   }
 
   /**
@@ -206,17 +302,70 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
    *      java.lang.Class, com.restfb.Parameter[])
    */
   public <T> Connection<T> fetchConnection(String connection, Class<T> connectionType, Parameter... parameters) {
+    return fetchConnection(connection, connectionType, null, parameters);
+  }
+
+  /**
+   * Fetches a Graph API {@code Connection} type, mapping only the fields
+   * included in {@code fieldMask} to instances of {@code connectionType}. The
+   * mask is also applied to pages fetched through the returned connection.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param connection
+   *          The name of the connection, e.g. {@code "me/feed"}.
+   * @param connectionType
+   *          Connection type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @param parameters
+   *          URL parameters to include in the API call (optional).
+   * @return An instance of type {@code connectionType} which contains the
+   *         requested Connection's data.
+   * @throws FacebookException
+   *           If an error occurs while performing the API call.
+   * @since 1.6.8
+   */
+  public <T> Connection<T> fetchConnection(String connection, Class<T> connectionType, FieldMask fieldMask,
+      Parameter... parameters) {
     verifyParameterPresence("connection", connection);
     verifyParameterPresence("connectionType", connectionType);
-    return new Connection<T>(this, makeRequest(connection, parameters), connectionType);
+    return toConnection(makeRequest(connection,
+      parametersWithFieldsProjection(FieldsProjection.forType(connectionType), parameters)), connectionType, fieldMask);
   }
 
   /**
    * @see com.restfb.FacebookClient#fetchConnectionPage(java.lang.String,
    *      java.lang.Class)
    */
-  public <T> Connection<T> fetchConnectionPage(final String connectionPageUrl, Class<T> connectionType) {
-    String connectionJson = makeRequestAndProcessResponse(new Requestor() {
+  public <T> Connection<T> fetchConnectionPage(String connectionPageUrl, Class<T> connectionType) {
+    return fetchConnectionPage(connectionPageUrl, connectionType, null);
+  }
+
+  /**
+   * Fetches a previous/next page of a Graph API {@code Connection} type,
+   * mapping only the fields included in {@code fieldMask} to instances of
+   * {@code connectionType}.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param connectionPageUrl
+   *          The URL of the connection page to fetch, usually retrieved via
+   *          {@link Connection#getPreviousPageUrl()} or
+   *          {@link Connection#getNextPageUrl()}.
+   * @param connectionType
+   *          Connection type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @return An instance of type {@code connectionType} which contains the
+   *         requested Connection's data.
+   * @throws FacebookException
+   *           If an error occurs while performing the API call.
+   * @since 1.6.8
+   */
+  public <T> Connection<T> fetchConnectionPage(final String connectionPageUrl, Class<T> connectionType,
+      FieldMask fieldMask) {
+    String connectionJson = makeRequestAndProcessResponse("GET", connectionPageUrl, new Requestor() {
       /**
        * @see com.restfb.DefaultFacebookClient.Requestor#makeRequest()
        */
@@ -225,7 +374,7 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
       }
     });
 
-    return new Connection<T>(this, connectionJson, connectionType);
+    return toConnection(connectionJson, connectionType, fieldMask);
   }
 
   /**
@@ -233,9 +382,115 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
    *      java.lang.Class, com.restfb.Parameter[])
    */
   public <T> T fetchObject(String object, Class<T> objectType, Parameter... parameters) {
+    return fetchObject(object, objectType, null, parameters);
+  }
+
+  /**
+   * Fetches a single <a
+   * href="http://developers.facebook.com/docs/reference/api/">Graph API
+   * object</a>, mapping only the fields included in {@code fieldMask} to an
+   * instance of {@code objectType}.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param object
+   *          ID of the object to fetch, e.g. {@code "me"}.
+   * @param objectType
+   *          Object type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @param parameters
+   *          URL parameters to include in the API call (optional).
+   * @return An instance of type {@code objectType} which contains the requested
+   *         object's data.
+   * @throws FacebookException
+   *           If an error occurs while performing the API call.
+   * @since 1.6.8
+   */
+  public <T> T fetchObject(String object, Class<T> objectType, FieldMask fieldMask, Parameter... parameters) {
+    verifyParameterPresence("object", object);
+    verifyParameterPresence("objectType", objectType);
+    return toJavaObject(
+      makeRequest(object, parametersWithFieldsProjection(FieldsProjection.forType(objectType), parameters)),
+      objectType, fieldMask);
+  }
+
+  /**
+   * Prepares a {@link #fetchObject(String, Class, FieldMask, Parameter...)}
+   * call for repeated execution.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param object
+   *          ID of the object to fetch, e.g. <tt>{id}</tt> or <tt>me</tt>.
+   *          May contain placeholders.
+   * @param objectType
+   *          Object type token.
+   * @param fieldMask
+   *          Fields to map, or {@code null} to map all of them.
+   * @param parameters
+   *          URL parameters to include in the API call. Values may be
+   *          placeholders.
+   * @return A prepared request that fetches the object.
+   * @throws IllegalArgumentException
+   *           If any of the {@code parameters} are reserved.
+   * @see PreparedRequest
+   * @since 1.6.8
+   */
+  public <T> PreparedRequest<T> prepareFetchObject(String object, final Class<T> objectType,
+      final FieldMask fieldMask, Parameter... parameters) {
     verifyParameterPresence("object", object);
     verifyParameterPresence("objectType", objectType);
-    return jsonMapper.toJavaObject(makeRequest(object, parameters), objectType);
+
+    return new PreparedRequest<T>(this, object, parametersWithFieldsProjection(FieldsProjection.forType(objectType),
+      parameters)) {
+      /**
+       * @see com.restfb.PreparedRequest#map(java.lang.String)
+       */
+      @Override
+      protected T map(String json) {
+        return FieldMask.toJavaObject(jsonMapper, json, objectType, fieldMask);
+      }
+    };
+  }
+
+  /**
+   * Prepares a {@link #fetchConnection(String, Class, FieldMask, Parameter...)}
+   * call for repeated execution.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param connection
+   *          The name of the connection, e.g. <tt>{id}/feed</tt>. May contain
+   *          placeholders.
+   * @param connectionType
+   *          Connection type token.
+   * @param fieldMask
+   *          Fields to map, or {@code null} to map all of them.
+   * @param parameters
+   *          URL parameters to include in the API call. Values may be
+   *          placeholders.
+   * @return A prepared request that fetches the connection.
+   * @throws IllegalArgumentException
+   *           If any of the {@code parameters} are reserved.
+   * @see PreparedRequest
+   * @since 1.6.8
+   */
+  public <T> PreparedRequest<Connection<T>> prepareFetchConnection(String connection, final Class<T> connectionType,
+      final FieldMask fieldMask, Parameter... parameters) {
+    verifyParameterPresence("connection", connection);
+    verifyParameterPresence("connectionType", connectionType);
+
+    return new PreparedRequest<Connection<T>>(this, connection, parametersWithFieldsProjection(
+      FieldsProjection.forType(connectionType), parameters)) {
+      /**
+       * @see com.restfb.PreparedRequest#map(java.lang.String)
+       */
+      @Override
+      protected Connection<T> map(String json) {
+        return new Connection<T>(DefaultFacebookClient.this, json, connectionType, fieldMask);
+      }
+    };
   }
 
   /**
@@ -263,15 +518,17 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
       ids.set(i, id);
     }
 
+    parameters = parametersWithFieldsProjection(FieldsProjection.forContainerType(objectType), parameters);
+
     try {
       JsonObject jsonObject =
           new JsonObject(makeRequest("",
             parametersWithAdditionalParameter(Parameter.with(IDS_PARAM_NAME, join(ids)), parameters)));
 
-      return objectType.equals(JsonObject.class) ? (T) jsonObject : jsonMapper.toJavaObject(jsonObject.toString(),
-        objectType);
+      return objectType.equals(JsonObject.class) ? responseMapped((T) jsonObject) : toJavaObject(
+        jsonObject.toString(), objectType, null);
     } catch (JsonException e) {
-      throw new FacebookJsonMappingException("Unable to map connection JSON to Java objects", e);
+      throw requestFailed(new FacebookJsonMappingException("Unable to map connection JSON to Java objects", e));
     }
   }
 
@@ -287,7 +544,7 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     if (binaryAttachment != null)
       binaryAttachments.add(binaryAttachment);
 
-    return jsonMapper.toJavaObject(makeRequest(connection, true, false, binaryAttachments, parameters), objectType);
+    return toJavaObject(makeRequest(connection, true, false, binaryAttachments, parameters), objectType, null);
   }
 
   /**
@@ -331,10 +588,10 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
         normalizedJson.put(jsonObject.getString("name"), resultsArray);
       }
 
-      return objectType.equals(JsonObject.class) ? (T) normalizedJson : jsonMapper.toJavaObject(
-        normalizedJson.toString(), objectType);
+      return objectType.equals(JsonObject.class) ? responseMapped((T) normalizedJson) : toJavaObject(
+        normalizedJson.toString(), objectType, null);
     } catch (JsonException e) {
-      throw new FacebookJsonMappingException("Unable to process fql.multiquery JSON response", e);
+      throw requestFailed(new FacebookJsonMappingException("Unable to process fql.multiquery JSON response", e));
     }
   }
 
@@ -352,7 +609,7 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
             + "' URL parameter yourself - " + "RestFB will populate this for you with "
             + "the query you passed to this method.");
 
-    return jsonMapper.toJavaList(
+    return toJavaList(
       makeRequest("fql.query", false, false, null,
         parametersWithAdditionalParameter(Parameter.with(QUERY_PARAM_NAME, query), parameters)), objectType);
   }
@@ -373,7 +630,7 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     if (batchRequests == null || batchRequests.size() == 0)
       throw new IllegalArgumentException("You must specify at least one batch request.");
 
-    return jsonMapper.toJavaList(
+    return toJavaList(
       makeRequest("", true, false, binaryAttachments, Parameter.with("batch", jsonMapper.toJson(batchRequests, true))),
       BatchResponse.class);
   }
@@ -393,7 +650,7 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
         makeRequest("/oauth/exchange_sessions", true, false, null, Parameter.with("client_id", appId),
           Parameter.with("client_secret", secretKey), Parameter.with("sessions", join(sessionKeys)));
 
-    return jsonMapper.toJavaList(json, AccessToken.class);
+    return toJavaList(json, AccessToken.class);
   }
 
   /**
@@ -410,6 +667,130 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     return webRequestor;
   }
 
+  /**
+   * Is automatic {@code fields} projection turned on?
+   * 
+   * @return {@code true} if automatic {@code fields} projection is on,
+   *         {@code false} otherwise.
+   * @see #setFieldsProjectionEnabled(boolean)
+   * @since 1.6.8
+   */
+  public boolean isFieldsProjectionEnabled() {
+    return fieldsProjectionEnabled;
+  }
+
+  /**
+   * Turns automatic {@code fields} projection on or off (it's off by default).
+   * <p>
+   * When on, {@link #fetchObject(String, Class, Parameter...)},
+   * {@link #fetchConnection(String, Class, Parameter...)} and
+   * {@link #fetchObjects(List, Class, Parameter...)} add a {@code fields} URL
+   * parameter computed by {@link FieldsProjection} from the
+   * {@link Facebook}-annotated fields of the target type, so Facebook only
+   * sends data we actually map. Calls which already specify a {@code fields}
+   * parameter are left alone, as are target types without annotated fields
+   * (e.g. {@link JsonObject}).
+   * <p>
+   * This should be configured before the client is shared between threads.
+   * 
+   * @param fieldsProjectionEnabled
+   *          {@code true} to turn automatic {@code fields} projection on,
+   *          {@code false} to turn it off.
+   * @since 1.6.8
+   */
+  public void setFieldsProjectionEnabled(boolean fieldsProjectionEnabled) {
+    this.fieldsProjectionEnabled = fieldsProjectionEnabled;
+  }
+
+  /**
+   * Gets the listener that hears about each stage of this client's API calls.
+   * 
+   * @return The request listener, or {@code null} if there isn't one.
+   * @since 1.6.8
+   */
+  public RequestListener getRequestListener() {
+    return requestListener;
+  }
+
+  /**
+   * Sets a listener that hears about each stage of this client's API calls -
+   * request built, connection acquired, first byte, body read, JSON parsed,
+   * mapped or failed - with timestamps and byte counts.
+   * <p>
+   * Views created with {@link #withAccessToken(String)} afterwards share the
+   * listener. This should be configured before the client is shared between
+   * threads.
+   * <p>
+   * Replaces any listeners already set or added; use
+   * {@link #addRequestListener(RequestListener)} to keep them.
+   * 
+   * @param requestListener
+   *          The listener, or {@code null} to stop listening.
+   * @see RequestListener
+   * @since 1.6.8
+   */
+  public void setRequestListener(RequestListener requestListener) {
+    this.requestListener = requestListener;
+  }
+
+  /**
+   * Adds a listener that hears about each stage of this client's API calls,
+   * alongside any listener that's already set.
+   * <p>
+   * Listeners are notified in the order they were added, through a
+   * {@link RequestListener.Composite}. Views created with
+   * {@link #withAccessToken(String)} before this call keep their listeners;
+   * views created afterwards share all of them.
+   * 
+   * @param requestListener
+   *          The listener to add.
+   * @throws NullPointerException
+   *           If {@code requestListener} is {@code null}.
+   * @see #setRequestListener(RequestListener)
+   * @since 1.6.8
+   */
+  public void addRequestListener(RequestListener requestListener) {
+    if (requestListener == null)
+      throw new NullPointerException("The request listener can't be null.");
+
+    if (this.requestListener == null)
+      this.requestListener = requestListener;
+    else if (this.requestListener instanceof RequestListener.Composite)
+      this.requestListener = ((RequestListener.Composite) this.requestListener).with(requestListener);
+    else
+      this.requestListener = new RequestListener.Composite(this.requestListener, requestListener);
+  }
+
+  /**
+   * Gets the policy that decides which failed calls this client retries.
+   * 
+   * @return The retry policy.
+   * @since 1.6.8
+   */
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the policy that decides which failed calls this client retries, and
+   * how long it backs off first. By default nothing is retried.
+   * <p>
+   * Views created with {@link #withAccessToken(String)} afterwards share the
+   * policy, and with it the retry budget. This should be configured before the
+   * client is shared between threads.
+   * 
+   * @param retryPolicy
+   *          The retry policy, or {@link RetryPolicy#NONE} to stop retrying.
+   * @see RetryPolicy
+   * @since 1.6.8
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    if (retryPolicy == null)
+      throw new IllegalArgumentException("The retry policy can't be null. Use RetryPolicy.NONE to stop retrying.");
+
+    this.retryPolicy = retryPolicy;
+  }
+
   /**
    * Coordinates the process of executing the API request GET/POST and
    * processing the response we receive from the endpoint.
@@ -462,11 +843,14 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     if (!endpoint.startsWith("/"))
       endpoint = "/" + endpoint;
 
-    final String fullEndpoint =
-        createEndpointForApiCall(endpoint, binaryAttachments != null && binaryAttachments.size() > 0);
+    boolean hasAttachments = binaryAttachments != null && binaryAttachments.size() > 0;
+    final String fullEndpoint = createEndpointForApiCall(endpoint, hasAttachments);
     final String parameterString = toParameterString(parameters);
 
-    return makeRequestAndProcessResponse(new Requestor() {
+    String method = executeAsPost ? "POST" : "GET";
+
+    // Attachment streams are consumed by the first attempt, so can't be resent
+    return makeRequestAndProcessResponse(method, fullEndpoint, !hasAttachments, new Requestor() {
       /**
        * @see com.restfb.DefaultFacebookClient.Requestor#makeRequest()
        */
@@ -482,6 +866,114 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     Response makeRequest() throws IOException;
   }
 
+  /**
+   * Makes a request and processes the response, retrying transient failures
+   * as the {@link RetryPolicy} allows and reporting each attempt to the
+   * {@link RequestListener}, if there is one.
+   * <p>
+   * On success the call stays in progress, so the caller must finish it with
+   * {@link #responseMapped(Object)} or {@link #requestFailed(RuntimeException)}
+   * once the response has been mapped.
+   * 
+   * @param method
+   *          The HTTP method, for the listener.
+   * @param url
+   *          The request URL, for the listener.
+   * @param requestor
+   *          Makes the request.
+   * @return The JSON returned by Facebook.
+   * @throws FacebookException
+   *           If an error occurs while making the request or processing the
+   *           response.
+   * @since 1.6.8
+   */
+  protected String makeRequestAndProcessResponse(String method, String url, Requestor requestor) {
+    return makeRequestAndProcessResponse(method, url, true, requestor);
+  }
+
+  /**
+   * Makes a request and processes the response, retrying transient failures
+   * as the {@link RetryPolicy} allows - if the request can be repeated at all -
+   * and reporting each attempt to the {@link RequestListener}, if there is
+   * one.
+   * <p>
+   * On success the call stays in progress, so the caller must finish it with
+   * {@link #responseMapped(Object)} or {@link #requestFailed(RuntimeException)}
+   * once the response has been mapped.
+   * 
+   * @param method
+   *          The HTTP method, for the listener.
+   * @param url
+   *          The request URL, for the listener.
+   * @param retryable
+   *          {@code false} if the request can't be sent twice, e.g. because it
+   *          uploads {@link BinaryAttachment}s whose streams the first attempt
+   *          reads.
+   * @param requestor
+   *          Makes the request.
+   * @return The JSON returned by Facebook.
+   * @throws FacebookException
+   *           If an error occurs while making the request or processing the
+   *           response.
+   * @since 1.6.8
+   */
+  protected String makeRequestAndProcessResponse(String method, String url, boolean retryable, Requestor requestor) {
+    RetryPolicy retryPolicy = this.retryPolicy;
+    retryPolicy.callStarted();
+
+    for (int attempt = 1;; attempt++) {
+      try {
+        return makeAttemptAndProcessResponse(method, url, requestor);
+      } catch (FacebookException e) {
+        if (!retryable || !retryPolicy.shouldRetry(method, attempt, e))
+          throw e;
+
+        long backoffMillis = retryPolicy.backoffMillis(attempt);
+
+        if (logger.isLoggable(INFO))
+          logger.info(format("Retrying %s %s in %d ms after attempt %d failed: %s", method, redactSecrets(url),
+            backoffMillis, attempt, e.getMessage()));
+
+        try {
+          Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes a single attempt at a request and processes the response, reporting
+   * its progress to the {@link RequestListener}, if there is one.
+   * 
+   * @param method
+   *          The HTTP method, for the listener.
+   * @param url
+   *          The request URL, for the listener.
+   * @param requestor
+   *          Makes the request.
+   * @return The JSON returned by Facebook.
+   * @throws FacebookException
+   *           If an error occurs while making the request or processing the
+   *           response.
+   * @since 1.6.8
+   */
+  private String makeAttemptAndProcessResponse(String method, String url, Requestor requestor) {
+    if (requestListener == null)
+      return makeRequestAndProcessResponse(requestor);
+
+    RequestEvent event = RequestEvent.begin(requestListener, method, url);
+
+    try {
+      return makeRequestAndProcessResponse(requestor);
+    } catch (RuntimeException e) {
+      event.requestFailed(e);
+      throw e;
+    }
+  }
+
   protected String makeRequestAndProcessResponse(Requestor requestor) {
     Response response = null;
 
@@ -492,8 +984,14 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
       throw new FacebookNetworkException("Facebook request failed", t);
     }
 
-    if (logger.isLoggable(INFO))
-      logger.info("Facebook responded with " + response);
+    // In case the WebRequestor doesn't report the network stages itself
+    RequestEvent event = RequestEvent.current();
+    if (event != null)
+      event.bodyRead(-1);
+
+    if (RESPONSES.isLoggable(INFO))
+      RESPONSES.log(INFO, "Facebook responded with HTTP status code {0} and response body: {1}",
+        String.valueOf(response.getStatusCode()), RESPONSES.sanitized(response.getBody()));
 
     // If we get any HTTP response code other than a 200 OK or 400 Bad Request
     // or 401 Not Authorized or 403 Forbidden or 500 Internal Server Error,
@@ -516,6 +1014,104 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     return json;
   }
 
+  /**
+   * Maps {@code json} to a Java object and finishes the call in progress.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param json
+   *          The JSON to map.
+   * @param type
+   *          Java type to map to.
+   * @param fieldMask
+   *          Fields to map, or {@code null} to map all of them.
+   * @return The mapped object.
+   */
+  private <T> T toJavaObject(String json, Class<T> type, FieldMask fieldMask) {
+    try {
+      return responseMapped(FieldMask.toJavaObject(jsonMapper, json, type, fieldMask));
+    } catch (RuntimeException e) {
+      throw requestFailed(e);
+    }
+  }
+
+  /**
+   * Maps {@code json} to a list of Java objects and finishes the call in
+   * progress.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param json
+   *          The JSON to map.
+   * @param type
+   *          Java type to map to.
+   * @return The mapped list.
+   */
+  private <T> List<T> toJavaList(String json, Class<T> type) {
+    try {
+      return responseMapped(jsonMapper.toJavaList(json, type));
+    } catch (RuntimeException e) {
+      throw requestFailed(e);
+    }
+  }
+
+  /**
+   * Maps {@code json} to a connection and finishes the call in progress.
+   * 
+   * @param <T>
+   *          Java type of the connection's elements.
+   * @param json
+   *          The JSON to map.
+   * @param connectionType
+   *          Connection type token.
+   * @param fieldMask
+   *          Fields to map, or {@code null} to map all of them.
+   * @return The mapped connection.
+   */
+  private <T> Connection<T> toConnection(String json, Class<T> connectionType, FieldMask fieldMask) {
+    try {
+      return responseMapped(new Connection<T>(this, json, connectionType, fieldMask));
+    } catch (RuntimeException e) {
+      throw requestFailed(e);
+    }
+  }
+
+  /**
+   * Tells the {@link RequestListener}, if there is one, that the call in
+   * progress has been mapped successfully.
+   * 
+   * @param <T>
+   *          Type of the call's result.
+   * @param result
+   *          The call's result.
+   * @return {@code result}, for chaining.
+   * @since 1.6.8
+   */
+  protected <T> T responseMapped(T result) {
+    RequestEvent event = requestListener == null ? null : RequestEvent.current();
+    if (event != null)
+      event.responseMapped();
+
+    return result;
+  }
+
+  /**
+   * Tells the {@link RequestListener}, if there is one, that the call in
+   * progress failed while its response was being mapped.
+   * 
+   * @param e
+   *          Why the call failed.
+   * @return {@code e}, for throwing.
+   * @since 1.6.8
+   */
+  protected RuntimeException requestFailed(RuntimeException e) {
+    RequestEvent event = requestListener == null ? null : RequestEvent.current();
+    if (event != null)
+      event.requestFailed(e);
+
+    return e;
+  }
+
   /**
    * Throws an exception if Facebook returned an error response. Using the Graph
    * API, it's possible to see both the new Graph API-style errors as well as
@@ -554,11 +1150,16 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
       if (!json.startsWith("{"))
         return;
 
-      JsonObject errorObject = new JsonObject(json);
+      // Only the top level needs looking at to rule out an error, so don't pay
+      // for decoding the (possibly very large) rest of the response
+      JsonIndex errorIndex = JsonIndex.parseLenient(json, 1);
 
-      if (errorObject == null || !errorObject.has(ERROR_ATTRIBUTE_NAME))
+      if (!errorIndex.isObject(errorIndex.root()))
+        throw new JsonException("A JsonObject text must begin with '{'");
+      if (errorIndex.get(errorIndex.root(), ERROR_ATTRIBUTE_NAME) == -1)
         return;
 
+      JsonObject errorObject = (JsonObject) errorIndex.getValue(errorIndex.root());
       JsonObject innerErrorObject = errorObject.getJsonObject(ERROR_ATTRIBUTE_NAME);
 
       throw graphFacebookExceptionMapper
@@ -589,20 +1190,23 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
       if (!json.startsWith("{"))
         return;
 
-      JsonObject errorObject = null;
+      JsonIndex errorIndex = null;
 
       // We need to swallow exceptions here because it's possible to get a legit
       // Facebook response that contains illegal JSON (e.g.
       // users.getLoggedInUser returning 1240077) - we're only interested in
       // whether or not there's an error_code field present.
       try {
-        errorObject = new JsonObject(json);
+        errorIndex = JsonIndex.parseLenient(json, 1);
       } catch (JsonException e) {}
 
-      if (errorObject == null || !errorObject.has(BATCH_ERROR_ATTRIBUTE_NAME)
-          || !errorObject.has(BATCH_ERROR_DESCRIPTION_ATTRIBUTE_NAME))
+      if (errorIndex == null || !errorIndex.isObject(errorIndex.root())
+          || errorIndex.get(errorIndex.root(), BATCH_ERROR_ATTRIBUTE_NAME) == -1
+          || errorIndex.get(errorIndex.root(), BATCH_ERROR_DESCRIPTION_ATTRIBUTE_NAME) == -1)
         return;
 
+      JsonObject errorObject = (JsonObject) errorIndex.getValue(errorIndex.root());
+
       throw legacyFacebookExceptionMapper.exceptionForTypeAndMessage(errorObject.getInt(BATCH_ERROR_ATTRIBUTE_NAME),
         null, errorObject.getString(BATCH_ERROR_DESCRIPTION_ATTRIBUTE_NAME));
     } catch (JsonException e) {
@@ -651,6 +1255,47 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
     }
   }
 
+  /**
+   * If automatic {@code fields} projection is on and the caller hasn't
+   * specified a {@code fields} parameter, appends one with the value
+   * {@code fields}.
+   * 
+   * @param fields
+   *          The projected {@code fields} value, or {@code null} if the target
+   *          type has no projection.
+   * @param parameters
+   *          The parameters provided by the caller.
+   * @return The parameters to send to Facebook.
+   * @since 1.6.8
+   */
+  protected Parameter[] parametersWithFieldsProjection(String fields, Parameter... parameters) {
+    if (!fieldsProjectionEnabled || fields == null)
+      return parameters;
+
+    for (Parameter parameter : parameters)
+      if (FieldsProjection.FIELDS_PARAM_NAME.equals(parameter.name))
+        return parameters;
+
+    return parametersWithAdditionalParameter(Parameter.with(FieldsProjection.FIELDS_PARAM_NAME, fields), parameters);
+  }
+
+  /**
+   * Does the caller supply a per-call access token?
+   * 
+   * @param parameters
+   *          The parameters the caller supplied.
+   * @return {@code true} if one of the {@code parameters} is an access token.
+   * @see Parameter#withAccessToken(String)
+   * @since 1.6.8
+   */
+  protected boolean hasAccessTokenParameter(Parameter... parameters) {
+    for (Parameter parameter : parameters)
+      if (ACCESS_TOKEN_PARAM_NAME.equals(parameter.name))
+        return true;
+
+    return false;
+  }
+
   /**
    * Generate the parameter string to be included in the Facebook API request.
    * 
@@ -661,26 +1306,47 @@ public class DefaultFacebookClient extends BaseFacebookClient implements Faceboo
    *           If an error occurs when building the parameter string.
    */
   protected String toParameterString(Parameter... parameters) {
-    if (!isBlank(accessToken))
-      parameters = parametersWithAdditionalParameter(Parameter.with(ACCESS_TOKEN_PARAM_NAME, accessToken), parameters);
+    String encodedAccessToken =
+        isBlank(accessToken) || hasAccessTokenParameter(parameters) ? null : encodedAccessToken(accessToken);
 
-    parameters = parametersWithAdditionalParameter(Parameter.with(FORMAT_PARAM_NAME, "json"), parameters);
+    // Size the buffer up front so building the string never has to grow it
+    int length = FORMAT_PARAM_NAME.length() + 5;
+    if (encodedAccessToken != null)
+      length += ACCESS_TOKEN_PARAM_NAME.length() + encodedAccessToken.length() + 2;
+    for (Parameter parameter : parameters)
+      length += parameter.name.length() + parameter.value.length() + 2;
 
-    StringBuilder parameterStringBuilder = new StringBuilder();
-    boolean first = true;
+    StringBuilder parameterStringBuilder = new StringBuilder(length + (length >> 2));
 
-    for (Parameter parameter : parameters) {
-      if (first)
-        first = false;
-      else
-        parameterStringBuilder.append("&");
+    for (Parameter parameter : parameters)
+      appendUrlEncodedParameter(parameterStringBuilder, parameter.name, parameter.value).append('&');
+
+    if (encodedAccessToken != null)
+      parameterStringBuilder.append(ACCESS_TOKEN_PARAM_NAME).append('=').append(encodedAccessToken).append('&');
+
+    return parameterStringBuilder.append(FORMAT_PARAM_NAME).append("=json").toString();
+  }
+
+  /**
+   * Gets the URL-encoded form of {@code accessToken}.
+   * <p>
+   * The client's token goes out with nearly every request, so its encoded form
+   * is computed once and reused for as long as the token doesn't change.
+   * 
+   * @param accessToken
+   *          The access token to encode.
+   * @return The URL-encoded access token.
+   */
+  private String encodedAccessToken(String accessToken) {
+    String[] cachedAccessToken = this.cachedAccessToken;
 
-      parameterStringBuilder.append(urlEncode(parameter.name));
-      parameterStringBuilder.append("=");
-      parameterStringBuilder.append(urlEncodedValueForParameterName(parameter.name, parameter.value));
+    if (cachedAccessToken == null || cachedAccessToken[0] != accessToken) {
+      cachedAccessToken =
+          new String[] { accessToken, urlEncodedValueForParameterName(ACCESS_TOKEN_PARAM_NAME, accessToken) };
+      this.cachedAccessToken = cachedAccessToken;
     }
 
-    return parameterStringBuilder.toString();
+    return cachedAccessToken[1];
   }
 
   /**
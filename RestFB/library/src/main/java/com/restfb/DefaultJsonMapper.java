@@ -23,6 +23,11 @@
 package com.restfb;
 
 import static com.restfb.json.JsonObject.NULL;
+import static com.restfb.util.DateUtils.EPOCH_MILLISECONDS_FORMAT;
+import static com.restfb.util.DateUtils.EPOCH_SECONDS_FORMAT;
+import static com.restfb.util.DateUtils.FACEBOOK_LONG_DATE_FORMAT;
+import static com.restfb.util.DateUtils.toDateFromFormat;
+import static com.restfb.util.DateUtils.toFormattedString;
 import static com.restfb.util.ReflectionUtils.findFieldsWithAnnotation;
 import static com.restfb.util.ReflectionUtils.getFirstParameterizedTypeArgument;
 import static com.restfb.util.ReflectionUtils.isPrimitive;
@@ -34,11 +39,17 @@ import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.FINER;
 import static java.util.logging.Level.FINEST;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -50,8 +61,13 @@ import java.util.logging.Logger;
 import com.restfb.exception.FacebookJsonMappingException;
 import com.restfb.json.JsonArray;
 import com.restfb.json.JsonException;
+import com.restfb.json.JsonGenerator;
+import com.restfb.json.JsonIndex;
 import com.restfb.json.JsonObject;
+import com.restfb.json.JsonTokener;
 import com.restfb.types.Post.Comments;
+import com.restfb.util.DateUtils;
+import com.restfb.util.FlightEvents;
 import com.restfb.util.ReflectionUtils.FieldWithAnnotation;
 
 /**
@@ -67,11 +83,23 @@ public class DefaultJsonMapper implements JsonMapper {
    */
   protected JsonMappingErrorHandler jsonMappingErrorHandler;
 
+  /**
+   * Should mapping exceptions we create capture stack traces?
+   */
+  protected boolean mappingErrorStackTracesEnabled = true;
+
   /**
    * Logger.
    */
   private static final Logger logger = Logger.getLogger(DefaultJsonMapper.class.getName());
 
+  /**
+   * Does this mapper's class override the deprecated
+   * {@link #toJsonInternal(Object, boolean)}? If so, {@code toJson} still goes
+   * through it.
+   */
+  private final boolean toJsonInternalOverridden = overridesToJsonInternal(getClass());
+
   /**
    * Creates a JSON mapper which will throw
    * {@link com.restfb.exception.FacebookJsonMappingException} whenever an error
@@ -107,11 +135,67 @@ public class DefaultJsonMapper implements JsonMapper {
     this.jsonMappingErrorHandler = jsonMappingErrorHandler;
   }
 
+  /**
+   * Do the mapping exceptions this mapper creates capture stack traces?
+   * 
+   * @return {@code true} if stack traces are captured, {@code false}
+   *         otherwise.
+   * @since 1.6.8
+   */
+  public boolean isMappingErrorStackTracesEnabled() {
+    return mappingErrorStackTracesEnabled;
+  }
+
+  /**
+   * Turns stack trace capture for the mapping exceptions this mapper creates
+   * on or off. It's on by default.
+   * <p>
+   * With a lenient {@link JsonMappingErrorHandler}, or types with
+   * multiply-mapped fields, many mapping exceptions are only handed to the
+   * handler or swallowed and never thrown to your code. Turning stack traces
+   * off makes each of those much cheaper, at the cost of less helpful traces
+   * for the ones that are thrown.
+   * <p>
+   * This should be configured before the mapper is shared between threads.
+   * 
+   * @param mappingErrorStackTracesEnabled
+   *          {@code true} to capture stack traces, {@code false} to skip them.
+   * @since 1.6.8
+   */
+  public void setMappingErrorStackTracesEnabled(boolean mappingErrorStackTracesEnabled) {
+    this.mappingErrorStackTracesEnabled = mappingErrorStackTracesEnabled;
+  }
+
   /**
    * @see com.restfb.JsonMapper#toJavaList(java.lang.String, java.lang.Class)
    */
   @Override
   public <T> List<T> toJavaList(String json, Class<T> type) {
+    return toJavaList(json, type, null);
+  }
+
+  /**
+   * Given a JSON string, create and return a new instance of a corresponding
+   * Java {@link java.util.List} which contains elements of type {@code type},
+   * mapping only the fields of each element included in {@code fieldMask}.
+   * <p>
+   * The Java {@code type} must have a no-argument constructor.
+   * 
+   * @param <T>
+   *          Java type to map to for each element of the list.
+   * @param json
+   *          The JSON to be mapped to a Java type.
+   * @param type
+   *          Java type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @return A Java object (of type {@code List} which contains elements of type
+   *         {@code type}) representation of the JSON input.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while mapping JSON to Java.
+   * @since 1.6.8
+   */
+  public <T> List<T> toJavaList(String json, Class<T> type, FieldMask fieldMask) {
     if (type == null)
       throw new FacebookJsonMappingException("You must specify the Java type to map to.");
 
@@ -135,6 +219,16 @@ public class DefaultJsonMapper implements JsonMapper {
 
         return new ArrayList<T>();
       }
+    }
+
+    try {
+      // Index the list rather than decoding it - each element is decoded
+      // exactly once, by toJavaObject, straight from its slice of the JSON
+      Object jsonParse = FlightEvents.beginJsonParse();
+      JsonIndex index = JsonIndex.parseLenient(json, 2);
+      FlightEvents.endJsonParse(jsonParse, "JsonIndex", json.length());
+      int jsonArray = index.root();
+      jsonParsed();
 
       // Special case: if the only element of this object is an array called
       // "data", then treat it as a list. The Graph API uses this convention for
@@ -142,39 +236,26 @@ public class DefaultJsonMapper implements JsonMapper {
       // object.
       // Doing this simplifies mapping, so we don't have to worry about having a
       // little placeholder object that only has a "data" value.
-      try {
-        JsonObject jsonObject = new JsonObject(json);
-        String[] fieldNames = JsonObject.getNames(jsonObject);
+      if (index.isObject(jsonArray)) {
+        int jsonData = index.get(jsonArray, "data");
+        boolean hasSingleDataProperty = jsonData != -1 && index.size(jsonArray) == 1;
 
-        if (fieldNames != null) {
-          boolean hasSingleDataProperty = fieldNames.length == 1 && "data".equals(fieldNames[0]);
-          Object jsonDataObject = jsonObject.get("data");
+        if (!hasSingleDataProperty && (jsonData == -1 || !index.isArray(jsonData)))
+          if (jsonMappingErrorHandler.handleMappingError(json, type, null))
+            return null;
+          else
+            throw mappingException("JSON is an object but is being mapped as a list instead.", json, null);
 
-          if (!hasSingleDataProperty && !(jsonDataObject instanceof JsonArray))
-            if (jsonMappingErrorHandler.handleMappingError(json, type, null))
-              return null;
-            else
-              throw new FacebookJsonMappingException("JSON is an object but is being mapped as a list "
-                  + "instead. Offending JSON is '" + json + "'.");
-
-          json = jsonDataObject.toString();
-        }
-      } catch (JsonException e) {
-        // Should never get here, but just in case...
-        if (jsonMappingErrorHandler.handleMappingError(json, type, e))
-          return null;
-        else
-          throw new FacebookJsonMappingException("Unable to convert Facebook response " + "JSON to a list of "
-              + type.getName() + " instances.  Offending JSON is " + json, e);
+        jsonArray = jsonData;
       }
-    }
 
-    try {
-      List<T> list = new ArrayList<T>();
+      if (!index.isArray(jsonArray))
+        throw new JsonException("A JsonArray text must start with '['");
 
-      JsonArray jsonArray = new JsonArray(json);
-      for (int i = 0; i < jsonArray.length(); i++)
-        list.add(toJavaObject(jsonArray.get(i).toString(), type));
+      List<T> list = new ArrayList<T>(index.size(jsonArray));
+
+      for (int element = index.firstElement(jsonArray); element != -1; element = index.nextElement(element))
+        list.add(toJavaObject(index.getString(element), type, fieldMask));
 
       return unmodifiableList(list);
     } catch (FacebookJsonMappingException e) {
@@ -192,8 +273,34 @@ public class DefaultJsonMapper implements JsonMapper {
    * @see com.restfb.JsonMapper#toJavaObject(java.lang.String, java.lang.Class)
    */
   @Override
-  @SuppressWarnings("unchecked")
   public <T> T toJavaObject(String json, Class<T> type) {
+    return toJavaObject(json, type, null);
+  }
+
+  /**
+   * Given a JSON string, create and return a new instance of a corresponding
+   * Java object of type {@code type}, mapping only the fields included in
+   * {@code fieldMask}.
+   * <p>
+   * JSON values outside of the mask are skipped without being processed, and
+   * the Java fields they would map to are left untouched.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param json
+   *          The JSON to be mapped to a Java type.
+   * @param type
+   *          Java type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @return A Java object (of type {@code type}) representation of the JSON
+   *         input.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while mapping JSON to Java.
+   * @since 1.6.8
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T toJavaObject(String json, Class<T> type, FieldMask fieldMask) {
     if (isBlank(json))
       if (jsonMappingErrorHandler.handleMappingError(json, type, null))
         return null;
@@ -204,13 +311,13 @@ public class DefaultJsonMapper implements JsonMapper {
       if (jsonMappingErrorHandler.handleMappingError(json, type, null))
         return null;
       else
-        throw new FacebookJsonMappingException("JSON is an array but is being mapped as an object "
-            + "- you should map it as a List instead. Offending JSON is '" + json + "'.");
+        throw mappingException("JSON is an array but is being mapped as an object "
+            + "- you should map it as a List instead.", json, null);
 
     try {
       // Are we asked to map to JsonObject? If so, short-circuit right away.
       if (type.equals(JsonObject.class))
-        return (T) new JsonObject(json);
+        return (T) toJsonObject(json, fieldMask);
 
       List<FieldWithAnnotation<Facebook>> fieldsWithAnnotation = findFieldsWithAnnotation(type, Facebook.class);
       Set<String> facebookFieldNamesWithMultipleMappings = facebookFieldNamesWithMultipleMappings(fieldsWithAnnotation);
@@ -238,17 +345,23 @@ public class DefaultJsonMapper implements JsonMapper {
         return null;
       }
 
-      JsonObject jsonObject = new JsonObject(json);
+      JsonObject jsonObject = toJsonObject(json, fieldMask);
       T instance = createInstance(type);
 
       if (instance instanceof JsonObject)
         return (T) jsonObject;
 
+      Object jsonMapping = FlightEvents.beginJsonMapping();
+      int fieldCount = 0;
+
       // For each Facebook-annotated field on the current Java object, pull data
       // out of the JSON object and put it in the Java object
       for (FieldWithAnnotation<Facebook> fieldWithAnnotation : fieldsWithAnnotation) {
         String facebookFieldName = getFacebookFieldName(fieldWithAnnotation);
 
+        if (fieldMask != null && !fieldMask.includes(facebookFieldName))
+          continue;
+
         if (!jsonObject.has(facebookFieldName)) {
           if (logger.isLoggable(FINER))
             logger.finer("No JSON value present for '" + facebookFieldName + "', skipping. JSON is '" + json + "'.");
@@ -261,14 +374,23 @@ public class DefaultJsonMapper implements JsonMapper {
         // Set the Java field's value.
         //
         // If we notice that this Facebook field name is mapped more than once,
-        // go into a special mode where we swallow any exceptions that occur
-        // when mapping to the Java field. This is because Facebook will
-        // sometimes return data in different formats for the same field name.
-        // See issues 56 and 90 for examples of this behavior and discussion.
+        // only map to the Java fields that can hold the JSON value's shape.
+        // This is because Facebook will sometimes return data in different
+        // formats for the same field name. See issues 56 and 90 for examples
+        // of this behavior and discussion. Values of the right shape that
+        // still can't be converted (e.g. a non-numeric string for a number
+        // field) are swallowed as before.
         if (facebookFieldNamesWithMultipleMappings.contains(facebookFieldName)) {
+          if (!canMapToField(fieldWithAnnotation, jsonObject.get(facebookFieldName))) {
+            logMultipleMappingFailedForField(facebookFieldName, fieldWithAnnotation, json);
+            continue;
+          }
+
           try {
             fieldWithAnnotation.getField()
-              .set(instance, toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName));
+              .set(instance,
+                toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName, nestedFieldMask(fieldMask, facebookFieldName)));
+            fieldCount++;
           } catch (FacebookJsonMappingException e) {
             logMultipleMappingFailedForField(facebookFieldName, fieldWithAnnotation, json);
           } catch (JsonException e) {
@@ -277,7 +399,9 @@ public class DefaultJsonMapper implements JsonMapper {
         } else {
           try {
             fieldWithAnnotation.getField()
-              .set(instance, toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName));
+              .set(instance,
+                toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName, nestedFieldMask(fieldMask, facebookFieldName)));
+            fieldCount++;
           } catch (Exception e) {
             if (!jsonMappingErrorHandler.handleMappingError(json, type, e))
               throw e;
@@ -285,6 +409,7 @@ public class DefaultJsonMapper implements JsonMapper {
         }
       }
 
+      FlightEvents.endJsonMapping(jsonMapping, type, fieldCount);
       return instance;
     } catch (FacebookJsonMappingException e) {
       throw e;
@@ -292,10 +417,119 @@ public class DefaultJsonMapper implements JsonMapper {
       if (jsonMappingErrorHandler.handleMappingError(json, type, e))
         return null;
       else
-        throw new FacebookJsonMappingException("Unable to map JSON to Java. Offending JSON is '" + json + "'.", e);
+        throw mappingException("Unable to map JSON to Java.", json, e);
     }
   }
 
+  /**
+   * Creates an exception for {@code json} that couldn't be mapped.
+   * <p>
+   * The offending JSON is only quoted, as an excerpt if it's long, when the
+   * exception's message is rendered.
+   * 
+   * @param message
+   *          A message describing the problem.
+   * @param json
+   *          The offending JSON.
+   * @param cause
+   *          The exception that caused the failure, or {@code null}. If it's a
+   *          {@link JsonException} that knows where in {@code json} the
+   *          problem is, the excerpt is taken from around there.
+   * @return The exception to throw.
+   * @since 1.6.8
+   */
+  protected FacebookJsonMappingException mappingException(String message, String json, Throwable cause) {
+    int offset = cause instanceof JsonException ? ((JsonException) cause).getOffset() : -1;
+    return new FacebookJsonMappingException(message, json, offset, cause, mappingErrorStackTracesEnabled);
+  }
+
+  /**
+   * Parses {@code json} into a {@code JsonObject}, skipping over the values of
+   * any keys not included in {@code fieldMask}.
+   * 
+   * @param json
+   *          The JSON object text.
+   * @param fieldMask
+   *          The fields to keep, or {@code null} to keep everything.
+   * @return The parsed JSON object.
+   * @throws JsonException
+   *           If {@code json} is not a valid JSON object.
+   * @since 1.6.8
+   */
+  protected JsonObject toJsonObject(String json, FieldMask fieldMask) {
+    Object jsonParse = FlightEvents.beginJsonParse();
+    JsonObject jsonObject =
+        fieldMask == null ? new JsonObject(json) : new JsonObject(new JsonTokener(json), fieldMask.getFieldNames());
+    FlightEvents.endJsonParse(jsonParse, "JsonObject", json.length());
+    jsonParsed();
+    return jsonObject;
+  }
+
+  /**
+   * Tells the {@link RequestListener} of the API call in progress, if any, that
+   * its response JSON has been parsed. Only the first, outermost parse counts.
+   */
+  private static void jsonParsed() {
+    RequestEvent event = RequestEvent.current();
+    if (event != null)
+      event.jsonParsed();
+  }
+
+  /**
+   * Gets the mask to apply to the value of the given field.
+   * 
+   * @param fieldMask
+   *          The mask being applied to the enclosing object, or {@code null}.
+   * @param facebookFieldName
+   *          The Facebook field name.
+   * @return The nested mask, or {@code null} if the value should be mapped in
+   *         full.
+   */
+  private FieldMask nestedFieldMask(FieldMask fieldMask, String facebookFieldName) {
+    return fieldMask == null ? null : fieldMask.nested(facebookFieldName);
+  }
+
+  /**
+   * Can the given JSON value be mapped to the given field, judging by the
+   * value's shape alone?
+   * <p>
+   * Used to pick the right Java field(s) for a Facebook field name that's
+   * mapped more than once, so mismatches are skipped rather than detected by
+   * catching mapping exceptions. Anything maps to a {@code String}, and strings
+   * map to numbers, booleans and dates since Facebook sometimes sends those
+   * quoted.
+   * 
+   * @param fieldWithAnnotation
+   *          The Java field to map to and its annotation.
+   * @param rawValue
+   *          The JSON value: a {@code JsonObject}, {@code JsonArray},
+   *          {@code String}, {@code Number}, {@code Boolean} or
+   *          {@code JsonObject.NULL}.
+   * @return {@code true} if the value has a shape the field's type can be
+   *         mapped from, {@code false} otherwise.
+   * @since 1.6.8
+   */
+  protected boolean canMapToField(FieldWithAnnotation<Facebook> fieldWithAnnotation, Object rawValue) {
+    Class<?> type = fieldWithAnnotation.getField().getType();
+
+    if (String.class.equals(type) || NULL.equals(rawValue))
+      return true;
+
+    if (isDateField(fieldWithAnnotation))
+      return rawValue instanceof Number || rawValue instanceof String;
+    if (Boolean.class.equals(type) || Boolean.TYPE.equals(type))
+      return rawValue instanceof Boolean || rawValue instanceof String;
+    if (type.isPrimitive() || Number.class.isAssignableFrom(type))
+      return rawValue instanceof Number || rawValue instanceof String;
+    if (List.class.equals(type) || Comments.class.isAssignableFrom(type))
+      return rawValue instanceof JsonObject || rawValue instanceof JsonArray;
+
+    // Facebook sends "false" for missing objects, which maps to null. Types
+    // with no annotated fields are built-ins that take primitive values.
+    return rawValue instanceof JsonObject || Boolean.FALSE.equals(rawValue)
+        || findFieldsWithAnnotation(type, Facebook.class).isEmpty();
+  }
+
   /**
    * Dumps out a log message when one of a multiple-mapped Facebook field name
    * JSON-to-Java mapping operation fails.
@@ -380,8 +614,7 @@ public class DefaultJsonMapper implements JsonMapper {
    */
   @Override
   public String toJson(Object object) {
-    // Delegate to recursive method
-    return toJsonInternal(object, false).toString();
+    return toJson(object, false);
   }
 
   /**
@@ -389,61 +622,214 @@ public class DefaultJsonMapper implements JsonMapper {
    */
   @Override
   public String toJson(Object object, boolean ignoreNullValuedProperties) {
-    return toJsonInternal(object, ignoreNullValuedProperties).toString();
+    StringBuilder json = new StringBuilder();
+
+    try {
+      toJson(object, ignoreNullValuedProperties, json);
+    } catch (IOException e) {
+      // Can't happen - StringBuilder doesn't do I/O
+      throw new FacebookJsonMappingException("Unable to write JSON", e);
+    }
+
+    return json.toString();
+  }
+
+  /**
+   * Given a Java {@code object}, write JSON that represents it to
+   * {@code appendable}.
+   * <p>
+   * The JSON is written as the {@code object} is traversed, without building
+   * an intermediate representation, so this is the cheapest way to serialize
+   * large objects. The output is the same as that of
+   * {@link #toJson(Object, boolean)}. If an exception is thrown, whatever was
+   * written before the failure is left in {@code appendable}.
+   * 
+   * @param object
+   *          The Java object to map to JSON. Can be a Javabean,
+   *          {@link java.util.List}, or {@link java.util.Map}.
+   * @param ignoreNullValuedProperties
+   *          If {@code true}, no Javabean properties with {@code null} values
+   *          will be included in the generated JSON.
+   * @param appendable
+   *          Where to write the JSON.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while mapping Java to JSON.
+   * @throws IOException
+   *           If an error occurs while writing to {@code appendable}.
+   * @since 1.6.8
+   */
+  public void toJson(Object object, boolean ignoreNullValuedProperties, Appendable appendable) throws IOException {
+    if (toJsonInternalOverridden) {
+      appendable.append(String.valueOf(toJsonInternal(object, ignoreNullValuedProperties)));
+      return;
+    }
+
+    // Top-level primitives are written as-is rather than as JSON values (e.g.
+    // strings aren't quoted) so they can be used directly as parameter values
+    if (object == null)
+      appendable.append(NULL.toString());
+    else if (object instanceof BigInteger)
+      appendable.append(String.valueOf(((BigInteger) object).longValue()));
+    else if (object instanceof BigDecimal)
+      appendable.append(String.valueOf(((BigDecimal) object).doubleValue()));
+    else if (isPrimitive(object))
+      appendable.append(object.toString());
+    else
+      writeJson(object, ignoreNullValuedProperties, new JsonGenerator(appendable));
   }
 
   /**
-   * Recursively marshal the given {@code object} to JSON.
+   * Given a Java {@code object}, write UTF-8 encoded JSON that represents it
+   * to {@code outputStream}.
    * <p>
-   * Used by {@link #toJson(Object)}.
+   * Behaves like {@link #toJson(Object, boolean, Appendable)}. The stream is
+   * flushed, but not closed.
+   * 
+   * @param object
+   *          The Java object to map to JSON. Can be a Javabean,
+   *          {@link java.util.List}, or {@link java.util.Map}.
+   * @param ignoreNullValuedProperties
+   *          If {@code true}, no Javabean properties with {@code null} values
+   *          will be included in the generated JSON.
+   * @param outputStream
+   *          Where to write the JSON.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while mapping Java to JSON.
+   * @throws IOException
+   *           If an error occurs while writing to {@code outputStream}.
+   * @since 1.6.8
+   */
+  public void toJson(Object object, boolean ignoreNullValuedProperties, OutputStream outputStream) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+    toJson(object, ignoreNullValuedProperties, writer);
+    writer.flush();
+  }
+
+  /**
+   * Marshals the given {@code object} to a JSON value.
+   * <p>
+   * If a subclass overrides this method, {@code toJson} calls the override, as
+   * it used to. Nested values are no longer marshaled through it, though:
+   * calling {@code super.toJsonInternal} marshals the whole value with
+   * {@link #writeJson(Object, boolean, JsonGenerator)}.
    * 
    * @param object
    *          The object to marshal.
    * @param ignoreNullValuedProperties
    *          If this is {@code true}, no Javabean properties with {@code null}
    *          values will be included in the generated JSON.
-   * @return JSON representation of the given {@code object}.
+   * @return JSON representation of the given {@code object}: a
+   *         {@link JsonObject}, {@link JsonArray}, primitive wrapper, string or
+   *         {@link JsonObject#NULL}.
    * @throws FacebookJsonMappingException
    *           If an error occurs while marshaling to JSON.
+   * @deprecated Override {@link #writeJson(Object, boolean, JsonGenerator)}
+   *             instead, which streams the JSON rather than building a tree.
    */
+  @Deprecated
   protected Object toJsonInternal(Object object, boolean ignoreNullValuedProperties) {
     if (object == null)
       return NULL;
 
+    StringBuilder json = new StringBuilder();
+
+    try {
+      writeJson(object, ignoreNullValuedProperties, new JsonGenerator(json));
+    } catch (IOException e) {
+      // Can't happen - StringBuilder doesn't do I/O
+      throw new FacebookJsonMappingException("Unable to write JSON", e);
+    }
+
+    return new JsonTokener(json.toString()).nextValue();
+  }
+
+  /**
+   * Does {@code type} (below {@code DefaultJsonMapper}) override
+   * {@link #toJsonInternal(Object, boolean)}?
+   * 
+   * @param type
+   *          The mapper class.
+   * @return {@code true} if the method is overridden.
+   */
+  private static boolean overridesToJsonInternal(Class<?> type) {
+    for (Class<?> c = type; c != DefaultJsonMapper.class; c = c.getSuperclass())
+      try {
+        c.getDeclaredMethod("toJsonInternal", Object.class, boolean.class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // Keep looking up the hierarchy
+      }
+
+    return false;
+  }
+
+  /**
+   * Recursively marshal the given {@code object} to JSON, writing it to
+   * {@code generator} as we go.
+   * <p>
+   * Used by {@link #toJson(Object, boolean, Appendable)}.
+   * 
+   * @param object
+   *          The object to marshal.
+   * @param ignoreNullValuedProperties
+   *          If this is {@code true}, no Javabean properties with {@code null}
+   *          values will be included in the generated JSON.
+   * @param generator
+   *          Where to write the JSON.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while marshaling to JSON.
+   * @throws IOException
+   *           If an error occurs while writing the JSON.
+   * @since 1.6.8
+   */
+  protected void writeJson(Object object, boolean ignoreNullValuedProperties, JsonGenerator generator)
+      throws IOException {
+    if (object == null) {
+      generator.nullValue();
+      return;
+    }
+
     if (object instanceof List<?>) {
-      JsonArray jsonArray = new JsonArray();
+      generator.beginArray();
       for (Object o : (List<?>) object)
-        jsonArray.put(toJsonInternal(o, ignoreNullValuedProperties));
-
-      return jsonArray;
+        writeJson(o, ignoreNullValuedProperties, generator);
+      generator.endArray();
+      return;
     }
 
     if (object instanceof Map<?, ?>) {
-      JsonObject jsonObject = new JsonObject();
+      generator.beginObject();
       for (Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
         if (!(entry.getKey() instanceof String))
           throw new FacebookJsonMappingException("Your Map keys must be of type " + String.class
               + " in order to be converted to JSON.  Offending map is " + object);
 
         try {
-          jsonObject.put((String) entry.getKey(), toJsonInternal(entry.getValue(), ignoreNullValuedProperties));
+          generator.name((String) entry.getKey());
+          writeJson(entry.getValue(), ignoreNullValuedProperties, generator);
         } catch (JsonException e) {
           throw new FacebookJsonMappingException("Unable to process value '" + entry.getValue() + "' for key '"
               + entry.getKey() + "' in Map " + object, e);
         }
       }
-
-      return jsonObject;
+      generator.endObject();
+      return;
     }
 
-    if (isPrimitive(object))
-      return object;
+    if (isPrimitive(object)) {
+      generator.value(object);
+      return;
+    }
 
-    if (object instanceof BigInteger)
-      return ((BigInteger) object).longValue();
+    if (object instanceof BigInteger) {
+      generator.value(((BigInteger) object).longValue());
+      return;
+    }
 
-    if (object instanceof BigDecimal)
-      return ((BigDecimal) object).doubleValue();
+    if (object instanceof BigDecimal) {
+      generator.value(((BigDecimal) object).doubleValue());
+      return;
+    }
 
     // We've passed the special-case bits, so let's try to marshal this as a
     // plain old Javabean...
@@ -451,14 +837,14 @@ public class DefaultJsonMapper implements JsonMapper {
     List<FieldWithAnnotation<Facebook>> fieldsWithAnnotation =
         findFieldsWithAnnotation(object.getClass(), Facebook.class);
 
-    JsonObject jsonObject = new JsonObject();
-
     Set<String> facebookFieldNamesWithMultipleMappings = facebookFieldNamesWithMultipleMappings(fieldsWithAnnotation);
     if (facebookFieldNamesWithMultipleMappings.size() > 0)
       throw new FacebookJsonMappingException("Unable to convert to JSON because multiple @"
           + Facebook.class.getSimpleName() + " annotations for the same name are present: "
           + facebookFieldNamesWithMultipleMappings);
 
+    generator.beginObject();
+
     for (FieldWithAnnotation<Facebook> fieldWithAnnotation : fieldsWithAnnotation) {
       String facebookFieldName = getFacebookFieldName(fieldWithAnnotation);
       fieldWithAnnotation.getField().setAccessible(true);
@@ -466,15 +852,21 @@ public class DefaultJsonMapper implements JsonMapper {
       try {
         Object fieldValue = fieldWithAnnotation.getField().get(object);
 
-        if (!(ignoreNullValuedProperties && fieldValue == null))
-          jsonObject.put(facebookFieldName, toJsonInternal(fieldValue, ignoreNullValuedProperties));
+        if (fieldValue != null && isDateField(fieldWithAnnotation))
+          generator.name(facebookFieldName).value(toJsonDate(fieldWithAnnotation, fieldValue));
+        else if (!(ignoreNullValuedProperties && fieldValue == null)) {
+          generator.name(facebookFieldName);
+          writeJson(fieldValue, ignoreNullValuedProperties, generator);
+        }
+      } catch (IOException e) {
+        throw e;
       } catch (Exception e) {
         throw new FacebookJsonMappingException("Unable to process field '" + facebookFieldName + "' for "
             + object.getClass(), e);
       }
     }
 
-    return jsonObject;
+    generator.endObject();
   }
 
   /**
@@ -526,8 +918,8 @@ public class DefaultJsonMapper implements JsonMapper {
     if (jsonMappingErrorHandler.handleMappingError(json, type, null))
       return null;
 
-    throw new FacebookJsonMappingException("Don't know how to map JSON to " + type
-        + ". Are you sure you're mapping to the right class? " + "Offending JSON is '" + json + "'.");
+    throw mappingException("Don't know how to map JSON to " + type
+        + ". Are you sure you're mapping to the right class?", json, null);
   }
 
   /**
@@ -549,6 +941,33 @@ public class DefaultJsonMapper implements JsonMapper {
    */
   protected Object toJavaType(FieldWithAnnotation<Facebook> fieldWithAnnotation, JsonObject jsonObject,
       String facebookFieldName) {
+    return toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName, null);
+  }
+
+  /**
+   * Extracts JSON data for a field according to its {@code Facebook} annotation
+   * and returns it converted to the proper Java type, mapping only the parts of
+   * nested objects included in {@code fieldMask}.
+   * 
+   * @param fieldWithAnnotation
+   *          The field/annotation pair which specifies what Java type to
+   *          convert to.
+   * @param jsonObject
+   *          "Raw" JSON object to pull data from.
+   * @param facebookFieldName
+   *          Specifies what JSON field to pull "raw" data from.
+   * @param fieldMask
+   *          The mask to apply to nested objects (or list elements), or
+   *          {@code null} to map them in full.
+   * @return The Java value of the field.
+   * @throws JsonException
+   *           If an error occurs while mapping JSON to Java.
+   * @throws FacebookJsonMappingException
+   *           If an error occurs while mapping JSON to Java.
+   * @since 1.6.8
+   */
+  protected Object toJavaType(FieldWithAnnotation<Facebook> fieldWithAnnotation, JsonObject jsonObject,
+      String facebookFieldName, FieldMask fieldMask) {
     Class<?> type = fieldWithAnnotation.getField().getType();
     Object rawValue = jsonObject.get(facebookFieldName);
 
@@ -584,6 +1003,9 @@ public class DefaultJsonMapper implements JsonMapper {
       return rawValue.toString();
     }
 
+    if (isDateField(fieldWithAnnotation))
+      return toJavaDate(fieldWithAnnotation, rawValue);
+
     if (Integer.class.equals(type) || Integer.TYPE.equals(type))
       return new Integer(jsonObject.getInt(facebookFieldName));
     if (Boolean.class.equals(type) || Boolean.TYPE.equals(type))
@@ -599,7 +1021,8 @@ public class DefaultJsonMapper implements JsonMapper {
     if (BigDecimal.class.equals(type))
       return new BigDecimal(jsonObject.getString(facebookFieldName));
     if (List.class.equals(type))
-      return toJavaList(rawValue.toString(), getFirstParameterizedTypeArgument(fieldWithAnnotation.getField()));
+      return toJavaList(rawValue.toString(), getFirstParameterizedTypeArgument(fieldWithAnnotation.getField()),
+        fieldMask);
 
     String rawValueAsString = rawValue.toString();
 
@@ -618,7 +1041,119 @@ public class DefaultJsonMapper implements JsonMapper {
     }
 
     // Some other type - recurse into it
-    return toJavaObject(rawValueAsString, type);
+    return toJavaObject(rawValueAsString, type, fieldMask);
+  }
+
+  /**
+   * Does the given field hold a date, i.e. is it a {@code Date} or
+   * {@code Instant}, or a {@code long}/{@code Long} with a
+   * {@link Facebook#dateFormat()}?
+   * 
+   * @param fieldWithAnnotation
+   *          The field/annotation pair to check.
+   * @return {@code true} if the field holds a date, {@code false} otherwise.
+   * @since 1.6.8
+   */
+  protected boolean isDateField(FieldWithAnnotation<Facebook> fieldWithAnnotation) {
+    Class<?> type = fieldWithAnnotation.getField().getType();
+
+    if (Date.class.equals(type) || Instants.isInstant(type))
+      return true;
+
+    return (Long.class.equals(type) || Long.TYPE.equals(type))
+        && !isBlank(fieldWithAnnotation.getAnnotation().dateFormat());
+  }
+
+  /**
+   * Returns the {@link Facebook#dateFormat()} of a date field, defaulting to
+   * {@link DateUtils#FACEBOOK_LONG_DATE_FORMAT}.
+   * 
+   * @param fieldWithAnnotation
+   *          A date field.
+   * @return The field's date format.
+   */
+  private String dateFormat(FieldWithAnnotation<Facebook> fieldWithAnnotation) {
+    String dateFormat = fieldWithAnnotation.getAnnotation().dateFormat();
+    return isBlank(dateFormat) ? FACEBOOK_LONG_DATE_FORMAT : dateFormat;
+  }
+
+  /**
+   * Converts a raw JSON date (a string or a number) to the Java type of the
+   * given date field according to its {@link Facebook#dateFormat()}.
+   * <p>
+   * Unparseable dates map to {@code null}, like the
+   * {@link DateUtils#toDateFromFormat(String, String)} they're parsed with.
+   * 
+   * @param fieldWithAnnotation
+   *          The date field to map to.
+   * @param rawValue
+   *          The raw JSON value.
+   * @return A {@code Date}, {@code Instant} or {@code Long}, or {@code null}.
+   * @throws FacebookJsonMappingException
+   *           If {@code rawValue} isn't a string or number, or if it can't be
+   *           parsed and the field is a primitive {@code long}.
+   * @since 1.6.8
+   */
+  protected Object toJavaDate(FieldWithAnnotation<Facebook> fieldWithAnnotation, Object rawValue) {
+    String dateFormat = dateFormat(fieldWithAnnotation);
+    Date date;
+
+    if (rawValue instanceof Number)
+      date =
+          new Date(EPOCH_MILLISECONDS_FORMAT.equals(dateFormat) ? ((Number) rawValue).longValue()
+              : ((Number) rawValue).longValue() * 1000L);
+    else if (rawValue instanceof String)
+      date = toDateFromFormat((String) rawValue, dateFormat);
+    else
+      throw new FacebookJsonMappingException("Unable to map " + rawValue + " to a date for " + fieldWithAnnotation);
+
+    Class<?> type = fieldWithAnnotation.getField().getType();
+
+    if (date == null) {
+      if (Long.TYPE.equals(type))
+        throw new FacebookJsonMappingException("Unable to parse date '" + rawValue + "' using format '" + dateFormat
+            + "' for " + fieldWithAnnotation);
+
+      return null;
+    }
+
+    if (Date.class.equals(type))
+      return date;
+    if (Instants.isInstant(type))
+      return Instants.ofEpochMilli(date.getTime());
+
+    return date.getTime();
+  }
+
+  /**
+   * Converts the value of a date field to JSON according to its
+   * {@link Facebook#dateFormat()}.
+   * 
+   * @param fieldWithAnnotation
+   *          The date field.
+   * @param fieldValue
+   *          The field's (non-{@code null}) value.
+   * @return A JSON number for epoch formats, a string otherwise.
+   * @since 1.6.8
+   */
+  protected Object toJsonDate(FieldWithAnnotation<Facebook> fieldWithAnnotation, Object fieldValue) {
+    long millis;
+
+    if (fieldValue instanceof Date)
+      millis = ((Date) fieldValue).getTime();
+    else if (fieldValue instanceof Long)
+      millis = (Long) fieldValue;
+    else
+      millis = Instants.toEpochMilli(fieldValue);
+
+    String dateFormat = dateFormat(fieldWithAnnotation);
+
+    if (EPOCH_MILLISECONDS_FORMAT.equals(dateFormat))
+      return millis;
+    if (EPOCH_SECONDS_FORMAT.equals(dateFormat))
+      return millis / 1000L;
+
+    return toFormattedString(new Date(millis), dateFormat);
   }
 
   /**
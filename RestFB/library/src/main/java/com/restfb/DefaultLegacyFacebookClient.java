@@ -26,16 +26,20 @@ import static com.restfb.util.StringUtils.isBlank;
 import static com.restfb.util.StringUtils.toBytes;
 import static com.restfb.util.StringUtils.trimToEmpty;
 import static com.restfb.util.StringUtils.urlEncode;
+import static com.restfb.util.TrafficLogger.RESPONSES;
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.logging.Level.INFO;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 
 import com.restfb.WebRequestor.Response;
@@ -93,6 +97,13 @@ public class DefaultLegacyFacebookClient extends BaseFacebookClient implements L
   protected static final String VERSION_PARAM_NAME = "v";
   protected static final String VERSION_PARAM_VALUE = "1.0";
 
+  /**
+   * Parameter names reserved for use by this client.
+   */
+  private static final Set<String> ILLEGAL_PARAM_NAMES = unmodifiableSet(new HashSet<String>(asList(new String[] {
+      API_KEY_PARAM_NAME, CALL_ID_PARAM_NAME, SIG_PARAM_NAME, METHOD_PARAM_NAME, SESSION_KEY_PARAM_NAME,
+      FORMAT_PARAM_NAME, VERSION_PARAM_NAME, ACCESS_TOKEN_PARAM_NAME })));
+
   /**
    * Creates a Facebook API client with the given <a
    * href="http://developers.facebook.com/docs/guides/upgrade#oauth">OAuth
@@ -344,8 +355,9 @@ public class DefaultLegacyFacebookClient extends BaseFacebookClient implements L
       throw new FacebookNetworkException("Facebook POST failed", t);
     }
 
-    if (logger.isLoggable(INFO))
-      logger.info("Facebook responded with " + response);
+    if (RESPONSES.isLoggable(INFO))
+      RESPONSES.log(INFO, "Facebook responded with HTTP status code {0} and response body: {1}",
+        String.valueOf(response.getStatusCode()), RESPONSES.sanitized(response.getBody()));
 
     // If we get any HTTP response code other than a 200 OK, throw an exception
     if (HTTP_OK != response.getStatusCode())
@@ -411,10 +423,10 @@ public class DefaultLegacyFacebookClient extends BaseFacebookClient implements L
       else
         parameterStringBuilder.append("&");
 
-      parameterStringBuilder.append(urlEncode(entry.getKey()));
-      parameterStringBuilder.append("=");
-      parameterStringBuilder.append(usesAccessTokenAuthentication() ? urlEncodedValueForParameterName(entry.getKey(),
-        entry.getValue()) : urlEncode(entry.getValue()));
+      if (usesAccessTokenAuthentication())
+        appendUrlEncodedParameter(parameterStringBuilder, entry.getKey(), entry.getValue());
+      else
+        urlEncode(entry.getValue(), urlEncode(entry.getKey(), parameterStringBuilder).append('='));
     }
 
     return parameterStringBuilder.toString();
@@ -492,8 +504,7 @@ public class DefaultLegacyFacebookClient extends BaseFacebookClient implements L
    * Initializes the set of illegal URL parameter names.
    */
   protected void initializeIllegalParamNames() {
-    illegalParamNames.addAll(Arrays.asList(new String[] { API_KEY_PARAM_NAME, CALL_ID_PARAM_NAME, SIG_PARAM_NAME,
-        METHOD_PARAM_NAME, SESSION_KEY_PARAM_NAME, FORMAT_PARAM_NAME, VERSION_PARAM_NAME, ACCESS_TOKEN_PARAM_NAME }));
+    share(illegalParamNames, ILLEGAL_PARAM_NAMES);
   }
 
   /**
@@ -24,13 +24,16 @@ package com.restfb;
 
 import static com.restfb.util.StringUtils.ENCODING_CHARSET;
 import static com.restfb.util.StringUtils.fromInputStream;
-import static com.restfb.util.StringUtils.urlDecode;
+import static com.restfb.util.TrafficLogger.REQUESTS;
+import static com.restfb.util.TrafficLogger.redactSecrets;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.util.logging.Level.FINER;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.WARNING;
 
 import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -38,6 +41,8 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.logging.Logger;
 
+import com.restfb.util.FlightEvents;
+
 /**
  * Default implementation of a service that sends HTTP requests to the Facebook
  * API endpoint.
@@ -80,9 +85,10 @@ public class DefaultWebRequestor implements WebRequestor {
    */
   @Override
   public Response executeGet(String url) throws IOException {
-    if (logger.isLoggable(INFO))
-      logger.info("Making a GET request to " + url);
+    if (REQUESTS.isLoggable(INFO))
+      REQUESTS.log(INFO, "Making a GET request to {0}", REQUESTS.sanitized(url));
 
+    Object httpExchange = FlightEvents.beginHttpExchange();
     HttpURLConnection httpUrlConnection = null;
     InputStream inputStream = null;
 
@@ -98,6 +104,12 @@ public class DefaultWebRequestor implements WebRequestor {
       httpUrlConnection.setRequestMethod("GET");
       httpUrlConnection.connect();
 
+      RequestEvent event = RequestEvent.current();
+      if (event != null) {
+        event.connectionAcquired();
+        event.setBytesSent(0);
+      }
+
       if (logger.isLoggable(FINER))
         logger.finer("Response headers: " + httpUrlConnection.getHeaderFields());
 
@@ -107,10 +119,10 @@ public class DefaultWebRequestor implements WebRequestor {
               .getInputStream();
       } catch (IOException e) {
         if (logger.isLoggable(WARNING))
-          logger.warning("An error occurred while making a GET request to " + url + ": " + e);
+          logger.warning("An error occurred while making a GET request to " + redactSecrets(url) + ": " + e);
       }
 
-      return new Response(httpUrlConnection.getResponseCode(), fromInputStream(inputStream));
+      return readResponse(httpUrlConnection, inputStream, event, httpExchange, "GET", url, 0);
     } finally {
       closeQuietly(httpUrlConnection);
     }
@@ -134,11 +146,15 @@ public class DefaultWebRequestor implements WebRequestor {
     if (binaryAttachments == null)
       binaryAttachments = new BinaryAttachment[] {};
 
-    if (logger.isLoggable(INFO))
-      logger.info("Executing a POST to " + url + " with parameters "
-          + (binaryAttachments.length > 0 ? "" : "(sent in request body): ") + urlDecode(parameters)
-          + (binaryAttachments.length > 0 ? " and " + binaryAttachments.length + " binary attachment[s]." : ""));
+    if (REQUESTS.isLoggable(INFO))
+      if (binaryAttachments.length > 0)
+        REQUESTS.log(INFO, "Executing a POST to {0} with parameters {1} and {2} binary attachment[s].",
+          REQUESTS.sanitized(url), REQUESTS.sanitized(parameters), String.valueOf(binaryAttachments.length));
+      else
+        REQUESTS.log(INFO, "Executing a POST to {0} with parameters (sent in request body): {1}",
+          REQUESTS.sanitized(url), REQUESTS.sanitized(parameters));
 
+    Object httpExchange = FlightEvents.beginHttpExchange();
     HttpURLConnection httpUrlConnection = null;
     OutputStream outputStream = null;
     InputStream inputStream = null;
@@ -163,6 +179,13 @@ public class DefaultWebRequestor implements WebRequestor {
       httpUrlConnection.connect();
       outputStream = httpUrlConnection.getOutputStream();
 
+      CountingOutputStream countingOutputStream = null;
+      RequestEvent event = RequestEvent.current();
+      if (event != null)
+        event.connectionAcquired();
+      if (event != null || httpExchange != null)
+        outputStream = countingOutputStream = new CountingOutputStream(outputStream);
+
       // If we have binary attachments, the body is just the attachments and the
       // other parameters are passed in via the URL.
       // Otherwise the body is the URL parameter string.
@@ -183,6 +206,10 @@ public class DefaultWebRequestor implements WebRequestor {
         outputStream.write(parameters.getBytes(ENCODING_CHARSET));
       }
 
+      long bytesSent = countingOutputStream == null ? 0 : countingOutputStream.count;
+      if (event != null)
+        event.setBytesSent(bytesSent);
+
       if (logger.isLoggable(FINER))
         logger.finer("Response headers: " + httpUrlConnection.getHeaderFields());
 
@@ -192,10 +219,10 @@ public class DefaultWebRequestor implements WebRequestor {
               .getInputStream();
       } catch (IOException e) {
         if (logger.isLoggable(WARNING))
-          logger.warning("An error occurred while POSTing to " + url + ": " + e);
+          logger.warning("An error occurred while POSTing to " + redactSecrets(url) + ": " + e);
       }
 
-      return new Response(httpUrlConnection.getResponseCode(), fromInputStream(inputStream));
+      return readResponse(httpUrlConnection, inputStream, event, httpExchange, "POST", url, bytesSent);
     } finally {
       if (binaryAttachments.length > 0)
         for (BinaryAttachment binaryAttachment : binaryAttachments)
@@ -206,6 +233,74 @@ public class DefaultWebRequestor implements WebRequestor {
     }
   }
 
+  /**
+   * Reads the response from {@code inputStream}, reporting when its first byte
+   * arrived and how big its body was to {@code event}.
+   * 
+   * @param httpUrlConnection
+   *          The connection the response came in on.
+   * @param inputStream
+   *          The response body stream, or {@code null} if there isn't one.
+   * @param event
+   *          The call's event, or {@code null} if nobody's listening.
+   * @return The response.
+   * @throws IOException
+   *           If an error occurs while reading the response.
+   * @since 1.6.8
+   */
+  protected Response readResponse(HttpURLConnection httpUrlConnection, InputStream inputStream, RequestEvent event)
+      throws IOException {
+    if (event == null)
+      return new Response(httpUrlConnection.getResponseCode(), fromInputStream(inputStream));
+
+    event.firstByteReceived(httpUrlConnection.getResponseCode());
+
+    CountingInputStream countingInputStream = inputStream == null ? null : new CountingInputStream(inputStream);
+    String body = fromInputStream(countingInputStream);
+    event.bodyRead(countingInputStream == null ? 0 : countingInputStream.count);
+
+    return new Response(httpUrlConnection.getResponseCode(), body);
+  }
+
+  /**
+   * Reads the response from {@code inputStream} as
+   * {@link #readResponse(HttpURLConnection, InputStream, RequestEvent)} does,
+   * then finishes the exchange's flight recorder event, if it's being
+   * recorded.
+   * 
+   * @param httpUrlConnection
+   *          The connection the response came in on.
+   * @param inputStream
+   *          The response body stream, or {@code null} if there isn't one.
+   * @param event
+   *          The call's event, or {@code null} if nobody's listening.
+   * @param httpExchange
+   *          The exchange's flight recorder event, or {@code null} if it isn't
+   *          being recorded.
+   * @param method
+   *          HTTP method.
+   * @param url
+   *          Request URL.
+   * @param bytesSent
+   *          Size of the request body.
+   * @return The response.
+   * @throws IOException
+   *           If an error occurs while reading the response.
+   */
+  private Response readResponse(HttpURLConnection httpUrlConnection, InputStream inputStream, RequestEvent event,
+      Object httpExchange, String method, String url, long bytesSent) throws IOException {
+    if (httpExchange == null)
+      return readResponse(httpUrlConnection, inputStream, event);
+
+    CountingInputStream countingInputStream = inputStream == null ? null : new CountingInputStream(inputStream);
+    Response response = readResponse(httpUrlConnection, countingInputStream, event);
+
+    FlightEvents.endHttpExchange(httpExchange, method, RequestMetrics.toTemplate(url), response.getStatusCode(),
+      bytesSent, countingInputStream == null ? 0 : countingInputStream.count);
+
+    return response;
+  }
+
   /**
    * Given a {@code url}, opens and returns a connection to it.
    * <p>
@@ -316,4 +411,101 @@ public class DefaultWebRequestor implements WebRequestor {
     int fileExtensionIndex = name.lastIndexOf(".");
     return fileExtensionIndex > 0 ? name.substring(0, fileExtensionIndex) : name;
   }
-}
\ No newline at end of file
+
+  /**
+   * Counts the bytes read through it.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    /**
+     * Bytes read so far.
+     */
+    long count;
+
+    /**
+     * Creates a stream that counts the bytes read from {@code in}.
+     * 
+     * @param in
+     *          The stream to read from.
+     */
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    /**
+     * @see java.io.FilterInputStream#read()
+     */
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1)
+        count++;
+      return b;
+    }
+
+    /**
+     * @see java.io.FilterInputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0)
+        count += read;
+      return read;
+    }
+
+    /**
+     * @see java.io.FilterInputStream#skip(long)
+     */
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+
+  /**
+   * Counts the bytes written through it.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   */
+  private static class CountingOutputStream extends FilterOutputStream {
+    /**
+     * Bytes written so far.
+     */
+    long count;
+
+    /**
+     * Creates a stream that counts the bytes written to {@code out}.
+     * 
+     * @param out
+     *          The stream to write to.
+     */
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    /**
+     * @see java.io.FilterOutputStream#write(int)
+     */
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    /**
+     * @see java.io.FilterOutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      // FilterOutputStream would write the bytes one at a time
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
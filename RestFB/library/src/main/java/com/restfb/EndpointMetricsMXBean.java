@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+/**
+ * Management interface for the calls a {@link RequestMetrics} has recorded for
+ * one endpoint template. Latencies run from when the request is built until
+ * the response is mapped or the call fails.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public interface EndpointMetricsMXBean {
+  /**
+   * Gets the endpoint template, e.g. <code>/{id}/feed</code>.
+   * 
+   * @return The endpoint template.
+   */
+  String getEndpoint();
+
+  /**
+   * Gets the number of calls to the endpoint that have finished, successfully
+   * or not.
+   * 
+   * @return The number of calls.
+   */
+  long getRequestCount();
+
+  /**
+   * Gets the number of calls to the endpoint that have failed.
+   * 
+   * @return The number of failed calls.
+   */
+  long getErrorCount();
+
+  /**
+   * Gets the mean call latency.
+   * 
+   * @return The mean latency in milliseconds.
+   */
+  double getMeanMillis();
+
+  /**
+   * Gets the highest call latency.
+   * 
+   * @return The highest latency in milliseconds.
+   */
+  double getMaxMillis();
+
+  /**
+   * Gets the median call latency.
+   * 
+   * @return The median latency in milliseconds.
+   */
+  double getMedianMillis();
+
+  /**
+   * Gets the 90th percentile call latency.
+   * 
+   * @return The 90th percentile latency in milliseconds.
+   */
+  double get90thPercentileMillis();
+
+  /**
+   * Gets the 99th percentile call latency.
+   * 
+   * @return The 99th percentile latency in milliseconds.
+   */
+  double get99thPercentileMillis();
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.restfb.util.StringUtils;
+
+/**
+ * The on-disk format shared by {@link RecordingWebRequestor} and
+ * {@link ReplayingWebRequestor}.
+ * <p>
+ * An archive is a gzipped stream of a magic number and version followed by one
+ * record per exchange: the method, URL and parameters (with secrets already
+ * redacted), how long the exchange took, the status code and the response
+ * body. Strings are written as a length and UTF-8 bytes, since response bodies
+ * routinely exceed what {@link DataOutputStream#writeUTF(String)} allows.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class ExchangeArchive {
+  /**
+   * Identifies a RestFB exchange archive ("RFBX").
+   */
+  private static final int MAGIC = 0x52464258;
+
+  /**
+   * Format version.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Status code recorded for exchanges that failed with an
+   * {@link IOException}; the body holds the exception's message.
+   */
+  static final int FAILED = -1;
+
+  /**
+   * Prevents instantiation.
+   */
+  private ExchangeArchive() {}
+
+  /**
+   * A recorded exchange.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  static final class Exchange {
+    /**
+     * {@code GET} or {@code POST}.
+     */
+    final String method;
+
+    /**
+     * Redacted URL.
+     */
+    final String url;
+
+    /**
+     * Redacted {@code POST} parameters, or {@code null} for a {@code GET}.
+     */
+    final String parameters;
+
+    /**
+     * How long the exchange took in microseconds.
+     */
+    final long elapsedMicros;
+
+    /**
+     * HTTP status code, or {@link ExchangeArchive#FAILED}.
+     */
+    final int statusCode;
+
+    /**
+     * Response body, or the failure's message.
+     */
+    final String body;
+
+    /**
+     * Creates an exchange.
+     * 
+     * @param method
+     *          {@code GET} or {@code POST}.
+     * @param url
+     *          Redacted URL.
+     * @param parameters
+     *          Redacted {@code POST} parameters, or {@code null}.
+     * @param elapsedMicros
+     *          How long the exchange took in microseconds.
+     * @param statusCode
+     *          HTTP status code, or {@link ExchangeArchive#FAILED}.
+     * @param body
+     *          Response body, or the failure's message.
+     */
+    Exchange(String method, String url, String parameters, long elapsedMicros, int statusCode, String body) {
+      this.method = method;
+      this.url = url;
+      this.parameters = parameters;
+      this.elapsedMicros = elapsedMicros;
+      this.statusCode = statusCode;
+      this.body = body;
+    }
+  }
+
+  /**
+   * Writes exchanges to an archive.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  static final class Writer implements Closeable {
+    /**
+     * The archive.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Starts an archive.
+     * 
+     * @param outputStream
+     *          Where to write the archive.
+     * @throws IOException
+     *           If the header can't be written.
+     */
+    Writer(OutputStream outputStream) throws IOException {
+      out = new DataOutputStream(new GZIPOutputStream(outputStream, 8192));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+    }
+
+    /**
+     * Appends an exchange.
+     * 
+     * @param exchange
+     *          The exchange.
+     * @throws IOException
+     *           If the exchange can't be written.
+     */
+    void write(Exchange exchange) throws IOException {
+      writeString(exchange.method);
+      writeString(exchange.url);
+      writeString(exchange.parameters);
+      out.writeLong(exchange.elapsedMicros);
+      out.writeInt(exchange.statusCode);
+      writeString(exchange.body);
+    }
+
+    /**
+     * Finishes the archive and closes the underlying stream.
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes; {@code null} has length
+     * {@code -1}.
+     * 
+     * @param string
+     *          The string to write.
+     * @throws IOException
+     *           If the string can't be written.
+     */
+    private void writeString(String string) throws IOException {
+      if (string == null) {
+        out.writeInt(-1);
+        return;
+      }
+
+      byte[] bytes = string.getBytes(StringUtils.ENCODING_CHARSET);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads exchanges from an archive.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  static final class Reader implements Closeable {
+    /**
+     * The archive.
+     */
+    private final DataInputStream in;
+
+    /**
+     * Opens an archive.
+     * 
+     * @param inputStream
+     *          The archive.
+     * @throws IOException
+     *           If the stream isn't an archive this version understands.
+     */
+    Reader(InputStream inputStream) throws IOException {
+      in = new DataInputStream(new GZIPInputStream(inputStream, 8192));
+
+      if (in.readInt() != MAGIC)
+        throw new IOException("Not a RestFB exchange archive.");
+
+      int version = in.readInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported exchange archive version " + version);
+    }
+
+    /**
+     * Reads the next exchange.
+     * 
+     * @return The exchange, or {@code null} at the end of the archive.
+     * @throws IOException
+     *           If the archive is corrupt or truncated.
+     */
+    Exchange read() throws IOException {
+      String method;
+
+      try {
+        method = readString();
+      } catch (EOFException e) {
+        return null;
+      }
+
+      return new Exchange(method, readString(), readString(), in.readLong(), in.readInt(), readString());
+    }
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    /**
+     * Reads a string written by {@link Writer#writeString(String)}.
+     * 
+     * @return The string.
+     * @throws IOException
+     *           If the string can't be read.
+     */
+    private String readString() throws IOException {
+      int length = in.readInt();
+      if (length < 0)
+        return null;
+
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, StringUtils.ENCODING_CHARSET);
+    }
+  }
+}
@@ -43,4 +43,25 @@ public @interface Facebook {
    * @return Name of the Facebook API result attribute to map to.
    */
   String value() default "";
+
+  /**
+   * How a date-valued field is represented in JSON.
+   * <p>
+   * Applies to fields of type {@code java.util.Date} and
+   * {@code java.time.Instant}, and to {@code long}/{@code Long} fields (which
+   * then hold milliseconds since the epoch). Use a {@code SimpleDateFormat}
+   * pattern such as {@link com.restfb.util.DateUtils#FACEBOOK_SHORT_DATE_FORMAT}
+   * for date strings, or {@link com.restfb.util.DateUtils#EPOCH_SECONDS_FORMAT}
+   * / {@link com.restfb.util.DateUtils#EPOCH_MILLISECONDS_FORMAT} for numeric
+   * timestamps.
+   * <p>
+   * If not specified, {@code Date} and {@code Instant} fields use
+   * {@link com.restfb.util.DateUtils#FACEBOOK_LONG_DATE_FORMAT} and
+   * {@code long}/{@code Long} fields are mapped as plain numbers. JSON numbers
+   * mapped with a pattern are interpreted as seconds since the epoch.
+   * 
+   * @return The format of the JSON value.
+   * @since 1.6.8
+   */
+  String dateFormat() default "";
 }
\ No newline at end of file
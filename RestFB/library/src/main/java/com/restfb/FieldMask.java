@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Specifies which JSON fields a {@link DefaultJsonMapper} should map, so
+ * everything else can be skipped. Other {@link JsonMapper} implementations
+ * don't support masks and map everything.
+ * <p>
+ * Masks are written like the Graph API {@code fields} parameter. Field names
+ * are Facebook JSON names, and nested objects can have their own mask in
+ * braces. For example,
+ * {@code FieldMask.of("id", "created_time", "from{id,name}")} maps a
+ * {@link com.restfb.types.Post}'s ID and creation time, and only the ID and
+ * name of its author. A nested field without braces (like {@code "from"}) is
+ * mapped in full. Masks apply to the shape of the JSON: lists are
+ * transparent, so a nested mask on a list field applies to each element, and
+ * for a Post's comments you would write {@code "comments{data{message}}"}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class FieldMask {
+  /**
+   * Nested masks keyed by field name. A {@code null} value means the field is
+   * included in full.
+   */
+  private final Map<String, FieldMask> fields;
+
+  /**
+   * Creates a mask with the given nested masks.
+   * 
+   * @param fields
+   *          Nested masks keyed by field name.
+   */
+  private FieldMask(Map<String, FieldMask> fields) {
+    this.fields = unmodifiableMap(fields);
+  }
+
+  /**
+   * Creates a mask from the given field specifications, for example
+   * {@code FieldMask.of("id", "from{id,name}")}. A single comma-separated
+   * string like {@code "id,from{id,name}"} works too.
+   * 
+   * @param fields
+   *          The field specifications.
+   * @return A mask that includes the given fields.
+   * @throws IllegalArgumentException
+   *           If no fields are given or a field specification is malformed.
+   */
+  public static FieldMask of(String... fields) {
+    if (fields == null || fields.length == 0)
+      throw new IllegalArgumentException("You must specify at least one field.");
+
+    StringBuilder joined = new StringBuilder();
+    for (String field : fields) {
+      if (field == null)
+        throw new IllegalArgumentException("Field specifications cannot be null.");
+      if (joined.length() > 0)
+        joined.append(',');
+      joined.append(field);
+    }
+
+    String specification = joined.toString();
+    int[] position = { 0 };
+    FieldMask fieldMask = parse(specification, position);
+
+    if (position[0] != specification.length())
+      throw new IllegalArgumentException("Unexpected '" + specification.charAt(position[0]) + "' at position "
+          + position[0] + " in field specification '" + specification + "'.");
+
+    return fieldMask;
+  }
+
+  /**
+   * Parses a comma-separated list of fields, stopping at the end of the input
+   * or an unmatched closing brace.
+   * 
+   * @param specification
+   *          The field specification.
+   * @param position
+   *          Single-element array holding the current position, updated as
+   *          characters are consumed.
+   * @return The parsed mask.
+   */
+  private static FieldMask parse(String specification, int[] position) {
+    Map<String, FieldMask> fields = new LinkedHashMap<String, FieldMask>();
+
+    for (;;) {
+      int start = position[0];
+      while (position[0] < specification.length() && ",{}".indexOf(specification.charAt(position[0])) == -1)
+        position[0]++;
+
+      String name = specification.substring(start, position[0]).trim();
+      if (name.length() == 0)
+        throw new IllegalArgumentException("Missing field name at position " + start + " in field specification '"
+            + specification + "'.");
+
+      FieldMask nestedMask = null;
+
+      if (position[0] < specification.length() && specification.charAt(position[0]) == '{') {
+        position[0]++;
+        nestedMask = parse(specification, position);
+        if (position[0] >= specification.length() || specification.charAt(position[0]) != '}')
+          throw new IllegalArgumentException("Missing '}' in field specification '" + specification + "'.");
+        position[0]++;
+      }
+
+      fields.put(name, nestedMask);
+
+      if (position[0] >= specification.length() || specification.charAt(position[0]) != ',')
+        return new FieldMask(fields);
+
+      position[0]++;
+    }
+  }
+
+  /**
+   * Does this mask include the given field?
+   * 
+   * @param fieldName
+   *          The Facebook JSON field name.
+   * @return {@code true} if the field should be mapped, {@code false}
+   *         otherwise.
+   */
+  public boolean includes(String fieldName) {
+    return fields.containsKey(fieldName);
+  }
+
+  /**
+   * Gets the mask to apply to the value of the given field.
+   * 
+   * @param fieldName
+   *          The Facebook JSON field name.
+   * @return The nested mask, or {@code null} if the field's value should be
+   *         mapped in full (or isn't included at all - see
+   *         {@link #includes(String)}).
+   */
+  public FieldMask nested(String fieldName) {
+    return fields.get(fieldName);
+  }
+
+  /**
+   * The names of the fields included by this mask, in the order they were
+   * specified.
+   * 
+   * @return The included field names.
+   */
+  public Set<String> getFieldNames() {
+    return unmodifiableSet(fields.keySet());
+  }
+
+  /**
+   * Maps {@code json} with {@code jsonMapper}, applying {@code fieldMask} if
+   * the mapper is a {@link DefaultJsonMapper}. Other mappers map everything.
+   * 
+   * @param <T>
+   *          Java type to map to.
+   * @param jsonMapper
+   *          The mapper to use.
+   * @param json
+   *          The JSON to map.
+   * @param type
+   *          Java type token.
+   * @param fieldMask
+   *          The fields to map, or {@code null} to map everything.
+   * @return The mapped object.
+   */
+  static <T> T toJavaObject(JsonMapper jsonMapper, String json, Class<T> type, FieldMask fieldMask) {
+    return fieldMask != null && jsonMapper instanceof DefaultJsonMapper ? ((DefaultJsonMapper) jsonMapper)
+      .toJavaObject(json, type, fieldMask) : jsonMapper.toJavaObject(json, type);
+  }
+
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object that) {
+    return that instanceof FieldMask && fields.equals(((FieldMask) that).fields);
+  }
+
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return fields.hashCode();
+  }
+
+  /**
+   * Returns this mask in field specification form, for example
+   * {@code id,from{id,name}}.
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    StringBuilder specification = new StringBuilder();
+
+    for (Entry<String, FieldMask> entry : fields.entrySet()) {
+      if (specification.length() > 0)
+        specification.append(',');
+      specification.append(entry.getKey());
+      if (entry.getValue() != null)
+        specification.append('{').append(entry.getValue()).append('}');
+    }
+
+    return specification.toString();
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.ReflectionUtils.findFieldsWithAnnotation;
+import static com.restfb.util.ReflectionUtils.getFirstParameterizedTypeArgument;
+import static com.restfb.util.StringUtils.isBlank;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.restfb.json.JsonObject;
+import com.restfb.types.FacebookType;
+import com.restfb.util.ReflectionUtils.FieldWithAnnotation;
+
+/**
+ * Computes the value of the Graph API {@code fields} URL parameter which
+ * requests exactly the data a {@link Facebook}-annotated type can hold.
+ * <p>
+ * For example, {@code FieldsProjection.forType(Comment.class)} returns
+ * {@code id,name,from{id,name},message,created_time,likes} (field order may
+ * vary). Nested types are expanded using the Graph API's
+ * {@code field{subfield,...}} syntax, and types which wrap a {@code data} list
+ * (such as {@link com.restfb.types.Post.Comments}) are expanded using the
+ * fields of the list's element type.
+ * <p>
+ * Results are computed once per type and cached.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class FieldsProjection {
+  /**
+   * Reserved "fields" parameter name.
+   */
+  public static final String FIELDS_PARAM_NAME = "fields";
+
+  /**
+   * Name of the field which holds the elements of a connection-like type.
+   */
+  private static final String DATA_FIELD_NAME = "data";
+
+  /**
+   * Marker for types that have no projection (we don't want to recompute
+   * {@code null} results).
+   */
+  private static final String NO_PROJECTION = "";
+
+  /**
+   * Projections per type. Stored alongside each class, so the cache never pins
+   * classloaders.
+   */
+  private static final ClassValue<String> PROJECTIONS_CACHE = new ClassValue<String>() {
+    /**
+     * @see java.lang.ClassValue#computeValue(java.lang.Class)
+     */
+    @Override
+    protected String computeValue(Class<?> type) {
+      String projection = projectionFor(type, new HashSet<Class<?>>());
+      return projection == null ? NO_PROJECTION : projection;
+    }
+  };
+
+  /**
+   * Prevents instantiation.
+   */
+  private FieldsProjection() {}
+
+  /**
+   * Gets the {@code fields} parameter value that covers every
+   * {@link Facebook}-annotated field of {@code type}, including fields of
+   * nested types.
+   * 
+   * @param type
+   *          The type to which API results will be mapped.
+   * @return The {@code fields} parameter value for {@code type}, or
+   *         {@code null} if {@code type} has no {@link Facebook}-annotated
+   *         fields (e.g. {@link String} or {@link JsonObject}).
+   */
+  public static String forType(Class<?> type) {
+    if (type == null)
+      return null;
+
+    String projection = PROJECTIONS_CACHE.get(type);
+    return projection == NO_PROJECTION ? null : projection;
+  }
+
+  /**
+   * Gets the {@code fields} parameter value for a container type as used by
+   * {@link FacebookClient#fetchObjects(List, Class, Parameter...)}, where each
+   * {@link Facebook}-annotated field holds one of the fetched objects.
+   * 
+   * @param containerType
+   *          The container type to which API results will be mapped.
+   * @return The projection of the container's field type if all of its
+   *         annotated fields have the same type, {@code null} otherwise.
+   */
+  public static String forContainerType(Class<?> containerType) {
+    if (!isProjectable(containerType))
+      return null;
+
+    Class<?> objectType = null;
+
+    for (FieldWithAnnotation<Facebook> fieldWithAnnotation : findFieldsWithAnnotation(containerType, Facebook.class)) {
+      Class<?> fieldType = fieldWithAnnotation.getField().getType();
+      if (objectType == null)
+        objectType = fieldType;
+      else if (!objectType.equals(fieldType))
+        return null;
+    }
+
+    return forType(objectType);
+  }
+
+  /**
+   * Builds the projection for {@code type}.
+   * 
+   * @param type
+   *          The type to project.
+   * @param typesBeingProjected
+   *          Types on the current path, used to cut off recursive types.
+   * @return The projection, or {@code null} if {@code type} has no annotated
+   *         fields.
+   */
+  private static String projectionFor(Class<?> type, Set<Class<?>> typesBeingProjected) {
+    if (!isProjectable(type))
+      return null;
+
+    // Connection-like wrappers are projected onto their elements
+    Class<?> elementType = connectionElementType(type);
+    if (elementType != null)
+      return typesBeingProjected.contains(elementType) ? null : projectionFor(elementType, typesBeingProjected);
+
+    typesBeingProjected.add(type);
+
+    try {
+      StringBuilder projection = new StringBuilder();
+
+      for (Entry<String, List<Field>> entry : fieldsByFacebookName(type).entrySet()) {
+        if (projection.length() > 0)
+          projection.append(',');
+
+        projection.append(entry.getKey());
+
+        // A name mapped to more than one field (e.g. Post "likes" as a count
+        // and as an object) can come back in more than one shape, so we don't
+        // constrain it with a nested projection.
+        if (entry.getValue().size() > 1)
+          continue;
+
+        Class<?> nestedType = nestedTypeOf(entry.getValue().get(0));
+        if (nestedType == null || typesBeingProjected.contains(nestedType))
+          continue;
+
+        String nestedProjection = projectionFor(nestedType, typesBeingProjected);
+        if (nestedProjection != null)
+          projection.append('{').append(nestedProjection).append('}');
+      }
+
+      return projection.length() == 0 ? null : projection.toString();
+    } finally {
+      typesBeingProjected.remove(type);
+    }
+  }
+
+  /**
+   * Groups the annotated fields of {@code type} by their Facebook field name,
+   * in declaration order.
+   * <p>
+   * {@link FacebookType}'s {@code metadata} and {@code type} fields are skipped
+   * since Facebook only returns them when the {@code metadata=1} parameter is
+   * present, and rejects them as unknown fields otherwise.
+   * 
+   * @param type
+   *          The type whose fields should be grouped.
+   * @return Annotated fields keyed by Facebook field name.
+   */
+  private static Map<String, List<Field>> fieldsByFacebookName(Class<?> type) {
+    Map<String, List<Field>> fieldsByFacebookName = new LinkedHashMap<String, List<Field>>();
+
+    for (FieldWithAnnotation<Facebook> fieldWithAnnotation : findFieldsWithAnnotation(type, Facebook.class)) {
+      Field field = fieldWithAnnotation.getField();
+      String facebookFieldName = fieldWithAnnotation.getAnnotation().value();
+
+      if (isBlank(facebookFieldName))
+        facebookFieldName = field.getName();
+
+      if (FacebookType.class.equals(field.getDeclaringClass()) && !"id".equals(facebookFieldName))
+        continue;
+
+      List<Field> fields = fieldsByFacebookName.get(facebookFieldName);
+      if (fields == null) {
+        fields = new ArrayList<Field>();
+        fieldsByFacebookName.put(facebookFieldName, fields);
+      }
+
+      fields.add(field);
+    }
+
+    return fieldsByFacebookName;
+  }
+
+  /**
+   * If {@code type} wraps a list of elements in a {@code data} field (like
+   * {@link com.restfb.types.Post.Comments}), returns the element type.
+   * 
+   * @param type
+   *          The type to check.
+   * @return The element type, or {@code null} if {@code type} is not
+   *         connection-like.
+   */
+  private static Class<?> connectionElementType(Class<?> type) {
+    for (FieldWithAnnotation<Facebook> fieldWithAnnotation : findFieldsWithAnnotation(type, Facebook.class)) {
+      Field field = fieldWithAnnotation.getField();
+      String facebookFieldName = fieldWithAnnotation.getAnnotation().value();
+
+      if ((DATA_FIELD_NAME.equals(facebookFieldName) || (isBlank(facebookFieldName) && DATA_FIELD_NAME.equals(field
+        .getName()))) && List.class.equals(field.getType()))
+        return getFirstParameterizedTypeArgument(field);
+    }
+
+    return null;
+  }
+
+  /**
+   * Gets the type whose fields should be projected for the value of
+   * {@code field} - the field type itself, or the element type for lists.
+   * 
+   * @param field
+   *          The field to check.
+   * @return The nested type, or {@code null} if it's not projectable.
+   */
+  private static Class<?> nestedTypeOf(Field field) {
+    Class<?> type = List.class.equals(field.getType()) ? getFirstParameterizedTypeArgument(field) : field.getType();
+    return isProjectable(type) ? type : null;
+  }
+
+  /**
+   * Could {@code type} have {@link Facebook}-annotated fields?
+   * 
+   * @param type
+   *          The type to check.
+   * @return {@code true} if {@code type} is a candidate for projection.
+   */
+  private static boolean isProjectable(Class<?> type) {
+    return type != null && !type.isPrimitive() && !type.isArray() && !type.getName().startsWith("java.")
+        && !JsonObject.class.equals(type);
+  }
+}
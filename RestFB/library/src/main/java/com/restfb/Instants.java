@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.lang.reflect.Method;
+
+import com.restfb.exception.FacebookJsonMappingException;
+
+/**
+ * Bridges {@code java.time.Instant} for {@link DefaultJsonMapper}.
+ * <p>
+ * This is the baseline implementation. RestFB targets runtimes that predate
+ * {@code java.time}, so the class is looked up reflectively and
+ * {@code Instant} fields simply aren't recognized where it doesn't exist. Java
+ * 11+ runtimes load a replacement from the multi-release section of the RestFB
+ * JAR that uses {@code Instant} directly.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class Instants {
+  /**
+   * {@code java.time.Instant}, or {@code null} if this runtime doesn't have it.
+   */
+  private static final Class<?> INSTANT_CLASS = instantClass();
+
+  /**
+   * {@code Instant.ofEpochMilli(long)}.
+   */
+  private static final Method OF_EPOCH_MILLI = instantMethod("ofEpochMilli", Long.TYPE);
+
+  /**
+   * {@code Instant.toEpochMilli()}.
+   */
+  private static final Method TO_EPOCH_MILLI = instantMethod("toEpochMilli");
+
+  /**
+   * Prevents instantiation.
+   */
+  private Instants() {}
+
+  /**
+   * Is {@code type} {@code java.time.Instant}?
+   * 
+   * @param type
+   *          The type to check.
+   * @return {@code true} if {@code type} is {@code java.time.Instant},
+   *         {@code false} otherwise.
+   */
+  static boolean isInstant(Class<?> type) {
+    return INSTANT_CLASS != null && INSTANT_CLASS.equals(type);
+  }
+
+  /**
+   * Creates an {@code Instant} from milliseconds since the epoch.
+   * 
+   * @param millis
+   *          Milliseconds since the epoch.
+   * @return The corresponding {@code Instant}.
+   */
+  static Object ofEpochMilli(long millis) {
+    return invoke(OF_EPOCH_MILLI, null, millis);
+  }
+
+  /**
+   * Converts an {@code Instant} to milliseconds since the epoch.
+   * 
+   * @param instant
+   *          An {@code Instant}.
+   * @return Milliseconds since the epoch.
+   */
+  static long toEpochMilli(Object instant) {
+    return (Long) invoke(TO_EPOCH_MILLI, instant);
+  }
+
+  /**
+   * Invokes an {@code Instant} method, wrapping any failure.
+   * 
+   * @param method
+   *          The method to invoke.
+   * @param target
+   *          The instance to invoke it on, {@code null} for static methods.
+   * @param arguments
+   *          The method arguments.
+   * @return The method's return value.
+   * @throws FacebookJsonMappingException
+   *           If the invocation fails.
+   */
+  private static Object invoke(Method method, Object target, Object... arguments) {
+    try {
+      return method.invoke(target, arguments);
+    } catch (Exception e) {
+      throw new FacebookJsonMappingException("Unable to convert between " + INSTANT_CLASS + " and a timestamp", e);
+    }
+  }
+
+  /**
+   * Looks up {@code java.time.Instant}.
+   * 
+   * @return {@code java.time.Instant}, or {@code null} if this runtime doesn't
+   *         have it.
+   */
+  private static Class<?> instantClass() {
+    try {
+      return Class.forName("java.time.Instant");
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Looks up a public {@code java.time.Instant} method.
+   * 
+   * @param name
+   *          The method name.
+   * @param parameterTypes
+   *          The method's parameter types.
+   * @return The method, or {@code null} if this runtime doesn't have it.
+   */
+  private static Method instantMethod(String name, Class<?>... parameterTypes) {
+    try {
+      return INSTANT_CLASS == null ? null : INSTANT_CLASS.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
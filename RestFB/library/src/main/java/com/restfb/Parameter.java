@@ -48,6 +48,12 @@ public final class Parameter {
    */
   public final String value;
 
+  /**
+   * Mapper used when none is specified. {@link DefaultJsonMapper} is stateless
+   * when writing JSON, so one instance serves every parameter.
+   */
+  private static final JsonMapper DEFAULT_JSON_MAPPER = new DefaultJsonMapper();
+
   /**
    * Creates a new parameter with the given {@code name} and {@code value}.
    * 
@@ -103,7 +109,30 @@ public final class Parameter {
    *           If an error occurs when converting {@code value} to JSON.
    */
   public static Parameter with(String name, Object value) {
-    return Parameter.with(name, value, new DefaultJsonMapper());
+    return Parameter.with(name, value, DEFAULT_JSON_MAPPER);
+  }
+
+  /**
+   * Factory method which provides a per-call access token.
+   * <p>
+   * Passing this parameter to a {@link DefaultFacebookClient} API call makes
+   * that call with {@code accessToken} instead of the client's own. This lets a
+   * single client, with its connections and caches, serve any number of users
+   * or pages concurrently - there's no need to create a client per access
+   * token.
+   * 
+   * @param accessToken
+   *          A Facebook OAuth access token.
+   * @return A {@code Parameter} instance that carries {@code accessToken}.
+   * @throws IllegalArgumentException
+   *           If {@code accessToken} is {@code null} or a blank string.
+   * @since 1.6.8
+   */
+  public static Parameter withAccessToken(String accessToken) {
+    if (isBlank(accessToken))
+      throw new IllegalArgumentException("Access tokens must be non-blank.");
+
+    return new Parameter(BaseFacebookClient.ACCESS_TOKEN_PARAM_NAME, accessToken.trim(), DEFAULT_JSON_MAPPER);
   }
 
   /**
@@ -172,6 +201,8 @@ public final class Parameter {
    */
   @Override
   public String toString() {
-    return format("Parameter[%s=%s]", name, value);
+    // Keep access tokens out of logs
+    return format("Parameter[%s=%s]", name, BaseFacebookClient.ACCESS_TOKEN_PARAM_NAME.equals(name) ? "<redacted>"
+        : value);
   }
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.StringUtils.isBlank;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.restfb.DefaultFacebookClient.Requestor;
+import com.restfb.WebRequestor.Response;
+
+/**
+ * A Graph API request that's validated and encoded once, then executed any
+ * number of times with different variable values.
+ * <p>
+ * The endpoint and parameter values may contain <tt>{name}</tt> placeholders,
+ * e.g. an endpoint of <tt>{id}/feed</tt> with a parameter of
+ * <tt>Parameter.with("since", "{since}")</tt>. Everything else about the
+ * request - reserved parameter checks, fields projection, the access token and
+ * the URL encoding of fixed parameters - is worked out when the request is
+ * prepared, so each execution only has to fill in the placeholders and send
+ * the request:
+ * 
+ * <pre>
+ * PreparedRequest&lt;Connection&lt;Post&gt;&gt; feed =
+ *     facebookClient.prepareFetchConnection(&quot;{id}/feed&quot;, Post.class, null,
+ *       Parameter.with(&quot;since&quot;, &quot;{since}&quot;));
+ * 
+ * Connection&lt;Post&gt; posts = feed.execute(&quot;cocacola&quot;, &quot;1318896000&quot;);
+ * </pre>
+ * <p>
+ * Values are bound to placeholders in the order the placeholders first appear,
+ * endpoint first. Values bound into the endpoint are inserted as-is, like the
+ * {@code object} argument of {@link FacebookClient#fetchObject(String, Class, Parameter...)};
+ * values bound into parameters are URL-encoded. A per-call access token can be
+ * bound by preparing the request with
+ * <tt>Parameter.withAccessToken("{token}")</tt>.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ * 
+ * @param <T>
+ *          The type each execution returns.
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public abstract class PreparedRequest<T> {
+  /**
+   * Placeholder opening, as it appears once URL-encoded.
+   */
+  private static final String ENCODED_OPEN_BRACE = "%7B";
+
+  /**
+   * Placeholder closing, as it appears once URL-encoded.
+   */
+  private static final String ENCODED_CLOSE_BRACE = "%7D";
+
+  /**
+   * The client that sends this request.
+   */
+  private final DefaultFacebookClient facebookClient;
+
+  /**
+   * The endpoint as passed in, for {@link #toString()}.
+   */
+  private final String endpoint;
+
+  /**
+   * Literal URL fragments. A variable's value goes between each pair.
+   */
+  private final String[] fragments;
+
+  /**
+   * For each slot between fragments, the index of the variable that fills it.
+   */
+  private final int[] slotVariables;
+
+  /**
+   * For each slot, the name of the parameter it's a value of, or {@code null}
+   * if it's in the endpoint.
+   */
+  private final String[] slotParameterNames;
+
+  /**
+   * Distinct variable names, in binding order.
+   */
+  private final List<String> variableNames;
+
+  /**
+   * Length of the URL without any variable values.
+   */
+  private final int fixedLength;
+
+  /**
+   * Prepares a {@code GET} request.
+   * 
+   * @param facebookClient
+   *          The client that sends this request.
+   * @param endpoint
+   *          The endpoint, relative to the Graph API root, with optional
+   *          placeholders.
+   * @param parameters
+   *          Parameters, whose values may be placeholders.
+   * @throws IllegalArgumentException
+   *           If any of the {@code parameters} are reserved.
+   */
+  protected PreparedRequest(DefaultFacebookClient facebookClient, String endpoint, Parameter... parameters) {
+    facebookClient.verifyParameterLegality(parameters);
+
+    while (endpoint.startsWith("/"))
+      endpoint = endpoint.substring(1);
+
+    this.facebookClient = facebookClient;
+    this.endpoint = endpoint;
+
+    // Endpoints with placeholders can't be routed by name, so they always go
+    // to the Graph API proper
+    String baseUrl =
+        endpoint.indexOf('{') == -1 ? facebookClient.createEndpointForApiCall(endpoint, false) : facebookClient
+          .getFacebookGraphEndpointUrl() + "/" + endpoint.replace("{", ENCODED_OPEN_BRACE).replace("}",
+          ENCODED_CLOSE_BRACE);
+    String url = baseUrl + "?" + facebookClient.toParameterString(parameters);
+
+    List<String> fragments = new ArrayList<String>();
+    List<Integer> slotVariables = new ArrayList<Integer>();
+    List<String> slotParameterNames = new ArrayList<String>();
+    List<String> variableNames = new ArrayList<String>();
+    int queryStart = baseUrl.length();
+    int fragmentStart = 0;
+    int fixedLength = 0;
+
+    for (int open = url.indexOf(ENCODED_OPEN_BRACE); open != -1; open =
+        url.indexOf(ENCODED_OPEN_BRACE, Math.max(open + 1, fragmentStart))) {
+      int close = url.indexOf(ENCODED_CLOSE_BRACE, open);
+      if (close == -1)
+        break;
+
+      String name = url.substring(open + ENCODED_OPEN_BRACE.length(), close);
+      if (!isVariableName(name))
+        continue;
+
+      // Inside the query string, only whole parameter values are placeholders
+      String parameterName = null;
+      if (open > queryStart) {
+        int nameStart = Math.max(url.lastIndexOf('&', open), url.lastIndexOf('?', open)) + 1;
+        int nameEnd = url.indexOf('=', nameStart);
+        int valueEnd = url.indexOf('&', close);
+
+        if (nameEnd + 1 != open || close + ENCODED_CLOSE_BRACE.length() != (valueEnd == -1 ? url.length() : valueEnd))
+          continue;
+
+        parameterName = url.substring(nameStart, nameEnd);
+      }
+
+      if (!variableNames.contains(name))
+        variableNames.add(name);
+
+      fragments.add(url.substring(fragmentStart, open));
+      fixedLength += open - fragmentStart;
+      slotVariables.add(variableNames.indexOf(name));
+      slotParameterNames.add(parameterName);
+      fragmentStart = close + ENCODED_CLOSE_BRACE.length();
+    }
+
+    fragments.add(url.substring(fragmentStart));
+    fixedLength += url.length() - fragmentStart;
+
+    this.fragments = fragments.toArray(new String[fragments.size()]);
+    this.slotVariables = new int[slotVariables.size()];
+    for (int i = 0; i < this.slotVariables.length; i++)
+      this.slotVariables[i] = slotVariables.get(i);
+    this.slotParameterNames = slotParameterNames.toArray(new String[slotParameterNames.size()]);
+    this.variableNames = unmodifiableList(variableNames);
+    this.fixedLength = fixedLength;
+  }
+
+  /**
+   * Executes this request.
+   * 
+   * @param values
+   *          Values for this request's variables, in the order given by
+   *          {@link #getVariableNames()}.
+   * @return The mapped response.
+   * @throws IllegalArgumentException
+   *           If the wrong number of values is given, or any is blank.
+   * @throws com.restfb.exception.FacebookException
+   *           If an error occurs while performing the API call.
+   */
+  public T execute(String... values) {
+    if (values.length != variableNames.size())
+      throw new IllegalArgumentException("Expected " + variableNames.size() + " values for " + variableNames
+          + " but got " + values.length + ".");
+
+    int length = fixedLength;
+    for (String value : values) {
+      if (isBlank(value))
+        throw new IllegalArgumentException("Values for " + variableNames + " must be non-blank.");
+      length += value.length();
+    }
+
+    StringBuilder url = new StringBuilder(length + 16);
+
+    for (int i = 0; i < slotVariables.length; i++) {
+      url.append(fragments[i]);
+      String value = values[slotVariables[i]];
+      url.append(slotParameterNames[i] == null ? value : facebookClient.urlEncodedValueForParameterName(
+        slotParameterNames[i], value));
+    }
+
+    final String fullUrl = url.append(fragments[fragments.length - 1]).toString();
+
+    String json = facebookClient.makeRequestAndProcessResponse("GET", fullUrl, new Requestor() {
+      /**
+       * @see com.restfb.DefaultFacebookClient.Requestor#makeRequest()
+       */
+      public Response makeRequest() throws IOException {
+        return facebookClient.getWebRequestor().executeGet(fullUrl);
+      }
+    });
+
+    try {
+      return facebookClient.responseMapped(map(json));
+    } catch (RuntimeException e) {
+      throw facebookClient.requestFailed(e);
+    }
+  }
+
+  /**
+   * Maps a response to this request's result type.
+   * 
+   * @param json
+   *          The response JSON.
+   * @return The mapped response.
+   */
+  protected abstract T map(String json);
+
+  /**
+   * The names of this request's variables, in binding order.
+   * 
+   * @return The variable names.
+   */
+  public List<String> getVariableNames() {
+    return variableNames;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "PreparedRequest[" + endpoint + " " + variableNames + "]";
+  }
+
+  /**
+   * Is {@code name} usable as a placeholder name?
+   * 
+   * @param name
+   *          The candidate name.
+   * @return {@code true} if {@code name} is a non-empty run of letters, digits
+   *         and underscores.
+   */
+  private static boolean isVariableName(String name) {
+    if (name.length() == 0)
+      return false;
+
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_')
+        return false;
+    }
+
+    return true;
+  }
+}
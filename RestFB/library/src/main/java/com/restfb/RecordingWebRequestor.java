@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.TrafficLogger.redactSecrets;
+import static java.util.logging.Level.WARNING;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
+import com.restfb.ExchangeArchive.Exchange;
+
+/**
+ * A {@link WebRequestor} that passes requests on to another and records every
+ * exchange into a compact archive that {@link ReplayingWebRequestor} can serve
+ * back later, without network access.
+ * <p>
+ * Access tokens and other secrets are redacted from URLs, parameters and
+ * response bodies (e.g. paging URLs) before they're written. Each exchange is stored with how long it took, so replays
+ * can reproduce the original timing. Requests that fail with an
+ * {@link IOException} are recorded too and fail the same way on replay. Binary
+ * attachments are sent but not recorded.
+ * <p>
+ * Recording never fails a request: if the archive can't be written, for
+ * instance because the disk is full, the error is logged and recording stops.
+ * Recording is thread-safe. {@link #close()} the recorder when done, or the
+ * end of the archive will be lost; requests made after that are passed on
+ * but not recorded.
+ * 
+ * <pre>
+ * RecordingWebRequestor recorder = new RecordingWebRequestor(new DefaultWebRequestor(), new File(&quot;traffic.rfbx&quot;));
+ * FacebookClient facebookClient = new DefaultFacebookClient(accessToken, recorder, new DefaultJsonMapper());
+ * ...
+ * recorder.close();
+ * </pre>
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public class RecordingWebRequestor implements WebRequestor, Closeable {
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(RecordingWebRequestor.class.getName());
+
+  /**
+   * Performs the requests.
+   */
+  private final WebRequestor webRequestor;
+
+  /**
+   * The archive being written. Guarded by {@code this}.
+   */
+  private final ExchangeArchive.Writer writer;
+
+  /**
+   * Number of exchanges recorded. Guarded by {@code this}.
+   */
+  private int exchangeCount;
+
+  /**
+   * Whether exchanges are still being written, i.e. the archive hasn't been
+   * closed or failed. Guarded by {@code this}.
+   */
+  private boolean recording = true;
+
+  /**
+   * Creates a recorder that writes to the given file.
+   * 
+   * @param webRequestor
+   *          Performs the requests.
+   * @param archive
+   *          The file to record to; it's overwritten.
+   * @throws IOException
+   *           If the file can't be created.
+   */
+  public RecordingWebRequestor(WebRequestor webRequestor, File archive) throws IOException {
+    this(webRequestor, new BufferedOutputStream(new FileOutputStream(archive)));
+  }
+
+  /**
+   * Creates a recorder that writes to the given stream.
+   * 
+   * @param webRequestor
+   *          Performs the requests.
+   * @param outputStream
+   *          Where to write the archive; closed by {@link #close()}.
+   * @throws IOException
+   *           If the archive can't be started.
+   */
+  public RecordingWebRequestor(WebRequestor webRequestor, OutputStream outputStream) throws IOException {
+    if (webRequestor == null)
+      throw new IllegalArgumentException("The web requestor to record can't be null.");
+
+    this.webRequestor = webRequestor;
+    this.writer = new ExchangeArchive.Writer(outputStream);
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executeGet(java.lang.String)
+   */
+  @Override
+  public Response executeGet(String url) throws IOException {
+    long start = System.nanoTime();
+    Response response;
+
+    try {
+      response = webRequestor.executeGet(url);
+    } catch (IOException e) {
+      recordFailure("GET", url, null, start, e);
+      throw e;
+    }
+
+    record("GET", url, null, start, response);
+    return response;
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executePost(java.lang.String,
+   *      java.lang.String)
+   */
+  @Override
+  public Response executePost(String url, String parameters) throws IOException {
+    return executePost(url, parameters, (BinaryAttachment[]) null);
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executePost(java.lang.String,
+   *      java.lang.String, com.restfb.BinaryAttachment[])
+   */
+  @Override
+  public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments)
+      throws IOException {
+    long start = System.nanoTime();
+    Response response;
+
+    try {
+      response = webRequestor.executePost(url, parameters, binaryAttachments);
+    } catch (IOException e) {
+      recordFailure("POST", url, parameters, start, e);
+      throw e;
+    }
+
+    record("POST", url, parameters, start, response);
+    return response;
+  }
+
+  /**
+   * Gets the number of exchanges recorded so far.
+   * 
+   * @return The number of exchanges.
+   */
+  public synchronized int getExchangeCount() {
+    return exchangeCount;
+  }
+
+  /**
+   * Finishes the archive and closes it.
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    recording = false;
+    writer.close();
+  }
+
+  /**
+   * Records a completed exchange.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param url
+   *          Request URL.
+   * @param parameters
+   *          {@code POST} parameters, or {@code null}.
+   * @param start
+   *          {@link System#nanoTime()} when the request started.
+   * @param response
+   *          The response.
+   */
+  private void record(String method, String url, String parameters, long start, Response response) {
+    write(new Exchange(method, redactSecrets(url), redactSecrets(parameters), elapsedMicros(start),
+      response.getStatusCode(), redactSecrets(response.getBody())));
+  }
+
+  /**
+   * Records an exchange that failed.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param url
+   *          Request URL.
+   * @param parameters
+   *          {@code POST} parameters, or {@code null}.
+   * @param start
+   *          {@link System#nanoTime()} when the request started.
+   * @param failure
+   *          Why the request failed.
+   */
+  private void recordFailure(String method, String url, String parameters, long start, IOException failure) {
+    write(new Exchange(method, redactSecrets(url), redactSecrets(parameters), elapsedMicros(start),
+      ExchangeArchive.FAILED, redactSecrets(String.valueOf(failure.getMessage()))));
+  }
+
+  /**
+   * Appends an exchange to the archive, unless recording has stopped.
+   * <p>
+   * Write failures are logged rather than thrown - the request itself worked,
+   * or failed for its own reasons - and stop recording, since the archive is
+   * no longer intact.
+   * 
+   * @param exchange
+   *          The exchange.
+   */
+  private synchronized void write(Exchange exchange) {
+    if (!recording)
+      return;
+
+    try {
+      writer.write(exchange);
+      exchangeCount++;
+    } catch (IOException e) {
+      recording = false;
+      if (logger.isLoggable(WARNING))
+        logger.warning("Unable to write to the archive, so recording has stopped: " + e);
+    }
+  }
+
+  /**
+   * Microseconds since {@code start}.
+   * 
+   * @param start
+   *          A {@link System#nanoTime()} reading.
+   * @return Elapsed microseconds.
+   */
+  private static long elapsedMicros(long start) {
+    return (System.nanoTime() - start) / 1000;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.TrafficLogger.redactSecrets;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.restfb.ExchangeArchive.Exchange;
+
+/**
+ * A {@link WebRequestor} that serves back exchanges recorded by
+ * {@link RecordingWebRequestor}, with no network access.
+ * <p>
+ * Requests are matched to recorded exchanges by method, URL and parameters,
+ * with secrets redacted the same way they were when recording, so replays
+ * work with any access token. When a request was recorded several times its
+ * responses are served in the order they were recorded, starting over once
+ * they run out, so an archive can be replayed in a loop. A request that was
+ * never recorded fails with an {@link IOException}.
+ * <p>
+ * Each response is delayed by its recorded duration times a scale factor:
+ * {@code 1} reproduces the original timing, {@code 0} answers immediately, so
+ * that a run measures only the client's own CPU and allocation.
+ * <p>
+ * The whole archive is read into memory up front, so replaying does no I/O.
+ * Instances are thread-safe.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public class ReplayingWebRequestor implements WebRequestor {
+  /**
+   * Recorded exchanges by request.
+   */
+  private final Map<String, Recording> recordings = new HashMap<String, Recording>();
+
+  /**
+   * Multiplies recorded durations.
+   */
+  private final double timeScale;
+
+  /**
+   * Number of exchanges in the archive.
+   */
+  private final int exchangeCount;
+
+  /**
+   * Replays an archive with its original timing.
+   * 
+   * @param archive
+   *          The archive file.
+   * @throws IOException
+   *           If the archive can't be read.
+   */
+  public ReplayingWebRequestor(File archive) throws IOException {
+    this(archive, 1);
+  }
+
+  /**
+   * Replays an archive with scaled timing.
+   * 
+   * @param archive
+   *          The archive file.
+   * @param timeScale
+   *          Multiplies recorded durations; {@code 0} answers immediately.
+   * @throws IOException
+   *           If the archive can't be read.
+   */
+  public ReplayingWebRequestor(File archive, double timeScale) throws IOException {
+    this(new BufferedInputStream(new FileInputStream(archive)), timeScale);
+  }
+
+  /**
+   * Replays an archive with scaled timing.
+   * 
+   * @param inputStream
+   *          The archive; read fully and closed.
+   * @param timeScale
+   *          Multiplies recorded durations; {@code 0} answers immediately.
+   * @throws IOException
+   *           If the archive can't be read.
+   * @throws IllegalArgumentException
+   *           If {@code timeScale} is negative.
+   */
+  public ReplayingWebRequestor(InputStream inputStream, double timeScale) throws IOException {
+    if (timeScale < 0 || Double.isNaN(timeScale)) {
+      inputStream.close();
+      throw new IllegalArgumentException("The time scale can't be negative.");
+    }
+
+    this.timeScale = timeScale;
+
+    Map<String, List<Exchange>> exchangesByRequest = new HashMap<String, List<Exchange>>();
+    int count = 0;
+    ExchangeArchive.Reader reader = new ExchangeArchive.Reader(inputStream);
+
+    try {
+      for (Exchange exchange = reader.read(); exchange != null; exchange = reader.read()) {
+        String key = key(exchange.method, exchange.url, exchange.parameters);
+        List<Exchange> exchanges = exchangesByRequest.get(key);
+
+        if (exchanges == null) {
+          exchanges = new ArrayList<Exchange>(1);
+          exchangesByRequest.put(key, exchanges);
+        }
+
+        exchanges.add(exchange);
+        count++;
+      }
+    } finally {
+      reader.close();
+    }
+
+    for (Map.Entry<String, List<Exchange>> entry : exchangesByRequest.entrySet())
+      recordings.put(entry.getKey(), new Recording(entry.getValue().toArray(new Exchange[entry.getValue().size()])));
+
+    exchangeCount = count;
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executeGet(java.lang.String)
+   */
+  @Override
+  public Response executeGet(String url) throws IOException {
+    return replay("GET", url, null);
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executePost(java.lang.String,
+   *      java.lang.String)
+   */
+  @Override
+  public Response executePost(String url, String parameters) throws IOException {
+    return replay("POST", url, parameters);
+  }
+
+  /**
+   * @see com.restfb.WebRequestor#executePost(java.lang.String,
+   *      java.lang.String, com.restfb.BinaryAttachment[])
+   */
+  @Override
+  public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments)
+      throws IOException {
+    return replay("POST", url, parameters);
+  }
+
+  /**
+   * Gets the number of exchanges in the archive.
+   * 
+   * @return The number of exchanges.
+   */
+  public int getExchangeCount() {
+    return exchangeCount;
+  }
+
+  /**
+   * Serves the next recorded exchange for a request.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param url
+   *          Request URL.
+   * @param parameters
+   *          {@code POST} parameters, or {@code null}.
+   * @return The recorded response.
+   * @throws IOException
+   *           If the request wasn't recorded, its recorded exchange failed,
+   *           or the wait is interrupted.
+   */
+  private Response replay(String method, String url, String parameters) throws IOException {
+    String redactedUrl = redactSecrets(url);
+    Recording recording = recordings.get(key(method, redactedUrl, redactSecrets(parameters)));
+
+    if (recording == null)
+      throw new IOException("No recorded exchange for " + method + " " + redactedUrl);
+
+    Exchange exchange = recording.next();
+    long delayNanos = (long) (exchange.elapsedMicros * 1000 * timeScale);
+
+    if (delayNanos > 0)
+      try {
+        TimeUnit.NANOSECONDS.sleep(delayNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while replaying " + method + " " + redactedUrl);
+      }
+
+    if (exchange.statusCode == ExchangeArchive.FAILED)
+      throw new IOException(exchange.body);
+
+    return new Response(exchange.statusCode, exchange.body);
+  }
+
+  /**
+   * Builds the key a request is recorded under.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param redactedUrl
+   *          Redacted URL.
+   * @param redactedParameters
+   *          Redacted {@code POST} parameters, or {@code null}.
+   * @return The key.
+   */
+  private static String key(String method, String redactedUrl, String redactedParameters) {
+    return redactedParameters == null ? method + " " + redactedUrl : method + " " + redactedUrl + "\n"
+        + redactedParameters;
+  }
+
+  /**
+   * The exchanges recorded for one request, served round-robin.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  private static final class Recording {
+    /**
+     * The exchanges, in recorded order.
+     */
+    private final Exchange[] exchanges;
+
+    /**
+     * Counts exchanges served.
+     */
+    private final AtomicInteger served = new AtomicInteger();
+
+    /**
+     * Creates a recording.
+     * 
+     * @param exchanges
+     *          The exchanges, in recorded order.
+     */
+    Recording(Exchange[] exchanges) {
+      this.exchanges = exchanges;
+    }
+
+    /**
+     * Gets the next exchange to serve.
+     * 
+     * @return The exchange.
+     */
+    Exchange next() {
+      if (exchanges.length == 1)
+        return exchanges[0];
+      return exchanges[(served.getAndIncrement() & Integer.MAX_VALUE) % exchanges.length];
+    }
+  }
+}
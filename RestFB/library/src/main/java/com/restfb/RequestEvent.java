@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.TrafficLogger.redactSecrets;
+import static java.util.logging.Level.WARNING;
+
+import java.util.logging.Logger;
+
+/**
+ * The progress of a single API call, as reported to a {@link RequestListener}.
+ * <p>
+ * Timestamps come from {@link System#nanoTime()} and are {@code 0} for stages
+ * that haven't happened (yet); byte counts and the status code are {@code -1}
+ * when unknown.
+ * <p>
+ * While a call is in progress its event is available from {@link #current()}
+ * on the calling thread. That's how {@link WebRequestor} and
+ * {@link JsonMapper} implementations report the stages they handle, e.g.
+ * 
+ * <pre>
+ * RequestEvent event = RequestEvent.current();
+ * if (event != null)
+ *   event.connectionAcquired();
+ * </pre>
+ * 
+ * Events belong to the thread making the call and aren't thread-safe.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class RequestEvent {
+  /**
+   * The event for the call in progress on each thread.
+   */
+  private static final ThreadLocal<RequestEvent> CURRENT = new ThreadLocal<RequestEvent>();
+
+  /**
+   * Has any call ever been listened to? Until then, {@link #current()} can skip
+   * the thread-local lookup.
+   */
+  private static volatile boolean listening;
+
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(RequestEvent.class.getName());
+
+  /**
+   * Stage: connection acquired.
+   */
+  private static final int CONNECTION_ACQUIRED = 1;
+
+  /**
+   * Stage: first byte received.
+   */
+  private static final int FIRST_BYTE_RECEIVED = 2;
+
+  /**
+   * Stage: body read.
+   */
+  private static final int BODY_READ = 3;
+
+  /**
+   * Stage: JSON parsed.
+   */
+  private static final int JSON_PARSED = 4;
+
+  /**
+   * Stage: response mapped.
+   */
+  private static final int RESPONSE_MAPPED = 5;
+
+  /**
+   * Stage: request failed.
+   */
+  private static final int REQUEST_FAILED = 6;
+
+  /**
+   * Who to tell about each stage.
+   */
+  private final RequestListener listener;
+
+  /**
+   * HTTP method, e.g. {@code GET}.
+   */
+  private final String method;
+
+  /**
+   * Request URL, which may include secrets.
+   */
+  private final String url;
+
+  /**
+   * When the request was built.
+   */
+  private final long startNanos;
+
+  /**
+   * When the connection was acquired.
+   */
+  private long connectionAcquiredNanos;
+
+  /**
+   * When the first byte of the response arrived.
+   */
+  private long firstByteNanos;
+
+  /**
+   * When the response body had been read.
+   */
+  private long bodyReadNanos;
+
+  /**
+   * When the response JSON had been parsed.
+   */
+  private long jsonParsedNanos;
+
+  /**
+   * When the call finished, successfully or not.
+   */
+  private long endNanos;
+
+  /**
+   * Bytes in the request body.
+   */
+  private long bytesSent = -1;
+
+  /**
+   * Bytes in the response body.
+   */
+  private long bytesReceived = -1;
+
+  /**
+   * HTTP status code of the response.
+   */
+  private int statusCode = -1;
+
+  /**
+   * Why the call failed, if it did.
+   */
+  private Throwable error;
+
+  /**
+   * Creates an event for a call that's about to be made.
+   * 
+   * @param listener
+   *          Who to tell about each stage.
+   * @param method
+   *          HTTP method.
+   * @param url
+   *          Request URL.
+   */
+  private RequestEvent(RequestListener listener, String method, String url) {
+    this.listener = listener;
+    this.method = method;
+    this.url = url;
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Gets the event for the call in progress on the current thread.
+   * 
+   * @return The current call's event, or {@code null} if no listened-to call
+   *         is in progress.
+   */
+  public static RequestEvent current() {
+    return listening ? CURRENT.get() : null;
+  }
+
+  /**
+   * Starts an event for a call on the current thread and tells
+   * {@code listener} the request has been built.
+   * 
+   * @param listener
+   *          Who to tell about each stage.
+   * @param method
+   *          HTTP method, or {@code null} if unknown.
+   * @param url
+   *          Request URL, or {@code null} if unknown.
+   * @return The new event.
+   */
+  static RequestEvent begin(RequestListener listener, String method, String url) {
+    RequestEvent event = new RequestEvent(listener, method, url);
+    listening = true;
+    CURRENT.set(event);
+
+    try {
+      listener.requestBuilt(event);
+    } catch (RuntimeException e) {
+      logListenerFailure(e);
+    }
+
+    return event;
+  }
+
+  /**
+   * Reports that the connection to Facebook has been acquired.
+   */
+  public void connectionAcquired() {
+    if (connectionAcquiredNanos == 0) {
+      connectionAcquiredNanos = System.nanoTime();
+      notifyListener(CONNECTION_ACQUIRED);
+    }
+  }
+
+  /**
+   * Reports that the response status line and headers have arrived.
+   * 
+   * @param statusCode
+   *          The response's HTTP status code.
+   */
+  public void firstByteReceived(int statusCode) {
+    if (firstByteNanos == 0) {
+      firstByteNanos = System.nanoTime();
+      this.statusCode = statusCode;
+      notifyListener(FIRST_BYTE_RECEIVED);
+    }
+  }
+
+  /**
+   * Reports that the whole response body has been read.
+   * 
+   * @param bytesReceived
+   *          Size of the response body, or {@code -1} if unknown.
+   */
+  public void bodyRead(long bytesReceived) {
+    if (bodyReadNanos == 0) {
+      bodyReadNanos = System.nanoTime();
+      this.bytesReceived = bytesReceived;
+      notifyListener(BODY_READ);
+    }
+  }
+
+  /**
+   * Reports that the response JSON has been parsed. Only the first report
+   * counts, so mappers can call this for every document they parse.
+   */
+  public void jsonParsed() {
+    if (jsonParsedNanos == 0) {
+      jsonParsedNanos = System.nanoTime();
+      notifyListener(JSON_PARSED);
+    }
+  }
+
+  /**
+   * Records the size of the request body.
+   * 
+   * @param bytesSent
+   *          Size of the request body.
+   */
+  public void setBytesSent(long bytesSent) {
+    this.bytesSent = bytesSent;
+  }
+
+  /**
+   * Finishes the event successfully.
+   */
+  void responseMapped() {
+    end();
+    notifyListener(RESPONSE_MAPPED);
+  }
+
+  /**
+   * Finishes the event unsuccessfully.
+   * 
+   * @param error
+   *          Why the call failed.
+   */
+  void requestFailed(Throwable error) {
+    this.error = error;
+    end();
+    notifyListener(REQUEST_FAILED);
+  }
+
+  /**
+   * Records the end of the call and stops being the current event.
+   */
+  private void end() {
+    endNanos = System.nanoTime();
+    if (CURRENT.get() == this)
+      CURRENT.remove();
+  }
+
+  /**
+   * Tells the listener about a stage, shielding the call from its failures.
+   * 
+   * @param stage
+   *          The stage that's been reached.
+   */
+  private void notifyListener(int stage) {
+    try {
+      switch (stage) {
+      case CONNECTION_ACQUIRED:
+        listener.connectionAcquired(this);
+        break;
+      case FIRST_BYTE_RECEIVED:
+        listener.firstByteReceived(this);
+        break;
+      case BODY_READ:
+        listener.bodyRead(this);
+        break;
+      case JSON_PARSED:
+        listener.jsonParsed(this);
+        break;
+      case RESPONSE_MAPPED:
+        listener.responseMapped(this);
+        break;
+      default:
+        listener.requestFailed(this);
+      }
+    } catch (RuntimeException e) {
+      logListenerFailure(e);
+    }
+  }
+
+  /**
+   * Logs an exception thrown by a listener.
+   * 
+   * @param e
+   *          The exception.
+   */
+  static void logListenerFailure(RuntimeException e) {
+    if (logger.isLoggable(WARNING))
+      logger.warning("Request listener failed: " + e);
+  }
+
+  /**
+   * Gets the HTTP method.
+   * 
+   * @return The HTTP method, e.g. {@code GET}, or {@code null} if unknown.
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Gets the request URL, with access tokens and other secrets redacted.
+   * 
+   * @return The request URL, or {@code null} if unknown.
+   */
+  public String getUrl() {
+    return redactSecrets(url);
+  }
+
+  /**
+   * Gets the request URL as given, without redaction, for callers that only
+   * look at its path.
+   * 
+   * @return The request URL, or {@code null} if unknown.
+   */
+  String getUnredactedUrl() {
+    return url;
+  }
+
+  /**
+   * Gets when the request was built, which is when the call's timing starts.
+   * 
+   * @return The start timestamp.
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /**
+   * Gets when the connection was acquired.
+   * 
+   * @return The timestamp, or {@code 0} if not reported.
+   */
+  public long getConnectionAcquiredNanos() {
+    return connectionAcquiredNanos;
+  }
+
+  /**
+   * Gets when the first byte of the response arrived.
+   * 
+   * @return The timestamp, or {@code 0} if not reported.
+   */
+  public long getFirstByteNanos() {
+    return firstByteNanos;
+  }
+
+  /**
+   * Gets when the response body had been read.
+   * 
+   * @return The timestamp, or {@code 0} if not reported.
+   */
+  public long getBodyReadNanos() {
+    return bodyReadNanos;
+  }
+
+  /**
+   * Gets when the response JSON had been parsed.
+   * 
+   * @return The timestamp, or {@code 0} if not reported.
+   */
+  public long getJsonParsedNanos() {
+    return jsonParsedNanos;
+  }
+
+  /**
+   * Gets when the call finished, successfully or not.
+   * 
+   * @return The timestamp, or {@code 0} if the call is still in progress.
+   */
+  public long getEndNanos() {
+    return endNanos;
+  }
+
+  /**
+   * Gets the size of the request body.
+   * 
+   * @return The number of bytes sent, or {@code -1} if unknown.
+   */
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * Gets the size of the response body.
+   * 
+   * @return The number of bytes received, or {@code -1} if unknown.
+   */
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  /**
+   * Gets the response's HTTP status code.
+   * 
+   * @return The status code, or {@code -1} if unknown.
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Gets why the call failed.
+   * 
+   * @return The failure, or {@code null} if the call hasn't failed.
+   */
+  public Throwable getError() {
+    return error;
+  }
+}
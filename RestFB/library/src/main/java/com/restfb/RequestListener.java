@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/**
+ * Hears about each stage of the API calls a {@link DefaultFacebookClient}
+ * makes, so latency can be attributed to the network, JSON parsing and mapping.
+ * <p>
+ * For a successful call, the stages run in this order:
+ * <ol>
+ * <li>{@link #requestBuilt(RequestEvent)} - the URL and parameters are ready.</li>
+ * <li>{@link #connectionAcquired(RequestEvent)} - the {@link WebRequestor} has
+ * connected.</li>
+ * <li>{@link #firstByteReceived(RequestEvent)} - the response status line and
+ * headers have arrived.</li>
+ * <li>{@link #bodyRead(RequestEvent)} - the whole response body has been
+ * read.</li>
+ * <li>{@link #jsonParsed(RequestEvent)} - the mapper has parsed the response
+ * JSON.</li>
+ * <li>{@link #responseMapped(RequestEvent)} - the result has been mapped to
+ * Java and is about to be returned.</li>
+ * </ol>
+ * If anything goes wrong, {@link #requestFailed(RequestEvent)} is called
+ * instead of the remaining stages. Stages that a custom {@link WebRequestor}
+ * or {@link JsonMapper} doesn't report are skipped.
+ * <p>
+ * Every callback for a call gets the same {@link RequestEvent}, which carries
+ * the timestamps and byte counts recorded so far. Callbacks run on the thread
+ * making the call, so they should be quick; exceptions they throw are logged
+ * and otherwise ignored.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public interface RequestListener {
+  /**
+   * Called when the request's URL and parameters have been built, just before
+   * it's handed to the {@link WebRequestor}.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void requestBuilt(RequestEvent event);
+
+  /**
+   * Called when the {@link WebRequestor} has connected to Facebook.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void connectionAcquired(RequestEvent event);
+
+  /**
+   * Called when the response status line and headers have arrived.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void firstByteReceived(RequestEvent event);
+
+  /**
+   * Called when the whole response body has been read.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void bodyRead(RequestEvent event);
+
+  /**
+   * Called when the response JSON has been parsed, before it's mapped to Java.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void jsonParsed(RequestEvent event);
+
+  /**
+   * Called when the response has been mapped to Java and the call is about to
+   * return.
+   * 
+   * @param event
+   *          The call's event.
+   */
+  void responseMapped(RequestEvent event);
+
+  /**
+   * Called when the call fails at any stage.
+   * 
+   * @param event
+   *          The call's event; {@link RequestEvent#getError()} holds the cause.
+   */
+  void requestFailed(RequestEvent event);
+
+  /**
+   * A {@code RequestListener} that ignores every stage, for subclasses that
+   * only care about some of them.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   */
+  public static class Adapter implements RequestListener {
+    /**
+     * @see com.restfb.RequestListener#requestBuilt(com.restfb.RequestEvent)
+     */
+    @Override
+    public void requestBuilt(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#connectionAcquired(com.restfb.RequestEvent)
+     */
+    @Override
+    public void connectionAcquired(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#firstByteReceived(com.restfb.RequestEvent)
+     */
+    @Override
+    public void firstByteReceived(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#bodyRead(com.restfb.RequestEvent)
+     */
+    @Override
+    public void bodyRead(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#jsonParsed(com.restfb.RequestEvent)
+     */
+    @Override
+    public void jsonParsed(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#responseMapped(com.restfb.RequestEvent)
+     */
+    @Override
+    public void responseMapped(RequestEvent event) {}
+
+    /**
+     * @see com.restfb.RequestListener#requestFailed(com.restfb.RequestEvent)
+     */
+    @Override
+    public void requestFailed(RequestEvent event) {}
+  }
+
+  /**
+   * A {@code RequestListener} that passes every stage on to several listeners
+   * in turn, so that {@link RequestMetrics} can run alongside logging or
+   * tracing listeners.
+   * <p>
+   * Each listener is shielded from the others: if one throws, the exception is
+   * logged and the rest still hear about the stage. Instances are immutable;
+   * {@link #with(RequestListener)} returns a new composite.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   * @see DefaultFacebookClient#addRequestListener(RequestListener)
+   */
+  public static class Composite implements RequestListener {
+    /**
+     * The listeners, in the order they're notified.
+     */
+    private final RequestListener[] listeners;
+
+    /**
+     * Creates a listener that notifies each of {@code listeners} in order.
+     * 
+     * @param listeners
+     *          The listeners to notify.
+     * @throws NullPointerException
+     *           If any of the {@code listeners} is {@code null}.
+     */
+    public Composite(RequestListener... listeners) {
+      this.listeners = listeners.clone();
+      for (RequestListener listener : this.listeners)
+        if (listener == null)
+          throw new NullPointerException("Request listeners can't be null.");
+    }
+
+    /**
+     * Creates a composite that notifies this composite's listeners and then
+     * {@code listener}.
+     * 
+     * @param listener
+     *          The listener to add.
+     * @return A new composite; this one is unchanged.
+     */
+    public Composite with(RequestListener listener) {
+      RequestListener[] combined = new RequestListener[listeners.length + 1];
+      System.arraycopy(listeners, 0, combined, 0, listeners.length);
+      combined[listeners.length] = listener;
+      return new Composite(combined);
+    }
+
+    /**
+     * Gets the listeners this composite notifies.
+     * 
+     * @return The listeners, in the order they're notified.
+     */
+    public List<RequestListener> getListeners() {
+      return unmodifiableList(asList(listeners));
+    }
+
+    /**
+     * @see com.restfb.RequestListener#requestBuilt(com.restfb.RequestEvent)
+     */
+    @Override
+    public void requestBuilt(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.requestBuilt(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#connectionAcquired(com.restfb.RequestEvent)
+     */
+    @Override
+    public void connectionAcquired(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.connectionAcquired(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#firstByteReceived(com.restfb.RequestEvent)
+     */
+    @Override
+    public void firstByteReceived(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.firstByteReceived(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#bodyRead(com.restfb.RequestEvent)
+     */
+    @Override
+    public void bodyRead(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.bodyRead(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#jsonParsed(com.restfb.RequestEvent)
+     */
+    @Override
+    public void jsonParsed(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.jsonParsed(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#responseMapped(com.restfb.RequestEvent)
+     */
+    @Override
+    public void responseMapped(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.responseMapped(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+
+    /**
+     * @see com.restfb.RequestListener#requestFailed(com.restfb.RequestEvent)
+     */
+    @Override
+    public void requestFailed(RequestEvent event) {
+      for (RequestListener listener : listeners)
+        try {
+          listener.requestFailed(event);
+        } catch (RuntimeException e) {
+          RequestEvent.logListenerFailure(e);
+        }
+    }
+  }
+}
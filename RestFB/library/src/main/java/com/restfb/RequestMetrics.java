@@ -0,0 +1,734 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.logging.Level.WARNING;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.restfb.util.LatencyHistogram;
+
+/**
+ * A {@link RequestListener} that keeps call counts, error counts by exception
+ * type, bytes sent and received, and a {@link LatencyHistogram} for each
+ * endpoint template, and can expose them all as JMX MBeans.
+ * <p>
+ * Endpoint templates are request paths with Graph object IDs replaced by
+ * <code>{id}</code>, so calls to {@code /1234/feed} and {@code /5678/feed} are
+ * both counted under <code>/{id}/feed</code>. Once {@code maxEndpoints}
+ * templates have been seen, calls to new ones are counted under
+ * <code>{other}</code>. Calls to all endpoints are also counted under
+ * <code>*</code>.
+ * <p>
+ * Recording is lock-free and, once an endpoint has been seen, doesn't allocate,
+ * so a single instance can be shared by any number of clients and left on in
+ * production:
+ * 
+ * <pre>
+ * RequestMetrics metrics = new RequestMetrics();
+ * metrics.registerMBeans(&quot;myApp&quot;);
+ * facebookClient.addRequestListener(metrics);
+ * </pre>
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public class RequestMetrics extends RequestListener.Adapter implements RequestMetricsMXBean {
+  /**
+   * Default number of endpoint templates tracked separately.
+   */
+  public static final int DEFAULT_MAX_ENDPOINTS = 100;
+
+  /**
+   * JMX domain the MBeans are registered under.
+   */
+  public static final String JMX_DOMAIN = "com.restfb";
+
+  /**
+   * What ID path segments are replaced with in endpoint templates.
+   */
+  private static final String ID_SEGMENT = "{id}";
+
+  /**
+   * Nanoseconds per millisecond, for reporting.
+   */
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  /**
+   * Endpoints by template, in an open-addressed table indexed by
+   * {@link #templateHash(String)} so lookups don't have to build the template.
+   * Slots only ever go from empty to full.
+   */
+  private final AtomicReferenceArray<Endpoint> endpoints;
+
+  /**
+   * Number of endpoint templates tracked separately.
+   */
+  private final int maxEndpoints;
+
+  /**
+   * Number of endpoints in {@link #endpoints}.
+   */
+  private final AtomicInteger endpointCount = new AtomicInteger();
+
+  /**
+   * Calls to every endpoint.
+   */
+  private final Endpoint allEndpoints = new Endpoint("*", 0);
+
+  /**
+   * Calls to endpoints beyond {@link #maxEndpoints}.
+   */
+  private final Endpoint otherEndpoints = new Endpoint("{other}", 0);
+
+  /**
+   * Failed call counts by exception type.
+   */
+  private final ConcurrentMap<Class<?>, AtomicLong> errorCounts = new ConcurrentHashMap<Class<?>, AtomicLong>();
+
+  /**
+   * Request body bytes sent.
+   */
+  private final AtomicLong bytesSent = new AtomicLong();
+
+  /**
+   * Response body bytes received.
+   */
+  private final AtomicLong bytesReceived = new AtomicLong();
+
+  /**
+   * Name the MBeans are registered under, or {@code null} if they aren't.
+   */
+  private volatile String mbeanName;
+
+  /**
+   * Server the MBeans are registered with, or {@code null} if they aren't.
+   */
+  private volatile MBeanServer mbeanServer;
+
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(RequestMetrics.class.getName());
+
+  /**
+   * Creates metrics that track up to {@link #DEFAULT_MAX_ENDPOINTS} endpoint
+   * templates.
+   */
+  public RequestMetrics() {
+    this(DEFAULT_MAX_ENDPOINTS);
+  }
+
+  /**
+   * Creates metrics that track up to {@code maxEndpoints} endpoint templates.
+   * 
+   * @param maxEndpoints
+   *          Number of endpoint templates to track separately.
+   * @throws IllegalArgumentException
+   *           If {@code maxEndpoints} is negative.
+   */
+  public RequestMetrics(int maxEndpoints) {
+    if (maxEndpoints < 0)
+      throw new IllegalArgumentException("Maximum number of endpoints can't be negative.");
+
+    this.maxEndpoints = maxEndpoints;
+
+    // Keep the table at most half full so probe sequences stay short
+    int capacity = 2;
+    while (capacity < maxEndpoints * 2)
+      capacity <<= 1;
+
+    endpoints = new AtomicReferenceArray<Endpoint>(capacity);
+  }
+
+  /**
+   * @see com.restfb.RequestListener.Adapter#responseMapped(com.restfb.RequestEvent)
+   */
+  @Override
+  public void responseMapped(RequestEvent event) {
+    record(event, false);
+  }
+
+  /**
+   * @see com.restfb.RequestListener.Adapter#requestFailed(com.restfb.RequestEvent)
+   */
+  @Override
+  public void requestFailed(RequestEvent event) {
+    record(event, true);
+
+    Class<?> errorType = event.getError() == null ? RuntimeException.class : event.getError().getClass();
+    AtomicLong errorCount = errorCounts.get(errorType);
+
+    if (errorCount == null) {
+      AtomicLong newErrorCount = new AtomicLong();
+      errorCount = errorCounts.putIfAbsent(errorType, newErrorCount);
+      if (errorCount == null)
+        errorCount = newErrorCount;
+    }
+
+    errorCount.incrementAndGet();
+  }
+
+  /**
+   * Records a finished call.
+   * 
+   * @param event
+   *          The call's event.
+   * @param failed
+   *          Whether the call failed.
+   */
+  protected void record(RequestEvent event, boolean failed) {
+    long latency = event.getEndNanos() - event.getStartNanos();
+
+    allEndpoints.record(latency, failed);
+    endpoint(event.getUnredactedUrl()).record(latency, failed);
+
+    if (event.getBytesSent() > 0)
+      bytesSent.addAndGet(event.getBytesSent());
+    if (event.getBytesReceived() > 0)
+      bytesReceived.addAndGet(event.getBytesReceived());
+  }
+
+  /**
+   * Finds, or starts tracking, the endpoint a URL belongs to.
+   * 
+   * @param url
+   *          A request URL.
+   * @return The URL's endpoint.
+   */
+  private Endpoint endpoint(String url) {
+    if (url == null)
+      return otherEndpoints;
+
+    int hash = templateHash(url);
+    int mask = endpoints.length() - 1;
+
+    for (int i = hash & mask;; i = (i + 1) & mask) {
+      Endpoint endpoint = endpoints.get(i);
+
+      if (endpoint == null) {
+        if (endpointCount.incrementAndGet() > maxEndpoints) {
+          endpointCount.decrementAndGet();
+          return otherEndpoints;
+        }
+
+        Endpoint newEndpoint = new Endpoint(toTemplate(url), hash);
+
+        if (endpoints.compareAndSet(i, null, newEndpoint)) {
+          registerMBean(newEndpoint);
+          return newEndpoint;
+        }
+
+        // Another thread filled the slot first - check whether it's ours
+        endpointCount.decrementAndGet();
+        endpoint = endpoints.get(i);
+      }
+
+      if (endpoint.hash == hash && templateMatches(endpoint.template, url))
+        return endpoint;
+    }
+  }
+
+  /**
+   * Finds where a URL's path starts.
+   * 
+   * @param url
+   *          A request URL.
+   * @return The index of the path's leading {@code /}, or the URL's length if
+   *         it has no path.
+   */
+  private static int pathStart(String url) {
+    int schemeEnd = url.indexOf("://");
+    int pathStart = url.indexOf('/', schemeEnd < 0 ? 0 : schemeEnd + 3);
+    return pathStart < 0 ? url.length() : pathStart;
+  }
+
+  /**
+   * Finds where a URL's path ends.
+   * 
+   * @param url
+   *          A request URL.
+   * @param pathStart
+   *          Where the URL's path starts.
+   * @return The index of the query string's {@code ?}, or the URL's length if
+   *         it has no query string.
+   */
+  private static int pathEnd(String url, int pathStart) {
+    int queryStart = url.indexOf('?', pathStart);
+    return queryStart < 0 ? url.length() : queryStart;
+  }
+
+  /**
+   * Finds where a path segment ends.
+   * 
+   * @param url
+   *          A request URL.
+   * @param segmentStart
+   *          The index of the {@code /} the segment starts with.
+   * @param pathEnd
+   *          Where the URL's path ends.
+   * @return The index of the next segment's {@code /}, or {@code pathEnd}.
+   */
+  private static int segmentEnd(String url, int segmentStart, int pathEnd) {
+    int segmentEnd = url.indexOf('/', segmentStart + 1);
+    return segmentEnd < 0 || segmentEnd > pathEnd ? pathEnd : segmentEnd;
+  }
+
+  /**
+   * Is a path segment a Graph object ID, i.e. digits, possibly joined by
+   * underscores as in {@code 1234_5678}?
+   * 
+   * @param url
+   *          A request URL.
+   * @param start
+   *          The index of the segment's first character.
+   * @param end
+   *          The index just past the segment's last character.
+   * @return {@code true} if the segment is an ID, {@code false} otherwise.
+   */
+  private static boolean isId(String url, int start, int end) {
+    boolean sawDigit = false;
+
+    for (int i = start; i < end; i++) {
+      char c = url.charAt(i);
+      if (c >= '0' && c <= '9')
+        sawDigit = true;
+      else if (c != '_')
+        return false;
+    }
+
+    return sawDigit;
+  }
+
+  /**
+   * Hashes a URL's endpoint template without building it.
+   * 
+   * @param url
+   *          A request URL.
+   * @return The template's hash.
+   */
+  static int templateHash(String url) {
+    int hash = 1;
+    int pathStart = pathStart(url);
+    int pathEnd = pathEnd(url, pathStart);
+
+    for (int segmentStart = pathStart, segmentEnd; segmentStart < pathEnd; segmentStart = segmentEnd) {
+      segmentEnd = segmentEnd(url, segmentStart, pathEnd);
+
+      if (isId(url, segmentStart + 1, segmentEnd))
+        hash = 31 * hash - 1;
+      else
+        for (int i = segmentStart; i < segmentEnd; i++)
+          hash = 31 * hash + url.charAt(i);
+    }
+
+    // Spread the bits so nearby hashes don't probe the same slots
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Does a URL belong to an endpoint template? Equivalent to
+   * {@code template.equals(toTemplate(url))}, without building the template.
+   * 
+   * @param template
+   *          An endpoint template.
+   * @param url
+   *          A request URL.
+   * @return {@code true} if {@code url} belongs to {@code template},
+   *         {@code false} otherwise.
+   */
+  static boolean templateMatches(String template, String url) {
+    int pathStart = pathStart(url);
+    int pathEnd = pathEnd(url, pathStart);
+
+    if (pathStart == pathEnd)
+      return "/".equals(template);
+
+    int templateIndex = 0;
+
+    for (int segmentStart = pathStart, segmentEnd; segmentStart < pathEnd; segmentStart = segmentEnd) {
+      segmentEnd = segmentEnd(url, segmentStart, pathEnd);
+
+      if (!template.startsWith("/", templateIndex))
+        return false;
+
+      if (isId(url, segmentStart + 1, segmentEnd)) {
+        if (!template.startsWith(ID_SEGMENT, templateIndex + 1))
+          return false;
+        templateIndex += 1 + ID_SEGMENT.length();
+      } else {
+        int length = segmentEnd - segmentStart;
+        if (!template.regionMatches(templateIndex, url, segmentStart, length))
+          return false;
+        templateIndex += length;
+      }
+    }
+
+    return templateIndex == template.length();
+  }
+
+  /**
+   * Builds a URL's endpoint template: its path, with IDs replaced by
+   * <code>{id}</code>.
+   * 
+   * @param url
+   *          A request URL.
+   * @return The URL's endpoint template.
+   */
+  static String toTemplate(String url) {
+    int pathStart = pathStart(url);
+    int pathEnd = pathEnd(url, pathStart);
+
+    if (pathStart == pathEnd)
+      return "/";
+
+    StringBuilder template = new StringBuilder(pathEnd - pathStart);
+
+    for (int segmentStart = pathStart, segmentEnd; segmentStart < pathEnd; segmentStart = segmentEnd) {
+      segmentEnd = segmentEnd(url, segmentStart, pathEnd);
+
+      if (isId(url, segmentStart + 1, segmentEnd))
+        template.append('/').append(ID_SEGMENT);
+      else
+        template.append(url, segmentStart, segmentEnd);
+    }
+
+    return template.toString();
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server, as
+   * {@code com.restfb:type=RequestMetrics,name=<name>} plus one
+   * {@link EndpointMetricsMXBean} per endpoint, which also has an
+   * {@code endpoint} key. Endpoints seen later are registered as they appear.
+   * 
+   * @param name
+   *          Name that tells these metrics apart from others in the same JVM.
+   * @throws JMException
+   *           If the MBeans can't be registered, e.g. because the name is
+   *           taken.
+   */
+  public void registerMBeans(String name) throws JMException {
+    registerMBeans(ManagementFactory.getPlatformMBeanServer(), name);
+  }
+
+  /**
+   * Registers these metrics with an MBean server.
+   * 
+   * @param server
+   *          The MBean server to register with.
+   * @param name
+   *          Name that tells these metrics apart from others in the same
+   *          server.
+   * @throws JMException
+   *           If the MBeans can't be registered, e.g. because the name is
+   *           taken.
+   * @throws IllegalStateException
+   *           If these metrics are already registered.
+   * @see #registerMBeans(String)
+   */
+  public synchronized void registerMBeans(MBeanServer server, String name) throws JMException {
+    if (mbeanServer != null)
+      throw new IllegalStateException("These metrics are already registered as '" + mbeanName + "'");
+
+    server.registerMBean(this, objectName(name, null));
+    mbeanName = name;
+    mbeanServer = server;
+
+    registerMBean(allEndpoints);
+    registerMBean(otherEndpoints);
+    for (int i = 0; i < endpoints.length(); i++)
+      if (endpoints.get(i) != null)
+        registerMBean(endpoints.get(i));
+  }
+
+  /**
+   * Unregisters the MBeans registered by {@link #registerMBeans(String)}, if
+   * any.
+   * 
+   * @throws JMException
+   *           If the MBeans can't be unregistered.
+   */
+  public synchronized void unregisterMBeans() throws JMException {
+    MBeanServer server = mbeanServer;
+    if (server == null)
+      return;
+
+    mbeanServer = null;
+
+    ObjectName endpointPattern = new ObjectName(objectName(mbeanName, null) + ",endpoint=*");
+    for (ObjectName objectName : server.queryNames(endpointPattern, null))
+      server.unregisterMBean(objectName);
+
+    server.unregisterMBean(objectName(mbeanName, null));
+    mbeanName = null;
+  }
+
+  /**
+   * Registers an endpoint's MBean, if these metrics are registered. Failures
+   * are logged rather than thrown, since endpoints are registered as calls are
+   * made.
+   * 
+   * @param endpoint
+   *          The endpoint to register.
+   */
+  private void registerMBean(Endpoint endpoint) {
+    MBeanServer server = mbeanServer;
+    if (server == null)
+      return;
+
+    try {
+      server.registerMBean(endpoint, objectName(mbeanName, endpoint.template));
+    } catch (InstanceAlreadyExistsException e) {
+      // Registered by registerMBeans() while it was being added
+    } catch (JMException e) {
+      if (logger.isLoggable(WARNING))
+        logger.warning("Unable to register metrics MBean for endpoint '" + endpoint.template + "': " + e);
+    }
+  }
+
+  /**
+   * Builds the name of one of these metrics' MBeans.
+   * 
+   * @param name
+   *          The name the metrics are registered under.
+   * @param endpoint
+   *          Endpoint template, or {@code null} for the metrics themselves.
+   * @return The MBean name.
+   * @throws JMException
+   *           If the name is malformed.
+   */
+  private static ObjectName objectName(String name, String endpoint) throws JMException {
+    StringBuilder objectName =
+        new StringBuilder(JMX_DOMAIN).append(":type=RequestMetrics,name=").append(ObjectName.quote(name));
+
+    if (endpoint != null)
+      objectName.append(",endpoint=").append(ObjectName.quote(endpoint));
+
+    return new ObjectName(objectName.toString());
+  }
+
+  /**
+   * Gets the metrics for an endpoint template.
+   * 
+   * @param endpoint
+   *          An endpoint template, e.g. <code>/{id}/feed</code>, or
+   *          {@code "*"} for every endpoint.
+   * @return The endpoint's metrics, or {@code null} if no calls have been made
+   *         to it.
+   */
+  public EndpointMetricsMXBean getEndpointMetrics(String endpoint) {
+    if (allEndpoints.template.equals(endpoint))
+      return allEndpoints;
+    if (otherEndpoints.template.equals(endpoint))
+      return otherEndpoints.getRequestCount() == 0 ? null : otherEndpoints;
+
+    for (int i = 0; i < endpoints.length(); i++) {
+      Endpoint candidate = endpoints.get(i);
+      if (candidate != null && candidate.template.equals(endpoint))
+        return candidate;
+    }
+
+    return null;
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getRequestCount()
+   */
+  public long getRequestCount() {
+    return allEndpoints.getRequestCount();
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getErrorCount()
+   */
+  public long getErrorCount() {
+    return allEndpoints.getErrorCount();
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getErrorCounts()
+   */
+  public Map<String, Long> getErrorCounts() {
+    Map<String, Long> counts = new TreeMap<String, Long>();
+    for (Map.Entry<Class<?>, AtomicLong> entry : errorCounts.entrySet())
+      counts.put(entry.getKey().getSimpleName(), entry.getValue().get());
+    return counts;
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getBytesSent()
+   */
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getBytesReceived()
+   */
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  /**
+   * @see com.restfb.RequestMetricsMXBean#getEndpoints()
+   */
+  public List<String> getEndpoints() {
+    List<String> templates = new ArrayList<String>();
+
+    for (int i = 0; i < endpoints.length(); i++)
+      if (endpoints.get(i) != null)
+        templates.add(endpoints.get(i).template);
+    if (otherEndpoints.getRequestCount() > 0)
+      templates.add(otherEndpoints.template);
+
+    Collections.sort(templates);
+    return templates;
+  }
+
+  /**
+   * Calls recorded for one endpoint template.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  private static class Endpoint implements EndpointMetricsMXBean {
+    /**
+     * The endpoint template.
+     */
+    final String template;
+
+    /**
+     * The template's {@link RequestMetrics#templateHash(String)}.
+     */
+    final int hash;
+
+    /**
+     * Call latencies in nanoseconds.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Number of failed calls.
+     */
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Creates an endpoint with no calls recorded.
+     * 
+     * @param template
+     *          The endpoint template.
+     * @param hash
+     *          The template's hash.
+     */
+    Endpoint(String template, int hash) {
+      this.template = template;
+      this.hash = hash;
+    }
+
+    /**
+     * Records a finished call.
+     * 
+     * @param latency
+     *          The call's latency in nanoseconds.
+     * @param failed
+     *          Whether the call failed.
+     */
+    void record(long latency, boolean failed) {
+      latencies.record(latency);
+      if (failed)
+        errorCount.incrementAndGet();
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getEndpoint()
+     */
+    public String getEndpoint() {
+      return template;
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getRequestCount()
+     */
+    public long getRequestCount() {
+      return latencies.getCount();
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getErrorCount()
+     */
+    public long getErrorCount() {
+      return errorCount.get();
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getMeanMillis()
+     */
+    public double getMeanMillis() {
+      return latencies.getMean() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getMaxMillis()
+     */
+    public double getMaxMillis() {
+      return latencies.getMax() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#getMedianMillis()
+     */
+    public double getMedianMillis() {
+      return latencies.getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#get90thPercentileMillis()
+     */
+    public double get90thPercentileMillis() {
+      return latencies.getValueAtPercentile(90) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @see com.restfb.EndpointMetricsMXBean#get99thPercentileMillis()
+     */
+    public double get99thPercentileMillis() {
+      return latencies.getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+  }
+}
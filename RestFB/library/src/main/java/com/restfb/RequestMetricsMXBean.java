@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface for {@link RequestMetrics}: call, error and byte counts
+ * across every endpoint. Latencies are exposed per endpoint by
+ * {@link EndpointMetricsMXBean}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public interface RequestMetricsMXBean {
+  /**
+   * Gets the number of API calls that have finished, successfully or not.
+   * 
+   * @return The number of calls.
+   */
+  long getRequestCount();
+
+  /**
+   * Gets the number of API calls that have failed.
+   * 
+   * @return The number of failed calls.
+   */
+  long getErrorCount();
+
+  /**
+   * Gets failed call counts keyed by the simple name of the exception thrown,
+   * e.g. {@code FacebookOAuthException}.
+   * 
+   * @return Failed call counts by exception type.
+   */
+  Map<String, Long> getErrorCounts();
+
+  /**
+   * Gets the number of request body bytes sent, as reported by the
+   * {@link WebRequestor}.
+   * 
+   * @return The number of bytes sent.
+   */
+  long getBytesSent();
+
+  /**
+   * Gets the number of response body bytes received, as reported by the
+   * {@link WebRequestor}.
+   * 
+   * @return The number of bytes received.
+   */
+  long getBytesReceived();
+
+  /**
+   * Gets the endpoint templates calls have been made to, e.g.
+   * <code>/{id}/feed</code>.
+   * 
+   * @return The endpoint templates.
+   */
+  List<String> getEndpoints();
+}
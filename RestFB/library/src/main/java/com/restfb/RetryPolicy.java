@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.restfb.exception.FacebookException;
+import com.restfb.exception.FacebookNetworkException;
+
+/**
+ * Decides whether {@link DefaultFacebookClient} retries a call that failed
+ * with a transient error, and how long it waits first.
+ * <p>
+ * Only {@link FacebookNetworkException}s are transient: I/O errors and
+ * {@code 5xx} responses that carry no Graph API error. Errors Facebook reports
+ * (bad tokens, throttling and so on) are never retried. {@code GET}s are
+ * retried; {@code POST}s - publishes, deletes and batches - only if
+ * {@link RetryPolicyBuilder#retryPosts(boolean)} says so, since Facebook may
+ * have acted on a request whose response was lost. Requests that upload
+ * {@link BinaryAttachment}s are never retried, since their streams can only be
+ * read once.
+ * <p>
+ * Waits use exponential backoff with "full jitter": before retry {@code n} the
+ * client sleeps a random time between {@code 0} and
+ * {@code min(maxDelay, baseDelay * 2^(n - 1))}, so clients that failed
+ * together don't retry together.
+ * <p>
+ * Retries are also capped by a budget, so an outage can't multiply traffic:
+ * every call earns {@code ratio} of a retry and every retry spends one, up to
+ * a balance of {@code capacity} retries (which the budget starts with). With
+ * the default ratio of {@code 0.1}, retries add at most 10% to sustained
+ * traffic. The budget belongs to the policy, so clients sharing a policy share
+ * their budget.
+ * <p>
+ * Instances are thread-safe.
+ * 
+ * <pre>
+ * facebookClient.setRetryPolicy(new RetryPolicyBuilder().maxAttempts(4).baseDelayMillis(200).build());
+ * </pre>
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public class RetryPolicy {
+  /**
+   * Never retries. This is {@link DefaultFacebookClient}'s default.
+   */
+  public static final RetryPolicy NONE = new RetryPolicyBuilder().maxAttempts(1).build();
+
+  /**
+   * Attempts per call, counting the first.
+   */
+  private final int maxAttempts;
+
+  /**
+   * Longest wait before the first retry, in milliseconds.
+   */
+  private final long baseDelayMillis;
+
+  /**
+   * Longest wait before any retry, in milliseconds.
+   */
+  private final long maxDelayMillis;
+
+  /**
+   * Retries earned per call.
+   */
+  private final double retryBudgetRatio;
+
+  /**
+   * Most retries the budget can hold.
+   */
+  private final int retryBudgetCapacity;
+
+  /**
+   * Should {@code POST}s be retried?
+   */
+  private final boolean retryPosts;
+
+  /**
+   * Retries earned, in thousandths of a retry.
+   */
+  private final AtomicLong retryBudgetMillis;
+
+  /**
+   * Thousandths of a retry earned per call.
+   */
+  private final long retryBudgetDepositMillis;
+
+  /**
+   * Designed to be invoked by instances of <tt>{@link RetryPolicyBuilder}</tt>.
+   * 
+   * @param builder
+   *          The builder holding the settings.
+   */
+  protected RetryPolicy(RetryPolicyBuilder builder) {
+    maxAttempts = builder.maxAttempts;
+    baseDelayMillis = builder.baseDelayMillis;
+    maxDelayMillis = builder.maxDelayMillis;
+    retryBudgetRatio = builder.retryBudgetRatio;
+    retryBudgetCapacity = builder.retryBudgetCapacity;
+    retryPosts = builder.retryPosts;
+    retryBudgetMillis = new AtomicLong(retryBudgetCapacity * 1000L);
+    retryBudgetDepositMillis = Math.round(retryBudgetRatio * 1000);
+  }
+
+  /**
+   * Called once per call, before its first attempt, to earn retry budget.
+   */
+  void callStarted() {
+    if (maxAttempts == 1 || retryBudgetDepositMillis == 0)
+      return;
+
+    long capacityMillis = retryBudgetCapacity * 1000L;
+    long balance;
+
+    do {
+      balance = retryBudgetMillis.get();
+      if (balance >= capacityMillis)
+        return;
+    } while (!retryBudgetMillis.compareAndSet(balance, Math.min(capacityMillis, balance + retryBudgetDepositMillis)));
+  }
+
+  /**
+   * Decides whether to retry a failed attempt, spending budget if so.
+   * 
+   * @param method
+   *          The call's HTTP method.
+   * @param attempt
+   *          The attempt that failed, starting at {@code 1}.
+   * @param failure
+   *          Why it failed.
+   * @return {@code true} if the call should be retried.
+   */
+  boolean shouldRetry(String method, int attempt, FacebookException failure) {
+    if (attempt >= maxAttempts || !isTransient(failure) || (!retryPosts && !"GET".equals(method)))
+      return false;
+
+    long balance;
+
+    do {
+      balance = retryBudgetMillis.get();
+      if (balance < 1000)
+        return false;
+    } while (!retryBudgetMillis.compareAndSet(balance, balance - 1000));
+
+    return true;
+  }
+
+  /**
+   * Picks how long to wait before a retry.
+   * 
+   * @param attempt
+   *          The attempt that failed, starting at {@code 1}.
+   * @return Milliseconds to wait, between {@code 0} and the backoff ceiling for
+   *         {@code attempt}.
+   */
+  long backoffMillis(int attempt) {
+    long ceiling = baseDelayMillis << Math.min(attempt - 1, 30);
+    if (ceiling > maxDelayMillis || ceiling < 0)
+      ceiling = maxDelayMillis;
+
+    return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  /**
+   * Is {@code failure} worth retrying?
+   * 
+   * @param failure
+   *          Why an attempt failed.
+   * @return {@code true} for I/O errors and {@code 5xx} responses.
+   */
+  protected boolean isTransient(FacebookException failure) {
+    if (!(failure instanceof FacebookNetworkException))
+      return false;
+
+    Integer httpStatusCode = ((FacebookNetworkException) failure).getHttpStatusCode();
+    return httpStatusCode == null || httpStatusCode >= 500;
+  }
+
+  /**
+   * Gets the most attempts per call, counting the first.
+   * 
+   * @return The most attempts per call.
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Gets the longest wait before the first retry.
+   * 
+   * @return The longest wait in milliseconds.
+   */
+  public long getBaseDelayMillis() {
+    return baseDelayMillis;
+  }
+
+  /**
+   * Gets the longest wait before any retry.
+   * 
+   * @return The longest wait in milliseconds.
+   */
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  /**
+   * Gets the retries each call earns for the budget.
+   * 
+   * @return The retry budget ratio.
+   */
+  public double getRetryBudgetRatio() {
+    return retryBudgetRatio;
+  }
+
+  /**
+   * Gets the most retries the budget can hold.
+   * 
+   * @return The retry budget's capacity.
+   */
+  public int getRetryBudgetCapacity() {
+    return retryBudgetCapacity;
+  }
+
+  /**
+   * Are {@code POST}s retried?
+   * 
+   * @return {@code true} if {@code POST}s are retried.
+   */
+  public boolean isRetryPosts() {
+    return retryPosts;
+  }
+
+  /**
+   * Gets how many retries the budget holds right now.
+   * 
+   * @return The retries available.
+   */
+  public double getRetryBudgetBalance() {
+    return retryBudgetMillis.get() / 1000.0;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return String.format("RetryPolicy[maxAttempts=%d, baseDelayMillis=%d, maxDelayMillis=%d, retryBudgetRatio=%s, "
+        + "retryBudgetCapacity=%d, retryPosts=%s]", maxAttempts, baseDelayMillis, maxDelayMillis, retryBudgetRatio,
+      retryBudgetCapacity, retryPosts);
+  }
+
+  /**
+   * Builder pattern implementation used to construct instances of
+   * <tt>{@link RetryPolicy}</tt>.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   */
+  public static class RetryPolicyBuilder {
+    private int maxAttempts = 3;
+    private long baseDelayMillis = 100;
+    private long maxDelayMillis = 10000;
+    private double retryBudgetRatio = 0.1;
+    private int retryBudgetCapacity = 10;
+    private boolean retryPosts;
+
+    /**
+     * Sets the most attempts per call, counting the first ({@code 3} is the
+     * default value for this builder). {@code 1} never retries.
+     * 
+     * @param maxAttempts
+     *          The most attempts per call.
+     * @return This builder.
+     */
+    public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the longest wait before the first retry; the ceiling doubles with
+     * each retry after that ({@code 100} is the default value for this
+     * builder).
+     * 
+     * @param baseDelayMillis
+     *          The longest wait in milliseconds.
+     * @return This builder.
+     */
+    public RetryPolicyBuilder baseDelayMillis(long baseDelayMillis) {
+      this.baseDelayMillis = baseDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the longest wait before any retry ({@code 10000} is the default
+     * value for this builder).
+     * 
+     * @param maxDelayMillis
+     *          The longest wait in milliseconds.
+     * @return This builder.
+     */
+    public RetryPolicyBuilder maxDelayMillis(long maxDelayMillis) {
+      this.maxDelayMillis = maxDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the retry budget: each call earns {@code ratio} of a retry, and the
+     * budget holds at most {@code capacity} retries ({@code 0.1} and {@code 10}
+     * are the default values for this builder).
+     * 
+     * @param ratio
+     *          Retries earned per call, e.g. {@code 0.1} to allow retries of up
+     *          to 10% of calls.
+     * @param capacity
+     *          The most retries the budget holds, and what it starts with.
+     * @return This builder.
+     */
+    public RetryPolicyBuilder retryBudget(double ratio, int capacity) {
+      this.retryBudgetRatio = ratio;
+      this.retryBudgetCapacity = capacity;
+      return this;
+    }
+
+    /**
+     * Specifies if {@code POST}s - publishes, deletes and batches - are retried
+     * ({@code false} is the default value for this builder). Only allow this
+     * if repeating them is harmless. Uploads of {@link BinaryAttachment}s are
+     * never retried either way.
+     * 
+     * @param retryPosts
+     *          {@code true} to retry {@code POST}s.
+     * @return This builder.
+     */
+    public RetryPolicyBuilder retryPosts(boolean retryPosts) {
+      this.retryPosts = retryPosts;
+      return this;
+    }
+
+    /**
+     * Generates a <tt>{@link RetryPolicy}</tt> instance based on the current
+     * state of this builder.
+     * 
+     * @return A retry policy built from this builder's settings.
+     * @throws IllegalArgumentException
+     *           If a setting is out of range.
+     */
+    public RetryPolicy build() {
+      if (maxAttempts < 1)
+        throw new IllegalArgumentException("There must be at least one attempt.");
+      if (baseDelayMillis < 0 || maxDelayMillis < 0)
+        throw new IllegalArgumentException("Delays can't be negative.");
+      if (retryBudgetRatio < 0 || Double.isNaN(retryBudgetRatio) || retryBudgetCapacity < 0)
+        throw new IllegalArgumentException("The retry budget can't be negative.");
+
+      return new RetryPolicy(this);
+    }
+  }
+}
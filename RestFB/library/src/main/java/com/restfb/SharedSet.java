@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A set that reads through to a shared, read-only set and copies it on the
+ * first write.
+ * <p>
+ * Lets clients point at static configuration sets without allocating, while
+ * subclasses can still add to or remove from them. Writes are expected to
+ * happen during construction, before the owning client is shared between
+ * threads.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class SharedSet<E> extends AbstractSet<E> {
+  /**
+   * The set reads go to - either the shared set or this set's own copy of it.
+   */
+  private Set<E> elements;
+
+  /**
+   * Whether {@link #elements} is this set's own copy.
+   */
+  private boolean copied;
+
+  /**
+   * Creates a set that reads through to {@code shared}.
+   * 
+   * @param shared
+   *          The shared set, which is never modified.
+   */
+  SharedSet(Set<E> shared) {
+    share(shared);
+  }
+
+  /**
+   * Discards this set's contents and reads through to {@code shared} instead.
+   * 
+   * @param shared
+   *          The shared set, which is never modified.
+   */
+  void share(Set<E> shared) {
+    elements = shared;
+    copied = false;
+  }
+
+  /**
+   * Copies the shared set if this set doesn't have its own copy yet.
+   * 
+   * @return This set's own, modifiable elements.
+   */
+  private Set<E> modifiableElements() {
+    if (!copied) {
+      elements = new HashSet<E>(elements);
+      copied = true;
+    }
+    return elements;
+  }
+
+  /**
+   * @see java.util.AbstractCollection#size()
+   */
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  /**
+   * @see java.util.AbstractCollection#contains(java.lang.Object)
+   */
+  @Override
+  public boolean contains(Object o) {
+    return elements.contains(o);
+  }
+
+  /**
+   * @see java.util.AbstractCollection#iterator()
+   */
+  @Override
+  public Iterator<E> iterator() {
+    if (copied)
+      return elements.iterator();
+
+    // Walk the shared set, which never changes, and remove from our own copy.
+    final Iterator<E> shared = elements.iterator();
+    return new Iterator<E>() {
+      private E last;
+      private boolean removable;
+
+      @Override
+      public boolean hasNext() {
+        return shared.hasNext();
+      }
+
+      @Override
+      public E next() {
+        last = shared.next();
+        removable = true;
+        return last;
+      }
+
+      @Override
+      public void remove() {
+        if (!removable)
+          throw new IllegalStateException();
+        modifiableElements().remove(last);
+        removable = false;
+      }
+    };
+  }
+
+  /**
+   * @see java.util.AbstractCollection#add(java.lang.Object)
+   */
+  @Override
+  public boolean add(E e) {
+    return elements.contains(e) ? false : modifiableElements().add(e);
+  }
+
+  /**
+   * @see java.util.AbstractCollection#remove(java.lang.Object)
+   */
+  @Override
+  public boolean remove(Object o) {
+    return elements.contains(o) ? modifiableElements().remove(o) : false;
+  }
+
+  /**
+   * @see java.util.AbstractSet#removeAll(java.util.Collection)
+   */
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    return modifiableElements().removeAll(c);
+  }
+
+  /**
+   * @see java.util.AbstractCollection#retainAll(java.util.Collection)
+   */
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    return modifiableElements().retainAll(c);
+  }
+
+  /**
+   * @see java.util.AbstractCollection#clear()
+   */
+  @Override
+  public void clear() {
+    modifiableElements().clear();
+  }
+}
@@ -278,9 +278,7 @@ public class BatchRequest {
       else
         parameterStringBuilder.append("&");
 
-      parameterStringBuilder.append(urlEncode(parameter.name));
-      parameterStringBuilder.append("=");
-      parameterStringBuilder.append(urlEncode(parameter.value));
+      urlEncode(parameter.value, urlEncode(parameter.name, parameterStringBuilder).append('='));
     }
 
     return parameterStringBuilder.toString();
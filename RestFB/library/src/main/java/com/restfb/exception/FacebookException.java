@@ -51,4 +51,21 @@ public abstract class FacebookException extends RuntimeException {
   public FacebookException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Creates an exception with the given message and cause, optionally skipping
+   * stack trace capture.
+   * 
+   * @param message
+   *          A message describing this exception.
+   * @param cause
+   *          The exception that caused this exception to be thrown.
+   * @param writableStackTrace
+   *          {@code false} to skip the (comparatively expensive) stack trace
+   *          capture.
+   * @since 1.6.8
+   */
+  protected FacebookException(String message, Throwable cause, boolean writableStackTrace) {
+    super(message, cause, true, writableStackTrace);
+  }
 }
\ No newline at end of file
@@ -22,14 +22,45 @@
 
 package com.restfb.exception;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 /**
  * Indicates that an error occurred while mapping JSON data to a Java object.
+ * <p>
+ * When created with the offending JSON, the message that quotes it is only
+ * rendered if someone asks for it, and long JSON is cut down to an excerpt
+ * around the problem.
  * 
  * @author <a href="http://restfb.com">Mark Allen</a>
  */
 public class FacebookJsonMappingException extends FacebookException {
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Offending JSON longer than this is quoted as an excerpt of this many
+   * characters.
+   * 
+   * @since 1.6.8
+   */
+  public static final int MAX_JSON_EXCERPT_LENGTH = 256;
+
+  /**
+   * The JSON that couldn't be mapped, or {@code null} if not provided.
+   */
+  private final String offendingJson;
+
+  /**
+   * Character offset of the problem in {@link #offendingJson}, or {@code -1}
+   * if unknown.
+   */
+  private final int offset;
+
+  /**
+   * The full message, rendered on first use.
+   */
+  private transient String renderedMessage;
+
   /**
    * Creates an exception with the given message.
    * 
@@ -38,6 +69,8 @@ public class FacebookJsonMappingException extends FacebookException {
    */
   public FacebookJsonMappingException(String message) {
     super(message);
+    offendingJson = null;
+    offset = -1;
   }
 
   /**
@@ -50,5 +83,98 @@ public class FacebookJsonMappingException extends FacebookException {
    */
   public FacebookJsonMappingException(String message, Throwable cause) {
     super(message, cause);
+    offendingJson = null;
+    offset = -1;
+  }
+
+  /**
+   * Creates an exception for JSON that couldn't be mapped.
+   * <p>
+   * The message is followed by the offending JSON, or an excerpt of it around
+   * {@code offset}, but only once {@link #getMessage()} is called - building
+   * the exception doesn't copy the JSON.
+   * 
+   * @param message
+   *          A message describing this exception.
+   * @param offendingJson
+   *          The JSON that couldn't be mapped.
+   * @param offset
+   *          Character offset of the problem in {@code offendingJson}, or
+   *          {@code -1} if unknown.
+   * @param cause
+   *          The exception that caused this exception to be thrown, or
+   *          {@code null}.
+   * @param writableStackTrace
+   *          {@code false} to skip stack trace capture, e.g. for exceptions
+   *          that are only handed to an error handler.
+   * @since 1.6.8
+   */
+  public FacebookJsonMappingException(String message, String offendingJson, int offset, Throwable cause,
+      boolean writableStackTrace) {
+    super(message, cause, writableStackTrace);
+    this.offendingJson = offendingJson;
+    this.offset = offset;
+  }
+
+  /**
+   * @see java.lang.Throwable#getMessage()
+   */
+  @Override
+  public String getMessage() {
+    if (offendingJson == null)
+      return super.getMessage();
+
+    if (renderedMessage == null)
+      renderedMessage = renderMessage();
+
+    return renderedMessage;
+  }
+
+  /**
+   * Gets the JSON that couldn't be mapped.
+   * 
+   * @return The offending JSON, or {@code null} if not provided.
+   * @since 1.6.8
+   */
+  public String getOffendingJson() {
+    return offendingJson;
+  }
+
+  /**
+   * Gets the character offset of the problem in the offending JSON.
+   * 
+   * @return The offset, or {@code -1} if unknown.
+   * @since 1.6.8
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Builds the message, quoting the offending JSON or an excerpt of it.
+   * 
+   * @return The full message.
+   */
+  private String renderMessage() {
+    StringBuilder message = new StringBuilder(super.getMessage()).append(" Offending JSON is '");
+    int length = offendingJson.length();
+
+    if (length <= MAX_JSON_EXCERPT_LENGTH)
+      return message.append(offendingJson).append("'.").toString();
+
+    int start = offset < 0 ? 0 : max(0, min(offset - MAX_JSON_EXCERPT_LENGTH / 2, length - MAX_JSON_EXCERPT_LENGTH));
+    int end = start + MAX_JSON_EXCERPT_LENGTH;
+
+    if (start > 0)
+      message.append("...");
+    message.append(offendingJson, start, end);
+    if (end < length)
+      message.append("...");
+
+    message.append("' (characters ").append(start).append('-').append(end).append(" of ").append(length);
+    if (offset >= 0)
+      message.append(", problem at ").append(offset);
+
+    return message.append(").").toString();
   }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ package com.restfb.json;
 public class JsonException extends RuntimeException {
   private Throwable cause;
 
+  private int offset = -1;
+
   private static final long serialVersionUID = 1L;
 
   /**
@@ -21,6 +23,20 @@ public class JsonException extends RuntimeException {
     super(message);
   }
 
+  /**
+   * Constructs a JsonException with an explanatory message and the offset in
+   * the JSON text where the problem was found.
+   * 
+   * @param message
+   *          Detail about the reason for the exception.
+   * @param offset
+   *          The character offset of the problem.
+   */
+  public JsonException(String message, int offset) {
+    super(message);
+    this.offset = offset;
+  }
+
   public JsonException(Throwable t) {
     super(t.getMessage());
     this.cause = t;
@@ -29,4 +45,13 @@ public class JsonException extends RuntimeException {
   public Throwable getCause() {
     return this.cause;
   }
+
+  /**
+   * Get the character offset in the JSON text where the problem was found.
+   * 
+   * @return The offset, or -1 if it isn't known.
+   */
+  public int getOffset() {
+    return this.offset;
+  }
 }
\ No newline at end of file
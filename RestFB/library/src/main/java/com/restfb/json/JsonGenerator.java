@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.json;
+
+import java.io.IOException;
+
+/**
+ * Writes JSON text straight to an {@link Appendable}, without building a
+ * {@link JsonObject} or {@link JsonArray} tree first.
+ * <p>
+ * Output is character-for-character what {@link JsonObject#toString()} would
+ * produce for the same values, including its escaping of {@code </},
+ * {@code U+0080-U+009F} and {@code U+2000-U+20FF}. Strings are escaped through
+ * a lookup table and copied in unescaped runs, so ordinary text costs no
+ * allocation at all.
+ * <p>
+ * For speed, calls aren't checked for proper nesting - that's the caller's
+ * job. Instances are not thread-safe.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class JsonGenerator {
+  /**
+   * Escape sequences for the ASCII range, or {@code null} for characters that
+   * are written as-is. {@code /} is handled separately since it's only escaped
+   * after a {@code <}.
+   */
+  private static final String[] ASCII_ESCAPES = new String[128];
+
+  /**
+   * Lowercase hex digits.
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  static {
+    for (int c = 0; c < ' '; c++)
+      ASCII_ESCAPES[c] = "\\u00" + HEX_DIGITS[c >> 4] + HEX_DIGITS[c & 0xF];
+
+    ASCII_ESCAPES['\b'] = "\\b";
+    ASCII_ESCAPES['\t'] = "\\t";
+    ASCII_ESCAPES['\n'] = "\\n";
+    ASCII_ESCAPES['\f'] = "\\f";
+    ASCII_ESCAPES['\r'] = "\\r";
+    ASCII_ESCAPES['"'] = "\\\"";
+    ASCII_ESCAPES['\\'] = "\\\\";
+  }
+
+  /**
+   * Where output goes.
+   */
+  private final Appendable out;
+
+  /**
+   * Does the next value or name need a preceding comma?
+   */
+  private boolean comma;
+
+  /**
+   * Creates a generator that writes to {@code out}.
+   * 
+   * @param out
+   *          Where output goes.
+   */
+  public JsonGenerator(Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Starts an object.
+   * 
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator beginObject() throws IOException {
+    separate();
+    out.append('{');
+    comma = false;
+    return this;
+  }
+
+  /**
+   * Ends the current object.
+   * 
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator endObject() throws IOException {
+    out.append('}');
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Starts an array.
+   * 
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator beginArray() throws IOException {
+    separate();
+    out.append('[');
+    comma = false;
+    return this;
+  }
+
+  /**
+   * Ends the current array.
+   * 
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator endArray() throws IOException {
+    out.append(']');
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes the name of the next object member.
+   * 
+   * @param name
+   *          The member name.
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator name(String name) throws IOException {
+    separate();
+    quote(name, out);
+    out.append(':');
+    comma = false;
+    return this;
+  }
+
+  /**
+   * Writes a string value, or {@code null}.
+   * 
+   * @param value
+   *          The value.
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator value(String value) throws IOException {
+    if (value == null)
+      return nullValue();
+
+    separate();
+    quote(value, out);
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes a boolean value.
+   * 
+   * @param value
+   *          The value.
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator value(boolean value) throws IOException {
+    separate();
+    out.append(value ? "true" : "false");
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes a numeric value, or {@code null}.
+   * 
+   * @param value
+   *          The value.
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   * @throws JsonException
+   *           If {@code value} is infinite or not a number.
+   */
+  public JsonGenerator value(Number value) throws IOException {
+    if (value == null)
+      return nullValue();
+
+    separate();
+
+    if ((value instanceof Integer || value instanceof Long) && out instanceof StringBuilder)
+      ((StringBuilder) out).append(value.longValue());
+    else
+      out.append(JsonObject.numberToString(value));
+
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes {@code null}.
+   * 
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator nullValue() throws IOException {
+    separate();
+    out.append("null");
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes a value of any type {@link JsonObject} knows how to render: a
+   * {@code String}, {@code Number}, {@code Boolean}, {@code Character},
+   * {@code null}/{@link JsonObject#NULL}, {@link JsonObject} or
+   * {@link JsonArray}.
+   * 
+   * @param value
+   *          The value.
+   * @return This generator.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public JsonGenerator value(Object value) throws IOException {
+    if (value == null || value == JsonObject.NULL)
+      return nullValue();
+    if (value instanceof String)
+      return value((String) value);
+    if (value instanceof Number)
+      return value((Number) value);
+    if (value instanceof Boolean)
+      return value(((Boolean) value).booleanValue());
+    if (value instanceof Character)
+      return value(value.toString());
+
+    separate();
+    out.append(JsonObject.valueToString(value));
+    comma = true;
+    return this;
+  }
+
+  /**
+   * Writes a comma if one is due.
+   * 
+   * @throws IOException
+   *           If writing fails.
+   */
+  private void separate() throws IOException {
+    if (comma)
+      out.append(',');
+  }
+
+  /**
+   * Writes {@code string} as a quoted, escaped JSON string.
+   * 
+   * @param string
+   *          The string to write, or {@code null} for an empty string.
+   * @param out
+   *          Where to write it.
+   * @throws IOException
+   *           If writing fails.
+   */
+  public static void quote(String string, Appendable out) throws IOException {
+    out.append('"');
+
+    if (string != null) {
+      int length = string.length();
+      int unescapedStart = 0;
+      char previous = 0;
+
+      for (int i = 0; i < length; i++) {
+        char c = string.charAt(i);
+        String escape = c < 128 ? (c == '/' && previous == '<' ? "\\/" : ASCII_ESCAPES[c]) : null;
+        boolean unicodeEscape = (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100');
+        previous = c;
+
+        if (escape == null && !unicodeEscape)
+          continue;
+
+        out.append(string, unescapedStart, i);
+        unescapedStart = i + 1;
+
+        if (escape != null)
+          out.append(escape);
+        else
+          out.append("\\u").append(HEX_DIGITS[c >> 12]).append(HEX_DIGITS[(c >> 8) & 0xF])
+            .append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+      }
+
+      out.append(string, unescapedStart, length);
+    }
+
+    out.append('"');
+  }
+}
@@ -0,0 +1,704 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.json;
+
+import java.util.Arrays;
+
+/**
+ * A lazily decoded, read-only view of a JSON document.
+ * <p>
+ * Parsing makes a single pass over the text and records only the structure:
+ * where each object, array, string and primitive starts and ends, and how they
+ * nest. Nothing is decoded or allocated per value until it's asked for, so
+ * pulling {@code data[i].id} and {@code paging.next} out of a large connection
+ * page costs a fraction of building the equivalent {@link JsonObject} tree.
+ * <p>
+ * Values are identified by <em>node</em> numbers: {@link #root()} is the
+ * document itself, and navigation methods return the node of a child, or
+ * {@code -1} if there is none. Containers deeper than the requested maximum
+ * depth are indexed as single opaque nodes whose contents can still be fetched
+ * with {@link #getRawJson(int)} or {@link #getValue(int)}.
+ * <p>
+ * Only standard JSON is accepted. The lenient forms {@link JsonTokener}
+ * tolerates (single quotes, unquoted keys and values, {@code =} or {@code ;}
+ * separators) are rejected with a {@link JsonException}, so callers can fall
+ * back to {@link JsonObject}/{@link JsonArray} for such input.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class JsonIndex {
+  /**
+   * Node kind: object.
+   */
+  private static final byte OBJECT = 1;
+
+  /**
+   * Node kind: array.
+   */
+  private static final byte ARRAY = 2;
+
+  /**
+   * Node kind: string without escape sequences.
+   */
+  private static final byte STRING = 3;
+
+  /**
+   * Node kind: string with escape sequences.
+   */
+  private static final byte ESCAPED_STRING = 4;
+
+  /**
+   * Node kind: number, {@code true}, {@code false} or {@code null}.
+   */
+  private static final byte PRIMITIVE = 5;
+
+  /**
+   * Node kind: container beyond the maximum indexing depth.
+   */
+  private static final byte OPAQUE = 6;
+
+  /**
+   * The indexed document.
+   */
+  private final String json;
+
+  /**
+   * Kind of each node.
+   */
+  private byte[] kinds;
+
+  /**
+   * Offset of each node's first character (opening bracket or quote).
+   */
+  private int[] starts;
+
+  /**
+   * Offset just past each node's last character.
+   */
+  private int[] ends;
+
+  /**
+   * Next sibling of each node, or {@code -1}. In objects, keys and values are
+   * siblings.
+   */
+  private int[] siblings;
+
+  /**
+   * Number of elements (arrays) or entries (objects) of each container node.
+   */
+  private int[] sizes;
+
+  /**
+   * Number of nodes.
+   */
+  private int nodeCount;
+
+  /**
+   * Parse position.
+   */
+  private int position;
+
+  /**
+   * Creates an index over {@code json}.
+   * 
+   * @param json
+   *          The document.
+   */
+  private JsonIndex(String json, int maxDepth) {
+    this.json = json;
+    int capacity = maxDepth < 2 ? 16 : Math.max(16, json.length() / 16);
+    kinds = new byte[capacity];
+    starts = new int[capacity];
+    ends = new int[capacity];
+    siblings = new int[capacity];
+    sizes = new int[capacity];
+  }
+
+  /**
+   * Indexes the given JSON document.
+   * 
+   * @param json
+   *          The document.
+   * @return An index over {@code json}.
+   * @throws JsonException
+   *           If {@code json} isn't a single, well-formed JSON value.
+   */
+  public static JsonIndex parse(String json) {
+    return parse(json, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Indexes the given JSON document down to {@code maxDepth} levels of
+   * containers. For example, a {@code maxDepth} of {@code 1} indexes the
+   * root's children but leaves any containers among them opaque, which is all
+   * that's needed to look at a response's top-level fields.
+   * 
+   * @param json
+   *          The document.
+   * @param maxDepth
+   *          How many levels of containers to index.
+   * @return An index over {@code json}.
+   * @throws JsonException
+   *           If {@code json} isn't a single, well-formed JSON value.
+   */
+  public static JsonIndex parse(String json, int maxDepth) {
+    if (json == null)
+      throw new JsonException("JSON cannot be null.");
+
+    JsonIndex index = new JsonIndex(json, maxDepth);
+    index.parseValue(0, maxDepth);
+    index.skipWhitespace();
+
+    if (index.position != json.length())
+      throw index.syntaxError("Unexpected trailing content");
+
+    return index;
+  }
+
+  /**
+   * Indexes the given JSON document, accepting anything {@link JsonObject} and
+   * {@link JsonArray} would. Lenient input is decoded with {@link JsonTokener}
+   * and its canonical form indexed instead, so this is only as slow as the old
+   * way of doing things for the rare response that isn't standard JSON.
+   * 
+   * @param json
+   *          The document.
+   * @param maxDepth
+   *          How many levels of containers to index.
+   * @return An index over {@code json}, or over its canonical form.
+   * @throws JsonException
+   *           If {@code json} isn't an object or array even by lenient rules.
+   */
+  public static JsonIndex parseLenient(String json, int maxDepth) {
+    try {
+      return parse(json, maxDepth);
+    } catch (JsonException e) {
+      if (json == null)
+        throw e;
+
+      Object value = new JsonTokener(json).nextValue();
+
+      if (!(value instanceof JsonObject) && !(value instanceof JsonArray))
+        throw e;
+
+      return parse(value.toString(), maxDepth);
+    }
+  }
+
+  /**
+   * The root node.
+   * 
+   * @return The root node, always {@code 0}.
+   */
+  public int root() {
+    return 0;
+  }
+
+  /**
+   * Is the given node an object?
+   * 
+   * @param node
+   *          The node.
+   * @return {@code true} if {@code node} is an object.
+   */
+  public boolean isObject(int node) {
+    return kinds[node] == OBJECT || (kinds[node] == OPAQUE && json.charAt(starts[node]) == '{');
+  }
+
+  /**
+   * Is the given node an array?
+   * 
+   * @param node
+   *          The node.
+   * @return {@code true} if {@code node} is an array.
+   */
+  public boolean isArray(int node) {
+    return kinds[node] == ARRAY || (kinds[node] == OPAQUE && json.charAt(starts[node]) == '[');
+  }
+
+  /**
+   * Is the given node a string?
+   * 
+   * @param node
+   *          The node.
+   * @return {@code true} if {@code node} is a string.
+   */
+  public boolean isString(int node) {
+    return kinds[node] == STRING || kinds[node] == ESCAPED_STRING;
+  }
+
+  /**
+   * Is the given node the literal {@code null}?
+   * 
+   * @param node
+   *          The node.
+   * @return {@code true} if {@code node} is {@code null}.
+   */
+  public boolean isNull(int node) {
+    return kinds[node] == PRIMITIVE && json.startsWith("null", starts[node]) && ends[node] - starts[node] == 4;
+  }
+
+  /**
+   * Number of elements of an array, or entries of an object.
+   * 
+   * @param node
+   *          An indexed array or object.
+   * @return The container's size.
+   * @throws IllegalArgumentException
+   *           If {@code node} isn't an indexed container.
+   */
+  public int size(int node) {
+    verifyIndexedContainer(node);
+    return sizes[node];
+  }
+
+  /**
+   * Gets the value of the given key of an object.
+   * 
+   * @param node
+   *          An indexed object.
+   * @param key
+   *          The key.
+   * @return The value's node, or {@code -1} if {@code node} has no such key.
+   * @throws IllegalArgumentException
+   *           If {@code node} isn't an indexed object.
+   */
+  public int get(int node, String key) {
+    verifyIndexedContainer(node);
+    if (kinds[node] != OBJECT)
+      throw new IllegalArgumentException("Node " + node + " is not an object.");
+
+    for (int keyNode = sizes[node] == 0 ? -1 : node + 1; keyNode != -1; keyNode = siblings[keyNode + 1])
+      if (keyEquals(keyNode, key))
+        return keyNode + 1;
+
+    return -1;
+  }
+
+  /**
+   * Gets the first element of an array.
+   * 
+   * @param node
+   *          An indexed array.
+   * @return The first element's node, or {@code -1} if the array is empty.
+   * @throws IllegalArgumentException
+   *           If {@code node} isn't an indexed array.
+   */
+  public int firstElement(int node) {
+    verifyIndexedContainer(node);
+    if (kinds[node] != ARRAY)
+      throw new IllegalArgumentException("Node " + node + " is not an array.");
+
+    return sizes[node] == 0 ? -1 : node + 1;
+  }
+
+  /**
+   * Gets the array element following the given one.
+   * 
+   * @param element
+   *          An array element's node.
+   * @return The next element's node, or {@code -1} if {@code element} is the
+   *         last one.
+   */
+  public int nextElement(int element) {
+    return siblings[element];
+  }
+
+  /**
+   * Gets the keys of an object, in document order.
+   * 
+   * @param node
+   *          An indexed object.
+   * @return The object's keys.
+   * @throws IllegalArgumentException
+   *           If {@code node} isn't an indexed object.
+   */
+  public String[] keys(int node) {
+    verifyIndexedContainer(node);
+    if (kinds[node] != OBJECT)
+      throw new IllegalArgumentException("Node " + node + " is not an object.");
+
+    String[] keys = new String[sizes[node]];
+    int i = 0;
+
+    for (int keyNode = sizes[node] == 0 ? -1 : node + 1; keyNode != -1; keyNode = siblings[keyNode + 1])
+      keys[i++] = getString(keyNode);
+
+    return keys;
+  }
+
+  /**
+   * Gets the decoded text of a string node, or the literal text of any other
+   * node (e.g. {@code 123}, {@code true} or {@code {"id":"1"}}). This is what
+   * calling {@code toString()} on the decoded value would produce, give or
+   * take formatting.
+   * 
+   * @param node
+   *          The node.
+   * @return The node's text.
+   */
+  public String getString(int node) {
+    switch (kinds[node]) {
+    case STRING:
+      return json.substring(starts[node] + 1, ends[node] - 1);
+    case ESCAPED_STRING:
+      return new JsonTokener(json.substring(starts[node] + 1, ends[node])).nextString(json.charAt(starts[node]));
+    default:
+      return getRawJson(node);
+    }
+  }
+
+  /**
+   * Gets the JSON text of a node, exactly as it appears in the document.
+   * 
+   * @param node
+   *          The node.
+   * @return The node's JSON text.
+   */
+  public String getRawJson(int node) {
+    return json.substring(starts[node], ends[node]);
+  }
+
+  /**
+   * Decodes a node into the same kind of value {@link JsonObject#get(String)}
+   * would return: a {@code String}, {@code Boolean}, {@code Number},
+   * {@link JsonObject#NULL}, or a fully built {@link JsonObject} or
+   * {@link JsonArray}.
+   * 
+   * @param node
+   *          The node.
+   * @return The decoded value.
+   */
+  public Object getValue(int node) {
+    if (isObject(node))
+      return new JsonObject(getRawJson(node));
+    if (isArray(node))
+      return new JsonArray(getRawJson(node));
+    if (isString(node))
+      return getString(node);
+
+    return JsonObject.stringToValue(getRawJson(node));
+  }
+
+  /**
+   * Does the given key node's text equal {@code key}?
+   * 
+   * @param keyNode
+   *          A string node.
+   * @param key
+   *          The key to compare with.
+   * @return {@code true} if they're equal.
+   */
+  private boolean keyEquals(int keyNode, String key) {
+    if (kinds[keyNode] == STRING)
+      return ends[keyNode] - starts[keyNode] - 2 == key.length() && json.startsWith(key, starts[keyNode] + 1);
+
+    return key.equals(getString(keyNode));
+  }
+
+  /**
+   * Throws if {@code node} isn't an indexed (i.e. non-opaque) container.
+   * 
+   * @param node
+   *          The node.
+   */
+  private void verifyIndexedContainer(int node) {
+    if (kinds[node] != OBJECT && kinds[node] != ARRAY)
+      throw new IllegalArgumentException("Node " + node + " is not an indexed object or array.");
+  }
+
+  /**
+   * Parses one value starting at the current position.
+   * 
+   * @param depth
+   *          Nesting depth of the value (the root is at depth 0).
+   * @param maxDepth
+   *          How many levels of containers to index.
+   * @return The value's node.
+   */
+  private int parseValue(int depth, int maxDepth) {
+    skipWhitespace();
+
+    if (position >= json.length())
+      throw syntaxError("Missing value");
+
+    char c = json.charAt(position);
+
+    if (c == '{' || c == '[') {
+      if (depth >= maxDepth) {
+        int node = addNode(OPAQUE, position);
+        skipContainer();
+        ends[node] = position;
+        return node;
+      }
+
+      return c == '{' ? parseObject(depth, maxDepth) : parseArray(depth, maxDepth);
+    }
+
+    if (c == '"')
+      return parseString();
+
+    return parsePrimitive();
+  }
+
+  /**
+   * Parses an object starting at the current position.
+   * 
+   * @param depth
+   *          Nesting depth of the object.
+   * @param maxDepth
+   *          How many levels of containers to index.
+   * @return The object's node.
+   */
+  private int parseObject(int depth, int maxDepth) {
+    int node = addNode(OBJECT, position++);
+    int previousValue = -1;
+
+    skipWhitespace();
+    if (position < json.length() && json.charAt(position) == '}') {
+      ends[node] = ++position;
+      return node;
+    }
+
+    for (;;) {
+      skipWhitespace();
+      if (position >= json.length() || json.charAt(position) != '"')
+        throw syntaxError("Expected a quoted key");
+
+      int key = parseString();
+      if (previousValue != -1)
+        siblings[previousValue] = key;
+
+      skipWhitespace();
+      if (position >= json.length() || json.charAt(position) != ':')
+        throw syntaxError("Expected a ':' after a key");
+      position++;
+
+      int value = parseValue(depth + 1, maxDepth);
+      siblings[key] = value;
+      previousValue = value;
+      sizes[node]++;
+
+      skipWhitespace();
+      if (position >= json.length())
+        throw syntaxError("A JSON object must end with '}'");
+
+      char c = json.charAt(position++);
+      if (c == '}') {
+        ends[node] = position;
+        return node;
+      }
+      if (c != ',')
+        throw syntaxError("Expected a ',' or '}'");
+    }
+  }
+
+  /**
+   * Parses an array starting at the current position.
+   * 
+   * @param depth
+   *          Nesting depth of the array.
+   * @param maxDepth
+   *          How many levels of containers to index.
+   * @return The array's node.
+   */
+  private int parseArray(int depth, int maxDepth) {
+    int node = addNode(ARRAY, position++);
+    int previousElement = -1;
+
+    skipWhitespace();
+    if (position < json.length() && json.charAt(position) == ']') {
+      ends[node] = ++position;
+      return node;
+    }
+
+    for (;;) {
+      int element = parseValue(depth + 1, maxDepth);
+      if (previousElement != -1)
+        siblings[previousElement] = element;
+      previousElement = element;
+      sizes[node]++;
+
+      skipWhitespace();
+      if (position >= json.length())
+        throw syntaxError("A JSON array must end with ']'");
+
+      char c = json.charAt(position++);
+      if (c == ']') {
+        ends[node] = position;
+        return node;
+      }
+      if (c != ',')
+        throw syntaxError("Expected a ',' or ']'");
+    }
+  }
+
+  /**
+   * Parses a string starting at the current position (the opening quote).
+   * 
+   * @return The string's node.
+   */
+  private int parseString() {
+    int node = addNode(STRING, position);
+    if (skipString())
+      kinds[node] = ESCAPED_STRING;
+    ends[node] = position;
+    return node;
+  }
+
+  /**
+   * Advances past a string starting at the current position (the opening
+   * quote).
+   * 
+   * @return {@code true} if the string contains escape sequences.
+   */
+  private boolean skipString() {
+    int length = json.length();
+    boolean escaped = false;
+
+    for (int i = position + 1; i < length; i++) {
+      char c = json.charAt(i);
+
+      if (c == '"') {
+        position = i + 1;
+        return escaped;
+      }
+
+      if (c == '\\') {
+        escaped = true;
+        i++;
+      } else if (c == '\n' || c == '\r')
+        break;
+    }
+
+    throw syntaxError("Unterminated string");
+  }
+
+  /**
+   * Parses a number or literal starting at the current position.
+   * 
+   * @return The primitive's node.
+   */
+  private int parsePrimitive() {
+    int node = addNode(PRIMITIVE, position);
+    int length = json.length();
+    char first = json.charAt(position);
+
+    while (position < length && ",:]} \t\n\r".indexOf(json.charAt(position)) < 0)
+      position++;
+
+    ends[node] = position;
+
+    int tokenLength = position - starts[node];
+    boolean valid;
+
+    if (first == '-' || (first >= '0' && first <= '9')) {
+      valid = true;
+      for (int i = starts[node]; valid && i < position; i++)
+        valid = "0123456789+-.eE".indexOf(json.charAt(i)) >= 0;
+    } else
+      valid =
+          (tokenLength == 4 && (json.startsWith("null", starts[node]) || json.startsWith("true", starts[node])))
+              || (tokenLength == 5 && json.startsWith("false", starts[node]));
+
+    if (!valid || tokenLength == 0)
+      throw syntaxError("Unexpected value '" + getRawJson(node) + "'");
+
+    return node;
+  }
+
+  /**
+   * Skips over a container without indexing its contents, checking only that
+   * strings are terminated and brackets are balanced.
+   */
+  private void skipContainer() {
+    int depth = 0;
+    int length = json.length();
+
+    while (position < length) {
+      char c = json.charAt(position);
+
+      if (c == '"') {
+        skipString();
+        continue;
+      }
+
+      position++;
+
+      if (c == '{' || c == '[')
+        depth++;
+      else if (c == '}' || c == ']') {
+        if (--depth == 0)
+          return;
+      }
+    }
+
+    throw syntaxError("Unterminated container");
+  }
+
+  /**
+   * Advances past whitespace.
+   */
+  private void skipWhitespace() {
+    while (position < json.length() && json.charAt(position) <= ' ')
+      position++;
+  }
+
+  /**
+   * Appends a node.
+   * 
+   * @param kind
+   *          The node's kind.
+   * @param start
+   *          Offset of its first character.
+   * @return The new node.
+   */
+  private int addNode(byte kind, int start) {
+    if (nodeCount == kinds.length) {
+      int capacity = nodeCount * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      siblings = Arrays.copyOf(siblings, capacity);
+      sizes = Arrays.copyOf(sizes, capacity);
+    }
+
+    kinds[nodeCount] = kind;
+    starts[nodeCount] = start;
+    siblings[nodeCount] = -1;
+    sizes[nodeCount] = 0;
+    return nodeCount++;
+  }
+
+  /**
+   * Creates an exception describing a syntax error at the current position.
+   * 
+   * @param message
+   *          What went wrong.
+   * @return The exception to throw.
+   */
+  private JsonException syntaxError(String message) {
+    return new JsonException(message + " at character " + position, position);
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact, insertion-ordered map backing {@link JsonObject}.
+ * <p>
+ * Keys and values are stored interleaved in a single array, which costs a
+ * fraction of the heap of a {@code HashMap} (no table, no per-entry node
+ * objects). Most JSON objects have a handful of keys, so lookups are a linear
+ * scan - usually an identity hit, since parsed keys are canonicalized by
+ * {@link JsonTokener}. Larger objects add an open-addressing (linear probe)
+ * hash index over the array.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class JsonMap extends AbstractMap<Object, Object> {
+  /**
+   * Up to this many entries, lookups scan the array instead of using the hash
+   * index.
+   */
+  private static final int LINEAR_SCAN_THRESHOLD = 8;
+
+  /**
+   * Keys at even positions, each followed by its value.
+   */
+  private Object[] table;
+
+  /**
+   * Number of entries.
+   */
+  private int size;
+
+  /**
+   * Hash index for large maps: each slot holds an entry number plus one, or
+   * {@code 0} if empty. {@code null} while the map is small.
+   */
+  private int[] index;
+
+  /**
+   * Creates an empty map.
+   */
+  JsonMap() {
+    table = new Object[8];
+  }
+
+  /**
+   * @see java.util.AbstractMap#size()
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  public Object get(Object key) {
+    int i = indexOf(key);
+    return i < 0 ? null : table[2 * i + 1];
+  }
+
+  /**
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public Object put(Object key, Object value) {
+    int i = indexOf(key);
+
+    if (i >= 0) {
+      Object previousValue = table[2 * i + 1];
+      table[2 * i + 1] = value;
+      return previousValue;
+    }
+
+    if (2 * size == table.length) {
+      Object[] newTable = new Object[table.length * 2];
+      System.arraycopy(table, 0, newTable, 0, table.length);
+      table = newTable;
+    }
+
+    table[2 * size] = key;
+    table[2 * size + 1] = value;
+    size++;
+
+    if (index != null && 2 * size <= index.length)
+      addToIndex(size - 1);
+    else if (size > LINEAR_SCAN_THRESHOLD)
+      rebuildIndex();
+
+    return null;
+  }
+
+  /**
+   * @see java.util.AbstractMap#remove(java.lang.Object)
+   */
+  @Override
+  public Object remove(Object key) {
+    int i = indexOf(key);
+    return i < 0 ? null : removeAt(i);
+  }
+
+  /**
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    for (int i = 0; i < 2 * size; i++)
+      table[i] = null;
+    size = 0;
+    index = null;
+  }
+
+  /**
+   * @see java.util.AbstractMap#keySet()
+   */
+  @Override
+  public Set<Object> keySet() {
+    return new AbstractSet<Object>() {
+      @Override
+      public Iterator<Object> iterator() {
+        return new TableIterator<Object>() {
+          @Override
+          Object current() {
+            return table[2 * (next - 1)];
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public boolean contains(Object key) {
+        return containsKey(key);
+      }
+    };
+  }
+
+  /**
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<Object, Object>> entrySet() {
+    return new AbstractSet<Map.Entry<Object, Object>>() {
+      @Override
+      public Iterator<Map.Entry<Object, Object>> iterator() {
+        return new TableIterator<Map.Entry<Object, Object>>() {
+          @Override
+          Map.Entry<Object, Object> current() {
+            return new Entry(next - 1);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Finds the entry number of the given {@code key}.
+   * 
+   * @param key
+   *          The key to look for.
+   * @return The entry number, or {@code -1} if {@code key} isn't present.
+   */
+  private int indexOf(Object key) {
+    if (index == null) {
+      // Identity pass first - parsed keys are canonical instances
+      for (int i = 0; i < size; i++)
+        if (table[2 * i] == key)
+          return i;
+
+      if (key != null)
+        for (int i = 0; i < size; i++)
+          if (key.equals(table[2 * i]))
+            return i;
+
+      return -1;
+    }
+
+    int mask = index.length - 1;
+
+    for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+      int entry = index[slot];
+
+      if (entry == 0)
+        return -1;
+
+      Object candidate = table[2 * (entry - 1)];
+      if (candidate == key || (key != null && key.equals(candidate)))
+        return entry - 1;
+    }
+  }
+
+  /**
+   * Removes the entry with the given entry number, keeping the remaining
+   * entries in order.
+   * 
+   * @param i
+   *          The entry number.
+   * @return The removed entry's value.
+   */
+  private Object removeAt(int i) {
+    Object value = table[2 * i + 1];
+    System.arraycopy(table, 2 * i + 2, table, 2 * i, 2 * (size - i - 1));
+    size--;
+    table[2 * size] = null;
+    table[2 * size + 1] = null;
+
+    // Entry numbers after i have shifted, so the index has to be rebuilt.
+    // Removal is rare for parsed JSON.
+    if (size > LINEAR_SCAN_THRESHOLD)
+      rebuildIndex();
+    else
+      index = null;
+
+    return value;
+  }
+
+  /**
+   * Rebuilds the hash index with room for the current entries at a load factor
+   * of at most 1/2.
+   */
+  private void rebuildIndex() {
+    int capacity = Integer.highestOneBit(size * 4 - 1);
+    index = new int[capacity];
+
+    for (int i = 0; i < size; i++)
+      addToIndex(i);
+  }
+
+  /**
+   * Adds an entry to the hash index.
+   * 
+   * @param i
+   *          The entry number.
+   */
+  private void addToIndex(int i) {
+    int mask = index.length - 1;
+    int slot = hash(table[2 * i]) & mask;
+
+    while (index[slot] != 0)
+      slot = (slot + 1) & mask;
+
+    index[slot] = i + 1;
+  }
+
+  /**
+   * Spreads a key's hash code so the low bits used for indexing are well mixed.
+   * 
+   * @param key
+   *          The key.
+   * @return The spread hash.
+   */
+  private static int hash(Object key) {
+    if (key == null)
+      return 0;
+
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Iterates over entry numbers in insertion order.
+   * 
+   * @param <T>
+   *          The type of element the iterator returns.
+   */
+  private abstract class TableIterator<T> implements Iterator<T> {
+    /**
+     * Entry number of the next element.
+     */
+    int next;
+
+    /**
+     * Can {@link #remove()} be called?
+     */
+    private boolean canRemove;
+
+    /**
+     * The element for entry number {@code next - 1}.
+     * 
+     * @return The current element.
+     */
+    abstract T current();
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public T next() {
+      if (next >= size)
+        throw new NoSuchElementException();
+
+      next++;
+      canRemove = true;
+      return current();
+    }
+
+    @Override
+    public void remove() {
+      if (!canRemove)
+        throw new IllegalStateException();
+
+      removeAt(--next);
+      canRemove = false;
+    }
+  }
+
+  /**
+   * A write-through view of one entry.
+   */
+  private final class Entry implements Map.Entry<Object, Object> {
+    /**
+     * The entry number.
+     */
+    private final int i;
+
+    /**
+     * Creates a view of the given entry.
+     * 
+     * @param i
+     *          The entry number.
+     */
+    private Entry(int i) {
+      this.i = i;
+    }
+
+    @Override
+    public Object getKey() {
+      return table[2 * i];
+    }
+
+    @Override
+    public Object getValue() {
+      return table[2 * i + 1];
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Object previousValue = table[2 * i + 1];
+      table[2 * i + 1] = value;
+      return previousValue;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof Map.Entry<?, ?>))
+        return false;
+
+      Map.Entry<?, ?> that = (Map.Entry<?, ?>) object;
+      return eq(getKey(), that.getKey()) && eq(getValue(), that.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return (getKey() == null ? 0 : getKey().hashCode()) ^ (getValue() == null ? 0 : getValue().hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * Null-safe equality.
+   * 
+   * @param a
+   *          An object.
+   * @param b
+   *          Another object.
+   * @return {@code true} if both are {@code null} or equal.
+   */
+  private static boolean eq(Object a, Object b) {
+    return a == null ? b == null : a.equals(b);
+  }
+}
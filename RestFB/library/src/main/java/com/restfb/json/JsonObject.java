@@ -30,9 +30,9 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 /**
@@ -148,7 +148,7 @@ public class JsonObject {
    * Construct an empty JsonObject.
    */
   public JsonObject() {
-    this.map = new HashMap<Object, Object>();
+    this.map = new JsonMap();
   }
 
   /**
@@ -180,6 +180,23 @@ public class JsonObject {
    *           key.
    */
   public JsonObject(JsonTokener x) {
+    this(x, (Set<String>) null);
+  }
+
+  /**
+   * Construct a JsonObject from a JsonTokener, keeping only the values for the
+   * given keys. The values of all other keys are skipped without being built.
+   * 
+   * @param x
+   *          A JsonTokener object containing the source string.
+   * @param names
+   *          The keys whose values should be kept, or {@code null} to keep
+   *          everything.
+   * @throws JsonException
+   *           If there is a syntax error in the source string or a duplicated
+   *           key.
+   */
+  public JsonObject(JsonTokener x, Set<String> names) {
     this();
     char c;
     String key;
@@ -196,7 +213,7 @@ public class JsonObject {
         return;
       default:
         x.back();
-        key = x.nextValue().toString();
+        key = x.nextKey();
       }
 
       /*
@@ -211,7 +228,12 @@ public class JsonObject {
       } else if (c != ':') {
         throw x.syntaxError("Expected a ':' after a key");
       }
-      putOnce(key, x.nextValue());
+
+      if (names == null || names.contains(key)) {
+        putOnce(key, x.nextValue());
+      } else {
+        x.skipValue();
+      }
 
       /*
        * Pairs are separated by ','. We will also tolerate ';'.
@@ -241,7 +263,7 @@ public class JsonObject {
    *          JsonObject.
    */
   public JsonObject(Map<Object, Object> map) {
-    this.map = (map == null) ? new HashMap<Object, Object>() : map;
+    this.map = (map == null) ? new JsonMap() : map;
   }
 
   /**
@@ -255,7 +277,7 @@ public class JsonObject {
    *          - Tell whether to include the super class properties.
    */
   public JsonObject(Map<Object, Object> map, boolean includeSuperClass) {
-    this.map = new HashMap<Object, Object>();
+    this.map = new JsonMap();
     if (map != null) {
       Iterator<Map.Entry<Object, Object>> i = map.entrySet().iterator();
       while (i.hasNext()) {
@@ -1150,54 +1172,13 @@ public class JsonObject {
       return "\"\"";
     }
 
-    char b;
-    char c = 0;
-    int i;
-    int len = string.length();
-    StringBuilder sb = new StringBuilder(len + 4);
-    String t;
-
-    sb.append('"');
-    for (i = 0; i < len; i += 1) {
-      b = c;
-      c = string.charAt(i);
-      switch (c) {
-      case '\\':
-      case '"':
-        sb.append('\\');
-        sb.append(c);
-        break;
-      case '/':
-        if (b == '<') {
-          sb.append('\\');
-        }
-        sb.append(c);
-        break;
-      case '\b':
-        sb.append("\\b");
-        break;
-      case '\t':
-        sb.append("\\t");
-        break;
-      case '\n':
-        sb.append("\\n");
-        break;
-      case '\f':
-        sb.append("\\f");
-        break;
-      case '\r':
-        sb.append("\\r");
-        break;
-      default:
-        if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
-          t = "000" + Integer.toHexString(c);
-          sb.append("\\u" + t.substring(t.length() - 4));
-        } else {
-          sb.append(c);
-        }
-      }
+    StringBuilder sb = new StringBuilder(string.length() + 4);
+    try {
+      JsonGenerator.quote(string, sb);
+    } catch (IOException e) {
+      // Can't happen - StringBuilder doesn't do I/O
+      throw new JsonException(e);
     }
-    sb.append('"');
     return sb.toString();
   }
 
@@ -44,6 +44,11 @@ public class JsonTokener {
   private char lastChar;
   private boolean useLastChar;
 
+  /**
+   * Reused by {@link #nextKey()} so known keys can be read without allocating.
+   */
+  private final StringBuilder keyBuffer = new StringBuilder(32);
+
   /**
    * Construct a JsonTokener from a string.
    * 
@@ -233,8 +238,47 @@ public class JsonTokener {
    *           Unterminated string.
    */
   public String nextString(char quote) {
-    char c;
     StringBuilder sb = new StringBuilder();
+    readString(quote, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Get the next object key. Quoted keys are canonicalized, so repeated keys
+   * share a single {@code String} instance and usually aren't allocated at all.
+   * Unquoted (non-standard) keys are read like any other value.
+   * 
+   * @return The key.
+   * @throws JsonException
+   *           If the key is malformed.
+   * @since 1.6.8
+   */
+  public String nextKey() {
+    char c = nextClean();
+
+    if (c == '"' || c == '\'') {
+      keyBuffer.setLength(0);
+      readString(c, keyBuffer);
+      return KeyInterner.intern(keyBuffer);
+    }
+
+    back();
+    return nextValue().toString();
+  }
+
+  /**
+   * Reads the characters up to the closing quote into {@code sb}, processing
+   * escapes.
+   * 
+   * @param quote
+   *          The quoting character.
+   * @param sb
+   *          Receives the unescaped characters.
+   * @throws JsonException
+   *           Unterminated string.
+   */
+  private void readString(char quote, StringBuilder sb) {
+    char c;
     for (;;) {
       c = next();
       switch (c) {
@@ -275,7 +319,7 @@ public class JsonTokener {
         break;
       default:
         if (c == quote) {
-          return sb.toString();
+          return;
         }
         sb.append(c);
       }
@@ -376,6 +420,104 @@ public class JsonTokener {
     return JsonObject.stringToValue(s);
   }
 
+  /**
+   * Skip over the next value without building it. This is much cheaper than
+   * {@link #nextValue()} for values the caller doesn't need, but it only checks
+   * that strings are terminated and brackets are balanced - it does not
+   * validate the skipped value's contents.
+   * 
+   * @throws JsonException
+   *           If there is no value or it is unterminated.
+   */
+  public void skipValue() {
+    char c = nextClean();
+
+    switch (c) {
+    case '"':
+    case '\'':
+      skipString(c);
+      return;
+    case '{':
+    case '[':
+    case '(':
+      skipNested();
+      return;
+    }
+
+    // Unquoted text: a number, true, false or null
+    boolean empty = true;
+    while (c > ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+      empty = false;
+      c = next();
+    }
+    back();
+
+    if (empty) {
+      throw syntaxError("Missing value");
+    }
+  }
+
+  /**
+   * Skip the rest of an object or array whose opening bracket has already been
+   * consumed.
+   * 
+   * @throws JsonException
+   *           If the object or array is unterminated.
+   */
+  private void skipNested() {
+    int depth = 1;
+    for (;;) {
+      char c = next();
+      switch (c) {
+      case 0:
+        throw syntaxError("Unterminated object or array");
+      case '"':
+      case '\'':
+        skipString(c);
+        break;
+      case '{':
+      case '[':
+      case '(':
+        depth++;
+        break;
+      case '}':
+      case ']':
+      case ')':
+        if (--depth == 0) {
+          return;
+        }
+        break;
+      }
+    }
+  }
+
+  /**
+   * Skip the rest of a string whose opening quote has already been consumed.
+   * 
+   * @param quote
+   *          The quoting character.
+   * @throws JsonException
+   *           Unterminated string.
+   */
+  private void skipString(char quote) {
+    for (;;) {
+      char c = next();
+      switch (c) {
+      case 0:
+      case '\n':
+      case '\r':
+        throw syntaxError("Unterminated string");
+      case '\\':
+        next();
+        break;
+      default:
+        if (c == quote) {
+          return;
+        }
+      }
+    }
+  }
+
   /**
    * Skip characters until the next character is the requested character. If the
    * requested character is not found, no characters are skipped.
@@ -414,7 +556,7 @@ public class JsonTokener {
    * @return A JsonException object, suitable for throwing
    */
   public JsonException syntaxError(String message) {
-    return new JsonException(message + toString());
+    return new JsonException(message + toString(), index);
   }
 
   /**
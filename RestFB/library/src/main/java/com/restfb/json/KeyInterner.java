@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.json;
+
+/**
+ * Bounded, lock-free canonicalization table for JSON object keys.
+ * <p>
+ * Graph API responses repeat the same few dozen keys ({@code id},
+ * {@code name}, {@code from}, {@code created_time}, {@code data},
+ * {@code paging}...) millions of times. {@link JsonTokener} reads each key into
+ * a reusable buffer and asks this table for the canonical {@code String}, so
+ * a key that's been seen before costs no allocation at all.
+ * <p>
+ * The table is a fixed-size, direct-mapped cache: a colliding key simply
+ * replaces the previous occupant, so memory use is bounded no matter what keys
+ * are thrown at it. Unlike {@link String#intern()} nothing is pinned forever.
+ * Races between threads are benign - {@code String}s are immutable, so a
+ * reader sees either the old or the new occupant and falls back to allocating
+ * if it doesn't match.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class KeyInterner {
+  /**
+   * Number of slots. Must be a power of two.
+   */
+  private static final int SIZE = 2048;
+
+  /**
+   * Keys longer than this aren't worth keeping around.
+   */
+  private static final int MAX_KEY_LENGTH = 32;
+
+  /**
+   * The table.
+   */
+  private static final String[] KEYS = new String[SIZE];
+
+  /**
+   * Prevents instantiation.
+   */
+  private KeyInterner() {}
+
+  /**
+   * Returns the canonical {@code String} with the contents of {@code key},
+   * creating (and remembering) it if necessary.
+   * 
+   * @param key
+   *          The key's characters.
+   * @return A {@code String} equal to {@code key.toString()}.
+   */
+  static String intern(StringBuilder key) {
+    int length = key.length();
+
+    if (length > MAX_KEY_LENGTH)
+      return key.toString();
+
+    int hash = 0;
+    for (int i = 0; i < length; i++)
+      hash = 31 * hash + key.charAt(i);
+
+    int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+    String candidate = KEYS[slot];
+
+    if (candidate != null && candidate.length() == length && candidate.hashCode() == hash
+        && candidate.contentEquals(key))
+      return candidate;
+
+    String interned = key.toString();
+    KEYS[slot] = interned;
+    return interned;
+  }
+}
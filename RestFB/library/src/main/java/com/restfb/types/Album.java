@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -59,12 +59,12 @@ public class Album extends NamedFacebookType {
   private String privacy;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * An object containing the ID and name of the profile who posted this album.
@@ -136,7 +136,7 @@ public class Album extends NamedFacebookType {
    * @return The time the photo album was initially created.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -145,6 +145,6 @@ public class Album extends NamedFacebookType {
    * @return The last time the photo album was updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 }
\ No newline at end of file
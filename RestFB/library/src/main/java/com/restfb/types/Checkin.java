@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 import static java.util.Collections.unmodifiableList;
 
 import java.io.Serializable;
@@ -55,12 +55,12 @@ public class Checkin extends FacebookType {
   private Place place;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook
   private List<Comment> comments = new ArrayList<Comment>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * Represents the <a
@@ -253,7 +253,7 @@ public class Checkin extends FacebookType {
    * @return The time the check-in was created.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -44,12 +44,12 @@ public class Comment extends FacebookType {
   private String message;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook
   private Long likes;
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
   
   /**
    * User who posted the comment.
@@ -75,7 +75,7 @@ public class Comment extends FacebookType {
    * @return Date on which the comment was created.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -44,10 +44,10 @@ public class Event extends NamedFacebookType {
   private String description;
 
   @Facebook("start_time")
-  private String startTime;
+  private Date startTime;
 
   @Facebook("end_time")
-  private String endTime;
+  private Date endTime;
 
   @Facebook
   private String location;
@@ -62,9 +62,9 @@ public class Event extends NamedFacebookType {
   private String privacy;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
   
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * An object containing the name and ID of the user who owns the event
@@ -91,7 +91,7 @@ public class Event extends NamedFacebookType {
    * @return The start time of the event.
    */
   public Date getStartTime() {
-    return toDateFromLongFormat(startTime);
+    return copyOf(startTime);
   }
 
   /**
@@ -100,7 +100,7 @@ public class Event extends NamedFacebookType {
    * @return The end time of the event.
    */
   public Date getEndTime() {
-    return toDateFromLongFormat(endTime);
+    return copyOf(endTime);
   }
 
   /**
@@ -145,6 +145,6 @@ public class Event extends NamedFacebookType {
    * @return The last time the event was updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 }
\ No newline at end of file
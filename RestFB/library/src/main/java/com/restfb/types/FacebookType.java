@@ -50,18 +50,35 @@ public class FacebookType implements Serializable {
   private static final long serialVersionUID = 1L;
 
   /**
+   * Objects with an ID hash on their class and ID only, so they're cheap to put
+   * in hash-based collections. Objects without an ID hash on all of their
+   * properties.
+   * 
    * @see java.lang.Object#hashCode()
    */
   @Override
   public int hashCode() {
+    if (id != null)
+      return 31 * getClass().getName().hashCode() + id.hashCode();
+
     return ReflectionUtils.hashCode(this);
   }
 
   /**
+   * Two objects that both have an ID are equal if they're of the same class and
+   * have the same ID, regardless of how many of their other fields were
+   * fetched. Otherwise all properties are compared.
+   * 
    * @see java.lang.Object#equals(java.lang.Object)
    */
   @Override
   public boolean equals(Object that) {
+    if (this == that)
+      return true;
+
+    if (id != null && that instanceof FacebookType && ((FacebookType) that).id != null)
+      return getClass().equals(that.getClass()) && id.equals(((FacebookType) that).id);
+
     return ReflectionUtils.equals(this, that);
   }
 
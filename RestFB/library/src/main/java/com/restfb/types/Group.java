@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -53,9 +53,9 @@ public class Group extends NamedFacebookType {
   private String privacy;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
   
   /**
    * An object containing the name and ID of the user who owns the group.
@@ -110,6 +110,6 @@ public class Group extends NamedFacebookType {
    * @return The last time the group was updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 }
\ No newline at end of file
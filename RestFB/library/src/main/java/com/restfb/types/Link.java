@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -57,9 +57,9 @@ public class Link extends NamedFacebookType {
   private String icon;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
   
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * An object containing the name and ID of the user who posted the link.
@@ -123,6 +123,6 @@ public class Link extends NamedFacebookType {
    * @since 1.6.3
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 }
\ No newline at end of file
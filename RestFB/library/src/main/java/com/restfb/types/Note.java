@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -50,12 +50,12 @@ public class Note extends FacebookType {
   private String icon;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
   
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * The ID of the user who posted the note.
@@ -99,7 +99,7 @@ public class Note extends FacebookType {
    * @return The time the note was initially published.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -108,6 +108,6 @@ public class Note extends FacebookType {
    * @return The time the note was last updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 }
\ No newline at end of file
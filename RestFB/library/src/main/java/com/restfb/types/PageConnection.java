@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 
 import java.util.Date;
 
@@ -38,9 +38,9 @@ import com.restfb.Facebook;
  */
 public class PageConnection extends CategorizedFacebookType {
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
   
   /**
    * The time the connection was initially created.
@@ -48,6 +48,6 @@ public class PageConnection extends CategorizedFacebookType {
    * @return The time the connection was initially created.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 }
\ No newline at end of file
@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 import static java.util.Collections.unmodifiableList;
 
 import java.io.Serializable;
@@ -67,10 +67,10 @@ public class Photo extends NamedFacebookType {
   private Integer position;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
   @Facebook
   private List<Tag> tags = new ArrayList<Tag>();
@@ -84,7 +84,7 @@ public class Photo extends NamedFacebookType {
   @Facebook
   private List<Image> images = new ArrayList<Image>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * Represents the <a
@@ -102,9 +102,9 @@ public class Photo extends NamedFacebookType {
     private Integer y;
 
     @Facebook("created_time")
-    private String createdTime;
+    private Date createdTime;
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     /**
      * X coordinate (as a percentage of distance from left vs. width).
@@ -130,7 +130,7 @@ public class Photo extends NamedFacebookType {
      * @return Date this tag was created.
      */
     public Date getCreatedTime() {
-      return toDateFromLongFormat(createdTime);
+      return copyOf(createdTime);
     }
   }
 
@@ -286,7 +286,7 @@ public class Photo extends NamedFacebookType {
    * @return The time the photo was initially published.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -295,7 +295,7 @@ public class Photo extends NamedFacebookType {
    * @return The last time the photo or its caption was updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 
   /**
@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 import static java.util.Collections.unmodifiableList;
 
 import java.io.Serializable;
@@ -93,10 +93,10 @@ public class Post extends NamedFacebookType {
   private Likes likes;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
   @Facebook("object_id")
   private String objectId;
@@ -113,7 +113,7 @@ public class Post extends NamedFacebookType {
   @Facebook
   private List<Property> properties = new ArrayList<Property>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * Represents the undocumented {@code Property} type.
@@ -602,7 +602,7 @@ public class Post extends NamedFacebookType {
    * @return The time the post was initially published.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -611,7 +611,7 @@ public class Post extends NamedFacebookType {
    * @return The time of the last comment on this post.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 
   /**
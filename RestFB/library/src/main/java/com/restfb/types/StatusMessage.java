@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
@@ -50,7 +50,7 @@ public class StatusMessage extends NamedFacebookType {
   private String type;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
   @Facebook
   private List<NamedFacebookType> likes = new ArrayList<NamedFacebookType>();
@@ -58,7 +58,7 @@ public class StatusMessage extends NamedFacebookType {
   @Facebook
   private List<Comment> comments = new ArrayList<Comment>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * The user who posted the message.
@@ -93,7 +93,7 @@ public class StatusMessage extends NamedFacebookType {
    * @return The time the message was published.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 
   /**
@@ -22,8 +22,8 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
-import static com.restfb.util.DateUtils.toDateFromMonthYearFormat;
+import static com.restfb.util.DateUtils.FACEBOOK_MONTH_YEAR_DATE_FORMAT;
+import static com.restfb.util.DateUtils.copyOf;
 import static com.restfb.util.DateUtils.toDateFromShortFormat;
 import static com.restfb.util.StringUtils.isBlank;
 import static java.util.Collections.unmodifiableList;
@@ -78,6 +78,7 @@ public class User extends NamedFacebookType {
 
   @Facebook
   private String birthday;
+  private transient volatile Date parsedBirthday;
 
   @Facebook
   private String email;
@@ -121,7 +122,7 @@ public class User extends NamedFacebookType {
   private NamedFacebookType significantOther;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
   @Facebook("third_party_id")
   private String thirdPartyId;
@@ -150,7 +151,7 @@ public class User extends NamedFacebookType {
   @Facebook
   private List<NamedFacebookType> languages = new ArrayList<NamedFacebookType>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * Represents the <a
@@ -173,16 +174,16 @@ public class User extends NamedFacebookType {
     @Facebook
     private String description;
 
-    @Facebook("start_date")
-    private String startDate;
+    @Facebook(value = "start_date", dateFormat = FACEBOOK_MONTH_YEAR_DATE_FORMAT)
+    private Date startDate;
 
-    @Facebook("end_date")
-    private String endDate;
+    @Facebook(value = "end_date", dateFormat = FACEBOOK_MONTH_YEAR_DATE_FORMAT)
+    private Date endDate;
 
     @Facebook
     private List<NamedFacebookType> with = new ArrayList<NamedFacebookType>();
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     /**
      * @see java.lang.Object#hashCode()
@@ -251,7 +252,7 @@ public class User extends NamedFacebookType {
      * @return Date this job was started.
      */
     public Date getStartDate() {
-      return toDateFromMonthYearFormat(startDate);
+      return copyOf(startDate);
     }
 
     /**
@@ -260,7 +261,7 @@ public class User extends NamedFacebookType {
      * @return Date this job ended.
      */
     public Date getEndDate() {
-      return toDateFromMonthYearFormat(endDate);
+      return copyOf(endDate);
     }
 
     /**
@@ -469,10 +470,9 @@ public class User extends NamedFacebookType {
    *         available in month/year format.
    */
   public Date getBirthdayAsDate() {
-    if (isBlank(getBirthday()) || getBirthday().split("/").length < 2)
-      return null;
-
-    return toDateFromShortFormat(birthday);
+    if (parsedBirthday == null && !isBlank(getBirthday()) && getBirthday().split("/").length >= 2)
+      parsedBirthday = toDateFromShortFormat(birthday);
+    return copyOf(parsedBirthday);
   }
 
   /**
@@ -535,7 +535,7 @@ public class User extends NamedFacebookType {
    * @return Date the user's profile was updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 
   /**
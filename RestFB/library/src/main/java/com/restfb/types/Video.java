@@ -22,7 +22,7 @@
 
 package com.restfb.types;
 
-import static com.restfb.util.DateUtils.toDateFromLongFormat;
+import static com.restfb.util.DateUtils.copyOf;
 import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
@@ -66,10 +66,10 @@ public class Video extends NamedFacebookType {
   private Integer length;
 
   @Facebook("created_time")
-  private String createdTime;
+  private Date createdTime;
 
   @Facebook("updated_time")
-  private String updatedTime;
+  private Date updatedTime;
 
   @Facebook
   private List<NamedFacebookType> tags = new ArrayList<NamedFacebookType>();
@@ -77,7 +77,7 @@ public class Video extends NamedFacebookType {
   @Facebook
   private List<Comment> comments = new ArrayList<Comment>();
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   /**
    * An object containing the name and ID of the user who posted the video.
@@ -179,7 +179,7 @@ public class Video extends NamedFacebookType {
    * @return The time the video was initially published.
    */
   public Date getCreatedTime() {
-    return toDateFromLongFormat(createdTime);
+    return copyOf(createdTime);
   }
 
   /**
@@ -188,6 +188,6 @@ public class Video extends NamedFacebookType {
    * @return The last time the video or its caption were updated.
    */
   public Date getUpdatedTime() {
-    return toDateFromLongFormat(updatedTime);
+    return copyOf(updatedTime);
   }
 }
\ No newline at end of file
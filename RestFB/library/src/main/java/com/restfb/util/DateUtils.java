@@ -27,6 +27,7 @@ import static java.util.logging.Level.FINE;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 import java.util.logging.Logger;
 
 /**
@@ -58,6 +59,28 @@ public final class DateUtils {
    */
   public static final String FACEBOOK_MONTH_YEAR_DATE_FORMAT = "yyyy-MM";
 
+  /**
+   * Pseudo-format for dates represented as seconds since the epoch (a "Unix
+   * timestamp"). Example: {@code 1267373468}
+   * 
+   * @since 1.6.8
+   */
+  public static final String EPOCH_SECONDS_FORMAT = "epoch-seconds";
+
+  /**
+   * Pseudo-format for dates represented as milliseconds since the epoch.
+   * Example: {@code 1267373468000}
+   * 
+   * @since 1.6.8
+   */
+  public static final String EPOCH_MILLISECONDS_FORMAT = "epoch-milliseconds";
+
+  /**
+   * Marker returned by {@link #toMillisFromLongFormat(String)} for input it
+   * doesn't handle.
+   */
+  private static final long UNPARSEABLE = Long.MIN_VALUE;
+
   /**
    * Logger.
    */
@@ -79,6 +102,14 @@ public final class DateUtils {
    *         string or {@code null} if {@code date} is {@code null} or invalid.
    */
   public static Date toDateFromLongFormat(String date) {
+    if (date == null)
+      return null;
+
+    long millis = toMillisFromLongFormat(date);
+
+    if (millis != UNPARSEABLE)
+      return new Date(millis);
+
     Date parsedDate = toDateWithFormatString(date, FACEBOOK_LONG_DATE_FORMAT);
 
     if (parsedDate == null)
@@ -116,6 +147,213 @@ public final class DateUtils {
     return toDateWithFormatString(date, FACEBOOK_MONTH_YEAR_DATE_FORMAT);
   }
 
+  /**
+   * Returns a Java representation of a {@code date} string in the given
+   * {@code format}.
+   * <p>
+   * {@code format} is either a {@code SimpleDateFormat} pattern or one of
+   * {@link #EPOCH_SECONDS_FORMAT} and {@link #EPOCH_MILLISECONDS_FORMAT}. The
+   * Facebook formats defined by this class get the same special handling as
+   * their dedicated methods, e.g. {@link #toDateFromLongFormat(String)}.
+   * 
+   * @param date
+   *          Date in string format.
+   * @param format
+   *          The format of {@code date}.
+   * @return Java date representation of the given {@code date} string or
+   *         {@code null} if {@code date} is {@code null} or invalid.
+   * @since 1.6.8
+   */
+  public static Date toDateFromFormat(String date, String format) {
+    if (FACEBOOK_LONG_DATE_FORMAT.equals(format))
+      return toDateFromLongFormat(date);
+    if (FACEBOOK_MONTH_YEAR_DATE_FORMAT.equals(format))
+      return toDateFromMonthYearFormat(date);
+
+    if (EPOCH_SECONDS_FORMAT.equals(format) || EPOCH_MILLISECONDS_FORMAT.equals(format)) {
+      if (date == null)
+        return null;
+
+      try {
+        long timestamp = Long.parseLong(date.trim());
+        return new Date(EPOCH_SECONDS_FORMAT.equals(format) ? timestamp * 1000L : timestamp);
+      } catch (NumberFormatException e) {
+        if (logger.isLoggable(FINE))
+          logger.fine("Unable to parse timestamp '" + date + "': " + e);
+
+        return null;
+      }
+    }
+
+    return toDateWithFormatString(date, format);
+  }
+
+  /**
+   * Returns a string representation of {@code date} in the given
+   * {@code SimpleDateFormat} pattern.
+   * <p>
+   * Patterns with a timezone component are formatted in UTC, which is what
+   * Facebook sends. Others are formatted in the default time zone, matching
+   * how they're parsed.
+   * 
+   * @param date
+   *          The date to format.
+   * @param format
+   *          The {@code SimpleDateFormat} pattern to format with.
+   * @return {@code date} as a string or {@code null} if {@code date} is
+   *         {@code null}.
+   * @since 1.6.8
+   */
+  public static String toFormattedString(Date date, String format) {
+    if (date == null)
+      return null;
+
+    // SimpleDateFormat isn't thread-safe, so we can't share instances
+    SimpleDateFormat simpleDateFormat = new SimpleDateFormat(format);
+    if (format.indexOf('Z') >= 0)
+      simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    return simpleDateFormat.format(date);
+  }
+
+  /**
+   * Returns a copy of the given {@code date}.
+   * <p>
+   * Useful for types that cache a parsed date but must not hand out the cached
+   * (mutable) instance.
+   * 
+   * @param date
+   *          The date to copy.
+   * @return A copy of {@code date} or {@code null} if {@code date} is
+   *         {@code null}.
+   * @since 1.6.8
+   */
+  public static Date copyOf(Date date) {
+    return date == null ? null : new Date(date.getTime());
+  }
+
+  /**
+   * Allocation-free parser for Facebook "long" dates with an explicit offset,
+   * for example {@code 2010-02-28T16:11:08+0000}. {@code +00:00} and {@code Z}
+   * offsets are accepted as well.
+   * <p>
+   * Only strict, in-range input is handled here. Anything else (no offset,
+   * trailing text, out-of-range fields that {@code SimpleDateFormat} would
+   * leniently roll over, years before the Gregorian cutover) returns
+   * {@link #UNPARSEABLE} so the caller can fall back to the general-purpose
+   * parser and keep its exact behavior.
+   * 
+   * @param date
+   *          Facebook {@code date} string.
+   * @return Milliseconds since the epoch, or {@link #UNPARSEABLE}.
+   */
+  private static long toMillisFromLongFormat(String date) {
+    int length = date.length();
+
+    if (length < 20 || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T'
+        || date.charAt(13) != ':' || date.charAt(16) != ':')
+      return UNPARSEABLE;
+
+    int year = digits(date, 0, 4);
+    int month = digits(date, 5, 2);
+    int day = digits(date, 8, 2);
+    int hour = digits(date, 11, 2);
+    int minute = digits(date, 14, 2);
+    int second = digits(date, 17, 2);
+
+    if (year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23
+        || minute > 59 || second > 59)
+      return UNPARSEABLE;
+
+    int offsetMinutes;
+    char sign = date.charAt(19);
+
+    if (sign == 'Z' && length == 20)
+      offsetMinutes = 0;
+    else if (sign == '+' || sign == '-') {
+      int offsetHours = length == 24 || length == 25 ? digits(date, 20, 2) : -1;
+      int offsetMinutesStart = length == 24 ? 22 : 23;
+
+      if (offsetHours < 0 || offsetHours > 23 || (length == 25 && date.charAt(22) != ':'))
+        return UNPARSEABLE;
+
+      int offsetMinutesOfHour = digits(date, offsetMinutesStart, 2);
+
+      if (offsetMinutesOfHour < 0 || offsetMinutesOfHour > 59)
+        return UNPARSEABLE;
+
+      offsetMinutes = offsetHours * 60 + offsetMinutesOfHour;
+
+      if (sign == '-')
+        offsetMinutes = -offsetMinutes;
+    } else
+      return UNPARSEABLE;
+
+    long seconds = daysFromEpoch(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offsetMinutes * 60;
+    return seconds * 1000L;
+  }
+
+  /**
+   * Parses {@code count} ASCII digits of {@code string} starting at
+   * {@code start}.
+   * 
+   * @param string
+   *          The string to read from.
+   * @param start
+   *          Index of the first digit.
+   * @param count
+   *          Number of digits to read.
+   * @return The parsed value or {@code -1} if any character isn't a digit.
+   */
+  private static int digits(String string, int start, int count) {
+    int value = 0;
+
+    for (int i = start; i < start + count; i++) {
+      char c = string.charAt(i);
+      if (c < '0' || c > '9')
+        return -1;
+      value = value * 10 + (c - '0');
+    }
+
+    return value;
+  }
+
+  /**
+   * Number of days in the given month of the (proleptic Gregorian) year.
+   * 
+   * @param year
+   *          The year.
+   * @param month
+   *          The month, 1-12.
+   * @return Number of days in the month.
+   */
+  private static int daysInMonth(int year, int month) {
+    if (month == 2)
+      return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Number of days between 1970-01-01 and the given Gregorian date.
+   * 
+   * @param year
+   *          The year (non-negative).
+   * @param month
+   *          The month, 1-12.
+   * @param day
+   *          The day of the month.
+   * @return Days since the epoch.
+   */
+  private static long daysFromEpoch(int year, int month, int day) {
+    // Shift the year so it starts in March, which puts the leap day last
+    int y = month <= 2 ? year - 1 : year;
+    int era = y / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468L;
+  }
+
   /**
    * Returns a Java representation of a {@code date} string.
    * 
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+/**
+ * Emits Java Flight Recorder events for the work RestFB does on each API call:
+ * HTTP exchanges with Facebook, JSON parsing and mapping JSON to Java.
+ * <p>
+ * This is the baseline implementation, for runtimes without JFR, and does
+ * nothing. Java 11+ runtimes load a replacement from the multi-release section
+ * of the RestFB JAR that emits {@code com.restfb.HttpExchange},
+ * {@code com.restfb.JsonParse} and {@code com.restfb.JsonMapping} events,
+ * which can be enabled and thresholded in a JFR settings file like any other.
+ * <p>
+ * Each event is started with a {@code begin} method and finished with the
+ * matching {@code end} method. {@code begin} returns {@code null} when the
+ * event isn't enabled in any recording, in which case callers should skip
+ * gathering the event's fields and {@code end} does nothing.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class FlightEvents {
+  /**
+   * Prevents instantiation.
+   */
+  private FlightEvents() {}
+
+  /**
+   * Starts timing an HTTP exchange with Facebook.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginHttpExchange() {
+    return null;
+  }
+
+  /**
+   * Finishes an HTTP exchange with Facebook.
+   * 
+   * @param httpExchange
+   *          The event returned by {@link #beginHttpExchange()}.
+   * @param method
+   *          HTTP method, e.g. {@code GET}.
+   * @param endpoint
+   *          Endpoint template, e.g. <code>/{id}/feed</code>.
+   * @param statusCode
+   *          HTTP status code of the response.
+   * @param bytesSent
+   *          Size of the request body.
+   * @param bytesReceived
+   *          Size of the response body.
+   */
+  public static void endHttpExchange(Object httpExchange, String method, String endpoint, int statusCode,
+      long bytesSent, long bytesReceived) {}
+
+  /**
+   * Starts timing the parsing of a JSON document.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginJsonParse() {
+    return null;
+  }
+
+  /**
+   * Finishes parsing a JSON document.
+   * 
+   * @param jsonParse
+   *          The event returned by {@link #beginJsonParse()}.
+   * @param parser
+   *          What the document was parsed into, e.g. {@code JsonIndex}.
+   * @param length
+   *          Length of the document in characters.
+   */
+  public static void endJsonParse(Object jsonParse, String parser, int length) {}
+
+  /**
+   * Starts timing the mapping of a JSON object to a Java object.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginJsonMapping() {
+    return null;
+  }
+
+  /**
+   * Finishes mapping a JSON object to a Java object.
+   * 
+   * @param jsonMapping
+   *          The event returned by {@link #beginJsonMapping()}.
+   * @param targetType
+   *          The Java type mapped to.
+   * @param fieldCount
+   *          Number of fields mapped.
+   */
+  public static void endJsonMapping(Object jsonMapping, Class<?> targetType, int fieldCount) {}
+}
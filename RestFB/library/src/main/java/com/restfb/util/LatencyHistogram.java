@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+import static java.lang.Long.numberOfLeadingZeros;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative {@code long} values, typically
+ * latencies in nanoseconds.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with
+ * the magnitude of the value: each power of two is split into
+ * {@value #SUB_BUCKET_COUNT} equal sub-buckets, so any recorded value is known
+ * to within 1/{@value #SUB_BUCKET_COUNT} (6.25%) of its true value. The whole
+ * {@code long} range fits in a fixed 960-bucket table, so recording never
+ * allocates, resizes or takes a lock - it's a couple of atomic increments.
+ * <p>
+ * Reads aren't atomic with respect to concurrent recording, so a snapshot
+ * taken under load may be off by the handful of values recorded while it was
+ * taken.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class LatencyHistogram {
+  /**
+   * Number of bits of sub-bucket precision.
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+
+  /**
+   * Number of sub-buckets each power of two is split into.
+   */
+  public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Number of buckets needed to cover every non-negative {@code long}.
+   */
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  /**
+   * Per-bucket counts.
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * Number of values recorded.
+   */
+  private final AtomicLong count = new AtomicLong();
+
+  /**
+   * Sum of the values recorded.
+   */
+  private final AtomicLong total = new AtomicLong();
+
+  /**
+   * Largest value recorded.
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value. Negative values are recorded as {@code 0}.
+   * 
+   * @param value
+   *          The value to record.
+   */
+  public void record(long value) {
+    if (value < 0)
+      value = 0;
+
+    buckets.incrementAndGet(bucketIndex(value));
+    count.incrementAndGet();
+    total.addAndGet(value);
+
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value))
+      currentMax = max.get();
+  }
+
+  /**
+   * Gets the number of values recorded.
+   * 
+   * @return The number of values recorded.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Gets the mean of the values recorded.
+   * 
+   * @return The mean, or {@code 0} if nothing has been recorded.
+   */
+  public double getMean() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : (double) total.get() / currentCount;
+  }
+
+  /**
+   * Gets the largest value recorded.
+   * 
+   * @return The largest value, or {@code 0} if nothing has been recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the value at the given percentile, e.g. {@code 99} for the value that
+   * 99% of recorded values are at or below.
+   * 
+   * @param percentile
+   *          A percentile between {@code 0} and {@code 100}.
+   * @return The highest value in the bucket holding the percentile, capped at
+   *         {@link #getMax()}, or {@code 0} if nothing has been recorded.
+   * @throws IllegalArgumentException
+   *           If {@code percentile} is out of range.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("Percentile must be between 0 and 100, not " + percentile);
+
+    // Count from the buckets themselves, which may be ahead of 'count'
+    long recorded = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++)
+      recorded += buckets.get(i);
+
+    if (recorded == 0)
+      return 0;
+
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+    long seen = 0;
+
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets.get(i);
+      if (seen >= target)
+        return Math.min(highestValueInBucket(i), max.get());
+    }
+
+    return max.get();
+  }
+
+  /**
+   * Finds the bucket a value is counted in.
+   * 
+   * @param value
+   *          A non-negative value.
+   * @return The value's bucket index.
+   */
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT)
+      return (int) value;
+
+    int shift = 63 - numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  /**
+   * Finds the highest value counted in a bucket.
+   * 
+   * @param index
+   *          A bucket index.
+   * @return The highest value counted in that bucket.
+   */
+  static long highestValueInBucket(int index) {
+    if (index < SUB_BUCKET_COUNT)
+      return index;
+
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long lowest = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -24,7 +24,6 @@ package com.restfb.util;
 
 import static java.lang.String.format;
 import static java.util.Collections.sort;
-import static java.util.Collections.synchronizedMap;
 import static java.util.Collections.unmodifiableList;
 
 import java.lang.annotation.Annotation;
@@ -33,12 +32,13 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A collection of reflection-related utility methods.
@@ -51,10 +51,42 @@ import java.util.Set;
 public final class ReflectionUtils {
   /**
    * In-memory shared cache of reflection data for
-   * {@link #findFieldsWithAnnotation(Class, Class)}.
+   * {@link #findFieldsWithAnnotation(Class, Class)}, keyed by class and then by
+   * annotation type.
+   * <p>
+   * Like {@link #ACCESSORS_CACHE}, the data lives alongside each class instead
+   * of in a global map, so reads never lock and classes (and their
+   * classloaders) can be unloaded when an application is redeployed.
+   */
+  private static final ClassValue<ConcurrentMap<Class<? extends Annotation>, List<?>>> FIELDS_WITH_ANNOTATION_CACHE =
+      new ClassValue<ConcurrentMap<Class<? extends Annotation>, List<?>>>() {
+        /**
+         * @see java.lang.ClassValue#computeValue(java.lang.Class)
+         */
+        @Override
+        protected ConcurrentMap<Class<? extends Annotation>, List<?>> computeValue(Class<?> type) {
+          // Almost always just @Facebook, so keep the map small
+          return new ConcurrentHashMap<Class<? extends Annotation>, List<?>>(2, 0.75f, 1);
+        }
+      };
+
+  /**
+   * Per-class cache of accessor metadata for {@link #getAccessors(Class)},
+   * {@link #toString(Object)}, {@link #hashCode(Object)} and
+   * {@link #equals(Object, Object)}.
+   * <p>
+   * {@code ClassValue} stores the metadata alongside the class itself, so
+   * lookups don't lock and unloaded classes aren't kept alive by the cache.
    */
-  private static final Map<ClassAnnotationCacheKey, List<?>> FIELDS_WITH_ANNOTATION_CACHE =
-      synchronizedMap(new HashMap<ClassAnnotationCacheKey, List<?>>());
+  private static final ClassValue<Accessors> ACCESSORS_CACHE = new ClassValue<Accessors>() {
+    /**
+     * @see java.lang.ClassValue#computeValue(java.lang.Class)
+     */
+    @Override
+    protected Accessors computeValue(Class<?> clazz) {
+      return new Accessors(findAccessors(clazz));
+    }
+  };
 
   /**
    * Prevents instantiation.
@@ -98,15 +130,16 @@ public final class ReflectionUtils {
    */
   public static <T extends Annotation> List<FieldWithAnnotation<T>> findFieldsWithAnnotation(Class<?> type,
       Class<T> annotationType) {
-    ClassAnnotationCacheKey cacheKey = new ClassAnnotationCacheKey(type, annotationType);
+    ConcurrentMap<Class<? extends Annotation>, List<?>> cache = FIELDS_WITH_ANNOTATION_CACHE.get(type);
 
     @SuppressWarnings("unchecked")
-    List<FieldWithAnnotation<T>> cachedResults =
-        (List<FieldWithAnnotation<T>>) FIELDS_WITH_ANNOTATION_CACHE.get(cacheKey);
+    List<FieldWithAnnotation<T>> cachedResults = (List<FieldWithAnnotation<T>>) cache.get(annotationType);
 
     if (cachedResults != null)
       return cachedResults;
 
+    // Racing threads may both compute the (identical) result; last one wins,
+    // which is harmless
     List<FieldWithAnnotation<T>> fieldsWithAnnotation = new ArrayList<FieldWithAnnotation<T>>();
 
     // Walk all superclasses looking for annotated fields until we hit
@@ -123,7 +156,7 @@ public final class ReflectionUtils {
     }
 
     fieldsWithAnnotation = unmodifiableList(fieldsWithAnnotation);
-    FIELDS_WITH_ANNOTATION_CACHE.put(cacheKey, fieldsWithAnnotation);
+    cache.put(annotationType, fieldsWithAnnotation);
     return fieldsWithAnnotation;
   }
 
@@ -152,6 +185,8 @@ public final class ReflectionUtils {
 
   /**
    * Gets all accessor methods for the given {@code clazz}.
+   * <p>
+   * Results are cached per class.
    * 
    * @param clazz
    *          The class for which accessors are extracted.
@@ -161,6 +196,17 @@ public final class ReflectionUtils {
     if (clazz == null)
       throw new IllegalArgumentException("The 'clazz' parameter cannot be null.");
 
+    return ACCESSORS_CACHE.get(clazz).methods;
+  }
+
+  /**
+   * Finds all accessor methods for the given {@code clazz}, sorted by name.
+   * 
+   * @param clazz
+   *          The class for which accessors are extracted.
+   * @return All accessor methods for the given {@code clazz}.
+   */
+  private static List<Method> findAccessors(Class<?> clazz) {
     List<Method> methods = new ArrayList<Method>();
 
     for (Method method : clazz.getMethods()) {
@@ -203,20 +249,16 @@ public final class ReflectionUtils {
     StringBuilder buffer = new StringBuilder(object.getClass().getSimpleName());
     buffer.append("[");
 
-    boolean first = true;
+    Accessors accessors = ACCESSORS_CACHE.get(object.getClass());
 
-    for (Method method : getAccessors(object.getClass())) {
-      if (first)
-        first = false;
-      else
+    for (int i = 0; i < accessors.methods.size(); i++) {
+      Method method = accessors.methods.get(i);
+
+      if (i > 0)
         buffer.append(" ");
 
       try {
-        String methodName = method.getName();
-        int offset = methodName.startsWith("is") ? 2 : 3;
-        methodName = methodName.substring(offset, offset + 1).toLowerCase() + methodName.substring(offset + 1);
-
-        buffer.append(methodName);
+        buffer.append(accessors.propertyNames[i]);
         buffer.append("=");
 
         // Accessors are guaranteed to take no parameters and return a value
@@ -280,8 +322,12 @@ public final class ReflectionUtils {
       return false;
 
     // Only compare accessors that are present in both classes
-    Set<Method> accessorMethodsIntersection = new HashSet<Method>(getAccessors(object1.getClass()));
-    accessorMethodsIntersection.retainAll(getAccessors(object2.getClass()));
+    Collection<Method> accessorMethodsIntersection = getAccessors(object1.getClass());
+
+    if (!object1.getClass().equals(object2.getClass())) {
+      accessorMethodsIntersection = new HashSet<Method>(accessorMethodsIntersection);
+      accessorMethodsIntersection.retainAll(getAccessors(object2.getClass()));
+    }
 
     for (Method method : accessorMethodsIntersection) {
       try {
@@ -301,6 +347,52 @@ public final class ReflectionUtils {
     return true;
   }
 
+  /**
+   * Cached accessor metadata for a class.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   * @since 1.6.8
+   */
+  private static final class Accessors {
+    /**
+     * Accessor methods, sorted by name.
+     */
+    private final List<Method> methods;
+
+    /**
+     * Javabean property name for each of {@link #methods}, e.g. {@code name}
+     * for {@code getName()}.
+     */
+    private final String[] propertyNames;
+
+    /**
+     * Creates accessor metadata for the given accessor {@code methods}.
+     * 
+     * @param methods
+     *          Accessor methods, sorted by name.
+     */
+    private Accessors(List<Method> methods) {
+      this.methods = methods;
+      this.propertyNames = new String[methods.size()];
+
+      for (int i = 0; i < methods.size(); i++) {
+        Method method = methods.get(i);
+        String methodName = method.getName();
+        int offset = methodName.startsWith("is") ? 2 : 3;
+        propertyNames[i] = methodName.substring(offset, offset + 1).toLowerCase() + methodName.substring(offset + 1);
+
+        // Skip Java language access checks on every invocation where we're
+        // allowed to
+        try {
+          method.setAccessible(true);
+        } catch (RuntimeException e) {
+          // Not permitted (security manager or module boundary) - we'll just
+          // take the slower path
+        }
+      }
+    }
+  }
+
   /**
    * A field/annotation pair.
    * 
@@ -357,78 +449,4 @@ public final class ReflectionUtils {
         annotation);
     }
   }
-
-  /**
-   * Cache key composed of a class and annotation pair. Used by
-   * {@link ReflectionUtils#FIELDS_WITH_ANNOTATION_CACHE}.
-   * 
-   * @author Igor Kabiljo
-   */
-  private static final class ClassAnnotationCacheKey {
-    /**
-     * Class component of this cache key.
-     */
-    private final Class<?> clazz;
-
-    /**
-     * Annotation component of this cache key.
-     */
-    private final Class<? extends Annotation> annotation;
-
-    /**
-     * Creates a cache key with the given {@code clazz}/@{code annotation} pair.
-     * 
-     * @param clazz
-     *          Class component of this cache key.
-     * @param annotation
-     *          Annotation component of this cache key.
-     */
-    private ClassAnnotationCacheKey(Class<?> clazz, Class<? extends Annotation> annotation) {
-      this.clazz = clazz;
-      this.annotation = annotation;
-    }
-
-    /**
-     * @see java.lang.Object#hashCode()
-     */
-    @Override
-    public int hashCode() {
-      final int prime = 31;
-      int result = 1;
-      result = prime * result + (annotation == null ? 0 : annotation.hashCode());
-      result = prime * result + (clazz == null ? 0 : clazz.hashCode());
-      return result;
-    }
-
-    /**
-     * @see java.lang.Object#equals(java.lang.Object)
-     */
-    @Override
-    public boolean equals(Object obj) {
-      if (this == obj)
-        return true;
-      if (obj == null)
-        return false;
-      if (getClass() != obj.getClass())
-        return false;
-
-      ClassAnnotationCacheKey other = (ClassAnnotationCacheKey) obj;
-
-      if (annotation == null) {
-        if (other.annotation != null)
-          return false;
-      } else if (!annotation.equals(other.annotation)) {
-        return false;
-      }
-
-      if (clazz == null) {
-        if (other.clazz != null)
-          return false;
-      } else if (!clazz.equals(other.clazz)) {
-        return false;
-      }
-
-      return true;
-    }
-  }
 }
\ No newline at end of file
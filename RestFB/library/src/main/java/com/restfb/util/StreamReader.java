@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+import static com.restfb.util.StringUtils.ENCODING_CHARSET;
+import static java.util.logging.Level.WARNING;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.logging.Logger;
+
+/**
+ * Reads text from streams for {@link StringUtils}.
+ * <p>
+ * This is the baseline implementation, which reads line by line. Java 11+
+ * runtimes load a replacement from the multi-release section of the RestFB JAR
+ * instead.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class StreamReader {
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(StreamReader.class.getName());
+
+  /**
+   * Prevents instantiation.
+   */
+  private StreamReader() {}
+
+  /**
+   * Reads the entire contents of {@code inputStream} as
+   * {@value StringUtils#ENCODING_CHARSET} text, dropping line terminators, and
+   * closes the stream.
+   * 
+   * @param inputStream
+   *          The stream to read. Must not be {@code null}.
+   * @return The text content of {@code inputStream} with line terminators
+   *         removed.
+   * @throws IOException
+   *           If an error occurs while processing the {@code inputStream}.
+   */
+  static String read(InputStream inputStream) throws IOException {
+    BufferedReader reader = null;
+
+    try {
+      reader = new BufferedReader(new InputStreamReader(inputStream, ENCODING_CHARSET));
+      StringBuilder response = new StringBuilder();
+
+      String line = null;
+      while ((line = reader.readLine()) != null)
+        response.append(line);
+
+      return response.toString();
+    } finally {
+      if (reader != null)
+        try {
+          reader.close();
+        } catch (Throwable t) {
+          // Really nothing we can do but log the error
+          if (logger.isLoggable(WARNING))
+            logger.warning("Unable to close stream, continuing on: " + t);
+        }
+    }
+  }
+}
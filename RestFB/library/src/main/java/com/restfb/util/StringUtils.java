@@ -23,17 +23,12 @@
 package com.restfb.util;
 
 import static java.net.URLDecoder.decode;
-import static java.net.URLEncoder.encode;
 import static java.util.Arrays.asList;
-import static java.util.logging.Level.WARNING;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * A collection of string-handling utility methods.
@@ -48,9 +43,26 @@ public final class StringUtils {
   public static final String ENCODING_CHARSET = "UTF-8";
 
   /**
-   * Logger.
+   * ASCII characters that URL-encoding leaves as-is: letters, digits and
+   * {@code .-*_}, the same set {@link java.net.URLEncoder} uses.
    */
-  private static final Logger logger = Logger.getLogger(StringUtils.class.getName());
+  private static final boolean[] URL_SAFE_CHARACTERS = new boolean[128];
+
+  /**
+   * Digits for percent-escapes, uppercase like {@link java.net.URLEncoder}'s.
+   */
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++)
+      URL_SAFE_CHARACTERS[c] = true;
+    for (char c = 'A'; c <= 'Z'; c++)
+      URL_SAFE_CHARACTERS[c] = true;
+    for (char c = '0'; c <= '9'; c++)
+      URL_SAFE_CHARACTERS[c] = true;
+    for (char c : ".-*_".toCharArray())
+      URL_SAFE_CHARACTERS[c] = true;
+  }
 
   /**
    * Prevents instantiation.
@@ -109,18 +121,102 @@ public final class StringUtils {
    *          The string to URL-encode.
    * @return The URL-encoded version of the input string, or {@code null} if
    *         {@code string} is {@code null}.
-   * @throws IllegalStateException
-   *           If unable to URL-encode because the JVM doesn't support
-   *           {@value #ENCODING_CHARSET}.
    */
   public static String urlEncode(String string) {
     if (string == null)
       return null;
-    try {
-      return encode(string, ENCODING_CHARSET);
-    } catch (UnsupportedEncodingException e) {
-      throw new IllegalStateException("Platform doesn't support " + ENCODING_CHARSET, e);
+
+    // Most names and values (IDs, field names, access tokens) need no escaping
+    // at all, so hand those back without allocating anything
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c >= 128 || !URL_SAFE_CHARACTERS[c]) {
+        StringBuilder encoded = new StringBuilder(string.length() + 16);
+        appendUrlEncoded(string, i, encoded.append(string, 0, i));
+        return encoded.toString();
+      }
     }
+
+    return string;
+  }
+
+  /**
+   * URL-encodes a string, appending the result to {@code builder}.
+   * <p>
+   * Produces exactly what {@link #urlEncode(String)} does but without creating
+   * an intermediate string, so whole query strings can be built in a single
+   * buffer.
+   * 
+   * @param string
+   *          The string to URL-encode. Nothing is appended if it's {@code null}.
+   * @param builder
+   *          The builder to append to.
+   * @return {@code builder}, for chaining.
+   * @since 1.6.8
+   */
+  public static StringBuilder urlEncode(String string, StringBuilder builder) {
+    if (string != null)
+      appendUrlEncoded(string, 0, builder);
+    return builder;
+  }
+
+  /**
+   * Appends the {@value #ENCODING_CHARSET} URL-encoded form of
+   * {@code string}, starting at index {@code start}, to {@code builder}.
+   * <p>
+   * Matches {@link java.net.URLEncoder}: spaces become {@code +}, and unpaired
+   * surrogates are encoded as {@code ?} just as the charset encoder replaces
+   * them.
+   * 
+   * @param string
+   *          The string to URL-encode.
+   * @param start
+   *          Index of the first character to encode.
+   * @param builder
+   *          The builder to append to.
+   */
+  private static void appendUrlEncoded(String string, int start, StringBuilder builder) {
+    int length = string.length();
+
+    for (int i = start; i < length; i++) {
+      char c = string.charAt(i);
+
+      if (c < 128) {
+        if (URL_SAFE_CHARACTERS[c])
+          builder.append(c);
+        else if (c == ' ')
+          builder.append('+');
+        else
+          appendPercentEscaped(c, builder);
+      } else if (c < 0x800) {
+        appendPercentEscaped(0xC0 | (c >> 6), builder);
+        appendPercentEscaped(0x80 | (c & 0x3F), builder);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, string.charAt(++i));
+        appendPercentEscaped(0xF0 | (codePoint >> 18), builder);
+        appendPercentEscaped(0x80 | ((codePoint >> 12) & 0x3F), builder);
+        appendPercentEscaped(0x80 | ((codePoint >> 6) & 0x3F), builder);
+        appendPercentEscaped(0x80 | (codePoint & 0x3F), builder);
+      } else if (Character.isSurrogate(c)) {
+        appendPercentEscaped('?', builder);
+      } else {
+        appendPercentEscaped(0xE0 | (c >> 12), builder);
+        appendPercentEscaped(0x80 | ((c >> 6) & 0x3F), builder);
+        appendPercentEscaped(0x80 | (c & 0x3F), builder);
+      }
+    }
+  }
+
+  /**
+   * Appends {@code b} as a {@code %XX} escape.
+   * 
+   * @param b
+   *          The byte value to escape.
+   * @param builder
+   *          The builder to append to.
+   */
+  private static void appendPercentEscaped(int b, StringBuilder builder) {
+    builder.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
   }
 
   /**
@@ -188,27 +284,7 @@ public final class StringUtils {
     if (inputStream == null)
       return null;
 
-    BufferedReader reader = null;
-
-    try {
-      reader = new BufferedReader(new InputStreamReader(inputStream, ENCODING_CHARSET));
-      StringBuilder response = new StringBuilder();
-
-      String line = null;
-      while ((line = reader.readLine()) != null)
-        response.append(line);
-
-      return response.toString();
-    } finally {
-      if (reader != null)
-        try {
-          reader.close();
-        } catch (Throwable t) {
-          // Really nothing we can do but log the error
-          if (logger.isLoggable(WARNING))
-            logger.warning("Unable to close stream, continuing on: " + t);
-        }
-    }
+    return StreamReader.read(inputStream);
   }
 
   /**
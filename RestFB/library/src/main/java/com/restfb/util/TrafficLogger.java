@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Logs the HTTP traffic between RestFB and Facebook.
+ * <p>
+ * Each category - {@link #REQUESTS} and {@link #RESPONSES} - writes to its own
+ * {@code java.util.logging} logger, so levels can be set per category. On top
+ * of the level, a category can be sampled (only 1 in every {@code n} loggable
+ * events is logged) and caps how much of a URL or body it logs. Access tokens
+ * and other secrets are always redacted.
+ * <p>
+ * Messages are parameterized, and the parameters do their truncation and
+ * redaction only if the record is actually formatted, so traffic logging
+ * costs a level check when it's off. Handlers that want structured data can
+ * read the parameters from {@link java.util.logging.LogRecord#getParameters()}.
+ * <p>
+ * Besides calling the setters, a category's settings can be configured in
+ * {@code logging.properties}, e.g.
+ * 
+ * <pre>
+ * com.restfb.traffic.responses.level = INFO
+ * com.restfb.traffic.responses.sampleRate = 100
+ * com.restfb.traffic.responses.maxBodyLength = 500
+ * </pre>
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class TrafficLogger {
+  /**
+   * Outgoing requests: method, URL and parameters.
+   */
+  public static final TrafficLogger REQUESTS = new TrafficLogger("com.restfb.traffic.requests");
+
+  /**
+   * Incoming responses: status code and body.
+   */
+  public static final TrafficLogger RESPONSES = new TrafficLogger("com.restfb.traffic.responses");
+
+  /**
+   * By default, how many characters of a URL or body do we log?
+   */
+  public static final int DEFAULT_MAX_BODY_LENGTH = 1000;
+
+  /**
+   * Parameters whose values are never logged.
+   */
+  private static final String[] SECRET_PARAMETER_NAMES = { "access_token", "client_secret", "appsecret_proof" };
+
+  /**
+   * What secrets are replaced with.
+   */
+  private static final String REDACTED = "<redacted>";
+
+  /**
+   * The logger this category writes to.
+   */
+  private final Logger logger;
+
+  /**
+   * Counts loggable events, for sampling.
+   */
+  private final AtomicLong loggableEvents = new AtomicLong();
+
+  /**
+   * Only 1 in every {@code sampleRate} loggable events is logged.
+   */
+  private volatile int sampleRate;
+
+  /**
+   * How many characters of a URL or body are logged.
+   */
+  private volatile int maxBodyLength;
+
+  /**
+   * Creates a category that writes to the logger named {@code name}.
+   * 
+   * @param name
+   *          The logger name, which also prefixes the category's
+   *          {@code logging.properties} settings.
+   */
+  private TrafficLogger(String name) {
+    logger = Logger.getLogger(name);
+    sampleRate = intProperty(name + ".sampleRate", 1);
+    maxBodyLength = intProperty(name + ".maxBodyLength", DEFAULT_MAX_BODY_LENGTH);
+  }
+
+  /**
+   * Should an event at {@code level} be logged?
+   * <p>
+   * Call this before building the parameters for {@link #log}. Once the level
+   * check passes, each call counts towards sampling.
+   * 
+   * @param level
+   *          The level to check.
+   * @return {@code true} if the event should be logged, {@code false}
+   *         otherwise.
+   */
+  public boolean isLoggable(Level level) {
+    if (!logger.isLoggable(level))
+      return false;
+
+    int sampleRate = this.sampleRate;
+    return sampleRate == 1 || loggableEvents.getAndIncrement() % sampleRate == 0;
+  }
+
+  /**
+   * Logs a parameterized message.
+   * 
+   * @param level
+   *          The level to log at.
+   * @param message
+   *          The message, with {@link java.text.MessageFormat}-style
+   *          placeholders like <code>{0}</code>.
+   * @param parameters
+   *          The placeholders' values.
+   */
+  public void log(Level level, String message, Object... parameters) {
+    logger.log(level, message, parameters);
+  }
+
+  /**
+   * Wraps {@code text} - a URL, query string or body - so that it's truncated
+   * to {@link #getMaxBodyLength()} characters and has its secrets redacted
+   * when, and only if, it's logged.
+   * 
+   * @param text
+   *          The text to log.
+   * @return A log parameter whose {@code toString()} is the sanitized text.
+   */
+  public Object sanitized(final String text) {
+    final int maxBodyLength = this.maxBodyLength;
+
+    return new Object() {
+      /**
+       * @see java.lang.Object#toString()
+       */
+      @Override
+      public String toString() {
+        if (text == null || text.length() <= maxBodyLength)
+          return redactSecrets(text);
+
+        return redactSecrets(text.substring(0, maxBodyLength)) + "... (" + (text.length() - maxBodyLength)
+            + " more characters)";
+      }
+    };
+  }
+
+  /**
+   * Gets how many loggable events it takes to log one.
+   * 
+   * @return The sample rate; {@code 1} means everything is logged.
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Logs only 1 in every {@code sampleRate} events that pass the level check.
+   * 
+   * @param sampleRate
+   *          The sample rate; {@code 1} logs everything.
+   * @throws IllegalArgumentException
+   *           If {@code sampleRate} is less than 1.
+   */
+  public void setSampleRate(int sampleRate) {
+    if (sampleRate < 1)
+      throw new IllegalArgumentException("The sample rate must be at least 1.");
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * Gets how many characters of a URL or body are logged.
+   * 
+   * @return The maximum number of characters logged.
+   */
+  public int getMaxBodyLength() {
+    return maxBodyLength;
+  }
+
+  /**
+   * Sets how many characters of a URL or body are logged; the rest is
+   * summarized.
+   * 
+   * @param maxBodyLength
+   *          The maximum number of characters to log.
+   * @throws IllegalArgumentException
+   *           If {@code maxBodyLength} is negative.
+   */
+  public void setMaxBodyLength(int maxBodyLength) {
+    if (maxBodyLength < 0)
+      throw new IllegalArgumentException("The maximum body length can't be negative.");
+    this.maxBodyLength = maxBodyLength;
+  }
+
+  /**
+   * Replaces the values of access token and other secret parameters in a URL,
+   * query string, form-encoded body or JSON body with {@code <redacted>}.
+   * <p>
+   * Both query string parameters, including those in URLs embedded in JSON
+   * such as paging links, and JSON members like {@code "access_token":"..."}
+   * are redacted.
+   * 
+   * @param text
+   *          The text to redact.
+   * @return The redacted text, or {@code text} itself if it holds no secrets.
+   */
+  public static String redactSecrets(String text) {
+    if (text == null)
+      return null;
+
+    StringBuilder redacted = null;
+    int copied = 0;
+    int length = text.length();
+
+    for (int i = 0; i < length; i++) {
+      char previous = i == 0 ? '&' : text.charAt(i - 1);
+      if (previous != '?' && previous != '&' && previous != '"')
+        continue;
+
+      for (String name : SECRET_PARAMETER_NAMES) {
+        if (!text.startsWith(name, i))
+          continue;
+
+        int nameEnd = i + name.length();
+        int valueStart;
+        int valueEnd;
+
+        if (previous == '"') {
+          valueStart = jsonValueStart(text, nameEnd);
+          if (valueStart == -1)
+            continue;
+          valueEnd = jsonValueEnd(text, valueStart);
+        } else {
+          if (nameEnd >= length || text.charAt(nameEnd) != '=')
+            continue;
+          valueStart = nameEnd + 1;
+          valueEnd = parameterValueEnd(text, valueStart);
+        }
+
+        if (redacted == null)
+          redacted = new StringBuilder(length);
+        redacted.append(text, copied, valueStart).append(REDACTED);
+        copied = valueEnd;
+        i = valueEnd - 1;
+        break;
+      }
+    }
+
+    return redacted == null ? text : redacted.append(text, copied, length).toString();
+  }
+
+  /**
+   * Finds the end of a query string parameter value, which runs until the
+   * next parameter, fragment, quote, escape or whitespace.
+   * 
+   * @param text
+   *          The text being redacted.
+   * @param start
+   *          Index of the value's first character.
+   * @return Index just past the value's last character.
+   */
+  private static int parameterValueEnd(String text, int start) {
+    int end = start;
+
+    for (int length = text.length(); end < length; end++) {
+      char c = text.charAt(end);
+      if (c == '&' || c == '#' || c == '"' || c == '\\' || Character.isWhitespace(c))
+        break;
+    }
+
+    return end;
+  }
+
+  /**
+   * Checks whether a secret's name, just after an opening quote, is a JSON
+   * member name with a string value.
+   * 
+   * @param text
+   *          The text being redacted.
+   * @param nameEnd
+   *          Index just past the secret's name.
+   * @return Index of the member value's first character (after its opening
+   *         quote), or {@code -1} if this isn't a JSON string member.
+   */
+  private static int jsonValueStart(String text, int nameEnd) {
+    int length = text.length();
+    if (nameEnd >= length || text.charAt(nameEnd) != '"')
+      return -1;
+
+    int i = skipWhitespace(text, nameEnd + 1);
+    if (i >= length || text.charAt(i) != ':')
+      return -1;
+
+    i = skipWhitespace(text, i + 1);
+    return i < length && text.charAt(i) == '"' ? i + 1 : -1;
+  }
+
+  /**
+   * Finds the closing quote of a JSON string value, skipping escaped
+   * characters.
+   * 
+   * @param text
+   *          The text being redacted.
+   * @param start
+   *          Index of the value's first character.
+   * @return Index of the closing quote, or the length of {@code text} if it's
+   *         been truncated.
+   */
+  private static int jsonValueEnd(String text, int start) {
+    int length = text.length();
+
+    for (int i = start; i < length; i++) {
+      char c = text.charAt(i);
+      if (c == '"')
+        return i;
+      if (c == '\\')
+        i++;
+    }
+
+    return length;
+  }
+
+  /**
+   * Skips JSON whitespace.
+   * 
+   * @param text
+   *          The text being redacted.
+   * @param start
+   *          Index to start at.
+   * @return Index of the first non-whitespace character at or after
+   *         {@code start}.
+   */
+  private static int skipWhitespace(String text, int start) {
+    int i = start;
+    while (i < text.length() && Character.isWhitespace(text.charAt(i)))
+      i++;
+    return i;
+  }
+
+  /**
+   * Reads a positive integer setting from the logging configuration.
+   * 
+   * @param name
+   *          The property name.
+   * @param defaultValue
+   *          The value to use if the property is missing or invalid.
+   * @return The setting's value.
+   */
+  private static int intProperty(String name, int defaultValue) {
+    String value = LogManager.getLogManager().getProperty(name);
+
+    try {
+      return value == null ? defaultValue : Math.max(1, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import java.time.Instant;
+
+/**
+ * Bridges {@code java.time.Instant} for {@link DefaultJsonMapper}.
+ * <p>
+ * Java 11+ implementation: uses {@link Instant} directly instead of through
+ * reflection.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class Instants {
+  /**
+   * Prevents instantiation.
+   */
+  private Instants() {}
+
+  /**
+   * Is {@code type} {@code java.time.Instant}?
+   * 
+   * @param type
+   *          The type to check.
+   * @return {@code true} if {@code type} is {@code java.time.Instant},
+   *         {@code false} otherwise.
+   */
+  static boolean isInstant(Class<?> type) {
+    return Instant.class.equals(type);
+  }
+
+  /**
+   * Creates an {@code Instant} from milliseconds since the epoch.
+   * 
+   * @param millis
+   *          Milliseconds since the epoch.
+   * @return The corresponding {@code Instant}.
+   */
+  static Object ofEpochMilli(long millis) {
+    return Instant.ofEpochMilli(millis);
+  }
+
+  /**
+   * Converts an {@code Instant} to milliseconds since the epoch.
+   * 
+   * @param instant
+   *          An {@code Instant}.
+   * @return Milliseconds since the epoch.
+   */
+  static long toEpochMilli(Object instant) {
+    return ((Instant) instant).toEpochMilli();
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits Java Flight Recorder events for the work RestFB does on each API call:
+ * HTTP exchanges with Facebook, JSON parsing and mapping JSON to Java.
+ * <p>
+ * Java 11+ implementation: emits {@code com.restfb.HttpExchange},
+ * {@code com.restfb.JsonParse} and {@code com.restfb.JsonMapping} events. When
+ * an event isn't enabled in any recording, {@code begin} costs a flag check and
+ * returns {@code null}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public final class FlightEvents {
+  /**
+   * Registered type of {@link HttpExchangeEvent}.
+   */
+  private static final EventType HTTP_EXCHANGE = EventType.getEventType(HttpExchangeEvent.class);
+
+  /**
+   * Registered type of {@link JsonParseEvent}.
+   */
+  private static final EventType JSON_PARSE = EventType.getEventType(JsonParseEvent.class);
+
+  /**
+   * Registered type of {@link JsonMappingEvent}.
+   */
+  private static final EventType JSON_MAPPING = EventType.getEventType(JsonMappingEvent.class);
+
+  /**
+   * Prevents instantiation.
+   */
+  private FlightEvents() {}
+
+  /**
+   * Starts timing an HTTP exchange with Facebook.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginHttpExchange() {
+    if (!HTTP_EXCHANGE.isEnabled())
+      return null;
+
+    HttpExchangeEvent event = new HttpExchangeEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Finishes an HTTP exchange with Facebook.
+   * 
+   * @param httpExchange
+   *          The event returned by {@link #beginHttpExchange()}.
+   * @param method
+   *          HTTP method, e.g. {@code GET}.
+   * @param endpoint
+   *          Endpoint template, e.g. <code>/{id}/feed</code>.
+   * @param statusCode
+   *          HTTP status code of the response.
+   * @param bytesSent
+   *          Size of the request body.
+   * @param bytesReceived
+   *          Size of the response body.
+   */
+  public static void endHttpExchange(Object httpExchange, String method, String endpoint, int statusCode,
+      long bytesSent, long bytesReceived) {
+    if (httpExchange == null)
+      return;
+
+    HttpExchangeEvent event = (HttpExchangeEvent) httpExchange;
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.method = method;
+      event.endpoint = endpoint;
+      event.statusCode = statusCode;
+      event.bytesSent = bytesSent;
+      event.bytesReceived = bytesReceived;
+      event.commit();
+    }
+  }
+
+  /**
+   * Starts timing the parsing of a JSON document.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginJsonParse() {
+    if (!JSON_PARSE.isEnabled())
+      return null;
+
+    JsonParseEvent event = new JsonParseEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Finishes parsing a JSON document.
+   * 
+   * @param jsonParse
+   *          The event returned by {@link #beginJsonParse()}.
+   * @param parser
+   *          What the document was parsed into, e.g. {@code JsonIndex}.
+   * @param length
+   *          Length of the document in characters.
+   */
+  public static void endJsonParse(Object jsonParse, String parser, int length) {
+    if (jsonParse == null)
+      return;
+
+    JsonParseEvent event = (JsonParseEvent) jsonParse;
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.parser = parser;
+      event.length = length;
+      event.commit();
+    }
+  }
+
+  /**
+   * Starts timing the mapping of a JSON object to a Java object.
+   * 
+   * @return The started event, or {@code null} if it isn't being recorded.
+   */
+  public static Object beginJsonMapping() {
+    if (!JSON_MAPPING.isEnabled())
+      return null;
+
+    JsonMappingEvent event = new JsonMappingEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Finishes mapping a JSON object to a Java object.
+   * 
+   * @param jsonMapping
+   *          The event returned by {@link #beginJsonMapping()}.
+   * @param targetType
+   *          The Java type mapped to.
+   * @param fieldCount
+   *          Number of fields mapped.
+   */
+  public static void endJsonMapping(Object jsonMapping, Class<?> targetType, int fieldCount) {
+    if (jsonMapping == null)
+      return;
+
+    JsonMappingEvent event = (JsonMappingEvent) jsonMapping;
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.targetType = targetType;
+      event.fieldCount = fieldCount;
+      event.commit();
+    }
+  }
+
+  /**
+   * An HTTP exchange with Facebook, from opening the connection until the
+   * response body has been read.
+   */
+  @Name("com.restfb.HttpExchange")
+  @Label("Facebook HTTP Exchange")
+  @Category({ "RestFB" })
+  @Description("An HTTP request to Facebook and the reading of its response")
+  @StackTrace(false)
+  static final class HttpExchangeEvent extends Event {
+    /**
+     * HTTP method.
+     */
+    @Label("Method")
+    String method;
+
+    /**
+     * Endpoint template.
+     */
+    @Label("Endpoint")
+    @Description("Request path with Graph object IDs replaced by {id}")
+    String endpoint;
+
+    /**
+     * HTTP status code of the response.
+     */
+    @Label("Status Code")
+    int statusCode;
+
+    /**
+     * Size of the request body.
+     */
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesSent;
+
+    /**
+     * Size of the response body.
+     */
+    @Label("Bytes Received")
+    @DataAmount
+    long bytesReceived;
+  }
+
+  /**
+   * Parsing of a JSON document.
+   */
+  @Name("com.restfb.JsonParse")
+  @Label("JSON Parse")
+  @Category({ "RestFB" })
+  @Description("Parsing of a JSON document or element")
+  @StackTrace(false)
+  static final class JsonParseEvent extends Event {
+    /**
+     * What the document was parsed into.
+     */
+    @Label("Parser")
+    String parser;
+
+    /**
+     * Length of the document in characters.
+     */
+    @Label("Length")
+    @Description("Length of the JSON in characters")
+    int length;
+  }
+
+  /**
+   * Mapping of a JSON object to a Java object.
+   */
+  @Name("com.restfb.JsonMapping")
+  @Label("JSON Mapping")
+  @Category({ "RestFB" })
+  @Description("Mapping of a JSON object to a Java object's @Facebook fields")
+  @StackTrace(false)
+  static final class JsonMappingEvent extends Event {
+    /**
+     * The Java type mapped to.
+     */
+    @Label("Target Type")
+    Class<?> targetType;
+
+    /**
+     * Number of fields mapped.
+     */
+    @Label("Field Count")
+    int fieldCount;
+  }
+}
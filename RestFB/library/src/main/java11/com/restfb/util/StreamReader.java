@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads text from streams for {@link StringUtils}.
+ * <p>
+ * Java 11+ implementation: the stream is drained in bulk with
+ * {@link InputStream#readAllBytes()} and decoded once, rather than going
+ * through a {@code BufferedReader} line by line. Line terminators are still
+ * dropped so the result is identical to the baseline implementation.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+final class StreamReader {
+  /**
+   * Prevents instantiation.
+   */
+  private StreamReader() {}
+
+  /**
+   * Reads the entire contents of {@code inputStream} as
+   * {@value StringUtils#ENCODING_CHARSET} text, dropping line terminators, and
+   * closes the stream.
+   * 
+   * @param inputStream
+   *          The stream to read. Must not be {@code null}.
+   * @return The text content of {@code inputStream} with line terminators
+   *         removed.
+   * @throws IOException
+   *           If an error occurs while processing the {@code inputStream}.
+   */
+  static String read(InputStream inputStream) throws IOException {
+    String text;
+
+    try (inputStream) {
+      text = new String(inputStream.readAllBytes(), UTF_8);
+    }
+
+    if (text.indexOf('\n') == -1 && text.indexOf('\r') == -1)
+      return text;
+
+    StringBuilder stripped = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c != '\n' && c != '\r')
+        stripped.append(c);
+    }
+
+    return stripped.toString();
+  }
+}
@@ -27,8 +27,13 @@ import static java.lang.String.format;
 import static java.util.logging.Logger.getLogger;
 
 import java.io.IOException;
+import java.util.Iterator;
+
+import junit.framework.Assert;
 
 import com.restfb.DefaultJsonMapper.JsonMappingErrorHandler;
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonObject;
 
 /**
  * @author <a href="http://restfb.com">Mark Allen</a>
@@ -56,4 +61,42 @@ public abstract class AbstractJsonMapperTests {
       throw new IllegalStateException("Unable to load JSON from the classpath", e);
     }
   }
+
+  /**
+   * Asserts that two JSON object strings are equivalent, ignoring the order of
+   * object keys (e.g. for JSON written from a {@link java.util.HashMap}).
+   */
+  protected void assertJsonObjectEquals(String expectedJson, String actualJson) {
+    Assert.assertEquals(canonicalJson(new JsonObject(expectedJson)), canonicalJson(new JsonObject(actualJson)));
+  }
+
+  /**
+   * Renders a parsed JSON value with object keys in sorted order.
+   */
+  private String canonicalJson(Object value) {
+    if (value instanceof JsonObject) {
+      JsonObject jsonObject = (JsonObject) value;
+      StringBuilder canonical = new StringBuilder("{");
+      for (Iterator<?> keys = jsonObject.sortedKeys(); keys.hasNext();) {
+        String key = (String) keys.next();
+        canonical.append(JsonObject.quote(key)).append(':').append(canonicalJson(jsonObject.get(key)));
+        if (keys.hasNext())
+          canonical.append(',');
+      }
+      return canonical.append('}').toString();
+    }
+
+    if (value instanceof JsonArray) {
+      JsonArray jsonArray = (JsonArray) value;
+      StringBuilder canonical = new StringBuilder("[");
+      for (int i = 0; i < jsonArray.length(); i++) {
+        if (i > 0)
+          canonical.append(',');
+        canonical.append(canonicalJson(jsonArray.get(i)));
+      }
+      return canonical.append(']').toString();
+    }
+
+    return value instanceof String ? JsonObject.quote((String) value) : String.valueOf(value);
+  }
 }
\ No newline at end of file
@@ -25,10 +25,18 @@ package com.restfb;
 import static com.restfb.util.DateUtils.toDateFromLongFormat;
 import static com.restfb.util.DateUtils.toDateFromMonthYearFormat;
 import static com.restfb.util.DateUtils.toDateFromShortFormat;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
 import static junit.framework.Assert.assertTrue;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
 import org.junit.Test;
 
+import com.restfb.types.Post;
+import com.restfb.util.DateUtils;
+
 /**
  * Unit tests that exercise {@link com.restfb.util.DateUtils}.
  * 
@@ -56,6 +64,65 @@ public class DateUtilsTest {
     assertTrue(toDateFromLongFormat("junk") == null);
   }
 
+  /**
+   * The fast "long" date parser must agree with {@code SimpleDateFormat} for
+   * everything it accepts, and defer to it for everything else.
+   */
+  @Test
+  public void longDatesMatchSimpleDateFormat() throws Exception {
+    SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DateUtils.FACEBOOK_LONG_DATE_FORMAT);
+
+    for (String date : new String[] { "2010-02-28T16:11:08+0000", "2010-02-28T16:11:08-0800",
+        "2012-02-29T23:59:59+0530", "1970-01-01T00:00:00+0000", "1600-03-01T00:00:00+0000",
+        "2010-02-30T16:11:08+0000", "2010-02-28T16:11:08+0000junk" })
+      assertEquals(date, simpleDateFormat.parse(date), toDateFromLongFormat(date));
+  }
+
+  /**
+   * Short and month-year dates are parsed exactly as {@code SimpleDateFormat}
+   * parses them, including single-digit fields and out-of-range days, on every
+   * runtime.
+   */
+  @Test
+  public void shortAndMonthYearDatesMatchSimpleDateFormat() throws Exception {
+    SimpleDateFormat shortFormat = new SimpleDateFormat(DateUtils.FACEBOOK_SHORT_DATE_FORMAT);
+    for (String date : new String[] { "04/15/1984", "4/15/1984", "4/5/1984", "02/30/2010" })
+      assertEquals(date, shortFormat.parse(date), toDateFromShortFormat(date));
+
+    SimpleDateFormat monthYearFormat = new SimpleDateFormat(DateUtils.FACEBOOK_MONTH_YEAR_DATE_FORMAT);
+    for (String date : new String[] { "2007-03", "2007-3", "2007-13" })
+      assertEquals(date, monthYearFormat.parse(date), toDateFromMonthYearFormat(date));
+
+    assertEquals(new SimpleDateFormat(DateUtils.FACEBOOK_LONG_DATE_FORMAT).parse("2010-02-30T00:00:00+0000"),
+      toDateFromLongFormat("2010-02-30T00:00:00+0000"));
+  }
+
+  /**
+   * ISO-8601 offsets that {@code SimpleDateFormat} doesn't understand are
+   * honored rather than being dropped.
+   */
+  @Test
+  public void longDatesWithIsoOffsets() {
+    Date expected = toDateFromLongFormat("2010-02-28T16:11:08+0000");
+    assertEquals(expected, toDateFromLongFormat("2010-02-28T16:11:08Z"));
+    assertEquals(expected, toDateFromLongFormat("2010-02-28T16:11:08+00:00"));
+    assertEquals(expected, toDateFromLongFormat("2010-02-28T08:11:08-08:00"));
+  }
+
+  /**
+   * Types parse their dates once but never hand out the cached instance.
+   */
+  @Test
+  public void memoizedDates() {
+    Post post =
+        new DefaultJsonMapper().toJavaObject("{\"id\":\"1\",\"created_time\":\"2010-02-28T16:11:08+0000\"}",
+          Post.class);
+    Date createdTime = post.getCreatedTime();
+    createdTime.setTime(0);
+    assertEquals(toDateFromLongFormat("2010-02-28T16:11:08+0000"), post.getCreatedTime());
+    assertNotSame(post.getCreatedTime(), post.getCreatedTime());
+  }
+
   /**
    * Tests the "month and year" date format.
    */
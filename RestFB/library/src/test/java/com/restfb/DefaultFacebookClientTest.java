@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.types.NamedFacebookType;
+
+/**
+ * Unit tests that exercise {@link DefaultFacebookClient} against a canned
+ * {@link WebRequestor}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class DefaultFacebookClientTest {
+  /**
+   * Access token views share their parent's collaborators and settings but
+   * send their own token.
+   */
+  @Test
+  public void accessTokenViews() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\",\"name\":\"Fred\"}");
+    DefaultFacebookClient parent = new DefaultFacebookClient("parent-token", webRequestor, new DefaultJsonMapper());
+    parent.setFieldsProjectionEnabled(true);
+
+    DefaultFacebookClient view = parent.withAccessToken(" view-token ");
+    assertSame(parent.getJsonMapper(), view.getJsonMapper());
+    assertSame(parent.getWebRequestor(), view.getWebRequestor());
+    assertTrue(view.isFieldsProjectionEnabled());
+
+    assertEquals("Fred", view.fetchObject("me", NamedFacebookType.class).getName());
+    assertTrue(webRequestor.lastUrl.indexOf("access_token=view-token") != -1);
+
+    parent.fetchObject("me", NamedFacebookType.class);
+    assertTrue(webRequestor.lastUrl.indexOf("access_token=parent-token") != -1);
+  }
+
+  /**
+   * A single client can make calls with a different access token each time,
+   * and per-call tokens take precedence over the client's own.
+   */
+  @Test
+  public void perCallAccessTokens() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\",\"name\":\"Fred\"}");
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient(null, webRequestor, new DefaultJsonMapper());
+
+    for (String accessToken : new String[] { "first", "second" }) {
+      facebookClient.fetchObject("me", NamedFacebookType.class, Parameter.withAccessToken(accessToken));
+      assertTrue(webRequestor.lastUrl.indexOf("access_token=" + accessToken) != -1);
+    }
+
+    facebookClient.fetchObject("me", NamedFacebookType.class);
+    assertTrue(webRequestor.lastUrl.indexOf("access_token") == -1);
+
+    facebookClient.withAccessToken("bound").deleteObject("123", Parameter.withAccessToken("per-call"));
+    assertTrue(webRequestor.lastUrl.indexOf("access_token=per-call") != -1);
+    assertTrue(webRequestor.lastUrl.indexOf("bound") == -1);
+  }
+
+  /**
+   * Access tokens don't show up in parameters' string representations.
+   */
+  @Test
+  public void accessTokensAreRedacted() {
+    assertEquals("Parameter[access_token=<redacted>]", Parameter.withAccessToken("secret").toString());
+    assertEquals("Parameter[limit=5]", Parameter.with("limit", 5).toString());
+  }
+
+  /**
+   * Reserved parameter names are still rejected now that the sets are shared.
+   */
+  @Test
+  public void reservedParameters() {
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient(null, new LastUrlWebRequestor("{}"), new DefaultJsonMapper()).withAccessToken("t");
+
+    try {
+      facebookClient.fetchObject("me", NamedFacebookType.class, Parameter.with("method", "delete"));
+      fail("Should have rejected the reserved parameter.");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Subclasses can still add to the shared configuration sets without
+   * affecting other clients.
+   */
+  @Test
+  public void subclassesCanExtendReservedParameters() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\",\"name\":\"Fred\"}");
+    DefaultFacebookClient restricted = new DefaultFacebookClient(null, webRequestor, new DefaultJsonMapper()) {
+      {
+        illegalParamNames.add("locale");
+        readOnlyApiCalls.remove("users.getinfo");
+      }
+    };
+
+    try {
+      restricted.fetchObject("me", NamedFacebookType.class, Parameter.with("locale", "en_US"));
+      fail("Should have rejected the subclass's reserved parameter.");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    assertTrue(restricted.illegalParamNames.contains("method"));
+    assertFalse(restricted.readOnlyApiCalls.contains("users.getinfo"));
+
+    DefaultFacebookClient plain = new DefaultFacebookClient(null, webRequestor, new DefaultJsonMapper());
+    assertEquals("Fred", plain.fetchObject("me", NamedFacebookType.class, Parameter.with("locale", "en_US")).getName());
+    assertTrue(plain.readOnlyApiCalls.contains("users.getinfo"));
+  }
+}
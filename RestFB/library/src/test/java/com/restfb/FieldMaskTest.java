@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.Arrays.asList;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+
+import com.restfb.json.JsonObject;
+import com.restfb.types.Post;
+
+/**
+ * Unit tests that exercise {@link FieldMask} parsing and masked JSON mapping.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class FieldMaskTest extends AbstractJsonMapperTests {
+  /**
+   * Can we parse nested mask specifications and write them back out?
+   */
+  @Test
+  public void parsing() {
+    FieldMask fieldMask = FieldMask.of("id, from{name}", "comments{count,data{message}}");
+    assertEquals("id,from{name},comments{count,data{message}}", fieldMask.toString());
+    assertTrue(fieldMask.includes("from"));
+    assertFalse(fieldMask.includes("to"));
+    assertNull(fieldMask.nested("id"));
+    assertTrue(fieldMask.nested("from").includes("name"));
+    assertEquals(fieldMask, FieldMask.of(fieldMask.toString()));
+  }
+
+  /**
+   * Malformed mask specifications are rejected.
+   */
+  @Test
+  public void malformed() {
+    for (String spec : new String[] { "from{name", "from}", "{name}", "a,,b" }) {
+      try {
+        FieldMask.of(spec);
+        fail("Should have rejected '" + spec + "'");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * Fields outside of the mask are left unmapped, at every level of nesting.
+   */
+  @Test
+  public void maskedMapping() {
+    Post post =
+        new DefaultJsonMapper().toJavaObject(jsonFromClasspath("post-with-normal-comments"), Post.class,
+          FieldMask.of("id,from{name},comments{data{message}}"));
+
+    assertEquals("1234", post.getId());
+    assertNull(post.getMessage());
+    assertTrue(post.getTo().isEmpty());
+    assertEquals("Manuel Martin", post.getFrom().getName());
+    assertNull(post.getFrom().getId());
+    assertNull(post.getComments().getCount());
+    assertEquals("Test comment", post.getComments().getData().get(0).getMessage());
+    assertNull(post.getComments().getData().get(0).getId());
+    assertNull(post.getComments().getData().get(0).getFrom());
+  }
+
+  /**
+   * A {@code null} mask maps everything.
+   */
+  @Test
+  public void nullMask() {
+    Post post =
+        new DefaultJsonMapper().toJavaObject(jsonFromClasspath("post-with-normal-comments"), Post.class,
+          (FieldMask) null);
+    assertEquals("hello world!", post.getMessage());
+    assertTrue(post.getComments().getCount() == 3);
+  }
+
+  /**
+   * Skipped values containing nested structures and tricky strings don't
+   * confuse the tokenizer.
+   */
+  @Test
+  public void skippedValues() {
+    JsonObject jsonObject =
+        new DefaultJsonMapper().toJavaObject(
+          "{\"a\":{\"b\":[1,{\"c\":\"}]\\\"{\"}]},\"d\":'x}',\"e\":[\"]\"],\"id\":\"42\",\"f\":null}",
+          JsonObject.class, FieldMask.of("id"));
+    assertEquals(1, jsonObject.length());
+    assertEquals("42", jsonObject.getString("id"));
+  }
+
+  /**
+   * Connections made with a {@link FacebookClient} that isn't a
+   * {@link DefaultFacebookClient} only use the methods every client has, so
+   * they still page without masks.
+   */
+  @Test
+  public void otherClientsPageWithoutMasks() {
+    final DefaultFacebookClient defaultClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"data\":[{\"id\":\"2\",\"message\":\"b\"}]}"),
+          new DefaultJsonMapper());
+    final List<String> calls = new ArrayList<String>();
+
+    FacebookClient otherClient =
+        (FacebookClient) Proxy.newProxyInstance(FacebookClient.class.getClassLoader(),
+          new Class<?>[] { FacebookClient.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+              calls.add(method.getName() + "/" + method.getParameterTypes().length);
+              return method.invoke(defaultClient, args);
+            }
+          });
+
+    Connection<Post> connection =
+        new Connection<Post>(otherClient, "{\"data\":[{\"id\":\"1\",\"message\":\"a\"}],"
+            + "\"paging\":{\"next\":\"https://graph.facebook.com/me/feed?offset=1\"}}", Post.class,
+          FieldMask.of("id"));
+    assertNull(connection.getData().get(0).getMessage());
+
+    Post next = connection.fetchNextPage().getData().get(0);
+    assertEquals("b", next.getMessage());
+    assertEquals(asList("getJsonMapper/0", "fetchConnectionPage/2"), calls);
+  }
+}
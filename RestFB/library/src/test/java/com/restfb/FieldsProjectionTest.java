@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.restfb.json.JsonObject;
+import com.restfb.types.NamedFacebookType;
+import com.restfb.util.StringUtils;
+
+/**
+ * Unit tests that exercise {@link FieldsProjection} and automatic
+ * {@code fields} projection in {@link DefaultFacebookClient}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class FieldsProjectionTest {
+  /**
+   * Nested types and connection-like wrappers are expanded, multiply-mapped
+   * names aren't, and recursive types are cut off.
+   */
+  @Test
+  public void nestedTypes() {
+    assertSameFields("from{name,id},replies,message,likes,name,id", FieldsProjection.forType(Story.class));
+    assertSameFields("count,data{from{name,id},replies,message,likes,name,id}", FieldsProjection.forType(Holder.class));
+  }
+
+  /**
+   * Types without annotated fields have no projection.
+   */
+  @Test
+  public void unprojectableTypes() {
+    assertNull(FieldsProjection.forType(String.class));
+    assertNull(FieldsProjection.forType(JsonObject.class));
+    assertNull(FieldsProjection.forContainerType(Mixed.class));
+    assertSameFields("name,id", FieldsProjection.forContainerType(Pair.class));
+  }
+
+  /**
+   * The client only adds {@code fields} when projection is turned on and the
+   * caller didn't specify it.
+   */
+  @Test
+  public void clientProjection() throws IOException {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\",\"name\":\"Fred\"}");
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient(null, webRequestor, new DefaultJsonMapper());
+
+    facebookClient.fetchObject("me", NamedFacebookType.class);
+    assertTrue(webRequestor.lastUrl.indexOf("fields=") == -1);
+
+    facebookClient.setFieldsProjectionEnabled(true);
+    facebookClient.fetchObject("me", NamedFacebookType.class);
+    assertTrue(webRequestor.lastUrl.indexOf("fields=name%2Cid") != -1
+        || webRequestor.lastUrl.indexOf("fields=id%2Cname") != -1);
+
+    facebookClient.fetchObject("me", NamedFacebookType.class, Parameter.with("fields", "id"));
+    assertTrue(webRequestor.lastUrl.indexOf("fields=id&") != -1);
+  }
+
+  /**
+   * Asserts that two projections name the same fields, in any order.
+   * {@link FieldsProjection} follows {@link Class#getDeclaredFields()}, whose
+   * order the JVM doesn't guarantee.
+   */
+  private static void assertSameFields(String expected, String actual) {
+    assertEquals(expected, sortedFields(expected), sortedFields(actual));
+  }
+
+  /**
+   * Sorts the fields at every level of a projection, e.g. {@code b,a{d,c}}
+   * becomes {@code a{c,d},b}.
+   */
+  private static String sortedFields(String projection) {
+    if (projection == null)
+      return null;
+
+    List<String> fields = new ArrayList<String>();
+    int depth = 0;
+    int start = 0;
+
+    for (int i = 0; i <= projection.length(); i++) {
+      char c = i == projection.length() ? ',' : projection.charAt(i);
+      if (c == '{')
+        depth++;
+      else if (c == '}')
+        depth--;
+      else if (c == ',' && depth == 0) {
+        String field = projection.substring(start, i);
+        int brace = field.indexOf('{');
+        fields.add(brace == -1 ? field : field.substring(0, brace) + "{"
+            + sortedFields(field.substring(brace + 1, field.length() - 1)) + "}");
+        start = i + 1;
+      }
+    }
+
+    Collections.sort(fields);
+    return StringUtils.join(fields);
+  }
+
+  static class Story {
+    @Facebook
+    NamedFacebookType from;
+
+    @Facebook
+    Replies replies;
+
+    @Facebook
+    String message;
+
+    @Facebook("likes")
+    Long likesCount;
+
+    @Facebook
+    List<NamedFacebookType> likes;
+
+    @Facebook
+    String name;
+
+    @Facebook
+    String id;
+  }
+
+  static class Replies {
+    @Facebook
+    Long count;
+
+    @Facebook
+    List<Story> data = new ArrayList<Story>();
+  }
+
+  static class Holder {
+    @Facebook
+    Long count;
+
+    @Facebook("data")
+    Replies stories;
+  }
+
+  static class Pair {
+    @Facebook("first")
+    NamedFacebookType first;
+
+    @Facebook("second")
+    NamedFacebookType second;
+  }
+
+  static class Mixed {
+    @Facebook("first")
+    NamedFacebookType first;
+
+    @Facebook("second")
+    Story second;
+  }
+
+  /**
+   * Returns a canned response and remembers the last URL requested.
+   */
+  static class LastUrlWebRequestor implements WebRequestor {
+    String lastUrl;
+    private final String json;
+
+    LastUrlWebRequestor(String json) {
+      this.json = json;
+    }
+
+    public Response executeGet(String url) throws IOException {
+      lastUrl = url;
+      return new Response(HTTP_OK, json);
+    }
+
+    public Response executePost(String url, String parameters) throws IOException {
+      return executePost(url, parameters, (BinaryAttachment[]) null);
+    }
+
+    public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments)
+        throws IOException {
+      lastUrl = url + "?" + parameters;
+      return new Response(HTTP_OK, json);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.restfb.exception.FacebookOAuthException;
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonIndex;
+import com.restfb.json.JsonObject;
+import com.restfb.types.User;
+
+/**
+ * Unit tests that exercise {@link JsonIndex} and the code that reads
+ * responses through it.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class JsonIndexTest extends AbstractJsonMapperTests {
+  /**
+   * Nested values can be navigated to and decoded.
+   */
+  @Test
+  public void navigation() {
+    JsonIndex index =
+        JsonIndex.parse(" {\"data\": [ {\"id\":\"1\", \"n\": 12}, \"two\", [], null, 1.5e2, true ],"
+            + " \"paging\": {\"next\": \"http:\\/\\/x?a=\\u0062\"}, \"empty\": {}} ");
+    int root = index.root();
+
+    assertTrue(index.isObject(root));
+    assertEquals(3, index.size(root));
+    assertEquals("data,paging,empty", join(index.keys(root)));
+    assertEquals(-1, index.get(root, "missing"));
+
+    int data = index.get(root, "data");
+    assertTrue(index.isArray(data));
+    assertEquals(6, index.size(data));
+
+    int element = index.firstElement(data);
+    assertEquals("1", index.getString(index.get(element, "id")));
+    assertEquals(12, index.getValue(index.get(element, "n")));
+    assertEquals("{\"id\":\"1\", \"n\": 12}", index.getRawJson(element));
+
+    element = index.nextElement(element);
+    assertTrue(index.isString(element));
+    assertEquals("two", index.getString(element));
+
+    element = index.nextElement(element);
+    assertEquals(-1, index.firstElement(element));
+
+    element = index.nextElement(element);
+    assertTrue(index.isNull(element));
+    assertEquals(JsonObject.NULL, index.getValue(element));
+
+    element = index.nextElement(element);
+    assertEquals(150.0, index.getValue(element));
+
+    element = index.nextElement(element);
+    assertEquals(Boolean.TRUE, index.getValue(element));
+    assertEquals(-1, index.nextElement(element));
+
+    assertEquals("http://x?a=b", index.getString(index.get(index.get(root, "paging"), "next")));
+    assertEquals(0, index.size(index.get(root, "empty")));
+  }
+
+  /**
+   * Escaped keys are matched by their decoded text.
+   */
+  @Test
+  public void escapedKeys() {
+    JsonIndex index = JsonIndex.parse("{\"a\\\"b\":1,\"\\u0063\":2}");
+    assertEquals("1", index.getString(index.get(index.root(), "a\"b")));
+    assertEquals("2", index.getString(index.get(index.root(), "c")));
+  }
+
+  /**
+   * Containers past the maximum depth are opaque but still readable.
+   */
+  @Test
+  public void maxDepth() {
+    JsonIndex index = JsonIndex.parse("{\"error\":{\"type\":\"OAuthException\",\"message\":\"[}\"}}", 1);
+    int error = index.get(index.root(), "error");
+
+    assertTrue(index.isObject(error));
+    assertEquals("OAuthException", ((JsonObject) index.getValue(error)).getString("type"));
+
+    try {
+      index.get(error, "type");
+      fail("Opaque nodes can't be navigated into.");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Non-standard JSON is rejected by {@link JsonIndex#parse(String)} but
+   * accepted by {@link JsonIndex#parseLenient(String, int)}.
+   */
+  @Test
+  public void malformed() {
+    for (String json : new String[] { "", "{", "{\"a\":1", "{\"a\" 1}", "{'a':1}", "{a:1}", "[1,]x", "[tru]",
+        "{\"a\":\"b}", "[1] 2" })
+      try {
+        JsonIndex.parse(json);
+        fail("Should have rejected " + json);
+      } catch (JsonException e) {
+        // Expected
+      }
+
+    JsonIndex index = JsonIndex.parseLenient("{'a':'b', c = 1}", Integer.MAX_VALUE);
+    assertEquals("b", index.getString(index.get(index.root(), "a")));
+    assertEquals("1", index.getString(index.get(index.root(), "c")));
+  }
+
+  /**
+   * Lists, connections and error responses read through the index the same
+   * way they did through a full parse.
+   */
+  @Test
+  public void consumers() {
+    List<User> users =
+        createJsonMapper().toJavaList("{\"data\":[{\"id\":\"1\",\"name\":\"A\"},{\"id\":\"2\"}]}", User.class);
+    assertEquals(2, users.size());
+    assertEquals("A", users.get(0).getName());
+    assertEquals("2", users.get(1).getId());
+
+    List<String> strings = createJsonMapper().toJavaList("['a', 'b\\\"c']", String.class);
+    assertEquals("b\"c", strings.get(1));
+
+    Connection<JsonObject> connection =
+        new Connection<JsonObject>(new DefaultFacebookClient(),
+          "{\"data\":[{\"id\":\"1\"}],\"paging\":{\"next\":\"https://graph.facebook.com/me/home?until=1\"}}",
+          JsonObject.class);
+    assertEquals("1", connection.getData().get(0).getString("id"));
+    assertTrue(connection.hasNext());
+    assertFalse(connection.hasPrevious());
+    assertEquals("https://graph.facebook.com/me/home?until=1", connection.getNextPageUrl());
+
+    try {
+      new DefaultFacebookClient()
+        .throwFacebookResponseStatusExceptionIfNecessary("{\"error\":{\"type\":\"OAuthException\",\"message\":\"m\"}}");
+      fail("Should have detected the error.");
+    } catch (FacebookOAuthException e) {
+      assertEquals("m", e.getErrorMessage());
+    }
+  }
+
+  /**
+   * Joins strings with commas.
+   * 
+   * @param strings
+   *          The strings to join.
+   * @return The joined strings.
+   */
+  private static String join(String[] strings) {
+    StringBuilder joined = new StringBuilder();
+    for (String string : strings)
+      joined.append(joined.length() == 0 ? "" : ",").append(string);
+    return joined.toString();
+  }
+}
@@ -22,12 +22,16 @@
 
 package com.restfb;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 
 import org.junit.Test;
 
+import com.restfb.exception.FacebookJsonMappingException;
 import com.restfb.types.FacebookType;
 import com.restfb.types.User;
 
@@ -73,6 +77,55 @@ public class JsonMapperErrorSwallowingTest extends AbstractJsonMapperTests {
     assertTrue(users.size() == 3);
   }
 
+  /**
+   * Short offending JSON is quoted in full; long JSON is cut down to an excerpt
+   * around the problem.
+   */
+  @Test
+  public void mappingExceptionMessages() {
+    try {
+      createJsonMapper().toJavaObject("[1]", User.class);
+      fail();
+    } catch (FacebookJsonMappingException e) {
+      assertEquals("JSON is an array but is being mapped as an object - you should map it as a List instead. "
+          + "Offending JSON is '[1]'.", e.getMessage());
+    }
+
+    StringBuilder padding = new StringBuilder();
+    for (int i = 0; i < 1000; i++)
+      padding.append("padding ");
+    String json = "{\"about\":\"" + padding + "\",\"id\" 123, \"name\":\"" + padding + "\"}";
+
+    try {
+      createJsonMapper().toJavaObject(json, User.class);
+      fail();
+    } catch (FacebookJsonMappingException e) {
+      assertSame(json, e.getOffendingJson());
+      assertTrue(e.getOffset() > 8000 && e.getOffset() < 8030);
+      assertTrue(e.getMessage().length() < 2 * FacebookJsonMappingException.MAX_JSON_EXCERPT_LENGTH);
+      assertTrue(e.getMessage().contains("\"id\" 123"));
+      assertTrue(e.getMessage().endsWith(" of " + json.length() + ", problem at " + e.getOffset() + ")."));
+      assertTrue(e.getStackTrace().length > 0);
+    }
+  }
+
+  /**
+   * Mapping exceptions can skip stack trace capture.
+   */
+  @Test
+  public void mappingExceptionsWithoutStackTraces() {
+    DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+    jsonMapper.setMappingErrorStackTracesEnabled(false);
+
+    try {
+      jsonMapper.toJavaObject("{\"id\":", User.class);
+      fail();
+    } catch (FacebookJsonMappingException e) {
+      assertEquals(0, e.getStackTrace().length);
+      assertTrue(e.getMessage().startsWith("Unable to map JSON to Java. Offending JSON is '{\"id\":'."));
+    }
+  }
+
   static class MostlyIncorrectUser {
     // Incorrect mapping
     @Facebook
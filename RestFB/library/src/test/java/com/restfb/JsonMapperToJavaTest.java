@@ -22,17 +22,24 @@
 
 package com.restfb;
 
+import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertTrue;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 
+import com.restfb.json.JsonObject;
 import com.restfb.types.NamedFacebookType;
 import com.restfb.types.Post;
 import com.restfb.types.User;
+import com.restfb.util.DateUtils;
+import com.restfb.util.ReflectionUtils.FieldWithAnnotation;
 
 /**
  * Unit tests that exercise {@link JsonMapper} implementations, specifically the
@@ -250,6 +257,41 @@ public class JsonMapperToJavaTest extends AbstractJsonMapperTests {
     assertTrue(post2.getLikesCount() == 49);
   }
 
+  /**
+   * Multiply-mapped fields are picked by the shape of the JSON value, so the
+   * mappings that can't work are never attempted.
+   */
+  @Test
+  public void multipleMappingsDispatchOnShape() {
+    final List<String> attemptedFields = new ArrayList<String>();
+    JsonMapper jsonMapper = new DefaultJsonMapper() {
+      @Override
+      protected Object toJavaType(FieldWithAnnotation<Facebook> fieldWithAnnotation, JsonObject jsonObject,
+          String facebookFieldName, FieldMask fieldMask) {
+        Field field = fieldWithAnnotation.getField();
+        if (field.getDeclaringClass().equals(Post.class) || field.getDeclaringClass().equals(User.class))
+          attemptedFields.add(field.getName());
+        return super.toJavaType(fieldWithAnnotation, jsonObject, facebookFieldName, fieldMask);
+      }
+    };
+
+    jsonMapper.toJavaObject(jsonFromClasspath("post-with-likes-v1"), Post.class);
+    Assert.assertEquals(asList("likesCount"), attemptedFields);
+
+    attemptedFields.clear();
+    jsonMapper.toJavaObject(jsonFromClasspath("post-with-likes-v2"), Post.class);
+    Assert.assertEquals(asList("likes"), attemptedFields);
+
+    attemptedFields.clear();
+    User user = jsonMapper.toJavaObject("{\"hometown\":\"Beograd\",\"username\":\"ana\"}", User.class);
+    Assert.assertEquals(asList("username", "hometownAsString"), attemptedFields);
+    assertTrue("Beograd".equals(user.getHometownName()));
+    assertTrue(user.getHometown() == null);
+
+    Post post = jsonMapper.toJavaObject("{\"likes\":\"7\"}", Post.class);
+    assertTrue(post.getLikesCount() == 7);
+  }
+
   /**
    * Makes sure we handle "null" when inside of a list instead of throwing a
    * mapping exception.
@@ -260,6 +302,54 @@ public class JsonMapperToJavaTest extends AbstractJsonMapperTests {
     assertTrue(types.size() == 3);
   }
 
+  /**
+   * Can we map date strings and timestamps directly to date-typed fields?
+   */
+  @Test
+  public void dateFields() {
+    Dates dates =
+        createJsonMapper().toJavaObject(
+          "{\"created_time\":\"2010-02-28T16:11:08+0000\",\"day\":\"04/15/1984\",\"seconds\":1267373468,"
+              + "\"millis\":\"1267373468000\",\"missing\":null,\"junk\":\"junk\"}", Dates.class);
+    Assert.assertEquals(1267373468000L, dates.createdTime.getTime());
+    Assert.assertEquals(DateUtils.toDateFromShortFormat("04/15/1984"), dates.day);
+    Assert.assertEquals(1267373468000L, dates.seconds);
+    Assert.assertEquals(Long.valueOf(1267373468000L), dates.millis);
+    Assert.assertNull(dates.missing);
+    Assert.assertNull(dates.junk);
+  }
+
+  /**
+   * Types store their dates already parsed.
+   */
+  @Test
+  public void typesWithDates() {
+    Post post = createJsonMapper().toJavaObject(jsonFromClasspath("post-with-normal-comments"), Post.class);
+    Assert.assertEquals(DateUtils.toDateFromLongFormat("2010-09-14T22:41:25+0000"), post.getCreatedTime());
+    Assert.assertEquals(DateUtils.toDateFromLongFormat("2010-09-15T16:09:21+0000"), post.getComments().getData()
+      .get(0).getCreatedTime());
+  }
+
+  static class Dates {
+    @Facebook("created_time")
+    Date createdTime;
+
+    @Facebook(dateFormat = DateUtils.FACEBOOK_SHORT_DATE_FORMAT)
+    Date day;
+
+    @Facebook(dateFormat = DateUtils.EPOCH_SECONDS_FORMAT)
+    long seconds;
+
+    @Facebook(dateFormat = DateUtils.EPOCH_MILLISECONDS_FORMAT)
+    Long millis;
+
+    @Facebook
+    Date missing;
+
+    @Facebook
+    Date junk;
+  }
+
   static class BasicUser {
     @Facebook
     Long uid;
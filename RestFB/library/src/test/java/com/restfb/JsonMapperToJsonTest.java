@@ -22,9 +22,13 @@
 
 package com.restfb;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +37,9 @@ import junit.framework.Assert;
 
 import org.junit.Test;
 
+import com.restfb.json.JsonObject;
+import com.restfb.util.DateUtils;
+
 /**
  * Unit tests that exercise {@link JsonMapper} implementations, specifically the
  * "convert Java to JSON" functionality.
@@ -112,8 +119,7 @@ public class JsonMapperToJsonTest extends AbstractJsonMapperTests {
 
     String json = createJsonMapper().toJson(userWithPhotos);
 
-    Assert
-      .assertTrue("{\"uid\":12345,\"photos\":[{\"id\":null,\"location\":null},{\"id\":5678,\"location\":\"Las Vegas\"}],\"name\":null}"
+    Assert.assertTrue("{\"photos\":[{\"id\":null,\"location\":null},{\"id\":5678,\"location\":\"Las Vegas\"}],\"uid\":12345,\"name\":null}"
         .equals(json));
   }
 
@@ -150,8 +156,7 @@ public class JsonMapperToJsonTest extends AbstractJsonMapperTests {
     attachment.media = media;
 
     String json = createJsonMapper().toJson(attachment);
-    Assert
-      .assertTrue("{\"description\":\"a funny looking cat\",\"name\":\"i'm bursting with joy\",\"caption\":\"{*actor*} rated the lolcat 5 stars\",\"properties\":{\"category\":{\"text\":\"humor\",\"href\":\"http://bit.ly/KYbaN\"},\"ratings\":\"5 stars\"},\"media\":[{\"src\":\"http://icanhascheezburger.files.wordpress.com/2009/03/funny-pictures-your-cat-is-bursting-with-joy1.jpg\",\"type\":\"image\",\"href\":\"http://bit.ly/187gO1\"}],\"href\":\"http://bit.ly/187gO1\"}"
+    Assert.assertTrue("{\"name\":\"i'm bursting with joy\",\"href\":\"http://bit.ly/187gO1\",\"caption\":\"{*actor*} rated the lolcat 5 stars\",\"description\":\"a funny looking cat\",\"properties\":{\"category\":{\"text\":\"humor\",\"href\":\"http://bit.ly/KYbaN\"},\"ratings\":\"5 stars\"},\"media\":[{\"type\":\"image\",\"src\":\"http://icanhascheezburger.files.wordpress.com/2009/03/funny-pictures-your-cat-is-bursting-with-joy1.jpg\",\"href\":\"http://bit.ly/187gO1\"}]}"
         .equals(json));
   }
 
@@ -178,9 +183,106 @@ public class JsonMapperToJsonTest extends AbstractJsonMapperTests {
     map.put("basicUser", basicUser);
 
     String json = createJsonMapper().toJson(map);
-    Assert
-      .assertTrue("{\"floatId\":123.45,\"testId\":412,\"basicUser\":{\"uid\":12345,\"photos\":null,\"name\":\"Fred\"}}"
-        .equals(json));
+
+    // Map entries are written in the Map's iteration order, which HashMap leaves unspecified
+    assertJsonObjectEquals("{\"floatId\":123.45,\"testId\":412,\"basicUser\":{\"uid\":12345,\"photos\":null,\"name\":\"Fred\"}}", json);
+  }
+
+  /**
+   * Are date fields written in their declared formats, so they map back to the
+   * same values?
+   */
+  @Test
+  public void dates() {
+    DatedEvent datedEvent = new DatedEvent();
+    datedEvent.startTime = new Date(1267373468000L);
+    datedEvent.day = DateUtils.toDateFromShortFormat("04/15/1984");
+    datedEvent.seconds = 1267373468000L;
+
+    String json = createJsonMapper().toJson(datedEvent);
+    assertJsonObjectEquals(
+      "{\"start_time\":\"2010-02-28T16:11:08+0000\",\"day\":\"04/15/1984\",\"seconds\":1267373468,\"end_time\":null}",
+      json);
+
+    DatedEvent mapped = createJsonMapper().toJavaObject(json, DatedEvent.class);
+    Assert.assertEquals(datedEvent.startTime, mapped.startTime);
+    Assert.assertEquals(datedEvent.day, mapped.day);
+    Assert.assertEquals(datedEvent.seconds, mapped.seconds);
+    Assert.assertNull(mapped.endTime);
+  }
+
+  /**
+   * Are strings escaped the same way {@code JsonObject} has always escaped
+   * them?
+   */
+  @Test
+  public void escaping() {
+    List<Object> list = new ArrayList<Object>();
+    list.add("a\"b\\c</d/\u0001\u0085\u00e9\u2028\b\t\n\f\r");
+    list.add('"');
+    list.add(1.50D);
+
+    Assert.assertEquals("[\"a\\\"b\\\\c<\\/d/\\u0001\\u0085\u00e9\\u2028\\b\\t\\n\\f\\r\",\"\\\"\",1.5]",
+      createJsonMapper().toJson(list));
+  }
+
+  /**
+   * Does streaming to an {@code Appendable} or {@code OutputStream} produce
+   * the same JSON as {@link JsonMapper#toJson(Object)}?
+   */
+  @Test
+  public void streaming() throws IOException {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("name", "Caf\u00e9");
+    map.put("ids", new ArrayList<Object>(Arrays.asList(1, 2L, null)));
+
+    DefaultJsonMapper jsonMapper = new DefaultJsonMapper();
+    String json = jsonMapper.toJson(map);
+
+    StringBuilder appendable = new StringBuilder();
+    jsonMapper.toJson(map, false, appendable);
+    Assert.assertEquals(json, appendable.toString());
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jsonMapper.toJson(map, false, outputStream);
+    Assert.assertEquals(json, new String(outputStream.toByteArray(), "UTF-8"));
+  }
+
+  /**
+   * Subclasses that override the deprecated {@code toJsonInternal} still have
+   * their override called.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void toJsonInternalOverride() {
+    JsonMapper jsonMapper = new DefaultJsonMapper() {
+      @Override
+      protected Object toJsonInternal(Object object, boolean ignoreNullValuedProperties) {
+        Object json = super.toJsonInternal(object, ignoreNullValuedProperties);
+        if (json instanceof JsonObject)
+          ((JsonObject) json).put("wrapped", true);
+        return json;
+      }
+    };
+
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("name", "Fred");
+    Assert.assertEquals("{\"name\":\"Fred\",\"wrapped\":true}", jsonMapper.toJson(map));
+    Assert.assertEquals("Fred", jsonMapper.toJson("Fred"));
+  }
+
+  static class DatedEvent {
+    @Facebook("start_time")
+    Date startTime;
+
+    @Facebook("end_time")
+    Date endTime;
+
+    @Facebook(dateFormat = DateUtils.FACEBOOK_SHORT_DATE_FORMAT)
+    Date day;
+
+    @Facebook(dateFormat = DateUtils.EPOCH_SECONDS_FORMAT)
+    long seconds;
   }
 
   static class BasicUser {
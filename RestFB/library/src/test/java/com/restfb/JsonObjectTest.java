@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.restfb.json.JsonObject;
+
+/**
+ * Unit tests that exercise {@link JsonObject}'s compact backing store and key
+ * canonicalization.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class JsonObjectTest {
+  /**
+   * Small and large objects support the usual map operations, and keep their
+   * keys in insertion order.
+   */
+  @Test
+  public void mapOperations() {
+    for (int keyCount : new int[] { 3, 8, 9, 100 }) {
+      JsonObject jsonObject = new JsonObject();
+      for (int i = 0; i < keyCount; i++)
+        jsonObject.put("key" + i, i);
+
+      assertEquals(keyCount, jsonObject.length());
+      assertEquals(keyCount - 1, jsonObject.getInt("key" + (keyCount - 1)));
+      assertFalse(jsonObject.has("missing"));
+
+      jsonObject.put("key0", "replaced");
+      assertEquals("replaced", jsonObject.getString("key0"));
+      assertEquals(keyCount, jsonObject.length());
+
+      assertEquals(1, jsonObject.remove("key1"));
+      assertNull(jsonObject.opt("key1"));
+      assertEquals(keyCount - 1, jsonObject.length());
+      assertEquals(keyCount - 1, jsonObject.getInt("key" + (keyCount - 1)));
+
+      List<Object> keys = new ArrayList<Object>();
+      for (Iterator<?> i = jsonObject.keys(); i.hasNext();)
+        keys.add(i.next());
+      assertEquals("key0", keys.get(0));
+      assertEquals("key2", keys.get(1));
+      assertEquals("key" + (keyCount - 1), keys.get(keys.size() - 1));
+    }
+  }
+
+  /**
+   * Removing through a key iterator works for small and large objects.
+   */
+  @Test
+  public void iteratorRemoval() {
+    for (int keyCount : new int[] { 5, 20 }) {
+      JsonObject jsonObject = new JsonObject();
+      for (int i = 0; i < keyCount; i++)
+        jsonObject.put("key" + i, i);
+
+      for (Iterator<?> i = jsonObject.keys(); i.hasNext();)
+        if (((String) i.next()).length() == 4)
+          i.remove();
+
+      assertEquals(Math.max(0, keyCount - 10), jsonObject.length());
+      assertTrue(keyCount == 5 || jsonObject.getInt("key19") == 19);
+    }
+  }
+
+  /**
+   * Parsed keys are canonicalized, so repeated keys share one instance.
+   */
+  @Test
+  public void keysAreCanonicalized() {
+    JsonObject first = new JsonObject("{\"created_time\":1,\"k\\u0065y\":2}");
+    JsonObject second = new JsonObject("{\"key\":3,'created_time':4}");
+
+    assertSame(keyNamed("created_time", first), keyNamed("created_time", second));
+    assertSame(keyNamed("key", first), keyNamed("key", second));
+    assertEquals(4, second.getInt("created_time"));
+  }
+
+  /**
+   * Gets the instance of the key equal to {@code name} used by
+   * {@code jsonObject}.
+   */
+  private static Object keyNamed(String name, JsonObject jsonObject) {
+    for (Iterator<?> i = jsonObject.keys(); i.hasNext();) {
+      Object key = i.next();
+      if (name.equals(key))
+        return key;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.restfb.util.StringUtils;
+
+/**
+ * Checks that the integration test run really exercises the packaged
+ * multi-release JAR, so the unit tests it repeats cover the
+ * {@code META-INF/versions/11} classes too.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class MultiReleaseJarIT {
+  /**
+   * Versioned helpers are loaded from {@code META-INF/versions/11}.
+   */
+  @Test
+  public void versionedClassesAreLoaded() {
+    String stringUtils = String.valueOf(StringUtils.class.getResource("StringUtils.class"));
+    assertTrue(stringUtils, stringUtils.startsWith("jar:"));
+
+    String streamReader = String.valueOf(StringUtils.class.getResource("StreamReader.class"));
+    assertTrue(streamReader, streamReader.contains("/META-INF/versions/11/"));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.Arrays.asList;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.types.NamedFacebookType;
+
+/**
+ * Unit tests that exercise {@link PreparedRequest}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class PreparedRequestTest {
+  /**
+   * Prepared requests send exactly what the equivalent ad-hoc call sends.
+   */
+  @Test
+  public void matchesAdHocCalls() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\",\"name\":\"Fred & co\"}");
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient("a|b", webRequestor, new DefaultJsonMapper());
+    facebookClient.setFieldsProjectionEnabled(true);
+
+    facebookClient.fetchObject("12345", NamedFacebookType.class, Parameter.with("since", "a b&c"));
+    String expectedUrl = webRequestor.lastUrl;
+
+    PreparedRequest<NamedFacebookType> preparedRequest =
+        facebookClient.prepareFetchObject("/{id}", NamedFacebookType.class, null, Parameter.with("since", "{since}"));
+    assertEquals(asList("id", "since"), preparedRequest.getVariableNames());
+    assertEquals("Fred & co", preparedRequest.execute("12345", "a b&c").getName());
+    assertEquals(expectedUrl, webRequestor.lastUrl);
+
+    facebookClient.fetchObject("me", NamedFacebookType.class);
+    expectedUrl = webRequestor.lastUrl;
+    facebookClient.prepareFetchObject("me", NamedFacebookType.class, null).execute();
+    assertEquals(expectedUrl, webRequestor.lastUrl);
+  }
+
+  /**
+   * Connections, repeated variables, per-call access tokens and values that
+   * only look like placeholders.
+   */
+  @Test
+  public void variables() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"data\":[{\"id\":\"1\"}]}");
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient(null, webRequestor, new DefaultJsonMapper());
+
+    PreparedRequest<Connection<NamedFacebookType>> preparedRequest =
+        facebookClient.prepareFetchConnection("{id}/feed", NamedFacebookType.class, null,
+          Parameter.with("until", "{until}"), Parameter.with("ids", "{id}"), Parameter.with("q", "x{not}"),
+          Parameter.withAccessToken("{token}"));
+    assertEquals(asList("id", "until", "token"), preparedRequest.getVariableNames());
+
+    assertEquals("1", preparedRequest.execute("page", "1318896000", "t1").getData().get(0).getId());
+    assertEquals("https://graph.facebook.com/page/feed?until=1318896000&ids=page&q=x%7Bnot%7D&access_token=t1"
+        + "&format=json", webRequestor.lastUrl);
+  }
+
+  /**
+   * Reserved parameters are rejected when preparing, and bad values when
+   * executing.
+   */
+  @Test
+  public void validation() {
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient(null, new LastUrlWebRequestor("{}"), new DefaultJsonMapper());
+
+    try {
+      facebookClient.prepareFetchObject("me", NamedFacebookType.class, null, Parameter.with("format", "xml"));
+      fail("Should have rejected the reserved parameter.");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    PreparedRequest<NamedFacebookType> preparedRequest =
+        facebookClient.prepareFetchObject("{id}", NamedFacebookType.class, null);
+
+    for (String[] values : new String[][] { {}, { "1", "2" }, { " " } })
+      try {
+        preparedRequest.execute(values);
+        fail("Should have rejected " + asList(values));
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import com.restfb.exception.FacebookNetworkException;
+import com.restfb.types.FacebookType;
+import com.restfb.types.User;
+import com.restfb.util.StringUtils;
+
+/**
+ * Unit tests that exercise {@link RecordingWebRequestor} and
+ * {@link ReplayingWebRequestor}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class RecordReplayWebRequestorTest {
+  /**
+   * Recorded exchanges replay through a client with a different access token.
+   */
+  @Test
+  public void recordAndReplay() throws IOException {
+    ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    RecordingWebRequestor recorder = new RecordingWebRequestor(new StubWebRequestor(), archive);
+    FacebookClient facebookClient = new DefaultFacebookClient("secret-token", recorder, new DefaultJsonMapper());
+
+    assertEquals("Mark", facebookClient.fetchObject("4", User.class).getName());
+    assertEquals("5", facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Hi")).getId());
+    try {
+      facebookClient.fetchObject("broken", User.class);
+      fail("Expected a network exception");
+    } catch (FacebookNetworkException e) {
+      // Recorded as a failed exchange
+    }
+
+    recorder.close();
+    assertEquals(3, recorder.getExchangeCount());
+    assertFalse(StringUtils.fromInputStream(new GZIPInputStream(new ByteArrayInputStream(archive.toByteArray())))
+      .contains("secret-token"));
+
+    ReplayingWebRequestor replayer = new ReplayingWebRequestor(new ByteArrayInputStream(archive.toByteArray()), 0);
+    facebookClient = new DefaultFacebookClient("other-token", replayer, new DefaultJsonMapper());
+
+    assertEquals(3, replayer.getExchangeCount());
+    for (int i = 0; i < 2; i++) {
+      assertEquals("Mark", facebookClient.fetchObject("4", User.class).getName());
+      assertEquals("5", facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Hi"))
+        .getId());
+    }
+
+    try {
+      facebookClient.fetchObject("broken", User.class);
+      fail("Expected a network exception");
+    } catch (FacebookNetworkException e) {
+      assertEquals("Connection reset", e.getCause().getMessage());
+    }
+  }
+
+  /**
+   * Requests that were never recorded fail.
+   */
+  @Test
+  public void unrecordedRequest() throws IOException {
+    ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    new RecordingWebRequestor(new StubWebRequestor(), archive).close();
+
+    try {
+      new ReplayingWebRequestor(new ByteArrayInputStream(archive.toByteArray()), 0)
+        .executeGet("https://graph.facebook.com/4");
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("No recorded exchange for GET"));
+    }
+  }
+
+  /**
+   * Secrets in response bodies, such as paging URLs, are redacted too.
+   */
+  @Test
+  public void responseBodiesAreRedacted() throws IOException {
+    ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    RecordingWebRequestor recorder =
+        new RecordingWebRequestor(new BodyWebRequestor("{\"data\":[],\"paging\":{\"next\":"
+            + "\"https://graph.facebook.com/me/feed?access_token=secret-token&limit=25\"}}"), archive);
+
+    recorder.executeGet("https://graph.facebook.com/me/feed");
+    recorder.close();
+
+    String recorded = StringUtils.fromInputStream(new GZIPInputStream(new ByteArrayInputStream(archive.toByteArray())));
+    assertFalse(recorded.contains("secret-token"));
+    assertTrue(recorded.contains("access_token=<redacted>&limit=25\"}}"));
+  }
+
+  /**
+   * Requests still work when the archive can't be written - because the disk
+   * is full, or the recorder has been closed - they just aren't recorded.
+   */
+  @Test
+  public void archiveFailuresDontFailRequests() throws IOException {
+    // Random text doesn't compress, so it gets past the GZIP buffer
+    Random random = new Random(42);
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 200000; i++)
+      body.append((char) ('a' + random.nextInt(26)));
+
+    DiskOutputStream disk = new DiskOutputStream();
+    RecordingWebRequestor recorder = new RecordingWebRequestor(new BodyWebRequestor(body.toString()), disk);
+
+    recorder.executeGet("https://graph.facebook.com/me");
+    assertEquals(1, recorder.getExchangeCount());
+
+    disk.full = true;
+    for (int i = 0; i < 3; i++)
+      assertEquals(body.toString(), recorder.executeGet("https://graph.facebook.com/me").getBody());
+
+    // Once the archive is broken, nothing more is written to it
+    disk.full = false;
+    assertEquals(body.toString(), recorder.executePost("https://graph.facebook.com/me", "").getBody());
+    assertEquals(1, recorder.getExchangeCount());
+
+    recorder = new RecordingWebRequestor(new BodyWebRequestor("{}"), new ByteArrayOutputStream());
+    recorder.close();
+    assertEquals("{}", recorder.executeGet("https://graph.facebook.com/me").getBody());
+    assertEquals(0, recorder.getExchangeCount());
+  }
+
+  /**
+   * Answers {@code GET}s for user 4, any {@code POST}, and fails everything else.
+   */
+  static class StubWebRequestor implements WebRequestor {
+    public Response executeGet(String url) throws IOException {
+      if (!url.startsWith("https://graph.facebook.com/4?"))
+        throw new IOException("Connection reset");
+      return new Response(HTTP_OK, "{\"id\":\"4\",\"name\":\"Mark\"}");
+    }
+
+    public Response executePost(String url, String parameters) throws IOException {
+      return executePost(url, parameters, (BinaryAttachment[]) null);
+    }
+
+    public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments)
+        throws IOException {
+      return new Response(HTTP_OK, "{\"id\":\"5\"}");
+    }
+  }
+
+  /**
+   * Answers every request with the same body.
+   */
+  static class BodyWebRequestor implements WebRequestor {
+    private final String body;
+
+    BodyWebRequestor(String body) {
+      this.body = body;
+    }
+
+    public Response executeGet(String url) {
+      return new Response(HTTP_OK, body);
+    }
+
+    public Response executePost(String url, String parameters) {
+      return executePost(url, parameters, (BinaryAttachment[]) null);
+    }
+
+    public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments) {
+      return new Response(HTTP_OK, body);
+    }
+  }
+
+  /**
+   * Discards what's written to it until it's {@code full}, then fails.
+   */
+  static class DiskOutputStream extends OutputStream {
+    volatile boolean full;
+
+    @Override
+    public void write(int b) throws IOException {
+      if (full)
+        throw new IOException("No space left on device");
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (full)
+        throw new IOException("No space left on device");
+    }
+  }
+}
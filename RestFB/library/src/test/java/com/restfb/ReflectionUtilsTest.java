@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+import com.restfb.types.NamedFacebookType;
+import com.restfb.types.Post;
+import com.restfb.util.ReflectionUtils;
+
+/**
+ * Unit tests that exercise {@link ReflectionUtils}'s reflective
+ * {@code equals}/{@code hashCode}/{@code toString}, its metadata caches, and
+ * the identity semantics
+ * of {@link com.restfb.types.FacebookType}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class ReflectionUtilsTest extends AbstractJsonMapperTests {
+  /**
+   * Accessor metadata is computed once per class.
+   */
+  @Test
+  public void accessorsAreCached() {
+    assertSame(ReflectionUtils.getAccessors(Post.class), ReflectionUtils.getAccessors(Post.class));
+    assertEquals("getCount", ReflectionUtils.getAccessors(Story.class).get(0).getName());
+    assertEquals("getMessage", ReflectionUtils.getAccessors(Story.class).get(1).getName());
+  }
+
+  /**
+   * Property-based behavior for objects without an ID.
+   */
+  @Test
+  public void withoutIds() {
+    Story story1 = new Story("hello", 1);
+    Story story2 = new Story("hello", 1);
+
+    assertEquals("Story[count=1 message=hello]", story1.toString());
+    assertTrue(ReflectionUtils.equals(story1, story2));
+    assertEquals(ReflectionUtils.hashCode(story1), ReflectionUtils.hashCode(story2));
+    assertFalse(ReflectionUtils.equals(story1, new Story("hello", 2)));
+
+    NamedFacebookType named1 = createJsonMapper().toJavaObject("{\"name\":\"Fred\"}", NamedFacebookType.class);
+    NamedFacebookType named2 = createJsonMapper().toJavaObject("{\"name\":\"Fred\"}", NamedFacebookType.class);
+    NamedFacebookType named3 = createJsonMapper().toJavaObject("{\"name\":\"Ann\"}", NamedFacebookType.class);
+    assertEquals(named1, named2);
+    assertEquals(named1.hashCode(), named2.hashCode());
+    assertFalse(named1.equals(named3));
+  }
+
+  /**
+   * Graph API objects with IDs are equal if their class and ID match.
+   */
+  @Test
+  public void withIds() {
+    Post post1 = createJsonMapper().toJavaObject("{\"id\":\"1\",\"message\":\"Hi\"}", Post.class);
+    Post post2 = createJsonMapper().toJavaObject("{\"id\":\"1\"}", Post.class);
+    Post post3 = createJsonMapper().toJavaObject("{\"id\":\"2\",\"message\":\"Hi\"}", Post.class);
+    NamedFacebookType named = createJsonMapper().toJavaObject("{\"id\":\"1\"}", NamedFacebookType.class);
+
+    assertEquals(post1, post2);
+    assertEquals(post1.hashCode(), post2.hashCode());
+    assertFalse(post1.equals(post3));
+    assertFalse(post1.equals(named));
+    assertFalse(named.equals(post1));
+  }
+
+  /**
+   * Caching a class's annotated fields mustn't keep its classloader alive.
+   */
+  @Test
+  public void annotationCacheDoesNotPinClassLoaders() throws Exception {
+    WeakReference<ClassLoader> classLoader = loadAndCacheInThrowawayClassLoader(Annotated.class.getName());
+
+    for (int i = 0; i < 50 && classLoader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(classLoader.get());
+  }
+
+  /**
+   * Loads a private copy of the given class in a new classloader and runs
+   * {@link ReflectionUtils#findFieldsWithAnnotation(Class, Class)} on it.
+   * 
+   * @param className
+   *          The class to copy.
+   * @return A weak reference to the new classloader.
+   */
+  private WeakReference<ClassLoader> loadAndCacheInThrowawayClassLoader(final String className) throws Exception {
+    ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!className.equals(name))
+          return super.loadClass(name, resolve);
+
+        try {
+          InputStream inputStream = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          for (int read; (read = inputStream.read(buffer)) != -1;)
+            bytes.write(buffer, 0, read);
+          inputStream.close();
+          return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    };
+
+    Class<?> privateCopy = classLoader.loadClass(className);
+    assertNotSame(Annotated.class, privateCopy);
+    assertEquals(1, ReflectionUtils.findFieldsWithAnnotation(privateCopy, Facebook.class).size());
+    return new WeakReference<ClassLoader>(classLoader);
+  }
+
+  static class Annotated {
+    @Facebook
+    String name;
+  }
+
+  public static class Story {
+    private final String message;
+    private final int count;
+
+    Story(String message, int count) {
+      this.message = message;
+      this.count = count;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    @Override
+    public String toString() {
+      return ReflectionUtils.toString(this);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.exception.FacebookJsonMappingException;
+import com.restfb.exception.FacebookOAuthException;
+import com.restfb.types.User;
+
+/**
+ * Unit tests that exercise {@link RequestListener} callbacks made by
+ * {@link DefaultFacebookClient}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class RequestListenerTest {
+  /**
+   * A successful call reports each stage in order with increasing timestamps.
+   */
+  @Test
+  public void successfulCall() {
+    RecordingListener listener = new RecordingListener();
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"id\":\"4\",\"name\":\"Mark\"}"),
+          new DefaultJsonMapper());
+    facebookClient.setRequestListener(listener);
+
+    User user = facebookClient.fetchObject("4", User.class);
+
+    assertEquals("Mark", user.getName());
+    assertEquals("[requestBuilt, bodyRead, jsonParsed, responseMapped]", listener.stages.toString());
+
+    RequestEvent event = listener.event;
+    assertEquals("GET", event.getMethod());
+    assertEquals("https://graph.facebook.com/4", event.getUrl());
+    assertTrue(event.getStartNanos() <= event.getBodyReadNanos());
+    assertTrue(event.getBodyReadNanos() <= event.getJsonParsedNanos());
+    assertTrue(event.getJsonParsedNanos() <= event.getEndNanos());
+    assertNull(event.getError());
+    assertNull(RequestEvent.current());
+  }
+
+  /**
+   * Error responses and mapping failures are reported as failed requests.
+   */
+  @Test
+  public void failedCalls() {
+    RecordingListener listener = new RecordingListener();
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor(
+          "{\"error\":{\"type\":\"OAuthException\",\"message\":\"Bad token\"}}"), new DefaultJsonMapper());
+    facebookClient.setRequestListener(listener);
+
+    try {
+      facebookClient.fetchObject("me", User.class);
+      fail("Expected an OAuth exception");
+    } catch (FacebookOAuthException e) {
+      assertSame(e, listener.event.getError());
+    }
+
+    assertEquals("requestFailed", listener.stages.get(listener.stages.size() - 1));
+    assertNull(RequestEvent.current());
+
+    listener = new RecordingListener();
+    facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("[1, 2]"), new DefaultJsonMapper());
+    facebookClient.setRequestListener(listener);
+
+    try {
+      facebookClient.fetchObject("me", User.class);
+      fail("Expected a mapping exception");
+    } catch (FacebookJsonMappingException e) {
+      assertSame(e, listener.event.getError());
+    }
+
+    assertEquals("requestFailed", listener.stages.get(listener.stages.size() - 1));
+    assertNull(RequestEvent.current());
+  }
+
+  /**
+   * A listener that throws doesn't break the call it's listening to.
+   */
+  @Test
+  public void failingListener() {
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"id\":\"4\"}"), new DefaultJsonMapper());
+    facebookClient.setRequestListener(new RequestListener.Adapter() {
+      @Override
+      public void responseMapped(RequestEvent event) {
+        throw new IllegalStateException("Listener bug");
+      }
+    });
+
+    assertEquals("4", facebookClient.fetchObject("4", User.class).getId());
+    assertNull(RequestEvent.current());
+  }
+
+  /**
+   * Added listeners run alongside each other, even when one of them throws,
+   * and views keep the listeners they were created with.
+   */
+  @Test
+  public void addedListeners() {
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"id\":\"4\"}"), new DefaultJsonMapper());
+    RecordingListener first = new RecordingListener();
+    RecordingListener second = new RecordingListener();
+    RequestMetrics metrics = new RequestMetrics();
+
+    facebookClient.addRequestListener(first);
+    assertSame(first, facebookClient.getRequestListener());
+    DefaultFacebookClient view = facebookClient.withAccessToken("view-token");
+
+    facebookClient.addRequestListener(new RequestListener.Adapter() {
+      @Override
+      public void responseMapped(RequestEvent event) {
+        throw new IllegalStateException("Listener bug");
+      }
+    });
+    facebookClient.addRequestListener(metrics);
+    facebookClient.addRequestListener(second);
+    assertEquals(4, ((RequestListener.Composite) facebookClient.getRequestListener()).getListeners().size());
+
+    facebookClient.fetchObject("4", User.class);
+    assertEquals("[requestBuilt, bodyRead, jsonParsed, responseMapped]", first.stages.toString());
+    assertEquals(first.stages, second.stages);
+    assertEquals(1, metrics.getRequestCount());
+
+    view.fetchObject("4", User.class);
+    assertEquals(8, first.stages.size());
+    assertEquals(4, second.stages.size());
+  }
+
+  /**
+   * Records the stages it's told about.
+   */
+  static class RecordingListener implements RequestListener {
+    final List<String> stages = new ArrayList<String>();
+    RequestEvent event;
+
+    public void requestBuilt(RequestEvent event) {
+      this.event = event;
+      stages.add("requestBuilt");
+    }
+
+    public void connectionAcquired(RequestEvent event) {
+      stages.add("connectionAcquired");
+    }
+
+    public void firstByteReceived(RequestEvent event) {
+      stages.add("firstByteReceived");
+    }
+
+    public void bodyRead(RequestEvent event) {
+      stages.add("bodyRead");
+    }
+
+    public void jsonParsed(RequestEvent event) {
+      stages.add("jsonParsed");
+    }
+
+    public void responseMapped(RequestEvent event) {
+      stages.add("responseMapped");
+    }
+
+    public void requestFailed(RequestEvent event) {
+      stages.add("requestFailed");
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.util.Arrays.asList;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.exception.FacebookOAuthException;
+import com.restfb.types.User;
+import com.restfb.util.LatencyHistogram;
+
+/**
+ * Unit tests that exercise {@link RequestMetrics} and {@link LatencyHistogram}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class RequestMetricsTest {
+  /**
+   * IDs are replaced in endpoint templates, and templates can be hashed and
+   * matched without being built.
+   */
+  @Test
+  public void endpointTemplates() {
+    assertEquals("/{id}/feed", RequestMetrics.toTemplate("https://graph.facebook.com/1234/feed"));
+    assertEquals("/{id}/comments", RequestMetrics.toTemplate("https://graph.facebook.com/12_34/comments?limit=5"));
+    assertEquals("/me/friends", RequestMetrics.toTemplate("https://graph.facebook.com/me/friends"));
+    assertEquals("/method/fql.query", RequestMetrics.toTemplate("https://api.facebook.com/method/fql.query"));
+    assertEquals("/", RequestMetrics.toTemplate("https://graph.facebook.com"));
+    assertEquals("/", RequestMetrics.toTemplate("https://graph.facebook.com/"));
+
+    for (String url : asList("https://graph.facebook.com/1234/feed", "https://graph.facebook.com/me?fields=id",
+      "https://graph.facebook.com", "https://graph.facebook.com/", "https://graph.facebook.com/a//b")) {
+      String template = RequestMetrics.toTemplate(url);
+      assertTrue(url, RequestMetrics.templateMatches(template, url));
+    }
+
+    assertEquals(RequestMetrics.templateHash("https://graph.facebook.com/1234/feed"),
+      RequestMetrics.templateHash("https://graph.facebook.com/5678/feed?limit=5"));
+
+    assertFalse(RequestMetrics.templateMatches("/{id}/feed", "https://graph.facebook.com/me/feed"));
+    assertFalse(RequestMetrics.templateMatches("/{id}/feed", "https://graph.facebook.com/1234/feeds"));
+    assertFalse(RequestMetrics.templateMatches("/{id}", "https://graph.facebook.com/1234/feed"));
+  }
+
+  /**
+   * Successful and failed calls are counted per endpoint and exposed over JMX.
+   */
+  @Test
+  public void recordsCalls() throws Exception {
+    RequestMetrics metrics = new RequestMetrics();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    metrics.registerMBeans(server, "RequestMetricsTest");
+
+    try {
+      DefaultFacebookClient facebookClient =
+          new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"id\":\"4\"}"), new DefaultJsonMapper());
+      facebookClient.setRequestListener(metrics);
+      facebookClient.fetchObject("4", User.class);
+      facebookClient.fetchObject("5", User.class);
+
+      DefaultFacebookClient failingClient =
+          new DefaultFacebookClient("token", new LastUrlWebRequestor(
+            "{\"error\":{\"type\":\"OAuthException\",\"message\":\"Bad token\"}}"), new DefaultJsonMapper());
+      failingClient.setRequestListener(metrics);
+
+      try {
+        failingClient.fetchObject("me", User.class);
+        fail("Expected an OAuth exception");
+      } catch (FacebookOAuthException e) {
+        // Expected
+      }
+
+      assertEquals(3, metrics.getRequestCount());
+      assertEquals(1, metrics.getErrorCount());
+      assertEquals(Long.valueOf(1), metrics.getErrorCounts().get("FacebookOAuthException"));
+      assertEquals(asList("/me", "/{id}"), metrics.getEndpoints());
+      assertEquals(2, metrics.getEndpointMetrics("/{id}").getRequestCount());
+      assertEquals(0, metrics.getEndpointMetrics("/{id}").getErrorCount());
+      assertEquals(1, metrics.getEndpointMetrics("/me").getErrorCount());
+      assertNull(metrics.getEndpointMetrics("/{id}/feed"));
+
+      ObjectName name = new ObjectName("com.restfb:type=RequestMetrics,name=\"RequestMetricsTest\"");
+      assertEquals(3L, server.getAttribute(name, "RequestCount"));
+      assertEquals(1, ((TabularData) server.getAttribute(name, "ErrorCounts")).size());
+
+      ObjectName endpointName =
+          new ObjectName("com.restfb:type=RequestMetrics,name=\"RequestMetricsTest\",endpoint="
+              + ObjectName.quote("/{id}"));
+      assertEquals(2L, server.getAttribute(endpointName, "RequestCount"));
+    } finally {
+      metrics.unregisterMBeans();
+    }
+
+    assertTrue(server.queryNames(new ObjectName("com.restfb:type=RequestMetrics,*"), null).isEmpty());
+  }
+
+  /**
+   * Endpoints beyond the limit are counted together.
+   */
+  @Test
+  public void endpointLimit() {
+    RequestMetrics metrics = new RequestMetrics(1);
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("token", new LastUrlWebRequestor("{\"id\":\"4\"}"), new DefaultJsonMapper());
+    facebookClient.setRequestListener(metrics);
+
+    facebookClient.fetchObject("me", User.class);
+    facebookClient.fetchObject("4", User.class);
+    facebookClient.fetchObject("5", User.class);
+
+    assertEquals(asList("/me", "{other}"), metrics.getEndpoints());
+    assertEquals(2, metrics.getEndpointMetrics("{other}").getRequestCount());
+    assertEquals(3, metrics.getEndpointMetrics("*").getRequestCount());
+  }
+
+  /**
+   * Histogram percentiles are within a bucket's width of the true value.
+   */
+  @Test
+  public void histogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getValueAtPercentile(99));
+
+    for (long value = 1; value <= 1000; value++)
+      histogram.record(value * 1000);
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMax());
+    assertEquals(500500.0, histogram.getMean());
+    assertWithinPrecision(500000, histogram.getValueAtPercentile(50));
+    assertWithinPrecision(990000, histogram.getValueAtPercentile(99));
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+  }
+
+  /**
+   * Asserts that a histogram value is at or a little above the expected value.
+   * 
+   * @param expected
+   *          The exact value.
+   * @param actual
+   *          The value the histogram reported.
+   */
+  private static void assertWithinPrecision(long expected, long actual) {
+    assertTrue(actual + " < " + expected, actual >= expected);
+    assertTrue(actual + " too far above " + expected, actual <= expected + expected
+        / LatencyHistogram.SUB_BUCKET_COUNT);
+  }
+}
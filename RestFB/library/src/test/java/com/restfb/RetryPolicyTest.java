@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.restfb.RetryPolicy.RetryPolicyBuilder;
+import com.restfb.exception.FacebookNetworkException;
+import com.restfb.exception.FacebookOAuthException;
+import com.restfb.types.FacebookType;
+import com.restfb.types.User;
+
+/**
+ * Unit tests that exercise {@link RetryPolicy} and its use by
+ * {@link DefaultFacebookClient}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class RetryPolicyTest {
+  /**
+   * Transient failures of {@code GET}s are retried until an attempt succeeds.
+   */
+  @Test
+  public void getsAreRetried() {
+    FlakyWebRequestor webRequestor = new FlakyWebRequestor(2, null);
+    DefaultFacebookClient facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1));
+
+    assertEquals("Mark", facebookClient.fetchObject("4", User.class).getName());
+    assertEquals(3, webRequestor.attempts);
+
+    webRequestor = new FlakyWebRequestor(3, HTTP_UNAVAILABLE);
+    facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1));
+
+    try {
+      facebookClient.fetchObject("4", User.class);
+      fail("Expected a network exception once attempts ran out");
+    } catch (FacebookNetworkException e) {
+      assertEquals(Integer.valueOf(HTTP_UNAVAILABLE), e.getHttpStatusCode());
+    }
+
+    assertEquals(3, webRequestor.attempts);
+  }
+
+  /**
+   * {@code POST}s are retried only when the policy allows it.
+   */
+  @Test
+  public void postsAreRetriedOnlyIfAllowed() {
+    FlakyWebRequestor webRequestor = new FlakyWebRequestor(1, null);
+    DefaultFacebookClient facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1));
+
+    try {
+      facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Hi"));
+      fail("Expected a network exception");
+    } catch (FacebookNetworkException e) {
+      assertEquals(1, webRequestor.attempts);
+    }
+
+    webRequestor = new FlakyWebRequestor(1, null);
+    facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1).retryPosts(true));
+
+    assertEquals("4", facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Hi")).getId());
+    assertEquals(2, webRequestor.attempts);
+  }
+
+  /**
+   * Uploads aren't retried even when {@code POST}s are, since their attachment
+   * streams have already been read.
+   */
+  @Test
+  public void uploadsAreNeverRetried() {
+    FlakyWebRequestor webRequestor = new FlakyWebRequestor(1, null);
+    DefaultFacebookClient facebookClient =
+        createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1).retryPosts(true));
+
+    try {
+      facebookClient.publish("me/photos", FacebookType.class,
+        BinaryAttachment.with("photo.jpg", new ByteArrayInputStream(new byte[] { 1, 2, 3 })));
+      fail("Expected a network exception");
+    } catch (FacebookNetworkException e) {
+      assertEquals(1, webRequestor.attempts);
+    }
+  }
+
+  /**
+   * Errors that aren't transient fail straight away.
+   */
+  @Test
+  public void permanentFailuresAreNotRetried() {
+    FlakyWebRequestor webRequestor = new FlakyWebRequestor(1, HTTP_NOT_FOUND);
+    DefaultFacebookClient facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1));
+
+    try {
+      facebookClient.fetchObject("4", User.class);
+      fail("Expected a network exception");
+    } catch (FacebookNetworkException e) {
+      assertEquals(1, webRequestor.attempts);
+    }
+
+    webRequestor = new FlakyWebRequestor(0, null);
+    webRequestor.json = "{\"error\":{\"type\":\"OAuthException\",\"message\":\"Bad token\"}}";
+    facebookClient = createClient(webRequestor, new RetryPolicyBuilder().baseDelayMillis(1));
+
+    try {
+      facebookClient.fetchObject("4", User.class);
+      fail("Expected an OAuth exception");
+    } catch (FacebookOAuthException e) {
+      assertEquals(1, webRequestor.attempts);
+    }
+  }
+
+  /**
+   * Once the retry budget is spent, failures aren't retried until calls earn
+   * more.
+   */
+  @Test
+  public void retryBudget() {
+    RetryPolicy retryPolicy = new RetryPolicyBuilder().baseDelayMillis(1).retryBudget(0.5, 1).build();
+    FlakyWebRequestor webRequestor = new FlakyWebRequestor(1, null);
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient("token", webRequestor, new DefaultJsonMapper());
+    facebookClient.setRetryPolicy(retryPolicy);
+
+    facebookClient.fetchObject("4", User.class);
+    assertEquals(2, webRequestor.attempts);
+    assertEquals(0.0, retryPolicy.getRetryBudgetBalance());
+
+    webRequestor.failuresLeft = 1;
+    try {
+      facebookClient.fetchObject("4", User.class);
+      fail("Expected a network exception with the budget spent");
+    } catch (FacebookNetworkException e) {
+      assertEquals(3, webRequestor.attempts);
+    }
+
+    // Views share the policy, and so the budget
+    assertEquals(0.5, retryPolicy.getRetryBudgetBalance());
+    webRequestor.failuresLeft = 1;
+    facebookClient.withAccessToken("other").fetchObject("4", User.class);
+    assertEquals(5, webRequestor.attempts);
+  }
+
+  /**
+   * Backoff is jittered between zero and a ceiling that doubles per attempt,
+   * up to the maximum delay.
+   */
+  @Test
+  public void jitteredBackoff() {
+    RetryPolicy retryPolicy = new RetryPolicyBuilder().baseDelayMillis(100).maxDelayMillis(1000).build();
+    long longest = 0;
+
+    for (int i = 0; i < 1000; i++) {
+      long backoffMillis = retryPolicy.backoffMillis(2);
+      assertTrue(backoffMillis >= 0 && backoffMillis <= 200);
+      longest = Math.max(longest, backoffMillis);
+      assertTrue(retryPolicy.backoffMillis(40) <= 1000);
+    }
+
+    assertTrue("Backoff should be spread over its range", longest > 100);
+    assertEquals(0, new RetryPolicyBuilder().baseDelayMillis(0).build().backoffMillis(3));
+  }
+
+  private static DefaultFacebookClient createClient(WebRequestor webRequestor, RetryPolicyBuilder retryPolicyBuilder) {
+    DefaultFacebookClient facebookClient = new DefaultFacebookClient("token", webRequestor, new DefaultJsonMapper());
+    facebookClient.setRetryPolicy(retryPolicyBuilder.build());
+    return facebookClient;
+  }
+
+  /**
+   * Fails a number of attempts - with an {@code IOException}, or a given
+   * status code - before answering.
+   */
+  static class FlakyWebRequestor implements WebRequestor {
+    int failuresLeft;
+    int attempts;
+    String json = "{\"id\":\"4\",\"name\":\"Mark\"}";
+    private final Integer failureStatusCode;
+
+    FlakyWebRequestor(int failures, Integer failureStatusCode) {
+      this.failuresLeft = failures;
+      this.failureStatusCode = failureStatusCode;
+    }
+
+    public Response executeGet(String url) throws IOException {
+      attempts++;
+
+      if (failuresLeft > 0) {
+        failuresLeft--;
+        if (failureStatusCode == null)
+          throw new IOException("Connection reset");
+        return new Response(failureStatusCode, "");
+      }
+
+      return new Response(HTTP_OK, json);
+    }
+
+    public Response executePost(String url, String parameters) throws IOException {
+      return executeGet(url);
+    }
+
+    public Response executePost(String url, String parameters, BinaryAttachment... binaryAttachments)
+        throws IOException {
+      return executeGet(url);
+    }
+  }
+}
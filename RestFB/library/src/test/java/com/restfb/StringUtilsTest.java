@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.StringUtils.urlEncode;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+import java.net.URLEncoder;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.json.JsonObject;
+
+/**
+ * Unit tests that exercise {@link com.restfb.util.StringUtils}'s URL encoding
+ * and the parameter strings built with it.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class StringUtilsTest {
+  /**
+   * Encoding matches {@link URLEncoder} for every kind of character, including
+   * surrogate pairs and unpaired surrogates.
+   */
+  @Test
+  public void urlEncodingMatchesUrlEncoder() throws Exception {
+    String alphabet = "aZ09.-*_ ~+&=%/|?#\u00e9\u07ff\u0800\u20ac\uffff\ud83d\ude00\ud83d";
+    Random random = new Random(42);
+
+    for (int i = 0; i < 5000; i++) {
+      StringBuilder string = new StringBuilder();
+      for (int length = random.nextInt(12); length > 0; length--)
+        string.append(random.nextInt(8) == 0 ? (char) random.nextInt(0x10000) : alphabet.charAt(random
+          .nextInt(alphabet.length())));
+
+      String expected = URLEncoder.encode(string.toString(), "UTF-8");
+      assertEquals(expected, urlEncode(string.toString()));
+      assertEquals("x" + expected, urlEncode(string.toString(), new StringBuilder("x")).toString());
+    }
+
+    assertEquals("%3F%3Fa%3F", urlEncode("\ude00\ud83da\ud83d"));
+    assertNull(urlEncode(null));
+    assertEquals("", urlEncode(null, new StringBuilder()).toString());
+  }
+
+  /**
+   * Strings that need no encoding come back as-is.
+   */
+  @Test
+  public void urlSafeStringsAreNotCopied() {
+    String string = "AAABBBccc123_-.*";
+    assertSame(string, urlEncode(string));
+  }
+
+  /**
+   * Parameter strings are unchanged, with the client's access token encoded
+   * once and per-call tokens encoded as given.
+   */
+  @Test
+  public void parameterStrings() {
+    LastUrlWebRequestor webRequestor = new LastUrlWebRequestor("{\"id\":\"1\"}");
+    DefaultFacebookClient facebookClient =
+        new DefaultFacebookClient("123|a b", webRequestor, new DefaultJsonMapper());
+
+    facebookClient.fetchObject("me", JsonObject.class, Parameter.with("q", "caf\u00e9 & bar"));
+    assertEquals("https://graph.facebook.com/me?q=caf%C3%A9+%26+bar&access_token=123%7Ca+b&format=json",
+      webRequestor.lastUrl);
+
+    facebookClient.fetchObject("me", JsonObject.class);
+    assertEquals("https://graph.facebook.com/me?access_token=123%7Ca+b&format=json", webRequestor.lastUrl);
+
+    facebookClient.fetchObject("me", JsonObject.class, Parameter.withAccessToken("456%7Cdef"));
+    assertEquals("https://graph.facebook.com/me?access_token=456%7Cdef&format=json", webRequestor.lastUrl);
+
+    facebookClient.withAccessToken("789|ghi").fetchObject("me", JsonObject.class);
+    assertEquals("https://graph.facebook.com/me?access_token=789%7Cghi&format=json", webRequestor.lastUrl);
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb;
+
+import static com.restfb.util.TrafficLogger.REQUESTS;
+import static com.restfb.util.TrafficLogger.RESPONSES;
+import static com.restfb.util.TrafficLogger.redactSecrets;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import org.junit.Test;
+
+import com.restfb.FieldsProjectionTest.LastUrlWebRequestor;
+import com.restfb.json.JsonObject;
+import com.restfb.util.TrafficLogger;
+
+/**
+ * Unit tests that exercise {@link TrafficLogger}'s redaction, truncation and
+ * sampling.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class TrafficLoggerTest {
+  /**
+   * Secret parameter values are redacted wherever they appear in a query
+   * string.
+   */
+  @Test
+  public void redaction() {
+    assertEquals("https://graph.facebook.com/me?access_token=<redacted>&format=json",
+      redactSecrets("https://graph.facebook.com/me?access_token=123%7Cabc&format=json"));
+    assertEquals("client_id=1&client_secret=<redacted>", redactSecrets("client_id=1&client_secret=s3cr3t"));
+    assertEquals("access_token=<redacted>&expires=5", redactSecrets("access_token=abc&expires=5"));
+
+    String harmless = "https://graph.facebook.com/me?my_access_token=1&q=access_token=2";
+    assertSame(harmless, redactSecrets(harmless));
+  }
+
+  /**
+   * Secrets in JSON bodies - both members and paging URLs - are redacted
+   * without swallowing the rest of the body.
+   */
+  @Test
+  public void jsonRedaction() {
+    assertEquals("{\"access_token\":\"<redacted>\",\"expires\":5}",
+      redactSecrets("{\"access_token\":\"123|a\\\"bc\",\"expires\":5}"));
+    assertEquals("{\"access_token\" : \"<redacted>\"}", redactSecrets("{\"access_token\" : \"abc\"}"));
+    assertEquals("{\"type\":\"access_token\"}", redactSecrets("{\"type\":\"access_token\"}"));
+    assertEquals("https://graph.facebook.com/me?access_token=<redacted>#top",
+      redactSecrets("https://graph.facebook.com/me?access_token=abc#top"));
+  }
+
+  /**
+   * A logged page of JSON keeps everything after the access token in its
+   * paging URL.
+   */
+  @Test
+  public void jsonBodyWithPagingUrl() {
+    String body =
+        "{\"data\":[{\"id\":\"1\"}],\"paging\":{\"next\":"
+            + "\"https:\\/\\/graph.facebook.com\\/me\\/feed?access_token=123%7Cabc&limit=25&until=1\","
+            + "\"previous\":\"https:\\/\\/graph.facebook.com\\/me\\/feed?limit=25&access_token=123%7Cabc\"}}";
+
+    assertEquals("{\"data\":[{\"id\":\"1\"}],\"paging\":{\"next\":"
+        + "\"https:\\/\\/graph.facebook.com\\/me\\/feed?access_token=<redacted>&limit=25&until=1\","
+        + "\"previous\":\"https:\\/\\/graph.facebook.com\\/me\\/feed?limit=25&access_token=<redacted>\"}}",
+      RESPONSES.sanitized(body).toString());
+  }
+
+  /**
+   * Long bodies are cut down, and secrets in what's left are still redacted.
+   */
+  @Test
+  public void truncation() {
+    StringBuilder body = new StringBuilder("access_token=abcdef&data=");
+    StringBuilder expected = new StringBuilder("access_token=<redacted>&data=");
+    for (int i = 0; i < 2000; i++) {
+      body.append('x');
+      if (i < TrafficLogger.DEFAULT_MAX_BODY_LENGTH - 25)
+        expected.append('x');
+    }
+    expected.append("... (" + (body.length() - TrafficLogger.DEFAULT_MAX_BODY_LENGTH) + " more characters)");
+
+    assertEquals(expected.toString(), RESPONSES.sanitized(body.toString()).toString());
+    assertEquals("short", RESPONSES.sanitized("short").toString());
+  }
+
+  /**
+   * Requests and responses are logged as sampled, parameterized records.
+   */
+  @Test
+  public void sampledLogging() {
+    final List<LogRecord> records = new ArrayList<LogRecord>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+
+    Logger requestLogger = Logger.getLogger("com.restfb.traffic.requests");
+    Logger responseLogger = Logger.getLogger("com.restfb.traffic.responses");
+    requestLogger.addHandler(handler);
+    responseLogger.addHandler(handler);
+    requestLogger.setLevel(Level.OFF);
+    RESPONSES.setSampleRate(2);
+    RESPONSES.setMaxBodyLength(20);
+
+    try {
+      DefaultFacebookClient facebookClient =
+          new DefaultFacebookClient("123|abc", new LastUrlWebRequestor(
+            "{\"id\":\"1\",\"name\":\"A name long enough to be truncated\"}"), new DefaultJsonMapper());
+
+      for (int i = 0; i < 4; i++)
+        facebookClient.fetchObject("me", JsonObject.class);
+
+      assertEquals(2, records.size());
+      assertEquals("Facebook responded with HTTP status code 200 and response body: "
+          + "{\"id\":\"1\",\"name\":\"A ... (34 more characters)", new SimpleFormatter().formatMessage(records.get(0)));
+    } finally {
+      requestLogger.removeHandler(handler);
+      responseLogger.removeHandler(handler);
+      requestLogger.setLevel(null);
+      RESPONSES.setSampleRate(1);
+      RESPONSES.setMaxBodyLength(TrafficLogger.DEFAULT_MAX_BODY_LENGTH);
+    }
+  }
+}
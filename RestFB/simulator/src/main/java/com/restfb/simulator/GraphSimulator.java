@@ -0,0 +1,914 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.simulator;
+
+import static com.restfb.json.JsonObject.quote;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static java.util.logging.Level.WARNING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.restfb.DefaultWebRequestor;
+import com.restfb.WebRequestor;
+import com.restfb.json.JsonArray;
+import com.restfb.json.JsonException;
+import com.restfb.json.JsonObject;
+import com.restfb.util.StringUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that simulates enough of the Graph API to load test
+ * {@link com.restfb.DefaultFacebookClient} and {@link WebRequestor}s offline.
+ * <p>
+ * It serves objects and paged connections you give it, publishing to and
+ * deleting from them, and the batch endpoint. On top of that it can be told to
+ * misbehave the way Facebook does: answer after a random delay, reject
+ * requests over a rate limit with throttling errors, and fail with bursts of
+ * {@code 503}s. Randomness comes from a seeded {@link Random}, so a
+ * single-threaded run is repeatable.
+ * 
+ * <pre>
+ * GraphSimulator simulator = new GraphSimulator(42);
+ * simulator.putObject(&quot;me&quot;, &quot;{\&quot;id\&quot;:\&quot;1\&quot;,\&quot;name\&quot;:\&quot;Test User\&quot;}&quot;);
+ * simulator.setLatency(LatencyDistribution.logNormal(50, 400));
+ * simulator.start();
+ * 
+ * FacebookClient facebookClient =
+ *     new DefaultFacebookClient(&quot;token&quot;, simulator.createWebRequestor(), new DefaultJsonMapper());
+ * ...
+ * simulator.stop();
+ * </pre>
+ * 
+ * Clients talk to {@code https://graph.facebook.com} as usual; the
+ * {@link WebRequestor} from {@link #createWebRequestor()} sends those requests
+ * to the simulator instead, and {@code paging} URLs in its responses point back
+ * at {@code graph.facebook.com} so they route the same way. Other
+ * {@code WebRequestor}s can use {@link #toLocalUrl(String)}.
+ * <p>
+ * Configuration can be changed while the simulator is running, e.g. to start
+ * a burst of errors partway through a test.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public class GraphSimulator {
+  /**
+   * The Graph API endpoint the simulator stands in for.
+   */
+  public static final String GRAPH_API_URL = "https://graph.facebook.com";
+
+  /**
+   * Connection page size when the request doesn't specify a {@code limit}.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 25;
+
+  /**
+   * Most requests the batch endpoint accepts at once.
+   */
+  public static final int MAX_BATCH_SIZE = 50;
+
+  /**
+   * Content type of every response, as Facebook sends it.
+   */
+  private static final String CONTENT_TYPE = "text/javascript; charset=UTF-8";
+
+  /**
+   * Objects by ID, as JSON.
+   */
+  private final ConcurrentMap<String, String> objects = new ConcurrentHashMap<String, String>();
+
+  /**
+   * Connection elements, as JSON, by {@code <id>/<connection name>}.
+   */
+  private final ConcurrentMap<String, List<String>> connections = new ConcurrentHashMap<String, List<String>>();
+
+  /**
+   * Key in {@link #connections} of the connection each published object was
+   * published to, by the object's ID, so deleting it can remove it there too.
+   */
+  private final ConcurrentMap<String, String> publishedTo = new ConcurrentHashMap<String, String>();
+
+  /**
+   * Source of IDs for published objects.
+   */
+  private final AtomicLong nextId = new AtomicLong(100000000000000L);
+
+  /**
+   * Number of HTTP requests received.
+   */
+  private final AtomicLong requestCount = new AtomicLong();
+
+  /**
+   * Source of latencies and errors. Guarded by {@code this}.
+   */
+  private final Random random;
+
+  /**
+   * How long to take to answer each request.
+   */
+  private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+
+  /**
+   * Chance of each request starting a burst of {@code 503}s. Guarded by
+   * {@code this}.
+   */
+  private double serverErrorProbability;
+
+  /**
+   * Number of consecutive requests that fail once a burst starts. Guarded by
+   * {@code this}.
+   */
+  private int serverErrorBurstLength = 1;
+
+  /**
+   * Requests left to fail in the current burst. Guarded by {@code this}.
+   */
+  private int serverErrorsRemaining;
+
+  /**
+   * Most requests allowed per throttling window, or {@code 0} for no
+   * throttling. Guarded by {@code this}.
+   */
+  private int throttleLimit;
+
+  /**
+   * Length of a throttling window. Guarded by {@code this}.
+   */
+  private long throttleWindowMillis;
+
+  /**
+   * When the current throttling window started. Guarded by {@code this}.
+   */
+  private long throttleWindowStart;
+
+  /**
+   * Requests received in the current throttling window. Guarded by
+   * {@code this}.
+   */
+  private int throttleWindowCount;
+
+  /**
+   * The only access token accepted, or {@code null} to accept any.
+   */
+  private volatile String accessToken;
+
+  /**
+   * The running server, or {@code null} if the simulator isn't running.
+   */
+  private HttpServer server;
+
+  /**
+   * Threads that answer requests.
+   */
+  private ExecutorService executor;
+
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(GraphSimulator.class.getName());
+
+  static {
+    // The JDK server writes headers and body separately; without TCP_NODELAY
+    // Nagle's algorithm and delayed ACKs add ~40ms to every response. Must be
+    // set before the server classes first load.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null)
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  /**
+   * Creates a simulator with a random seed of {@code 0}.
+   */
+  public GraphSimulator() {
+    this(0);
+  }
+
+  /**
+   * Creates a simulator with the given random seed.
+   * 
+   * @param seed
+   *          Seed for the latencies and errors the simulator injects.
+   */
+  public GraphSimulator(long seed) {
+    random = new Random(seed);
+  }
+
+  /**
+   * Starts serving on an ephemeral port on the loopback interface.
+   * 
+   * @throws IOException
+   *           If the server can't be started.
+   * @throws IllegalStateException
+   *           If the simulator is already running.
+   */
+  public synchronized void start() throws IOException {
+    if (server != null)
+      throw new IllegalStateException("The simulator is already running on port " + getPort());
+
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    executor = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger threadNumber = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "graph-simulator-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+    server.setExecutor(executor);
+    server.createContext("/", new Handler());
+    server.start();
+  }
+
+  /**
+   * Stops serving. Requests in progress are abandoned.
+   */
+  public synchronized void stop() {
+    if (server == null)
+      return;
+
+    server.stop(0);
+    executor.shutdownNow();
+    server = null;
+    executor = null;
+  }
+
+  /**
+   * Gets the port the simulator is listening on.
+   * 
+   * @return The port.
+   * @throws IllegalStateException
+   *           If the simulator isn't running.
+   */
+  public synchronized int getPort() {
+    if (server == null)
+      throw new IllegalStateException("The simulator isn't running.");
+
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Gets the simulator's base URL, which stands in for {@link #GRAPH_API_URL}.
+   * 
+   * @return The base URL, e.g. {@code http://127.0.0.1:50123}.
+   * @throws IllegalStateException
+   *           If the simulator isn't running.
+   */
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + getPort();
+  }
+
+  /**
+   * Rewrites a Graph API URL to point at the simulator. Other URLs are
+   * returned unchanged.
+   * 
+   * @param url
+   *          A URL.
+   * @return The URL to request instead.
+   * @throws IllegalStateException
+   *           If the simulator isn't running.
+   */
+  public String toLocalUrl(String url) {
+    return url.startsWith(GRAPH_API_URL) ? getBaseUrl() + url.substring(GRAPH_API_URL.length()) : url;
+  }
+
+  /**
+   * Creates a {@link DefaultWebRequestor} that sends Graph API requests to this
+   * simulator. It can be created before the simulator is started.
+   * 
+   * @return The web requestor.
+   */
+  public WebRequestor createWebRequestor() {
+    return new DefaultWebRequestor() {
+      @Override
+      protected HttpURLConnection openConnection(URL url) throws IOException {
+        return super.openConnection(new URL(toLocalUrl(url.toString())));
+      }
+    };
+  }
+
+  /**
+   * Adds or replaces an object.
+   * 
+   * @param id
+   *          The object's ID, or an alias such as {@code me}.
+   * @param json
+   *          The object's JSON.
+   */
+  public void putObject(String id, String json) {
+    objects.put(id, json);
+  }
+
+  /**
+   * Adds or replaces a connection.
+   * 
+   * @param id
+   *          ID of the object the connection belongs to.
+   * @param connection
+   *          The connection's name, e.g. {@code feed}.
+   * @param elements
+   *          The connection's elements as JSON, newest first.
+   */
+  public void putConnection(String id, String connection, List<String> elements) {
+    connections.put(id + "/" + connection, new CopyOnWriteArrayList<String>(elements));
+  }
+
+  /**
+   * Sets how long the simulator takes to answer each request.
+   * 
+   * @param latency
+   *          The latency distribution.
+   */
+  public void setLatency(LatencyDistribution latency) {
+    if (latency == null)
+      throw new IllegalArgumentException("Latency distribution can't be null.");
+
+    this.latency = latency;
+  }
+
+  /**
+   * Makes requests fail with HTTP {@code 503} in bursts: each request starts a
+   * burst with probability {@code probability}, and a burst fails
+   * {@code burstLength} consecutive requests. A burst already under way runs
+   * its course.
+   * 
+   * @param probability
+   *          Chance of a request starting a burst, or {@code 0} to stop
+   *          failing requests.
+   * @param burstLength
+   *          Number of requests a burst fails.
+   * @throws IllegalArgumentException
+   *           If either argument is out of range.
+   */
+  public synchronized void setServerErrors(double probability, int burstLength) {
+    if (probability < 0 || probability > 1 || burstLength < 1)
+      throw new IllegalArgumentException("Error probability must be between 0 and 1, and bursts at least 1 long.");
+
+    serverErrorProbability = probability;
+    serverErrorBurstLength = burstLength;
+  }
+
+  /**
+   * Rejects requests beyond {@code maxRequests} in any {@code windowMillis}
+   * window with Facebook's {@code (#4) Application request limit reached}
+   * error.
+   * 
+   * @param maxRequests
+   *          Requests allowed per window, or {@code 0} to stop throttling.
+   * @param windowMillis
+   *          Length of a window in milliseconds.
+   * @throws IllegalArgumentException
+   *           If either argument is out of range.
+   */
+  public synchronized void setThrottle(int maxRequests, long windowMillis) {
+    if (maxRequests < 0 || windowMillis <= 0)
+      throw new IllegalArgumentException("Throttle limit can't be negative and the window must be positive.");
+
+    throttleLimit = maxRequests;
+    throttleWindowMillis = windowMillis;
+    throttleWindowCount = 0;
+  }
+
+  /**
+   * Only accepts requests made with the given access token; others fail with
+   * Facebook's invalid token error.
+   * 
+   * @param accessToken
+   *          The access token to require, or {@code null} to accept any.
+   */
+  public void setAccessToken(String accessToken) {
+    this.accessToken = accessToken;
+  }
+
+  /**
+   * Gets the number of HTTP requests received, including failed ones. A batch
+   * counts as one request.
+   * 
+   * @return The number of requests.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Draws the next latency.
+   * 
+   * @return Latency in milliseconds.
+   */
+  private synchronized long nextLatencyMillis() {
+    return latency.nextMillis(random);
+  }
+
+  /**
+   * Counts a request against the throttle.
+   * 
+   * @return {@code true} if the request should be throttled.
+   */
+  private synchronized boolean throttled() {
+    if (throttleLimit == 0)
+      return false;
+
+    long now = System.currentTimeMillis();
+    if (now - throttleWindowStart >= throttleWindowMillis) {
+      throttleWindowStart = now;
+      throttleWindowCount = 0;
+    }
+
+    return ++throttleWindowCount > throttleLimit;
+  }
+
+  /**
+   * Decides whether a request is part of a burst of server errors.
+   * 
+   * @return {@code true} if the request should fail.
+   */
+  private synchronized boolean serverError() {
+    if (serverErrorsRemaining > 0) {
+      serverErrorsRemaining--;
+      return true;
+    }
+
+    if (serverErrorProbability > 0 && random.nextDouble() < serverErrorProbability) {
+      serverErrorsRemaining = serverErrorBurstLength - 1;
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Answers an HTTP request, misbehaving as configured.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param path
+   *          Request path.
+   * @param parameters
+   *          Query and form parameters.
+   * @return The response.
+   */
+  protected SimulatedResponse handle(String method, String path, Map<String, String> parameters) {
+    long latencyMillis = nextLatencyMillis();
+
+    if (latencyMillis > 0)
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+    if (throttled())
+      return error(HTTP_BAD_REQUEST, "OAuthException", 4, "(#4) Application request limit reached");
+    if (serverError())
+      return new SimulatedResponse(HTTP_UNAVAILABLE, "Service Unavailable");
+
+    String requiredAccessToken = accessToken;
+    if (requiredAccessToken != null && !requiredAccessToken.equals(parameters.get("access_token")))
+      return error(HTTP_BAD_REQUEST, "OAuthException", 190, "Invalid OAuth access token.");
+
+    if ("POST".equals(method) && "/".equals(path) && parameters.containsKey("batch"))
+      return batch(parameters.get("batch"), parameters.get("access_token"));
+
+    return dispatch(method, path, parameters);
+  }
+
+  /**
+   * Answers a single Graph API call, without misbehaving.
+   * 
+   * @param method
+   *          HTTP method.
+   * @param path
+   *          Request path.
+   * @param parameters
+   *          Query and form parameters.
+   * @return The response.
+   */
+  protected SimulatedResponse dispatch(String method, String path, Map<String, String> parameters) {
+    String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+
+    if ("POST".equals(method) && "delete".equals(parameters.get("method")))
+      method = "DELETE";
+
+    if (segments.length == 1 && segments[0].length() > 0) {
+      String id = segments[0];
+
+      if ("GET".equals(method))
+        return objects.containsKey(id) ? new SimulatedResponse(HTTP_OK, objects.get(id)) : unknownObject(id);
+
+      if ("DELETE".equals(method))
+        return delete(id) ? new SimulatedResponse(HTTP_OK, "true") : unknownObject(id);
+
+      return objects.containsKey(id) ? new SimulatedResponse(HTTP_OK, "true") : unknownObject(id);
+    }
+
+    if (segments.length == 2) {
+      String id = segments[0];
+      String key = id + "/" + segments[1];
+
+      if (!objects.containsKey(id) && !connections.containsKey(key))
+        return unknownObject(id);
+
+      if ("GET".equals(method))
+        return connectionPage(path, key, parameters);
+
+      if ("POST".equals(method))
+        return publish(key, parameters);
+    }
+
+    return error(HTTP_BAD_REQUEST, "OAuthException", 2500, "Unknown path components: " + path);
+  }
+
+  /**
+   * Answers with one page of a connection.
+   * 
+   * @param path
+   *          Request path.
+   * @param key
+   *          The connection's key in {@link #connections}.
+   * @param parameters
+   *          Query parameters; {@code limit} and {@code offset} pick the page.
+   * @return The response.
+   */
+  private SimulatedResponse connectionPage(String path, String key, Map<String, String> parameters) {
+    List<String> elements = connections.get(key);
+    if (elements == null)
+      elements = Collections.emptyList();
+
+    int limit, offset;
+
+    try {
+      limit = parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : DEFAULT_PAGE_SIZE;
+      offset = parameters.containsKey("offset") ? Integer.parseInt(parameters.get("offset")) : 0;
+    } catch (NumberFormatException e) {
+      return error(HTTP_BAD_REQUEST, "OAuthException", 100, "(#100) Invalid limit or offset");
+    }
+
+    if (limit < 1 || offset < 0)
+      return error(HTTP_BAD_REQUEST, "OAuthException", 100, "(#100) Invalid limit or offset");
+
+    // Copy-on-write lists give a consistent snapshot to page through
+    Object[] snapshot = elements.toArray();
+    int end = Math.min(snapshot.length, offset + limit);
+
+    StringBuilder json = new StringBuilder("{\"data\":[");
+    for (int i = offset; i < end; i++) {
+      if (i > offset)
+        json.append(',');
+      json.append(snapshot[i]);
+    }
+    json.append("]");
+
+    if (end < snapshot.length || offset > 0) {
+      json.append(",\"paging\":{");
+      if (offset > 0)
+        json.append("\"previous\":").append(quote(pageUrl(path, parameters, limit, Math.max(0, offset - limit))));
+      if (end < snapshot.length)
+        json.append(offset > 0 ? "," : "").append("\"next\":").append(quote(pageUrl(path, parameters, limit, end)));
+      json.append('}');
+    }
+
+    return new SimulatedResponse(HTTP_OK, json.append('}').toString());
+  }
+
+  /**
+   * Builds the URL of another page of a connection.
+   * 
+   * @param path
+   *          The connection's path.
+   * @param parameters
+   *          The current page's query parameters.
+   * @param limit
+   *          Page size.
+   * @param offset
+   *          Index of the page's first element.
+   * @return The page's Graph API URL.
+   */
+  private String pageUrl(String path, Map<String, String> parameters, int limit, int offset) {
+    StringBuilder url = new StringBuilder(GRAPH_API_URL).append(path).append("?limit=").append(limit);
+
+    if (offset > 0)
+      url.append("&offset=").append(offset);
+
+    for (Map.Entry<String, String> parameter : parameters.entrySet())
+      if (!"limit".equals(parameter.getKey()) && !"offset".equals(parameter.getKey()))
+        url.append('&').append(StringUtils.urlEncode(parameter.getKey())).append('=')
+          .append(StringUtils.urlEncode(parameter.getValue()));
+
+    return url.toString();
+  }
+
+  /**
+   * Publishes a new object to the front of a connection.
+   * 
+   * @param key
+   *          The connection's key in {@link #connections}.
+   * @param parameters
+   *          Form parameters, which become the object's fields.
+   * @return The response, carrying the new object's ID.
+   */
+  private SimulatedResponse publish(String key, Map<String, String> parameters) {
+    String id = String.valueOf(nextId.incrementAndGet());
+    JsonObject object = new JsonObject();
+    object.put("id", id);
+
+    for (Map.Entry<String, String> parameter : parameters.entrySet())
+      if (!"access_token".equals(parameter.getKey()) && !"format".equals(parameter.getKey()))
+        object.put(parameter.getKey(), parameter.getValue());
+
+    String json = object.toString();
+    objects.put(id, json);
+    publishedTo.put(id, key);
+
+    List<String> newConnection = new CopyOnWriteArrayList<String>();
+    List<String> connection = connections.putIfAbsent(key, newConnection);
+    (connection == null ? newConnection : connection).add(0, json);
+
+    return new SimulatedResponse(HTTP_OK, "{\"id\":" + quote(id) + "}");
+  }
+
+  /**
+   * Deletes an object and, if it was published through the simulator, takes
+   * it out of the connection it was published to, so publish/delete cycles
+   * don't grow connections without bound.
+   * 
+   * @param id
+   *          The object's ID.
+   * @return {@code true} if the object existed.
+   */
+  private boolean delete(String id) {
+    String json = objects.remove(id);
+    if (json == null)
+      return false;
+
+    String key = publishedTo.remove(id);
+    List<String> connection = key == null ? null : connections.get(key);
+    if (connection != null)
+      connection.remove(json);
+
+    return true;
+  }
+
+  /**
+   * Answers a batch request by dispatching each of its requests in turn.
+   * 
+   * @param batch
+   *          The {@code batch} parameter: a JSON array of requests.
+   * @param batchAccessToken
+   *          Access token of the batch request, used by requests that don't
+   *          have their own.
+   * @return The response: a JSON array with one response per request.
+   */
+  private SimulatedResponse batch(String batch, String batchAccessToken) {
+    JsonArray requests;
+
+    try {
+      requests = new JsonArray(batch);
+    } catch (JsonException e) {
+      return error(HTTP_BAD_REQUEST, "OAuthException", 100, "(#100) The batch parameter must be a JSON array");
+    }
+
+    if (requests.length() > MAX_BATCH_SIZE)
+      return error(HTTP_BAD_REQUEST, "GraphBatchException", 1, "(#1) The maximum number of requests in a batch is "
+          + MAX_BATCH_SIZE);
+
+    JsonArray responses = new JsonArray();
+
+    for (int i = 0; i < requests.length(); i++) {
+      JsonObject request = requests.getJsonObject(i);
+      String relativeUrl = request.getString("relative_url");
+      int queryStart = relativeUrl.indexOf('?');
+
+      Map<String, String> parameters = new LinkedHashMap<String, String>();
+      if (batchAccessToken != null)
+        parameters.put("access_token", batchAccessToken);
+      if (queryStart >= 0)
+        parseParameters(relativeUrl.substring(queryStart + 1), parameters);
+      if (request.has("body"))
+        parseParameters(request.getString("body"), parameters);
+
+      String path = "/" + (queryStart >= 0 ? relativeUrl.substring(0, queryStart) : relativeUrl);
+      String method = request.has("method") ? request.getString("method").toUpperCase() : "GET";
+      SimulatedResponse response = dispatch(method, path, parameters);
+
+      JsonObject contentType = new JsonObject();
+      contentType.put("name", "Content-Type");
+      contentType.put("value", CONTENT_TYPE);
+
+      JsonObject batchResponse = new JsonObject();
+      batchResponse.put("code", response.statusCode);
+      batchResponse.put("headers", new JsonArray().put(contentType));
+      batchResponse.put("body", response.body);
+      responses.put(batchResponse);
+    }
+
+    return new SimulatedResponse(HTTP_OK, responses.toString());
+  }
+
+  /**
+   * Builds Facebook's error for an ID that doesn't exist.
+   * 
+   * @param id
+   *          The ID.
+   * @return The error response.
+   */
+  private static SimulatedResponse unknownObject(String id) {
+    return error(HTTP_BAD_REQUEST, "OAuthException", 803, "(#803) Some of the aliases you requested do not exist: "
+        + id);
+  }
+
+  /**
+   * Builds a Graph API error response.
+   * 
+   * @param statusCode
+   *          HTTP status code.
+   * @param type
+   *          Error type, e.g. {@code OAuthException}.
+   * @param code
+   *          Facebook error code.
+   * @param message
+   *          Error message.
+   * @return The error response.
+   */
+  protected static SimulatedResponse error(int statusCode, String type, int code, String message) {
+    return new SimulatedResponse(statusCode, "{\"error\":{\"message\":" + quote(message) + ",\"type\":" + quote(type)
+        + ",\"code\":" + code + "}}");
+  }
+
+  /**
+   * Parses URL-encoded parameters.
+   * 
+   * @param encoded
+   *          A query string or form body.
+   * @param parameters
+   *          Where to put the parameters.
+   */
+  private static void parseParameters(String encoded, Map<String, String> parameters) {
+    if (encoded == null || encoded.length() == 0)
+      return;
+
+    try {
+      for (String pair : encoded.split("&")) {
+        int equals = pair.indexOf('=');
+        if (equals < 0)
+          parameters.put(URLDecoder.decode(pair, "UTF-8"), "");
+        else
+          parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("Platform doesn't support UTF-8", e);
+    }
+  }
+
+  /**
+   * A simulated response.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  protected static class SimulatedResponse {
+    /**
+     * HTTP status code.
+     */
+    final int statusCode;
+
+    /**
+     * Response body.
+     */
+    final String body;
+
+    /**
+     * Creates a response.
+     * 
+     * @param statusCode
+     *          HTTP status code.
+     * @param body
+     *          Response body.
+     */
+    SimulatedResponse(int statusCode, String body) {
+      this.statusCode = statusCode;
+      this.body = body;
+    }
+  }
+
+  /**
+   * Adapts HTTP exchanges to {@link GraphSimulator#handle(String, String, Map)}.
+   * 
+   * @author <a href="http://restfb.com">Mark Allen</a>
+   */
+  private class Handler implements HttpHandler {
+    /**
+     * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      requestCount.incrementAndGet();
+
+      try {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+
+        if ("POST".equals(exchange.getRequestMethod())) {
+          String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+          if (contentType != null && contentType.startsWith("multipart/")) {
+            respond(exchange, error(HTTP_BAD_REQUEST, "OAuthException", 100,
+              "(#100) The simulator doesn't support file uploads"));
+            return;
+          }
+
+          parseParameters(read(exchange.getRequestBody()), parameters);
+        }
+
+        respond(exchange,
+          GraphSimulator.this.handle(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), parameters));
+      } catch (RuntimeException e) {
+        if (logger.isLoggable(WARNING))
+          logger.warning("Simulator failed to answer " + exchange.getRequestURI() + ": " + e);
+
+        respond(exchange, error(HttpURLConnection.HTTP_INTERNAL_ERROR, "OAuthException", 1,
+          "An unknown error has occurred."));
+      } finally {
+        exchange.close();
+      }
+    }
+
+    /**
+     * Sends a response.
+     * 
+     * @param exchange
+     *          The HTTP exchange.
+     * @param response
+     *          The response to send.
+     * @throws IOException
+     *           If the response can't be sent.
+     */
+    private void respond(HttpExchange exchange, SimulatedResponse response) throws IOException {
+      byte[] body = response.body.getBytes(StringUtils.ENCODING_CHARSET);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(response.statusCode, body.length == 0 ? -1 : body.length);
+
+      OutputStream outputStream = exchange.getResponseBody();
+      outputStream.write(body);
+      outputStream.close();
+    }
+
+    /**
+     * Reads a request body.
+     * 
+     * @param inputStream
+     *          The body.
+     * @return The body as text.
+     * @throws IOException
+     *           If the body can't be read.
+     */
+    private String read(InputStream inputStream) throws IOException {
+      return StringUtils.fromInputStream(inputStream);
+    }
+  }
+}
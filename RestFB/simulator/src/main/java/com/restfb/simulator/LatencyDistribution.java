@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.simulator;
+
+import java.util.Random;
+
+/**
+ * How long a {@link GraphSimulator} takes to answer each request.
+ * <p>
+ * Distributions draw from the simulator's seeded {@link Random}, so a run with
+ * the same seed and request order sees the same latencies.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ * @since 1.6.8
+ */
+public abstract class LatencyDistribution {
+  /**
+   * Answers immediately.
+   */
+  public static final LatencyDistribution NONE = fixed(0);
+
+  /**
+   * Draws the next latency.
+   * 
+   * @param random
+   *          Source of randomness.
+   * @return Latency in milliseconds, never negative.
+   */
+  public abstract long nextMillis(Random random);
+
+  /**
+   * Every request takes the same time.
+   * 
+   * @param millis
+   *          Latency in milliseconds.
+   * @return The distribution.
+   * @throws IllegalArgumentException
+   *           If {@code millis} is negative.
+   */
+  public static LatencyDistribution fixed(final long millis) {
+    if (millis < 0)
+      throw new IllegalArgumentException("Latency can't be negative.");
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextMillis(Random random) {
+        return millis;
+      }
+
+      @Override
+      public String toString() {
+        return "fixed(" + millis + "ms)";
+      }
+    };
+  }
+
+  /**
+   * Latencies are spread evenly between a minimum and maximum.
+   * 
+   * @param minMillis
+   *          Shortest latency in milliseconds.
+   * @param maxMillis
+   *          Longest latency in milliseconds.
+   * @return The distribution.
+   * @throws IllegalArgumentException
+   *           If the bounds are negative or out of order.
+   */
+  public static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+    if (minMillis < 0 || maxMillis < minMillis)
+      throw new IllegalArgumentException("Latency bounds must satisfy 0 <= min <= max.");
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextMillis(Random random) {
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+      }
+
+      @Override
+      public String toString() {
+        return "uniform(" + minMillis + "-" + maxMillis + "ms)";
+      }
+    };
+  }
+
+  /**
+   * Latencies follow a log-normal distribution, the usual shape of real
+   * network latencies: most requests are close to the median, with a long
+   * tail.
+   * 
+   * @param medianMillis
+   *          Median latency in milliseconds.
+   * @param p99Millis
+   *          99th percentile latency in milliseconds.
+   * @return The distribution.
+   * @throws IllegalArgumentException
+   *           If the median isn't positive or the 99th percentile is below it.
+   */
+  public static LatencyDistribution logNormal(final long medianMillis, final long p99Millis) {
+    if (medianMillis <= 0 || p99Millis < medianMillis)
+      throw new IllegalArgumentException("Latencies must satisfy 0 < median <= p99.");
+
+    // The 99th percentile of a standard normal distribution
+    final double sigma = Math.log((double) p99Millis / medianMillis) / 2.3263;
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextMillis(Random random) {
+        return Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+      }
+
+      @Override
+      public String toString() {
+        return "logNormal(median " + medianMillis + "ms, p99 " + p99Millis + "ms)";
+      }
+    };
+  }
+}
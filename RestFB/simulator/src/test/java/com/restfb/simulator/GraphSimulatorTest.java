@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2010-2011 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.restfb.simulator;
+
+import static java.util.Arrays.asList;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.restfb.BinaryAttachment;
+import com.restfb.Connection;
+import com.restfb.DefaultFacebookClient;
+import com.restfb.DefaultJsonMapper;
+import com.restfb.FacebookClient;
+import com.restfb.Parameter;
+import com.restfb.batch.BatchRequest.BatchRequestBuilder;
+import com.restfb.batch.BatchResponse;
+import com.restfb.exception.FacebookGraphException;
+import com.restfb.exception.FacebookNetworkException;
+import com.restfb.exception.FacebookOAuthException;
+import com.restfb.types.FacebookType;
+import com.restfb.types.Post;
+import com.restfb.types.User;
+
+/**
+ * Unit tests that exercise {@link GraphSimulator} through {@link DefaultFacebookClient}.
+ * 
+ * @author <a href="http://restfb.com">Mark Allen</a>
+ */
+public class GraphSimulatorTest {
+  private GraphSimulator simulator;
+  private FacebookClient facebookClient;
+
+  @Before
+  public void startSimulator() throws Exception {
+    simulator = new GraphSimulator(42);
+    simulator.putObject("me", "{\"id\":\"1\",\"name\":\"Test User\"}");
+
+    List<String> feed = new ArrayList<String>();
+    for (int i = 0; i < 60; i++)
+      feed.add("{\"id\":\"1_" + i + "\",\"message\":\"Post " + i + "\"}");
+    simulator.putConnection("me", "feed", feed);
+
+    simulator.start();
+    facebookClient = new DefaultFacebookClient("token", simulator.createWebRequestor(), new DefaultJsonMapper());
+  }
+
+  @After
+  public void stopSimulator() {
+    simulator.stop();
+  }
+
+  /**
+   * Objects are served by ID.
+   */
+  @Test
+  public void fetchObject() {
+    assertEquals("Test User", facebookClient.fetchObject("me", User.class).getName());
+
+    try {
+      facebookClient.fetchObject("nobody", User.class);
+      fail("Unknown IDs should fail");
+    } catch (FacebookOAuthException e) {
+      assertTrue(e.getErrorMessage().startsWith("(#803)"));
+    }
+  }
+
+  /**
+   * Connections are paged, and {@code paging.next} URLs lead back to the simulator.
+   */
+  @Test
+  public void pagedConnection() {
+    Connection<Post> feed = facebookClient.fetchConnection("me/feed", Post.class, Parameter.with("limit", 25));
+    List<Integer> pageSizes = new ArrayList<Integer>();
+    int postCount = 0;
+
+    for (List<Post> page : feed) {
+      pageSizes.add(page.size());
+      for (Post post : page)
+        assertEquals("Post " + postCount++, post.getMessage());
+    }
+
+    assertEquals(asList(25, 25, 10), pageSizes);
+    assertEquals(3, simulator.getRequestCount());
+  }
+
+  /**
+   * Published objects go to the front of the connection, and leave it again
+   * when they're deleted.
+   */
+  @Test
+  public void publish() {
+    FacebookType published =
+        facebookClient.publish("me/feed", FacebookType.class, Parameter.with("message", "Hello"));
+
+    assertEquals("Hello", facebookClient.fetchObject(published.getId(), Post.class).getMessage());
+    assertEquals(published.getId(), facebookClient.fetchConnection("me/feed", Post.class).getData().get(0).getId());
+    assertTrue(facebookClient.deleteObject(published.getId()));
+
+    List<Post> feed = facebookClient.fetchConnection("me/feed", Post.class, Parameter.with("limit", 100)).getData();
+    assertEquals(60, feed.size());
+    assertEquals("1_0", feed.get(0).getId());
+  }
+
+  /**
+   * File uploads are rejected without publishing anything.
+   */
+  @Test
+  public void multipartPublish() {
+    try {
+      facebookClient.publish("me/feed", FacebookType.class,
+        BinaryAttachment.with("photo.jpg", new ByteArrayInputStream(new byte[] { 1, 2, 3 })),
+        Parameter.with("message", "Hello"));
+      fail("File uploads should be rejected");
+    } catch (FacebookOAuthException e) {
+      assertTrue(e.getErrorMessage().startsWith("(#100)"));
+    }
+
+    assertEquals(60, facebookClient.fetchConnection("me/feed", Post.class, Parameter.with("limit", 100)).getData()
+      .size());
+  }
+
+  /**
+   * A batch is one HTTP request whose items succeed or fail on their own.
+   */
+  @Test
+  public void batch() {
+    List<BatchResponse> responses =
+        facebookClient.executeBatch(new BatchRequestBuilder("me").build(), new BatchRequestBuilder("me/feed?limit=2")
+          .build(), new BatchRequestBuilder("nobody").build());
+
+    assertEquals(1, simulator.getRequestCount());
+    assertEquals(3, responses.size());
+    assertEquals(Integer.valueOf(200), responses.get(0).getCode());
+    assertTrue(responses.get(0).getBody().contains("Test User"));
+    assertTrue(responses.get(1).getBody().contains("offset=2"));
+    assertEquals(Integer.valueOf(400), responses.get(2).getCode());
+  }
+
+  /**
+   * Requests over the limit get Facebook's throttling error.
+   */
+  @Test
+  public void throttling() {
+    simulator.setThrottle(2, 60000);
+    facebookClient.fetchObject("me", User.class);
+    facebookClient.fetchObject("me", User.class);
+
+    try {
+      facebookClient.fetchObject("me", User.class);
+      fail("Third request should be throttled");
+    } catch (FacebookOAuthException e) {
+      assertEquals("(#4) Application request limit reached", e.getErrorMessage());
+    }
+  }
+
+  /**
+   * Once a burst of server errors starts, it fails the given number of requests.
+   */
+  @Test
+  public void serverErrorBurst() {
+    simulator.setServerErrors(1, 3);
+
+    for (int i = 0; i < 3; i++) {
+      try {
+        facebookClient.fetchObject("me", User.class);
+        fail("Requests should fail during a burst");
+      } catch (FacebookNetworkException e) {
+        assertEquals(Integer.valueOf(503), e.getHttpStatusCode());
+      }
+
+      // Bursts already under way run their course
+      simulator.setServerErrors(0, 1);
+    }
+
+    assertEquals("Test User", facebookClient.fetchObject("me", User.class).getName());
+  }
+
+  /**
+   * Unknown paths get Facebook's error.
+   */
+  @Test
+  public void unknownPath() {
+    try {
+      facebookClient.fetchObject("me/feed/extra", User.class);
+      fail("Unknown paths should fail");
+    } catch (FacebookGraphException e) {
+      assertEquals("OAuthException", e.getErrorType());
+      assertTrue(e.getErrorMessage().startsWith("Unknown path components"));
+    }
+  }
+
+  /**
+   * The same seed draws the same latencies.
+   */
+  @Test
+  public void deterministicLatency() {
+    LatencyDistribution latency = LatencyDistribution.logNormal(50, 400);
+    Random first = new Random(7), second = new Random(7);
+    long total = 0;
+
+    for (int i = 0; i < 1000; i++) {
+      long millis = latency.nextMillis(first);
+      assertEquals(millis, latency.nextMillis(second));
+      assertFalse(millis < 0);
+      total += millis;
+    }
+
+    assertTrue(total > 0);
+  }
+}